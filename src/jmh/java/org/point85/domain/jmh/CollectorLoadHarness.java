@@ -0,0 +1,454 @@
+package org.point85.domain.jmh;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.hibernate.BaseSessionEventListener;
+import org.point85.domain.DomainUtils;
+import org.point85.domain.collector.CollectorService;
+import org.point85.domain.collector.CollectorState;
+import org.point85.domain.collector.DataCollector;
+import org.point85.domain.collector.OeeEvent;
+import org.point85.domain.dto.EquipmentEventRequestDto;
+import org.point85.domain.messaging.EquipmentEventMessage;
+import org.point85.domain.oee.TimeLoss;
+import org.point85.domain.persistence.EntityChangeListener;
+import org.point85.domain.persistence.PersistenceService;
+import org.point85.domain.plant.Area;
+import org.point85.domain.plant.EntitySchedule;
+import org.point85.domain.plant.Enterprise;
+import org.point85.domain.plant.Equipment;
+import org.point85.domain.plant.EquipmentMaterial;
+import org.point85.domain.plant.KeyedObject;
+import org.point85.domain.plant.Material;
+import org.point85.domain.plant.ProductionLine;
+import org.point85.domain.plant.Reason;
+import org.point85.domain.plant.Site;
+import org.point85.domain.plant.WorkCell;
+import org.point85.domain.schedule.WorkSchedule;
+import org.point85.domain.script.EventResolver;
+import org.point85.domain.script.OeeEventType;
+import org.point85.domain.script.ResolverFunction;
+import org.point85.domain.uom.MeasurementSystem;
+import org.point85.domain.uom.Quantity;
+import org.point85.domain.uom.Unit;
+import org.point85.domain.uom.UnitOfMeasure;
+import org.point85.domain.uom.UnitType;
+
+/**
+ * End-to-end load harness for a {@link CollectorService}. An enterprise to
+ * equipment hierarchy with availability and production resolvers and a work
+ * schedule is created in an in-memory HSQLDB database. Synthetic equipment
+ * events are then sent to the HTTP or MQTT callback at a fixed rate, and the
+ * time from submission to the commit of the resolved event is recorded.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * java -cp "target/*:target/lib/*" org.point85.domain.jmh.CollectorLoadHarness [--rate events/sec]
+ *     [--equipment count] [--duration sec] [--warmup sec] [--transport http|mqtt]
+ * </pre>
+ *
+ * Each equipment has two source ids so the source id cardinality is twice the
+ * equipment count. The report has the throughput, p50, p99 and maximum
+ * latency, GC collections and pause time, and the JDBC and flush time measured
+ * by a Hibernate session event listener.
+ *
+ */
+public final class CollectorLoadHarness {
+	// source ids per equipment, availability then production
+	private static final String AVAILABILITY_SOURCE = ".State";
+	private static final String PRODUCTION_SOURCE = ".Count";
+
+	// time to wait for in-flight events at the end (sec)
+	private static final long DRAIN_SEC = 30;
+
+	private int rate = 200;
+	private int equipmentCount = 10;
+	private int durationSec = 30;
+	private int warmupSec = 5;
+	private String transport = "http";
+
+	private CollectorService collector;
+	private String[] sourceIds;
+
+	// submission time by sequence number, cleared when committed
+	private AtomicLongArray submitted;
+
+	// latencies of committed events after the warm-up (nsec)
+	private long[] latencies;
+	private final AtomicLong latencyCount = new AtomicLong();
+	private final LongAdder committed = new LongAdder();
+	private volatile long lastCommit;
+
+	// first measured sequence number
+	private int firstMeasured;
+
+	// an event's time is this time plus its sequence number in msec
+	private OffsetDateTime baseTime;
+
+	/**
+	 * Accumulates JDBC statement and flush time for all sessions
+	 */
+	public static class SessionTimer extends BaseSessionEventListener {
+		private static final long serialVersionUID = -2262546306290613337L;
+
+		static final LongAdder jdbcNanos = new LongAdder();
+		static final LongAdder flushNanos = new LongAdder();
+		static final LongAdder statements = new LongAdder();
+
+		private long jdbcStart;
+		private long flushStart;
+
+		@Override
+		public void jdbcPrepareStatementStart() {
+			jdbcStart = System.nanoTime();
+		}
+
+		@Override
+		public void jdbcPrepareStatementEnd() {
+			jdbcNanos.add(System.nanoTime() - jdbcStart);
+		}
+
+		@Override
+		public void jdbcExecuteStatementStart() {
+			jdbcStart = System.nanoTime();
+		}
+
+		@Override
+		public void jdbcExecuteStatementEnd() {
+			jdbcNanos.add(System.nanoTime() - jdbcStart);
+			statements.increment();
+		}
+
+		@Override
+		public void jdbcExecuteBatchStart() {
+			jdbcStart = System.nanoTime();
+		}
+
+		@Override
+		public void jdbcExecuteBatchEnd() {
+			jdbcNanos.add(System.nanoTime() - jdbcStart);
+			statements.increment();
+		}
+
+		@Override
+		public void flushStart() {
+			flushStart = System.nanoTime();
+		}
+
+		@Override
+		public void flushEnd(int numberOfEntities, int numberOfCollections) {
+			flushNanos.add(System.nanoTime() - flushStart);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		CollectorLoadHarness harness = new CollectorLoadHarness();
+		harness.parseArguments(args);
+		harness.run();
+		System.exit(0);
+	}
+
+	private void parseArguments(String[] args) {
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			String value = args[i + 1];
+
+			switch (args[i]) {
+			case "--rate":
+				rate = Integer.parseInt(value);
+				break;
+			case "--equipment":
+				equipmentCount = Integer.parseInt(value);
+				break;
+			case "--duration":
+				durationSec = Integer.parseInt(value);
+				break;
+			case "--warmup":
+				warmupSec = Integer.parseInt(value);
+				break;
+			case "--transport":
+				transport = value.toLowerCase();
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+
+		if (rate <= 0 || equipmentCount <= 0 || durationSec <= 0) {
+			throw new IllegalArgumentException("The rate, equipment count and duration must be positive");
+		}
+	}
+
+	private void run() throws Exception {
+		// schema and per-session timing from Hibernate
+		System.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+		System.setProperty("hibernate.session.events.auto", SessionTimer.class.getName());
+		PersistenceService.instance().initialize("jdbc:hsqldb:mem:oee-load", "SA", "");
+
+		long start = System.nanoTime();
+		createPlant();
+		System.out.println("Created " + equipmentCount + " equipment with " + sourceIds.length + " source ids in "
+				+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " msec");
+
+		int total = rate * (warmupSec + durationSec);
+		firstMeasured = rate * warmupSec;
+		submitted = new AtomicLongArray(total);
+		latencies = new long[total - firstMeasured];
+
+		PersistenceService.instance().addEntityChangeListener(new CommitListener());
+
+		collector = new CollectorService();
+		baseTime = OffsetDateTime.now().withNano(0);
+
+		// load the plant entities' lazy collections before they are shared by the
+		// worker threads
+		prime();
+
+		// warm up then measure
+		generate(0, firstMeasured);
+
+		long gcCount = getGcCount();
+		long gcMsec = getGcTime();
+		long jdbcNanos = SessionTimer.jdbcNanos.sum();
+		long flushNanos = SessionTimer.flushNanos.sum();
+		long statements = SessionTimer.statements.sum();
+		long committedStart = committed.sum();
+		start = System.nanoTime();
+
+		generate(firstMeasured, total);
+
+		// wait for the rest to commit
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_SEC);
+		while (committed.sum() < total && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		long elapsed = lastCommit - start;
+		long windowCommits = committed.sum() - committedStart;
+
+		collector.shutdown();
+
+		report(elapsed, windowCommits, total - firstMeasured, getGcCount() - gcCount, getGcTime() - gcMsec,
+				SessionTimer.jdbcNanos.sum() - jdbcNanos, SessionTimer.flushNanos.sum() - flushNanos,
+				SessionTimer.statements.sum() - statements);
+	}
+
+	// send events from sequence number 'from' to 'to' at the configured rate
+	private void generate(int from, int to) throws Exception {
+		long period = TimeUnit.SECONDS.toNanos(1) / rate;
+		long next = System.nanoTime();
+
+		for (int seq = from; seq < to; seq++) {
+			long wait = next - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			next += period;
+
+			String sourceId = sourceIds[seq % sourceIds.length];
+			String value = String.valueOf(seq);
+			String timestamp = toTimestamp(seq);
+
+			submitted.set(seq, System.nanoTime());
+
+			if (transport.equals("mqtt")) {
+				collector.onMqttMessage(new EquipmentEventMessage(sourceId, value, timestamp));
+			} else {
+				EquipmentEventRequestDto dto = new EquipmentEventRequestDto();
+				dto.setSourceId(sourceId);
+				dto.setValue(value);
+				dto.setTimestamp(timestamp);
+				collector.onHttpEquipmentEvent(dto);
+			}
+		}
+	}
+
+	// one unmeasured event per source id on this thread
+	private void prime() throws Exception {
+		for (int i = 0; i < sourceIds.length; i++) {
+			EquipmentEventRequestDto dto = new EquipmentEventRequestDto();
+			dto.setSourceId(sourceIds[i]);
+			dto.setValue("0");
+			dto.setTimestamp(toTimestamp(i - sourceIds.length));
+			dto.setImmediate(true);
+			collector.onHttpEquipmentEvent(dto);
+		}
+	}
+
+	private String toTimestamp(int seq) {
+		return DomainUtils.offsetDateTimeToString(baseTime.plusNanos(TimeUnit.MILLISECONDS.toNanos(seq)),
+				DomainUtils.OFFSET_DATE_TIME_8601);
+	}
+
+	// the event's start time gives its sequence number
+	private class CommitListener implements EntityChangeListener {
+		@Override
+		public void onEntityChange(KeyedObject entity, boolean deleted) {
+			if (deleted || !(entity instanceof OeeEvent)) {
+				return;
+			}
+
+			OffsetDateTime startTime = ((OeeEvent) entity).getStartTime();
+			int seq = (int) Duration.between(baseTime, startTime).toMillis();
+
+			if (seq < 0 || seq >= submitted.length()) {
+				return;
+			}
+			long sent = submitted.getAndSet(seq, 0);
+
+			if (sent == 0) {
+				// a previous event that was closed off
+				return;
+			}
+			committed.increment();
+
+			if (seq >= firstMeasured) {
+				long now = System.nanoTime();
+				latencies[(int) latencyCount.getAndIncrement()] = now - sent;
+				lastCommit = now;
+			}
+		}
+	}
+
+	// the JDBC time is divided by all commits in the window, including warm-up
+	// events that were still in flight
+	private void report(long elapsedNanos, long windowCommits, int sent, long gcCount, long gcMsec, long jdbcNanos,
+			long flushNanos, long statements) {
+		int count = (int) latencyCount.get();
+		long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+
+		double seconds = elapsedNanos / 1.0e9d;
+
+		System.out.println();
+		System.out.println("Transport:         " + transport);
+		System.out.println("Offered rate:      " + rate + " events/sec for " + durationSec + " sec");
+		System.out.println("Committed:         " + count + " of " + sent);
+		System.out.println(String.format("Throughput:        %.1f events/sec", count / seconds));
+
+		if (count > 0) {
+			System.out.println(String.format("Latency p50/p99:   %.2f / %.2f msec", percentile(sorted, 0.50d),
+					percentile(sorted, 0.99d)));
+			System.out.println(String.format("Latency max:       %.2f msec", sorted[count - 1] / 1.0e6d));
+		}
+		System.out.println("GC:                " + gcCount + " collections, " + gcMsec + " msec");
+		System.out.println(String.format("DB time:           %.1f msec JDBC in %d statements, %.1f msec flushing",
+				jdbcNanos / 1.0e6d, statements, flushNanos / 1.0e6d));
+		System.out.println(String.format("DB time per event: %.3f msec",
+				windowCommits > 0 ? jdbcNanos / 1.0e6d / windowCommits : 0.0d));
+	}
+
+	private static double percentile(long[] sorted, double fraction) {
+		int index = (int) Math.ceil(fraction * sorted.length) - 1;
+		return sorted[Math.max(index, 0)] / 1.0e6d;
+	}
+
+	private static long getGcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(bean.getCollectionCount(), 0);
+		}
+		return count;
+	}
+
+	private static long getGcTime() {
+		long msec = 0;
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			msec += Math.max(bean.getCollectionTime(), 0);
+		}
+		return msec;
+	}
+
+	// enterprise, site, area and line with one work cell of equipment
+	private void createPlant() throws Exception {
+		PersistenceService persistence = PersistenceService.instance();
+
+		WorkSchedule schedule = (WorkSchedule) persistence.save(PlantFixture.createWorkSchedule());
+
+		DataCollector dataCollector = new DataCollector("Load", "Load harness collector");
+		dataCollector.setHost("localhost");
+		dataCollector.setCollectorState(CollectorState.RUNNING);
+		dataCollector = (DataCollector) persistence.save(dataCollector);
+
+		MeasurementSystem sys = MeasurementSystem.instance();
+		UnitOfMeasure bottle = sys.createScalarUOM(UnitType.UNCLASSIFIED, "bottle", "bottle", "a bottle");
+		UnitOfMeasure bpm = (UnitOfMeasure) persistence.save(sys.createQuotientUOM(UnitType.UNCLASSIFIED,
+				"bottles per min", "bpm", "bottles per minute", bottle, sys.getUOM(Unit.MINUTE)));
+
+		Material material = (Material) persistence.save(new Material("Cola 12 oz", "Cola in 12 oz bottles"));
+
+		Reason reason = new Reason("Running", "Running normally");
+		reason.setLossCategory(TimeLoss.NO_LOSS);
+		persistence.save(reason);
+
+		reason = new Reason("Jam", "Bottle jam at the infeed");
+		reason.setLossCategory(TimeLoss.UNPLANNED_DOWNTIME);
+		persistence.save(reason);
+
+		Enterprise enterprise = new Enterprise("Beverages", "Beverage company");
+		Site site = new Site("Plant 1", "Bottling plant");
+		Area area = new Area("Filling", "Filling area");
+		ProductionLine line = new ProductionLine("Line 1", "Bottling line");
+		WorkCell cell = new WorkCell("Fillers", "Filling work cell");
+
+		enterprise.addChild(site);
+		site.addChild(area);
+		area.addChild(line);
+		line.addChild(cell);
+
+		LocalDateTime now = LocalDateTime.now();
+		enterprise.addEntitySchedule(new EntitySchedule(enterprise, schedule, now.minusDays(7), now.plusDays(365)));
+
+		String availabilityScript = ResolverFunction
+				.functionFromBody("return parseInt(value) % 10 == 9 ? \"Jam\" : \"Running\";");
+		String productionScript = ResolverFunction.functionFromBody("return 10;");
+
+		List<String> ids = new ArrayList<>();
+
+		for (int i = 0; i < equipmentCount; i++) {
+			Equipment equipment = new Equipment("Filler " + i, "Bottle filler " + i);
+
+			EquipmentMaterial eqm = new EquipmentMaterial(equipment, material);
+			eqm.setRunRate(new Quantity(100.0d, bpm));
+			eqm.setRejectUOM(bpm.getDividend());
+			equipment.addEquipmentMaterial(eqm);
+
+			String prefix = "ns=2;s=Filler" + i;
+			equipment.addScriptResolver(
+					createResolver(dataCollector, prefix + AVAILABILITY_SOURCE, OeeEventType.AVAILABILITY,
+							availabilityScript));
+			equipment.addScriptResolver(
+					createResolver(dataCollector, prefix + PRODUCTION_SOURCE, OeeEventType.PROD_GOOD,
+							productionScript));
+
+			ids.add(prefix + AVAILABILITY_SOURCE);
+			ids.add(prefix + PRODUCTION_SOURCE);
+
+			cell.addChild(equipment);
+		}
+
+		persistence.save(enterprise);
+		sourceIds = ids.toArray(new String[0]);
+	}
+
+	private EventResolver createResolver(DataCollector dataCollector, String sourceId, OeeEventType type,
+			String script) {
+		EventResolver resolver = new EventResolver();
+		resolver.setCollector(dataCollector);
+		resolver.setSourceId(sourceId);
+		resolver.setType(type);
+		resolver.setScript(script);
+		return resolver;
+	}
+}
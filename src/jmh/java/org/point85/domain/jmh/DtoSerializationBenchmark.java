@@ -0,0 +1,81 @@
+package org.point85.domain.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.point85.domain.collector.OeeEvent;
+import org.point85.domain.dto.EquipmentEventRequestDto;
+import org.point85.domain.dto.OeeEventDto;
+import org.point85.domain.dto.OeeEventsResponseDto;
+import org.point85.domain.persistence.PersistenceService;
+import org.point85.domain.plant.Equipment;
+
+import com.google.gson.Gson;
+
+/**
+ * Gson cost of the HTTP event request and of an /events response page built
+ * from the fixture's availability events.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DtoSerializationBenchmark {
+	private final Gson gson = new Gson();
+
+	private OeeEventsResponseDto eventsResponse;
+	private String eventsJson;
+	private String requestJson;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		Equipment equipment = PlantFixture.instance().getEquipment();
+
+		List<OeeEventDto> dtos = new ArrayList<>();
+		for (OeeEvent event : PersistenceService.instance().fetchAvailability(equipment, PlantFixture.DAY_START,
+				PlantFixture.DAY_START.plusHours(16))) {
+			dtos.add(new OeeEventDto(event));
+		}
+		eventsResponse = new OeeEventsResponseDto(dtos);
+		eventsJson = gson.toJson(eventsResponse);
+
+		EquipmentEventRequestDto request = new EquipmentEventRequestDto();
+		request.setSourceId("ns=2;s=Filler1.State");
+		request.setEquipmentName(equipment.getName());
+		request.setValue("3");
+		request.setTimestamp("2024-03-04T08:15:30.125Z");
+		requestJson = gson.toJson(request);
+
+		System.out.println("\n" + dtos.size() + " events: " + eventsJson.length() + " chars");
+	}
+
+	@Benchmark
+	public String writeEvents() {
+		return gson.toJson(eventsResponse);
+	}
+
+	@Benchmark
+	public OeeEventsResponseDto readEvents() {
+		return gson.fromJson(eventsJson, OeeEventsResponseDto.class);
+	}
+
+	@Benchmark
+	public EquipmentEventRequestDto readEventRequest() {
+		return gson.fromJson(requestJson, EquipmentEventRequestDto.class);
+	}
+}
@@ -0,0 +1,60 @@
+package org.point85.domain.jmh;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.point85.domain.oee.EquipmentLoss;
+import org.point85.domain.oee.EquipmentLossManager;
+import org.point85.domain.plant.Equipment;
+
+/**
+ * OEE loss calculation for one equipment over a shift and a day, including the
+ * setup, production and availability queries against the HSQLDB fixture.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EquipmentLossBenchmark {
+	private Equipment equipment;
+
+	private OffsetDateTime start;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		equipment = PlantFixture.instance().getEquipment();
+		start = PlantFixture.DAY_START;
+
+		EquipmentLoss loss = shiftLoss();
+		System.out.println("\nShift OEE: " + loss.calculateOeePercentage() + "%, " + loss.getEventRecords().size()
+				+ " events");
+	}
+
+	@Benchmark
+	public EquipmentLoss shiftLoss() throws Exception {
+		EquipmentLoss loss = new EquipmentLoss(equipment);
+		EquipmentLossManager.buildLoss(loss, null, start, start.plusHours(8));
+		return loss;
+	}
+
+	@Benchmark
+	public EquipmentLoss dayLoss() throws Exception {
+		EquipmentLoss loss = new EquipmentLoss(equipment);
+		EquipmentLossManager.buildLoss(loss, null, start, start.plusHours(24));
+		return loss;
+	}
+}
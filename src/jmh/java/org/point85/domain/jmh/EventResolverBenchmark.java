@@ -0,0 +1,60 @@
+package org.point85.domain.jmh;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.point85.domain.collector.OeeEvent;
+import org.point85.domain.plant.EquipmentEventResolver;
+import org.point85.domain.script.EventResolver;
+import org.point85.domain.script.OeeContext;
+import org.point85.domain.script.OeeEventType;
+import org.point85.domain.script.ResolverFunction;
+
+/**
+ * Script execution and event resolution for an availability state code. The
+ * resolved reason comes from the resolver's cache after the first invocation.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventResolverBenchmark {
+	private final EquipmentEventResolver equipmentResolver = new EquipmentEventResolver();
+	private final OeeContext context = new OeeContext();
+
+	private EventResolver availability;
+	private OffsetDateTime eventTime;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		PlantFixture fixture = PlantFixture.instance();
+
+		availability = new EventResolver();
+		availability.setSourceId("ns=2;s=Filler1.State");
+		availability.setType(OeeEventType.AVAILABILITY);
+		availability.setPlantEntity(fixture.getEquipment());
+		availability.setScript(ResolverFunction.functionFromBody("return value == 3 ? \"Jam\" : \"Running\";"));
+
+		eventTime = PlantFixture.DAY_START.plusHours(2);
+	}
+
+	@Benchmark
+	public OeeEvent resolveAvailability() throws Exception {
+		availability.setLastValue(null);
+		return equipmentResolver.invokeResolver(availability, context, 3, eventTime);
+	}
+}
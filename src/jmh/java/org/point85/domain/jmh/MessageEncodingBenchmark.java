@@ -0,0 +1,110 @@
+package org.point85.domain.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.point85.domain.messaging.ApplicationMessage;
+import org.point85.domain.messaging.BaseMessagingClient;
+import org.point85.domain.messaging.CollectorResolvedEventMessage;
+import org.point85.domain.messaging.EquipmentEventMessage;
+import org.point85.domain.messaging.MessageType;
+import org.point85.domain.messaging.WireFormat;
+import org.point85.domain.oee.TimeLoss;
+import org.point85.domain.script.OeeEventType;
+
+/**
+ * Encode and decode cost of the JSON, Smile and CBOR wire formats. The payload
+ * sizes are printed at setup.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageEncodingBenchmark {
+	@Param({ "JSON", "SMILE", "CBOR" })
+	private WireFormat format;
+
+	private final Codec codec = new Codec();
+
+	private CollectorResolvedEventMessage resolvedEvent;
+	private EquipmentEventMessage equipmentEvent;
+
+	private byte[] resolvedPayload;
+	private byte[] equipmentPayload;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		resolvedEvent = new CollectorResolvedEventMessage("collector-host-01", "10.20.30.40");
+		resolvedEvent.setSenderId("Line 1 Collector");
+		resolvedEvent.setTimestamp("2024-03-01T08:15:30.125-08:00");
+		resolvedEvent.setEquipmentName("Filler 1");
+		resolvedEvent.setResolverType(OeeEventType.AVAILABILITY);
+		resolvedEvent.setReasonName("Jam");
+		resolvedEvent.setReasonDescription("Bottle jam at the infeed star wheel");
+		resolvedEvent.setLoss(TimeLoss.UNPLANNED_DOWNTIME);
+		resolvedEvent.setMaterialName("Cola 12 oz");
+		resolvedEvent.setMaterialDescription("Cola in 12 ounce glass bottles");
+		resolvedEvent.setJob("JOB-2024-0301-A");
+		resolvedEvent.setAmount(12.0d);
+		resolvedEvent.setUomSymbol("bottle");
+		resolvedEvent.setOeeEventKey(123456789L);
+
+		equipmentEvent = new EquipmentEventMessage("ns=2;s=Line1.Filler1.State", "3",
+				"2024-03-01T08:15:30.125-08:00");
+
+		resolvedPayload = codec.encode(resolvedEvent, format);
+		equipmentPayload = codec.encode(equipmentEvent, format);
+
+		System.out.println("\n" + format + " payload bytes: resolved event " + resolvedPayload.length
+				+ ", equipment event " + equipmentPayload.length);
+	}
+
+	@Benchmark
+	public byte[] encodeResolvedEvent() throws Exception {
+		resolvedEvent.clearEncodedPayload();
+		return codec.encode(resolvedEvent, format);
+	}
+
+	@Benchmark
+	public ApplicationMessage decodeResolvedEvent() throws Exception {
+		return codec.decode(MessageType.RESOLVED_EVENT, resolvedPayload, format);
+	}
+
+	@Benchmark
+	public byte[] encodeEquipmentEvent() throws Exception {
+		equipmentEvent.clearEncodedPayload();
+		return codec.encode(equipmentEvent, format);
+	}
+
+	@Benchmark
+	public ApplicationMessage decodeEquipmentEvent() throws Exception {
+		return codec.decode(MessageType.EQUIPMENT_EVENT, equipmentPayload, format);
+	}
+
+	// exposes the client's encoder
+	private static class Codec extends BaseMessagingClient {
+		@Override
+		public byte[] encode(ApplicationMessage message, WireFormat format) throws Exception {
+			return super.encode(message, format);
+		}
+
+		@Override
+		public ApplicationMessage decode(MessageType type, byte[] payload, WireFormat format) throws Exception {
+			return super.decode(type, payload, format);
+		}
+	}
+}
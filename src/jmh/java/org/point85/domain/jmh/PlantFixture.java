@@ -0,0 +1,183 @@
+package org.point85.domain.jmh;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.point85.domain.collector.OeeEvent;
+import org.point85.domain.oee.TimeLoss;
+import org.point85.domain.persistence.PersistenceService;
+import org.point85.domain.plant.EntitySchedule;
+import org.point85.domain.plant.Equipment;
+import org.point85.domain.plant.EquipmentMaterial;
+import org.point85.domain.plant.KeyedObject;
+import org.point85.domain.plant.Material;
+import org.point85.domain.plant.Reason;
+import org.point85.domain.schedule.Rotation;
+import org.point85.domain.schedule.Shift;
+import org.point85.domain.schedule.WorkSchedule;
+import org.point85.domain.script.OeeEventType;
+import org.point85.domain.uom.MeasurementSystem;
+import org.point85.domain.uom.Quantity;
+import org.point85.domain.uom.Unit;
+import org.point85.domain.uom.UnitOfMeasure;
+import org.point85.domain.uom.UnitType;
+
+/**
+ * A filler with a two shift work schedule, one material and a day of
+ * availability and production events in an in-memory HSQLDB database. The
+ * schema is created by Hibernate when the fixture is first used.
+ *
+ */
+final class PlantFixture {
+	// start of the recorded day
+	static final OffsetDateTime DAY_START = OffsetDateTime.of(2024, 3, 4, 6, 0, 0, 0, ZoneOffset.UTC);
+
+	// availability event period (min)
+	private static final int AVAILABILITY_MIN = 5;
+
+	// production event period (min)
+	private static final int PRODUCTION_MIN = 15;
+
+	private static PlantFixture fixture;
+
+	private final WorkSchedule workSchedule;
+	private final Equipment equipment;
+	private final Material material;
+	private final Reason running;
+	private final Reason jam;
+	private final UnitOfMeasure bottle;
+
+	private PlantFixture() throws Exception {
+		// let Hibernate create the schema
+		System.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+		PersistenceService.instance().initialize("jdbc:hsqldb:mem:oee-jmh", "SA", "");
+
+		workSchedule = (WorkSchedule) PersistenceService.instance().save(createWorkSchedule());
+
+		// bottles per minute design speed
+		MeasurementSystem sys = MeasurementSystem.instance();
+		UnitOfMeasure bottleUom = sys.createScalarUOM(UnitType.UNCLASSIFIED, "bottle", "bottle", "a bottle");
+		UnitOfMeasure bpm = sys.createQuotientUOM(UnitType.UNCLASSIFIED, "bottles per min", "bpm",
+				"bottles per minute", bottleUom, sys.getUOM(Unit.MINUTE));
+		bpm = (UnitOfMeasure) PersistenceService.instance().save(bpm);
+		bottle = bpm.getDividend();
+
+		material = (Material) PersistenceService.instance().save(new Material("Cola 12 oz", "Cola in 12 oz bottles"));
+
+		Reason reason = new Reason("Running", "Running normally");
+		reason.setLossCategory(TimeLoss.NO_LOSS);
+		running = (Reason) PersistenceService.instance().save(reason);
+
+		reason = new Reason("Jam", "Bottle jam at the infeed");
+		reason.setLossCategory(TimeLoss.UNPLANNED_DOWNTIME);
+		jam = (Reason) PersistenceService.instance().save(reason);
+
+		Equipment filler = new Equipment("Filler 1", "Bottle filler");
+
+		EquipmentMaterial eqm = new EquipmentMaterial(filler, material);
+		eqm.setRunRate(new Quantity(100.0d, bpm));
+		eqm.setRejectUOM(bottle);
+		filler.addEquipmentMaterial(eqm);
+
+		LocalDateTime effective = DAY_START.toLocalDateTime();
+		filler.addEntitySchedule(
+				new EntitySchedule(filler, workSchedule, effective.minusDays(30), effective.plusDays(365)));
+
+		equipment = (Equipment) PersistenceService.instance().save(filler);
+
+		PersistenceService.instance().save(createEvents());
+	}
+
+	/**
+	 * Get the fixture, creating the database on first use
+	 *
+	 * @return {@link PlantFixture}
+	 * @throws Exception Exception
+	 */
+	static synchronized PlantFixture instance() throws Exception {
+		if (fixture == null) {
+			fixture = new PlantFixture();
+		}
+		return fixture;
+	}
+
+	// two 8 hour shifts, five days on and two days off
+	static WorkSchedule createWorkSchedule() throws Exception {
+		WorkSchedule schedule = new WorkSchedule("Filling", "Two 8 hr shifts, 5 days on and 2 off");
+
+		Shift day = schedule.createShift("Day", "Day shift", LocalTime.of(6, 0), Duration.ofHours(8));
+		Shift swing = schedule.createShift("Swing", "Swing shift", LocalTime.of(14, 0), Duration.ofHours(8));
+
+		Rotation dayRotation = schedule.createRotation("Day", "Day rotation");
+		dayRotation.addSegment(day, 5, 2);
+
+		Rotation swingRotation = schedule.createRotation("Swing", "Swing rotation");
+		swingRotation.addSegment(swing, 5, 2);
+
+		LocalDate rotationStart = LocalDate.of(2024, 1, 1);
+		schedule.createTeam("A", "Day team", dayRotation, rotationStart);
+		schedule.createTeam("B", "Swing team", swingRotation, rotationStart);
+
+		return schedule;
+	}
+
+	// one material setup then 16 hours of events
+	private List<KeyedObject> createEvents() {
+		List<KeyedObject> events = new ArrayList<>();
+
+		OeeEvent setup = new OeeEvent(equipment);
+		setup.setEventType(OeeEventType.MATL_CHANGE);
+		setup.setMaterial(material);
+		setup.setStartTime(DAY_START.minusHours(1));
+		events.add(setup);
+
+		OffsetDateTime dayEnd = DAY_START.plusHours(16);
+
+		// running with a jam every half hour
+		int count = 0;
+		for (OffsetDateTime time = DAY_START; time.isBefore(dayEnd); time = time.plusMinutes(AVAILABILITY_MIN)) {
+			OeeEvent event = new OeeEvent(equipment);
+			event.setEventType(OeeEventType.AVAILABILITY);
+			event.setReason(count++ % 6 == 5 ? jam : running);
+			event.setStartTime(time);
+			event.setEndTime(time.plusMinutes(AVAILABILITY_MIN));
+			event.setDuration(Duration.ofMinutes(AVAILABILITY_MIN));
+			event.setMaterial(material);
+			events.add(event);
+		}
+
+		// good production with an occasional reject
+		count = 0;
+		for (OffsetDateTime time = DAY_START; time.isBefore(dayEnd); time = time.plusMinutes(PRODUCTION_MIN)) {
+			boolean reject = count++ % 4 == 3;
+
+			OeeEvent event = new OeeEvent(equipment);
+			event.setEventType(reject ? OeeEventType.PROD_REJECT : OeeEventType.PROD_GOOD);
+			event.setAmount(reject ? 25.0d : 1250.0d);
+			event.setUOM(bottle);
+			event.setStartTime(time);
+			event.setEndTime(time.plusMinutes(PRODUCTION_MIN));
+			event.setMaterial(material);
+			events.add(event);
+		}
+		return events;
+	}
+
+	WorkSchedule getWorkSchedule() {
+		return workSchedule;
+	}
+
+	Equipment getEquipment() {
+		return equipment;
+	}
+
+	LocalDateTime getDayStart() {
+		return DAY_START.toLocalDateTime();
+	}
+}
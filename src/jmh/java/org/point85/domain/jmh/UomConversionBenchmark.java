@@ -0,0 +1,69 @@
+package org.point85.domain.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.point85.domain.uom.MeasurementSystem;
+import org.point85.domain.uom.Quantity;
+import org.point85.domain.uom.Unit;
+import org.point85.domain.uom.UnitOfMeasure;
+
+/**
+ * Unit of measure conversion factors and quantity arithmetic as used when
+ * converting production counts to lost time.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UomConversionBenchmark {
+	private UnitOfMeasure hour;
+	private UnitOfMeasure second;
+	private UnitOfMeasure metrePerSec;
+	private UnitOfMeasure milePerHour;
+
+	private Quantity count;
+	private Quantity rate;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		MeasurementSystem sys = MeasurementSystem.instance();
+
+		hour = sys.getUOM(Unit.HOUR);
+		second = sys.getUOM(Unit.SECOND);
+		metrePerSec = sys.getUOM(Unit.METRE_PER_SEC);
+		milePerHour = sys.getUOM(Unit.MILES_PER_HOUR);
+
+		UnitOfMeasure each = sys.getOne();
+		count = new Quantity(250.0d, each);
+		rate = new Quantity(100.0d, sys.createQuotientUOM(each, sys.getUOM(Unit.MINUTE)));
+	}
+
+	@Benchmark
+	public double timeConversionFactor() throws Exception {
+		return hour.getConversionFactor(second);
+	}
+
+	@Benchmark
+	public double speedConversionFactor() throws Exception {
+		return milePerHour.getConversionFactor(metrePerSec);
+	}
+
+	@Benchmark
+	public Quantity countToLostTime() throws Exception {
+		return count.divide(rate).convert(Unit.SECOND);
+	}
+}
@@ -0,0 +1,58 @@
+package org.point85.domain.jmh;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.point85.domain.schedule.ShiftInstance;
+import org.point85.domain.schedule.WorkSchedule;
+
+/**
+ * Shift lookup for an event time, done for every resolved event, and the
+ * working time calculation done for each OEE report period.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WorkScheduleBenchmark {
+	private WorkSchedule schedule;
+
+	private LocalDateTime eventTime;
+	private LocalDateTime weekStart;
+	private LocalDateTime weekEnd;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		schedule = PlantFixture.createWorkSchedule();
+
+		weekStart = PlantFixture.DAY_START.toLocalDateTime();
+		weekEnd = weekStart.plusDays(7);
+		eventTime = weekStart.plusHours(9).plusMinutes(17);
+	}
+
+	@Benchmark
+	public List<ShiftInstance> shiftInstancesForTime() throws Exception {
+		return schedule.getShiftInstancesForTime(eventTime);
+	}
+
+	@Benchmark
+	public Duration weeklyWorkingTime() throws Exception {
+		return schedule.calculateWorkingTime(weekStart, weekEnd);
+	}
+}
@@ -2,20 +2,27 @@ package org.point85.domain.collector;
 
 import java.io.File;
 import java.net.InetAddress;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
@@ -25,6 +32,7 @@ import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
 import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
 import org.point85.domain.DomainUtils;
 import org.point85.domain.OeeEquipmentEvent;
+import org.point85.domain.collector.SourceStartup.Attempt;
 import org.point85.domain.cron.CronEventClient;
 import org.point85.domain.cron.CronEventListener;
 import org.point85.domain.cron.CronEventSource;
@@ -40,6 +48,7 @@ import org.point85.domain.email.EmailSource;
 import org.point85.domain.file.FileEventClient;
 import org.point85.domain.file.FileEventListener;
 import org.point85.domain.file.FileEventSource;
+import org.point85.domain.file.FileReadMode;
 import org.point85.domain.http.HttpEventListener;
 import org.point85.domain.http.HttpSource;
 import org.point85.domain.http.OeeHttpServer;
@@ -55,9 +64,15 @@ import org.point85.domain.messaging.CollectorCommandMessage;
 import org.point85.domain.messaging.CollectorNotificationMessage;
 import org.point85.domain.messaging.CollectorResolvedEventMessage;
 import org.point85.domain.messaging.CollectorServerStatusMessage;
+import org.point85.domain.messaging.EntityChangedMessage;
+import org.point85.domain.messaging.EquipmentEventBatchMessage;
+import org.point85.domain.messaging.EquipmentEventBatchMessage.EventValue;
 import org.point85.domain.messaging.EquipmentEventMessage;
 import org.point85.domain.messaging.MessageType;
 import org.point85.domain.messaging.NotificationSeverity;
+import org.point85.domain.metrics.Counter;
+import org.point85.domain.metrics.DurationHistogram;
+import org.point85.domain.metrics.MetricsRegistry;
 import org.point85.domain.modbus.ModbusEvent;
 import org.point85.domain.modbus.ModbusEventListener;
 import org.point85.domain.modbus.ModbusMaster;
@@ -82,6 +97,7 @@ import org.point85.domain.plant.Equipment;
 import org.point85.domain.plant.EquipmentEventResolver;
 import org.point85.domain.plant.KeyedObject;
 import org.point85.domain.plant.Material;
+import org.point85.domain.plant.PlantEntity;
 import org.point85.domain.plant.Reason;
 import org.point85.domain.proficy.ProficyClient;
 import org.point85.domain.proficy.ProficyEventListener;
@@ -126,12 +142,51 @@ public class CollectorService
 	// sec between status checks
 	private static final long HEARTBEAT_SEC = 60;
 
+	// system property to enable warm start
+	public static final String WARM_START_PROPERTY = "point85.warm.start";
+
+	// source of events created by the HTTP API
+	private static final String API_SOURCE = "API";
+
 	// thread pool service
 	private final ExecutorService executorService = Executors.newCachedThreadPool();
 
 	// timer to broadcast status
 	private Timer heartbeatTimer;
 
+	// msec to wait for queued notifications to be sent
+	private static final long OUTBOX_FLUSH_MSEC = 5000;
+
+	// asynchronous publisher of resolved event messages
+	private final NotificationOutbox outbox = NotificationOutbox.fromSystemProperties();
+
+	// stage metrics
+	private static final Map<DataSourceType, Counter> receivedCounters = new EnumMap<>(DataSourceType.class);
+
+	static {
+		for (DataSourceType type : DataSourceType.values()) {
+			receivedCounters.put(type, MetricsRegistry.instance().counter("oee_events_received_total",
+					"Equipment events and messages received by source type", "source", type.name()));
+		}
+	}
+
+	private static final DurationHistogram resolveTimer = MetricsRegistry.instance()
+			.histogram("oee_resolve_seconds", "Time to resolve and record an equipment event");
+
+	private static final Counter resolveFailures = MetricsRegistry.instance().counter("oee_resolve_failures_total",
+			"Equipment events that could not be resolved or recorded");
+
+	private static final DurationHistogram saveTimer = MetricsRegistry.instance().histogram("oee_db_save_seconds",
+			"Time to save resolved events, including closing the previous events and purging");
+
+	private static final DurationHistogram messageTimer = MetricsRegistry.instance()
+			.histogram("oee_resolution_message_seconds", "Time to queue a resolved event message");
+
+	// metrics in the status message, a fixed summary of the /metrics endpoint
+	private static final Set<String> HEARTBEAT_METRICS = Set.of("oee_events_received_total",
+			"oee_resolve_failures_total", "oee_resolve_seconds", "oee_db_save_seconds", "oee_collector_queued_tasks",
+			"oee_outbox_pending_messages", "oee_outbox_dropped_messages", "oee_sources_ready", "oee_sources_retrying");
+
 	// serializer
 	protected Gson gson;
 
@@ -172,21 +227,107 @@ public class CollectorService
 	private final Map<String, PolledSource> proficyMap = new HashMap<>();
 	private final Map<String, WebSocketServerSource> webSocketServerMap = new HashMap<>();
 
+	// concurrent connection to the data sources
+	private volatile SourceStartup sourceStartup;
+
 	// equipment by name cache
 	private final ConcurrentMap<String, Equipment> equipmentCache = new ConcurrentHashMap<>();
 
+	// publishers of entity changes over the RMQ notification servers
+	private final List<EntityChangePublisher> entityChangePublishers = new ArrayList<>();
+
+	// flag for prefetching the caches before collecting data
+	private boolean warmStart = Boolean.getBoolean(WARM_START_PROPERTY);
+
+	// resolver configuration the caches were warmed for
+	private String snapshotStamp;
+
 	public CollectorService() {
 		initialize();
+		registerGauges();
 	}
 
 	public CollectorService(String collectorName) {
 		this.collectorName = collectorName;
 		initialize();
+		registerGauges();
 	}
 
 	public CollectorService(boolean isManual) {
 		this.isManual = isManual;
 		initialize();
+		registerGauges();
+	}
+
+	// queue depths of this collector
+	private void registerGauges() {
+		MetricsRegistry metrics = MetricsRegistry.instance();
+		ThreadPoolExecutor pool = (ThreadPoolExecutor) executorService;
+
+		metrics.gauge("oee_collector_active_tasks", "Event tasks running in the collector's thread pool",
+				pool::getActiveCount);
+		metrics.gauge("oee_collector_queued_tasks", "Event tasks waiting for a thread in the collector's pool",
+				() -> pool.getQueue().size());
+		metrics.gauge("oee_outbox_pending_messages", "Resolved event messages waiting to be published",
+				outbox::getPendingCount);
+		metrics.gauge("oee_outbox_dropped_messages", "Resolved event messages dropped because a queue was full",
+				outbox::getDroppedCount);
+	}
+
+	private static void countReceived(DataSourceType type, int count) {
+		receivedCounters.get(type).add(count);
+	}
+
+	// one dispatcher per transport so that a slow server does not hold up the
+	// others. The dispatchers are started when the collector starts, and again
+	// after a restart.
+	private void startOutbox() {
+		if (outbox.isStarted()) {
+			return;
+		}
+
+		outbox.addDispatcher("RMQ", () -> !appContext.getRmqClients().isEmpty(), messages -> {
+			for (RmqClient pubsub : appContext.getRmqClients()) {
+				for (ApplicationMessage message : messages) {
+					pubsub.sendResolvedEventMessage(message);
+				}
+			}
+		});
+
+		outbox.addDispatcher("JMS", () -> !appContext.getJmsClients().isEmpty(), messages -> {
+			for (JmsClient pubsub : appContext.getJmsClients()) {
+				pubsub.sendNotificationMessages(messages);
+			}
+		});
+
+		outbox.addDispatcher("Kafka", () -> !appContext.getKafkaClients().isEmpty(), messages -> {
+			for (KafkaOeeClient pubsub : appContext.getKafkaClients()) {
+				pubsub.sendNotificationMessages(messages);
+			}
+		});
+
+		outbox.addDispatcher("MQTT", () -> !appContext.getMqttClients().isEmpty(), messages -> {
+			for (MqttOeeClient pubsub : appContext.getMqttClients()) {
+				for (ApplicationMessage message : messages) {
+					pubsub.sendNotificationMessage(message);
+				}
+			}
+		});
+
+		outbox.addDispatcher("WebSocket", () -> !appContext.getWebSocketServers().isEmpty(), messages -> {
+			for (WebSocketOeeServer wsServer : appContext.getWebSocketServers()) {
+				for (ApplicationMessage message : messages) {
+					wsServer.broadcast(message);
+				}
+			}
+		});
+
+		outbox.addDispatcher("Email", () -> !appContext.getEmailClients().isEmpty(), messages -> {
+			for (EmailClient emailClient : appContext.getEmailClients()) {
+				emailClient.sendEvents(emailClient.getSource().getUserName(),
+						DomainLocalizer.instance().getLangString("email.notification.subject"), messages);
+			}
+		});
 	}
 
 	private void initialize() {
@@ -219,8 +360,8 @@ public class CollectorService
 		event.setEndTime(endTime);
 		event.setSourceId(sourceId);
 
-		// get the shift from the work schedule
-		WorkSchedule schedule = equipment.findWorkSchedule();
+		// get the shift from the work schedule in effect at the start
+		WorkSchedule schedule = equipment.findWorkSchedule(startTime.toLocalDateTime());
 
 		if (schedule != null) {
 			List<ShiftInstance> shifts = schedule.getShiftInstancesForTime(startTime.toLocalDateTime());
@@ -487,313 +628,285 @@ public class CollectorService
 		serverSource.getPollingIntervals().add(pollingMillis);
 	}
 
-	private void connectToRmqBrokers(Map<String, RmqBrokerSource> brokerSources) throws Exception {
-		for (Entry<String, RmqBrokerSource> entry : brokerSources.entrySet()) {
-			RmqSource source = entry.getValue().getSource();
+	private void connectToRmqBroker(RmqSource source, Attempt attempt) throws Exception {
+		RmqClient rmqClient = new RmqClient();
+		rmqClient.setShouldNotify(false);
+		attempt.onRelease(rmqClient::disconnect);
 
-			RmqClient rmqClient = new RmqClient();
-			rmqClient.setShouldNotify(false);
+		String brokerHostName = source.getHost();
+		Integer brokerPort = source.getPort();
+		String brokerUser = source.getUserName();
+		String brokerPassword = source.getUserPassword();
 
-			String brokerHostName = source.getHost();
-			Integer brokerPort = source.getPort();
-			String brokerUser = source.getUserName();
-			String brokerPassword = source.getUserPassword();
+		// queue on each RMQ broker
+		String queueName = "EVT_" + getClass().getSimpleName() + "_" + System.currentTimeMillis();
 
-			// queue on each RMQ broker
-			String queueName = "EVT_" + getClass().getSimpleName() + "_" + System.currentTimeMillis();
+		List<RoutingKey> routingKeys = new ArrayList<>();
+		routingKeys.add(RoutingKey.EQUIPMENT_SOURCE_EVENT);
 
-			List<RoutingKey> routingKeys = new ArrayList<>();
-			routingKeys.add(RoutingKey.EQUIPMENT_SOURCE_EVENT);
+		// also can accept commands and entity changes
+		routingKeys.add(RoutingKey.COMMAND_MESSAGE);
+		routingKeys.add(RoutingKey.ENTITY_CHANGED);
 
-			// also can accept commands
-			routingKeys.add(RoutingKey.COMMAND_MESSAGE);
+		rmqClient.startUp(brokerHostName, brokerPort, brokerUser, brokerPassword, queueName, routingKeys, this);
 
-			rmqClient.startUp(brokerHostName, brokerPort, brokerUser, brokerPassword, queueName, routingKeys, this);
+		// add to context
+		attempt.commit(() -> appContext.getRmqClients().add(rmqClient));
 
-			// add to context
-			appContext.getRmqClients().add(rmqClient);
-
-			if (logger.isInfoEnabled()) {
-				logger.info("Started RMQ event pubsub: " + source.getId());
-			}
+		if (logger.isInfoEnabled()) {
+			logger.info("Started RMQ event pubsub: " + source.getId());
 		}
 	}
 
-	private void connectToJmsBrokers(Map<String, JmsBrokerSource> brokerSources) throws Exception {
-		for (Entry<String, JmsBrokerSource> entry : brokerSources.entrySet()) {
-			JmsSource source = entry.getValue().getSource();
-
-			JmsClient jmsClient = new JmsClient();
-			jmsClient.setShouldNotify(false);
+	private void connectToJmsBroker(JmsSource source, Attempt attempt) throws Exception {
+		JmsClient jmsClient = new JmsClient();
+		jmsClient.setShouldNotify(false);
+		attempt.onRelease(jmsClient::disconnect);
 
-			String brokerHostName = source.getHost();
-			Integer brokerPort = source.getPort();
-			String brokerUser = source.getUserName();
-			String brokerPassword = source.getUserPassword();
+		String brokerHostName = source.getHost();
+		Integer brokerPort = source.getPort();
+		String brokerUser = source.getUserName();
+		String brokerPassword = source.getUserPassword();
 
-			jmsClient.startUp(brokerHostName, brokerPort, brokerUser, brokerPassword, this);
+		jmsClient.startUp(brokerHostName, brokerPort, brokerUser, brokerPassword, this);
 
-			// subscribe to event messages
-			jmsClient.consumeEvents(true);
+		// subscribe to event messages
+		jmsClient.consumeEvents(true);
 
-			// add to context
-			appContext.getJmsClients().add(jmsClient);
+		// add to context
+		attempt.commit(() -> appContext.getJmsClients().add(jmsClient));
 
-			if (logger.isInfoEnabled()) {
-				logger.info("Started JMS client: " + source.getId());
-			}
+		if (logger.isInfoEnabled()) {
+			logger.info("Started JMS client: " + source.getId());
 		}
 	}
 
-	private void connectToKafkaBrokers(Map<String, PolledSource> brokerSources) throws Exception {
-		for (Entry<String, PolledSource> entry : brokerSources.entrySet()) {
-			KafkaSource kafkaSource = (KafkaSource) entry.getValue().getEventSource();
+	private void connectToKafkaBroker(PolledSource brokerSource, Attempt attempt) throws Exception {
+		KafkaSource kafkaSource = (KafkaSource) brokerSource.getEventSource();
 
-			// create the Kafka client
-			KafkaOeeClient kafkaClient = new KafkaOeeClient();
-			kafkaClient.setShouldNotify(false);
+		// create the Kafka client
+		KafkaOeeClient kafkaClient = new KafkaOeeClient();
+		kafkaClient.setShouldNotify(false);
+		attempt.onRelease(kafkaClient::disconnect);
 
-			// connect to server
-			kafkaClient.createConsumer(kafkaSource, KafkaOeeClient.EVENT_TOPIC);
+		// connect to server
+		kafkaClient.createConsumer(kafkaSource, KafkaOeeClient.EVENT_TOPIC);
 
-			// add to context
-			appContext.getKafkaClients().add(kafkaClient);
+		// subscribe to event messages
+		kafkaClient.registerListener(this);
 
-			// subscribe to event messages
-			kafkaClient.registerListener(this);
+		// find minimum polling interval
+		List<Integer> intervals = brokerSource.getPollingIntervals();
 
-			// find minimum polling interval
-			List<Integer> intervals = entry.getValue().getPollingIntervals();
+		int min = KafkaOeeClient.DEFAULT_POLLING_INTERVAL;
 
-			int min = KafkaOeeClient.DEFAULT_POLLING_INTERVAL;
-
-			for (Integer interval : intervals) {
-				if (interval < min) {
-					min = interval;
-				}
+		for (Integer interval : intervals) {
+			if (interval < min) {
+				min = interval;
 			}
+		}
 
-			kafkaClient.setPollingInterval(min);
+		kafkaClient.setPollingInterval(min);
 
-			kafkaClient.startPolling();
+		// process partitions in parallel and commit after the events are saved
+		kafkaClient.setPipelined(true);
+		kafkaClient.startPolling();
 
-			if (logger.isInfoEnabled()) {
-				logger.info("Started Kafka client: " + kafkaSource.getId());
-			}
+		// add to context
+		attempt.commit(() -> appContext.getKafkaClients().add(kafkaClient));
+
+		if (logger.isInfoEnabled()) {
+			logger.info("Started Kafka client: " + kafkaSource.getId());
 		}
 	}
 
-	private void connectToEmailServers(Map<String, PolledSource> emailServers) {
-		for (Entry<String, PolledSource> entry : emailServers.entrySet()) {
-			EmailSource emailSource = (EmailSource) entry.getValue().getEventSource();
+	private void connectToEmailServer(PolledSource emailServer, Attempt attempt) throws Exception {
+		EmailSource emailSource = (EmailSource) emailServer.getEventSource();
 
-			// create the Email client
-			EmailClient emailClient = new EmailClient(emailSource);
-			emailClient.setShouldNotify(false);
+		// create the Email client
+		EmailClient emailClient = new EmailClient(emailSource);
+		emailClient.setShouldNotify(false);
+		attempt.onRelease(emailClient::stopPolling);
 
-			// add to context
-			appContext.getEmailClients().add(emailClient);
-
-			// receive event messages
-			emailClient.registerListener(this);
+		// receive event messages
+		emailClient.registerListener(this);
 
-			// find minimum polling interval
-			List<Integer> intervals = entry.getValue().getPollingIntervals();
+		// find minimum polling interval
+		List<Integer> intervals = emailServer.getPollingIntervals();
 
-			int min = EmailClient.DEFAULT_POLLING_INTERVAL;
+		int min = EmailClient.DEFAULT_POLLING_INTERVAL;
 
-			for (Integer interval : intervals) {
-				if (interval < min) {
-					min = interval;
-				}
+		for (Integer interval : intervals) {
+			if (interval < min) {
+				min = interval;
 			}
+		}
 
-			emailClient.setPollingInterval(min);
+		emailClient.setPollingInterval(min);
 
-			emailClient.startPolling();
+		emailClient.startPolling();
 
-			if (logger.isInfoEnabled()) {
-				logger.info("Started Email client: " + emailSource.getId());
-			}
+		// add to context
+		attempt.commit(() -> appContext.getEmailClients().add(emailClient));
+
+		if (logger.isInfoEnabled()) {
+			logger.info("Started Email client: " + emailSource.getId());
 		}
 	}
 
-	private void connectToMqttBrokers(Map<String, MqttBrokerSource> brokerSources) throws Exception {
-		for (Entry<String, MqttBrokerSource> entry : brokerSources.entrySet()) {
-			MqttSource source = entry.getValue().getSource();
+	private void connectToMqttBroker(MqttSource source, Attempt attempt) throws Exception {
+		MqttOeeClient mqttClient = new MqttOeeClient();
+		mqttClient.setShouldNotify(false);
+		attempt.onRelease(mqttClient::disconnect);
 
-			MqttOeeClient mqttClient = new MqttOeeClient();
-			mqttClient.setShouldNotify(false);
+		mqttClient.setAuthenticationConfiguration(source.getUserName(), source.getUserPassword());
+		mqttClient.setSSLConfiguration(source.getKeystore(), source.getKeystorePassword(), source.getKeyPassword());
 
-			mqttClient.setAuthenticationConfiguration(source.getUserName(), source.getUserPassword());
-			mqttClient.setSSLConfiguration(source.getKeystore(), source.getKeystorePassword(), source.getKeyPassword());
+		mqttClient.startUp(source.getHost(), source.getPort(), this);
+		mqttClient.subscribeToEvents(QualityOfService.EXACTLY_ONCE);
 
-			mqttClient.startUp(source.getHost(), source.getPort(), this);
-			mqttClient.subscribeToEvents(QualityOfService.EXACTLY_ONCE);
+		// add to context
+		attempt.commit(() -> appContext.getMqttClients().add(mqttClient));
 
-			// add to context
-			appContext.getMqttClients().add(mqttClient);
-
-			if (logger.isInfoEnabled()) {
-				logger.info("Started MQTT client: " + source.getId());
-			}
+		if (logger.isInfoEnabled()) {
+			logger.info("Started MQTT client: " + source.getId());
 		}
 	}
 
-	private void connectToDatabaseServers(Map<String, PolledSource> dbSources) throws Exception {
-		for (Entry<String, PolledSource> entry : dbSources.entrySet()) {
-			// source of database interface table events
-			PolledSource databaseSource = entry.getValue();
-			DatabaseEventSource databaseEventSource = (DatabaseEventSource) databaseSource.getEventSource();
-			List<String> sourceIds = databaseSource.getSourceIds();
-			List<Integer> pollingIntervals = databaseSource.getPollingIntervals();
+	private void connectToDatabaseServer(PolledSource databaseSource, Attempt attempt) throws Exception {
+		DatabaseEventSource databaseEventSource = (DatabaseEventSource) databaseSource.getEventSource();
+		List<String> sourceIds = databaseSource.getSourceIds();
+		List<Integer> pollingIntervals = databaseSource.getPollingIntervals();
 
-			DatabaseEventClient dbClient = new DatabaseEventClient(this, databaseEventSource, sourceIds,
-					pollingIntervals);
+		DatabaseEventClient dbClient = new DatabaseEventClient(this, databaseEventSource, sourceIds,
+				pollingIntervals);
+		attempt.onRelease(dbClient::disconnect);
 
-			dbClient.connectToServer(databaseEventSource.getId(), databaseEventSource.getUserName(),
-					databaseEventSource.getUserPassword());
+		dbClient.connectToServer(databaseEventSource.getId(), databaseEventSource.getUserName(),
+				databaseEventSource.getUserPassword());
 
-			// add to context
-			appContext.getDatabaseEventClients().add(dbClient);
+		dbClient.startPolling();
 
-			dbClient.startPolling();
+		// add to context
+		attempt.commit(() -> appContext.getDatabaseEventClients().add(dbClient));
 
-			if (logger.isInfoEnabled()) {
-				logger.info("Polling interface table for database server: " + databaseEventSource.getId());
-			}
+		if (logger.isInfoEnabled()) {
+			logger.info("Polling interface table for database server: " + databaseEventSource.getId());
 		}
 	}
 
-	private void startModbusPolling(Map<String, PolledSource> slaveSources) throws Exception {
-		for (Entry<String, PolledSource> entry : slaveSources.entrySet()) {
-			// source of Modbus slave events
-			PolledSource slaveSource = entry.getValue();
-			ModbusSource modbusSource = (ModbusSource) slaveSource.getEventSource();
-			List<String> sourceIds = slaveSource.getSourceIds();
-			List<Integer> pollingIntervals = slaveSource.getPollingIntervals();
+	private void startModbusPolling(PolledSource slaveSource, Attempt attempt) throws Exception {
+		ModbusSource modbusSource = (ModbusSource) slaveSource.getEventSource();
+		List<String> sourceIds = slaveSource.getSourceIds();
+		List<Integer> pollingIntervals = slaveSource.getPollingIntervals();
 
-			ModbusMaster modbusMaster = new ModbusMaster(this, modbusSource, sourceIds, pollingIntervals);
-			modbusMaster.connect();
+		ModbusMaster modbusMaster = new ModbusMaster(this, modbusSource, sourceIds, pollingIntervals);
+		attempt.onRelease(modbusMaster::disconnect);
 
-			// add to context
-			appContext.getModbusMasters().add(modbusMaster);
+		modbusMaster.connect();
+		modbusMaster.startPolling();
 
-			modbusMaster.startPolling();
+		// add to context
+		attempt.commit(() -> appContext.getModbusMasters().add(modbusMaster));
 
-			if (logger.isInfoEnabled()) {
-				logger.info("Polling Modbus slave: " + modbusSource.getId());
-			}
+		if (logger.isInfoEnabled()) {
+			logger.info("Polling Modbus slave: " + modbusSource.getId());
 		}
 	}
 
-	private void startProficyPolling(Map<String, PolledSource> proficySources) {
-		for (Entry<String, PolledSource> entry : proficySources.entrySet()) {
-			// source of Proficy events
-			PolledSource polledSource = entry.getValue();
-			ProficySource proficySource = (ProficySource) polledSource.getEventSource();
-			List<String> sourceIds = polledSource.getSourceIds();
-			List<Integer> pollingIntervals = polledSource.getPollingIntervals();
+	private void startProficyPolling(PolledSource polledSource, Attempt attempt) throws Exception {
+		ProficySource proficySource = (ProficySource) polledSource.getEventSource();
+		List<String> sourceIds = polledSource.getSourceIds();
+		List<Integer> pollingIntervals = polledSource.getPollingIntervals();
 
-			ProficyClient proficyClient = new ProficyClient(this, proficySource, sourceIds, pollingIntervals);
+		ProficyClient proficyClient = new ProficyClient(this, proficySource, sourceIds, pollingIntervals);
+		attempt.onRelease(proficyClient::stopPolling);
 
-			// add to context
-			appContext.getProficyClients().add(proficyClient);
+		proficyClient.startPolling();
 
-			proficyClient.startPolling();
+		// add to context
+		attempt.commit(() -> appContext.getProficyClients().add(proficyClient));
 
-			if (logger.isInfoEnabled()) {
-				logger.info("Polling Proficy historian: " + proficySource.getId());
-			}
+		if (logger.isInfoEnabled()) {
+			logger.info("Polling Proficy historian: " + proficySource.getId());
 		}
 	}
 
-	private void startFilePolling(Map<String, PolledSource> fileSources) {
-		for (Entry<String, PolledSource> entry : fileSources.entrySet()) {
-			// source of file events
-			PolledSource fileSource = entry.getValue();
-			FileEventSource fileEventSource = (FileEventSource) fileSource.getEventSource();
-			List<String> sourceIds = fileSource.getSourceIds();
-			List<Integer> pollingIntervals = fileSource.getPollingIntervals();
+	private void startFilePolling(PolledSource fileSource, Attempt attempt) throws Exception {
+		FileEventSource fileEventSource = (FileEventSource) fileSource.getEventSource();
+		List<String> sourceIds = fileSource.getSourceIds();
+		List<Integer> pollingIntervals = fileSource.getPollingIntervals();
 
-			FileEventClient fileClient = new FileEventClient(this, fileEventSource, sourceIds, pollingIntervals);
+		FileEventClient fileClient = new FileEventClient(this, fileEventSource, sourceIds, pollingIntervals);
+		attempt.onRelease(fileClient::stopPolling);
 
-			// add to context
-			appContext.getFileEventClients().add(fileClient);
+		fileClient.startPolling();
 
-			if (logger.isInfoEnabled()) {
-				logger.info("Polling files on server: " + fileEventSource.getId());
-			}
-			fileClient.startPolling();
+		// add to context
+		attempt.commit(() -> appContext.getFileEventClients().add(fileClient));
+
+		if (logger.isInfoEnabled()) {
+			logger.info("Polling files on server: " + fileEventSource.getId());
 		}
 	}
 
-	private void startCronSchedulers(Map<String, CronSource> cronSources) throws Exception {
-		for (Entry<String, CronSource> entry : cronSources.entrySet()) {
-			// source of file events
-			CronSource cronSource = entry.getValue();
-			CronEventSource cronEventSource = cronSource.getEventSource();
-			List<String> sourceIds = cronSource.getSourceIds();
-			List<String> expressions = cronSource.getCronExpressions();
+	private void startCronScheduler(CronSource cronSource, Attempt attempt) throws Exception {
+		CronEventSource cronEventSource = cronSource.getEventSource();
+		List<String> sourceIds = cronSource.getSourceIds();
+		List<String> expressions = cronSource.getCronExpressions();
 
-			CronEventClient cronClient = new CronEventClient(this, cronEventSource, sourceIds, expressions);
+		CronEventClient cronClient = new CronEventClient(this, cronEventSource, sourceIds, expressions);
+		attempt.onRelease(cronClient::shutdownScheduler);
 
-			// add to context
-			appContext.getCronEventClients().add(cronClient);
+		cronClient.scheduleJobs();
 
-			cronClient.scheduleJobs();
+		// add to context
+		attempt.commit(() -> appContext.getCronEventClients().add(cronClient));
 
-			if (logger.isInfoEnabled()) {
-				logger.info("Jobs scheduled on server: " + cronEventSource.getHost() + " for job "
-						+ cronEventSource.getName());
-			}
+		if (logger.isInfoEnabled()) {
+			logger.info("Jobs scheduled on server: " + cronEventSource.getHost() + " for job "
+					+ cronEventSource.getName());
 		}
 	}
 
-	private void startHttpServers(Map<String, HttpServerSource> httpServerSources) throws Exception {
-		for (Entry<String, HttpServerSource> entry : httpServerSources.entrySet()) {
-			HttpSource source = entry.getValue().getSource();
+	private void startHttpServer(HttpSource source, Attempt attempt) throws Exception {
+		Integer port = source.getPort();
+		Integer httpsPort = source.getHttpsPort();
 
-			Integer port = source.getPort();
-			Integer httpsPort = source.getHttpsPort();
-
-			if (logger.isInfoEnabled()) {
-				logger.info("Starting embedded HTTP server on HTTP port " + port + " and HTTPS port " + httpsPort);
-			}
+		if (logger.isInfoEnabled()) {
+			logger.info("Starting embedded HTTP server on HTTP port " + port + " and HTTPS port " + httpsPort);
+		}
 
-			OeeHttpServer httpServer = new OeeHttpServer(port);
+		OeeHttpServer httpServer = new OeeHttpServer(port);
 
-			if (httpsPort != null) {
-				httpServer.setHttpsPort(httpsPort);
-			}
+		if (httpsPort != null) {
+			httpServer.setHttpsPort(httpsPort);
+		}
 
-			OeeHttpServer.setDataChangeListener(this);
-			httpServer.setAcceptingEventRequests(true);
-			httpServer.startup();
+		OeeHttpServer.setDataChangeListener(this);
+		httpServer.setAcceptingEventRequests(true);
+		attempt.onRelease(httpServer::shutdown);
+		httpServer.startup();
 
-			// add to context
-			appContext.getHttpServers().add(httpServer);
+		// add to context
+		attempt.commit(() -> appContext.getHttpServers().add(httpServer));
 
-			if (logger.isInfoEnabled()) {
-				logger.info("Started embedded HTTP server on HTTP port " + port + " and HTTPS port " + httpsPort);
-			}
+		if (logger.isInfoEnabled()) {
+			logger.info("Started embedded HTTP server on HTTP port " + port + " and HTTPS port " + httpsPort);
 		}
 	}
 
-	private void startWebSocketServers(Map<String, WebSocketServerSource> webSocketServerSources) throws Exception {
-		for (Entry<String, WebSocketServerSource> entry : webSocketServerSources.entrySet()) {
-			WebSocketSource source = entry.getValue().getSource();
+	private void startWebSocketServer(WebSocketSource source, Attempt attempt) throws Exception {
+		WebSocketOeeServer wsServer = new WebSocketOeeServer(source);
+		wsServer.registerListener(this);
+		attempt.onRelease(wsServer::shutdown);
+		wsServer.startup();
 
-			WebSocketOeeServer wsServer = new WebSocketOeeServer(source);
-			wsServer.registerListener(this);
-			wsServer.startup();
-
-			// add to context
-			appContext.getWebSocketServers().add(wsServer);
+		// add to context
+		attempt.commit(() -> appContext.getWebSocketServers().add(wsServer));
 
-			if (logger.isInfoEnabled()) {
-				logger.info("Started embedded web socket server on HTTP port " + source.getPort());
-			}
+		if (logger.isInfoEnabled()) {
+			logger.info("Started embedded web socket server on HTTP port " + source.getPort());
 		}
 	}
 
@@ -823,21 +936,27 @@ public class CollectorService
 	public void subscribeToOpcUaSources(Map<String, OpcUaInfo> uaSubscriptions) throws Exception {
 		for (Entry<String, OpcUaInfo> entry : uaSubscriptions.entrySet()) {
 			OpcUaInfo uaInfo = entry.getValue();
+			SourceStartup.connectOnce(attempt -> subscribeToOpcUaSource(uaInfo, attempt));
+		}
+	}
 
-			UaOpcClient uaClient = new UaOpcClient();
-			uaClient.connect(uaInfo.getSource());
+	private void subscribeToOpcUaSource(OpcUaInfo uaInfo, Attempt attempt) throws Exception {
+		UaOpcClient uaClient = new UaOpcClient();
 
-			// add to context
-			appContext.getOpcUaClients().add(uaClient);
+		// disconnecting also drops the subscriptions made so far
+		attempt.onRelease(uaClient::disconnect);
+		uaClient.connect(uaInfo.getSource());
 
-			uaClient.registerAsynchListener(this);
+		uaClient.registerAsynchListener(this);
 
-			double publishingInterval = uaInfo.getPublishingInterval();
+		double publishingInterval = uaInfo.getPublishingInterval();
 
-			for (NodeId monitoredNodeId : entry.getValue().getMonitoredNodes()) {
-				uaClient.subscribe(monitoredNodeId, publishingInterval, null);
-			}
+		for (NodeId monitoredNodeId : uaInfo.getMonitoredNodes()) {
+			uaClient.subscribe(monitoredNodeId, publishingInterval, null);
 		}
+
+		// add to context
+		attempt.commit(() -> appContext.getOpcUaClients().add(uaClient));
 	}
 
 	private void buildOpcDaSubscriptions(EventResolver resolver) {
@@ -876,50 +995,49 @@ public class CollectorService
 		}
 	}
 
-	private void monitorOpcDaTags(Map<String, OpcDaInfo> daSubscriptions) throws Exception {
-		for (Entry<String, OpcDaInfo> entry : daSubscriptions.entrySet()) {
-			// connect to data source
-			OpcDaInfo subscribingClient = entry.getValue();
-			OpcDaSource daSource = subscribingClient.getSource();
+	private void monitorOpcDaTags(OpcDaInfo subscribingClient, Attempt attempt) throws Exception {
+		OpcDaSource daSource = subscribingClient.getSource();
 
-			DaOpcClient opcDaClient = new DaOpcClient();
+		DaOpcClient opcDaClient = new DaOpcClient();
 
-			opcDaClient.connect(daSource);
+		// disconnecting also removes the groups started so far
+		attempt.onRelease(opcDaClient::disconnect);
 
-			// put in context
-			appContext.getOpcDaClients().add(opcDaClient);
+		opcDaClient.connect(daSource);
 
-			// subscribe to tags, one group per equipment
-			Map<String, List<TagItemInfo>> subscribedItems = entry.getValue().getSubscribedItems();
+		// subscribe to tags, one group per equipment
+		Map<String, List<TagItemInfo>> subscribedItems = subscribingClient.getSubscribedItems();
 
-			for (Entry<String, List<TagItemInfo>> tagsEntry : subscribedItems.entrySet()) {
+		for (Entry<String, List<TagItemInfo>> tagsEntry : subscribedItems.entrySet()) {
 
-				// create OPC DA group, name = equipment
-				TagGroupInfo tagGroup = new TagGroupInfo(tagsEntry.getKey());
+			// create OPC DA group, name = equipment
+			TagGroupInfo tagGroup = new TagGroupInfo(tagsEntry.getKey());
 
-				List<TagItemInfo> tagItems = tagsEntry.getValue();
+			List<TagItemInfo> tagItems = tagsEntry.getValue();
 
-				for (TagItemInfo tagItem : tagItems) {
-					int period = tagItem.getUpdatePeriod();
+			for (TagItemInfo tagItem : tagItems) {
+				int period = tagItem.getUpdatePeriod();
 
-					if (period < tagGroup.getUpdatePeriod()) {
-						tagGroup.setUpdatePeriod(period);
+				if (period < tagGroup.getUpdatePeriod()) {
+					tagGroup.setUpdatePeriod(period);
 
-						if (logger.isInfoEnabled()) {
-							logger.info("Setting update period to " + tagGroup.getUpdatePeriod());
-						}
+					if (logger.isInfoEnabled()) {
+						logger.info("Setting update period to " + tagGroup.getUpdatePeriod());
 					}
-
-					tagGroup.addTagItem(tagItem);
 				}
 
-				// register for data change events
-				OpcDaMonitoredGroup opcDaGroup = opcDaClient.registerTags(tagGroup, this);
-
-				// start monitoring
-				opcDaGroup.startMonitoring();
+				tagGroup.addTagItem(tagItem);
 			}
+
+			// register for data change events
+			OpcDaMonitoredGroup opcDaGroup = opcDaClient.registerTags(tagGroup, this);
+
+			// start monitoring
+			opcDaGroup.startMonitoring();
 		}
+
+		// put in context
+		attempt.commit(() -> appContext.getOpcDaClients().add(opcDaClient));
 	}
 
 	private void buildDataSources() throws Exception {
@@ -1067,49 +1185,107 @@ public class CollectorService
 		}
 	}
 
+	/**
+	 * Connect to the data sources concurrently. A source that is not connected
+	 * when startup finishes keeps retrying in the background.
+	 * 
+	 * @throws Exception Exception
+	 */
 	public synchronized void startDataCollection() throws Exception {
+		startOutbox();
+
+		if (warmStart) {
+			warmCaches();
+		}
+
+		SourceStartup startup = new SourceStartup();
 
 		// collect data for OPC DA
-		monitorOpcDaTags(opcDaSubscriptionMap);
+		for (OpcDaInfo daInfo : opcDaSubscriptionMap.values()) {
+			startup.add(DataSourceType.OPC_DA, daInfo.getSource().getId(),
+					attempt -> monitorOpcDaTags(daInfo, attempt));
+		}
 
 		// collect data for OPC UA
-		subscribeToOpcUaSources(opcUaSubscriptionMap);
+		for (OpcUaInfo uaInfo : opcUaSubscriptionMap.values()) {
+			startup.add(DataSourceType.OPC_UA, uaInfo.getSource().getId(),
+					attempt -> subscribeToOpcUaSource(uaInfo, attempt));
+		}
 
 		// collect data for HTTP
-		startHttpServers(httpServerMap);
+		for (HttpServerSource httpSource : httpServerMap.values()) {
+			HttpSource source = httpSource.getSource();
+			startup.add(DataSourceType.HTTP, source.getId(), attempt -> startHttpServer(source, attempt));
+		}
 
 		// collect data for RMQ and receive commands
-		connectToRmqBrokers(rmqBrokerMap);
+		for (RmqBrokerSource brokerSource : rmqBrokerMap.values()) {
+			RmqSource source = brokerSource.getSource();
+			startup.add(DataSourceType.RMQ, source.getId(), attempt -> connectToRmqBroker(source, attempt));
+		}
 
 		// collect equipment events for JMS
-		connectToJmsBrokers(jmsBrokerMap);
+		for (JmsBrokerSource brokerSource : jmsBrokerMap.values()) {
+			JmsSource source = brokerSource.getSource();
+			startup.add(DataSourceType.JMS, source.getId(), attempt -> connectToJmsBroker(source, attempt));
+		}
 
 		// collect equipment events for Kafka
-		connectToKafkaBrokers(kafkaBrokerMap);
+		for (PolledSource brokerSource : kafkaBrokerMap.values()) {
+			startup.add(DataSourceType.KAFKA, brokerSource.getEventSource().getId(),
+					attempt -> connectToKafkaBroker(brokerSource, attempt));
+		}
 
 		// collect equipment events from email servers
-		connectToEmailServers(emailBrokerMap);
+		for (PolledSource emailServer : emailBrokerMap.values()) {
+			startup.add(DataSourceType.EMAIL, emailServer.getEventSource().getId(),
+					attempt -> connectToEmailServer(emailServer, attempt));
+		}
 
 		// poll database servers for events in the interface table
-		connectToDatabaseServers(databaseServerMap);
+		for (PolledSource databaseSource : databaseServerMap.values()) {
+			startup.add(DataSourceType.DATABASE, databaseSource.getEventSource().getId(),
+					attempt -> connectToDatabaseServer(databaseSource, attempt));
+		}
 
 		// collect equipment events for MQTT
-		connectToMqttBrokers(mqttBrokerMap);
+		for (MqttBrokerSource brokerSource : mqttBrokerMap.values()) {
+			MqttSource source = brokerSource.getSource();
+			startup.add(DataSourceType.MQTT, source.getId(), attempt -> connectToMqttBroker(source, attempt));
+		}
 
 		// poll file servers
-		startFilePolling(fileServerMap);
+		for (PolledSource fileSource : fileServerMap.values()) {
+			startup.add(DataSourceType.FILE, fileSource.getEventSource().getId(),
+					attempt -> startFilePolling(fileSource, attempt));
+		}
 
 		// start cron schedulers
-		startCronSchedulers(cronSchedulerMap);
+		for (CronSource cronSource : cronSchedulerMap.values()) {
+			startup.add(DataSourceType.CRON, cronSource.getEventSource().getId(),
+					attempt -> startCronScheduler(cronSource, attempt));
+		}
 
 		// connect to Modbus slaves
-		startModbusPolling(modbusSlaveMap);
+		for (PolledSource slaveSource : modbusSlaveMap.values()) {
+			startup.add(DataSourceType.MODBUS, slaveSource.getEventSource().getId(),
+					attempt -> startModbusPolling(slaveSource, attempt));
+		}
 
 		// connect to Proficy historians
-		startProficyPolling(proficyMap);
+		for (PolledSource polledSource : proficyMap.values()) {
+			startup.add(DataSourceType.PROFICY, polledSource.getEventSource().getId(),
+					attempt -> startProficyPolling(polledSource, attempt));
+		}
 
 		// collect data for web socket
-		startWebSocketServers(webSocketServerMap);
+		for (WebSocketServerSource wsSource : webSocketServerMap.values()) {
+			WebSocketSource source = wsSource.getSource();
+			startup.add(DataSourceType.WEB_SOCKET, source.getId(), attempt -> startWebSocketServer(source, attempt));
+		}
+
+		sourceStartup = startup;
+		startup.start();
 
 		if (logger.isInfoEnabled()) {
 			logger.info("Startup finished.");
@@ -1119,6 +1295,112 @@ public class CollectorService
 		saveCollectorState(CollectorState.RUNNING);
 	}
 
+	public boolean isWarmStart() {
+		return warmStart;
+	}
+
+	/**
+	 * Prefetch the resolvers, equipment, reasons and materials when data
+	 * collection starts, using the snapshot of the caches from the last stop
+	 * 
+	 * @param warmStart True to prefetch
+	 */
+	public void setWarmStart(boolean warmStart) {
+		this.warmStart = warmStart;
+	}
+
+	// fetch the reference data in bulk before the first events arrive
+	private void warmCaches() {
+		long start = System.currentTimeMillis();
+
+		try {
+			List<EventResolver> resolvers = equipmentResolver.getAllResolvers();
+			String stamp = WarmStartSnapshot.computeStamp(resolvers);
+
+			Set<String> equipmentNames = new TreeSet<>();
+			Set<String> reasonNames = new TreeSet<>();
+			Set<String> materialNames = new TreeSet<>();
+
+			for (EventResolver resolver : resolvers) {
+				Equipment equipment = resolver.getEquipment();
+
+				if (equipment != null) {
+					equipmentCache.putIfAbsent(equipment.getName(), equipment);
+				}
+
+				if (resolver.getReason() != null) {
+					reasonNames.add(resolver.getReason());
+				}
+			}
+
+			// names cached before the last stop
+			WarmStartSnapshot snapshot = WarmStartSnapshot.read(getSnapshotPath());
+
+			if (snapshot != null && stamp.equals(snapshot.getStamp())) {
+				equipmentNames.addAll(snapshot.getEquipment());
+				reasonNames.addAll(snapshot.getReasons());
+				materialNames.addAll(snapshot.getMaterials());
+			} else if (snapshot != null && logger.isInfoEnabled()) {
+				logger.info("Ignoring warm start snapshot from " + snapshot.getCreated()
+						+ ".  The resolvers have changed.");
+			}
+
+			equipmentNames.removeAll(equipmentCache.keySet());
+
+			for (Equipment equipment : PersistenceService.instance().fetchEquipmentByNames(equipmentNames)) {
+				equipmentCache.put(equipment.getName(), equipment);
+			}
+
+			equipmentResolver.prefetch(reasonNames, materialNames);
+			snapshotStamp = stamp;
+
+			if (logger.isInfoEnabled()) {
+				logger.info("Warm start cached " + resolvers.size() + " resolvers, " + equipmentCache.size()
+						+ " equipment, " + reasonNames.size() + " reasons and " + materialNames.size()
+						+ " materials in " + (System.currentTimeMillis() - start) + " msec");
+			}
+		} catch (Exception e) {
+			logger.warn("Unable to prefetch the caches.  " + e.getMessage());
+		}
+	}
+
+	private void saveSnapshot() {
+		if (snapshotStamp == null) {
+			return;
+		}
+
+		Path path = getSnapshotPath();
+
+		try {
+			new WarmStartSnapshot(snapshotStamp, new TreeSet<>(equipmentCache.keySet()),
+					equipmentResolver.getCachedReasonNames(), equipmentResolver.getCachedMaterialNames()).write(path);
+		} catch (Exception e) {
+			logger.warn("Unable to save warm start snapshot " + path + ".  " + e.getMessage());
+		}
+	}
+
+	private Path getSnapshotPath() {
+		return WarmStartSnapshot.getPath(collectorName != null ? collectorName : hostname);
+	}
+
+	/**
+	 * Get the connection state of each data source
+	 * 
+	 * @return Map of data source type and id with its state of CONNECTING, READY
+	 *         or RETRYING
+	 */
+	public Map<String, String> getSourceReadiness() {
+		Map<String, String> states = new TreeMap<>();
+		SourceStartup startup = sourceStartup;
+
+		if (startup != null) {
+			for (Entry<String, SourceStartup.Readiness> entry : startup.getReadiness().entrySet()) {
+				states.put(entry.getKey(), entry.getValue().name());
+			}
+		}
+		return states;
+	}
+
 	private String getId() {
 		return hostname + " (" + ip + ")";
 	}
@@ -1167,17 +1449,17 @@ public class CollectorService
 
 	private void connectToRMQ(RmqSource server) throws Exception {
 		// first look in RMQ data brokers
-		boolean rmqClientExists = false;
+		RmqClient notifier = null;
 
 		for (RmqClient anRmqClient : appContext.getRmqClients()) {
 			if (anRmqClient.getHostName().equals(server.getHost()) && anRmqClient.getHostPort() == server.getPort()) {
 				anRmqClient.setShouldNotify(true);
-				rmqClientExists = true;
+				notifier = anRmqClient;
 				break;
 			}
 		}
 
-		if (!rmqClientExists) {
+		if (notifier == null) {
 			// not in the app context already as a data source too
 			RmqClient rmqClient = new RmqClient();
 			rmqClient.setShouldNotify(true);
@@ -1185,16 +1467,30 @@ public class CollectorService
 			// queue
 			String queueName = "CMD_" + getClass().getSimpleName() + "_" + System.currentTimeMillis();
 
-			// connect to broker and subscribe for commands
+			// connect to broker and subscribe for commands and entity changes
 			List<RoutingKey> routingKeys = new ArrayList<>();
 			routingKeys.add(RoutingKey.COMMAND_MESSAGE);
+			routingKeys.add(RoutingKey.ENTITY_CHANGED);
 
 			rmqClient.startUp(server.getHost(), server.getPort(), server.getUserName(), server.getUserPassword(),
 					queueName, routingKeys, this);
 
 			// add to context
 			appContext.getRmqClients().add(rmqClient);
+			notifier = rmqClient;
 		}
+
+		// publish the reference entities saved or deleted by this process
+		EntityChangePublisher publisher = new EntityChangePublisher();
+		publisher.start(notifier);
+		entityChangePublishers.add(publisher);
+	}
+
+	private void stopPublishingEntityChanges() throws Exception {
+		for (EntityChangePublisher publisher : entityChangePublishers) {
+			publisher.stop();
+		}
+		entityChangePublishers.clear();
 	}
 
 	private void connectToJMS(JmsSource server) throws Exception {
@@ -1276,6 +1572,8 @@ public class CollectorService
 	}
 
 	private synchronized void startPublishingNotifications() throws Exception {
+		startOutbox();
+
 		// connect to notification brokers
 		for (DataCollector collector : collectors) {
 			CollectorDataSource server = collector.getNotificationServer();
@@ -1403,6 +1701,13 @@ public class CollectorService
 	}
 
 	public synchronized void stopNotifications() throws Exception {
+		// send what is queued before disconnecting
+		if (!outbox.flush(OUTBOX_FLUSH_MSEC)) {
+			logger.warn("Unsent resolved event messages remain in the outbox");
+		}
+
+		stopPublishingEntityChanges();
+
 		for (RmqClient pubsub : appContext.getRmqClients()) {
 			pubsub.disconnect();
 		}
@@ -1425,6 +1730,17 @@ public class CollectorService
 	}
 
 	public synchronized void stopDataCollection() throws Exception {
+		// stop connecting to data sources
+		if (sourceStartup != null) {
+			sourceStartup.stop();
+			sourceStartup = null;
+		}
+
+		// remember what was cached for the next start
+		if (warmStart) {
+			saveSnapshot();
+		}
+
 		// clear resolution caches
 		equipmentResolver.clearCache();
 
@@ -1471,6 +1787,8 @@ public class CollectorService
 		appContext.getOpcUaClients().clear();
 
 		// disconnect from RMQ brokers
+		stopPublishingEntityChanges();
+
 		for (RmqClient pubsub : appContext.getRmqClients()) {
 			onInformation("Disconnecting from RMQ server " + pubsub);
 			pubsub.disconnect();
@@ -1550,6 +1868,9 @@ public class CollectorService
 			onException("Unable to stop data collection.", e);
 		}
 
+		// stop the notification dispatchers
+		outbox.shutdown(OUTBOX_FLUSH_MSEC);
+
 		// shutdown executor service
 		executorService.shutdown();
 
@@ -1735,6 +2056,8 @@ public class CollectorService
 	// HTTP request
 	@Override
 	public void onHttpEquipmentEvent(EquipmentEventRequestDto dto) throws Exception {
+		countReceived(DataSourceType.HTTP, 1);
+
 		if (!dto.getImmediate()) {
 			// execute in task pool
 			getExecutorService().execute(new HttpTask(dto));
@@ -1747,17 +2070,21 @@ public class CollectorService
 	// File request
 	@Override
 	public void resolveFileEvents(FileEventClient client, String sourceId, List<File> files) {
+		countReceived(DataSourceType.FILE, files.size());
 		getExecutorService().execute(new FileTask(client, sourceId, files));
 	}
 
 	// Modbus event
 	@Override
 	public void resolveModbusEvents(ModbusEvent event) {
+		countReceived(DataSourceType.MODBUS, 1);
 		getExecutorService().execute(new ModbusTask(event));
 	}
 
 	@Override
 	public void onOpcDaDataChange(OpcDaMonitoredItem item) {
+		countReceived(DataSourceType.OPC_DA, 1);
+
 		// execute on separate thread
 		getExecutorService().execute(new OpcDaTask(item));
 	}
@@ -1781,15 +2108,12 @@ public class CollectorService
 
 		if (days != null && days.equals(Duration.ZERO)) {
 			// no need to save or purge
-			if (logger.isInfoEnabled()) {
-				logger.info("Retention period is zero.  No record will be saved.");
-			}
+			logger.debug("Retention period is zero.  No record will be saved.");
 			return null;
 		}
 
-		if (logger.isInfoEnabled()) {
-			logger.info("Saving OEE event to database: " + event);
-		}
+		logger.debug("Saving OEE event to database: {}", event);
+		long start = System.nanoTime();
 
 		List<KeyedObject> records = new ArrayList<>();
 		records.add(event);
@@ -1816,6 +2140,8 @@ public class CollectorService
 		// purge old data
 		purgeRecords(event);
 
+		saveTimer.recordSince(start);
+
 		return (OeeEvent) savedRecords.get(0);
 	}
 
@@ -1831,6 +2157,7 @@ public class CollectorService
 
 	@Override
 	public void onOpcUaSubscription(DataValue dataValue, UaMonitoredItem item) {
+		countReceived(DataSourceType.OPC_UA, 1);
 		getExecutorService().execute(new OpcUaTask(dataValue, item));
 	}
 
@@ -1874,6 +2201,8 @@ public class CollectorService
 
 	@Override
 	public void onRmqMessage(ApplicationMessage message) {
+		countReceived(DataSourceType.RMQ, 1);
+
 		// execute on worker thread
 		RmqTask task = new RmqTask(message);
 		executorService.execute(task);
@@ -1881,30 +2210,48 @@ public class CollectorService
 
 	@Override
 	public void onJmsMessage(ApplicationMessage message) {
+		countReceived(DataSourceType.JMS, 1);
+
 		// execute on worker thread
 		executorService.execute(new JmsTask(message));
 	}
 
 	@Override
 	public void onKafkaMessage(ApplicationMessage message) {
+		countReceived(DataSourceType.KAFKA, 1);
+
 		// execute on worker thread
 		executorService.execute(new KafkaTask(message));
 	}
 
+	@Override
+	public void processKafkaMessage(ApplicationMessage message) throws Exception {
+		countReceived(DataSourceType.KAFKA, 1);
+
+		// already on the partition's lane, which retries the record if this fails
+		handleMessage(message);
+	}
+
 	@Override
 	public void onMqttMessage(ApplicationMessage message) {
+		countReceived(DataSourceType.MQTT, 1);
+
 		// execute on worker thread
 		executorService.execute(new MqttTask(message));
 	}
 
 	@Override
 	public void onWebSocketMessage(ApplicationMessage message) {
+		countReceived(DataSourceType.WEB_SOCKET, 1);
+
 		// execute on worker thread
 		executorService.execute(new WebSocketTask(message));
 	}
 
 	@Override
 	public void resolveDatabaseEvents(DatabaseEventClient databaseClient, List<DatabaseEvent> events) {
+		countReceived(DataSourceType.DATABASE, events.size());
+
 		for (DatabaseEvent event : events) {
 			// execute on worker thread
 			DatabaseEventTask task = new DatabaseEventTask(databaseClient, event);
@@ -1912,21 +2259,42 @@ public class CollectorService
 		}
 	}
 
+	@Override
+	public void resolveClaimedDatabaseEvents(DatabaseEventClient databaseClient, List<DatabaseEvent> events) {
+		countReceived(DataSourceType.DATABASE, events.size());
+
+		// in order on the polling thread
+		new DatabaseEventBatchTask(databaseClient, events).run();
+	}
+
 	@Override
 	public void resolveCronEvent(JobExecutionContext context) {
+		countReceived(DataSourceType.CRON, 1);
 		getExecutorService().execute(new CronTask(context));
 	}
 
 	@Override
 	public void onEmailMessage(ApplicationMessage message) {
+		countReceived(DataSourceType.EMAIL, 1);
+
 		// execute on worker thread
 		executorService.execute(new EmailTask(message));
 	}
 
 	@Override
 	public void onProficyEvent(TagData tagData) {
+		countReceived(DataSourceType.PROFICY, 1);
+
 		// execute on worker thread
-		executorService.execute(new ProficyTask(tagData));
+		executorService.execute(new ProficyTask(Collections.singletonList(tagData)));
+	}
+
+	@Override
+	public void onProficyEvents(List<TagData> tagDataList) {
+		countReceived(DataSourceType.PROFICY, tagDataList.size());
+
+		// execute on one worker thread to keep time stamp order
+		executorService.execute(new ProficyTask(tagDataList));
 	}
 
 	// subscribed OPC DA items by source
@@ -2102,9 +2470,7 @@ public class CollectorService
 	}
 
 	public void processHttpEquipmentEvent(EquipmentEventRequestDto dto) throws Exception {
-		if (logger.isInfoEnabled()) {
-			logger.info("HTTP event: " + dto);
-		}
+		logger.debug("HTTP event: {}", dto);
 
 		// create event
 		OffsetDateTime start = null;
@@ -2206,10 +2572,8 @@ public class CollectorService
 
 				OffsetDateTime startTimestamp = DomainUtils.localTimeFromDateTime(dt);
 
-				if (logger.isInfoEnabled()) {
-					logger.info("OPC UA subscription, node: " + sourceId + ", value: " + dataValue + ", timestamp: "
-							+ startTimestamp);
-				}
+				logger.debug("OPC UA subscription, node: {}, value: {}, timestamp: {}", sourceId, dataValue,
+						startTimestamp);
 
 				// resolve event
 				OeeEquipmentEvent event = new OeeEquipmentEvent(sourceId, dataValue, startTimestamp);
@@ -2227,6 +2591,16 @@ public class CollectorService
 			return;
 		}
 
+		checkResolvedDuration(resolvedEvent);
+
+		// save in database
+		OeeEvent savedEvent = saveOeeEvent(resolvedEvent);
+
+		// send event message
+		sendResolutionMessage(savedEvent);
+	}
+
+	private void checkResolvedDuration(OeeEvent resolvedEvent) throws Exception {
 		if (resolvedEvent.getOffsetEndTime() != null && resolvedEvent.getDuration() != null) {
 			Duration delta = Duration.between(resolvedEvent.getStartTime(), resolvedEvent.getEndTime());
 
@@ -2235,48 +2609,132 @@ public class CollectorService
 						resolvedEvent.getDuration(), delta));
 			}
 		}
+	}
 
-		// save in database
-		OeeEvent savedEvent = saveOeeEvent(resolvedEvent);
+	/**
+	 * Save resolved events in one transaction. Open availability, material and
+	 * job events close off the previous event of the same type, which may be
+	 * earlier in the same list.
+	 * 
+	 * @param resolvedEvents List of {@link OeeEvent} in time order
+	 * @throws Exception Exception
+	 */
+	public synchronized void recordResolutions(List<OeeEvent> resolvedEvents) throws Exception {
+		List<KeyedObject> records = new ArrayList<>();
 
-		// send event message
-		sendResolutionMessage(savedEvent);
-	}
+		// positions of the resolved events in the records
+		List<Integer> eventIndexes = new ArrayList<>();
 
-	private void sendResolutionMessage(OeeEvent resolvedEvent) throws Exception {
-		// send resolution message to each subscriber
-		CollectorResolvedEventMessage message = new CollectorResolvedEventMessage(hostname, ip);
-		message.fromResolvedEvent(resolvedEvent);
-		message.setSenderId(collectorName);
+		// latest event by equipment and type
+		Map<String, OeeEvent> lastEvents = new HashMap<>();
 
-		for (RmqClient pubsub : appContext.getRmqClients()) {
-			pubsub.sendResolvedEventMessage(message);
-		}
+		// one event per equipment for purging
+		Map<String, OeeEvent> purgeEvents = new HashMap<>();
 
-		for (JmsClient pubsub : appContext.getJmsClients()) {
-			pubsub.sendNotificationMessage(message);
+		for (OeeEvent event : resolvedEvents) {
+			Equipment equipment = event.getEquipment();
+
+			if (equipment == null) {
+				continue;
+			}
+
+			try {
+				checkResolvedDuration(event);
+			} catch (Exception e) {
+				onException(null, e);
+				continue;
+			}
+
+			Duration days = equipment.findRetentionPeriod();
+
+			if (days != null && days.equals(Duration.ZERO)) {
+				// no need to save or purge
+				continue;
+			}
+
+			OeeEventType type = event.getEventType();
+
+			if (!type.isProduction()) {
+				String key = equipment.getName() + '.' + type;
+
+				if (event.getOffsetEndTime() == null) {
+					OeeEvent lastRecord = null;
+
+					if (lastEvents.containsKey(key)) {
+						// already in this batch
+						lastRecord = lastEvents.get(key);
+					} else {
+						lastRecord = PersistenceService.instance().fetchLastEvent(equipment, type);
+
+						if (lastRecord != null) {
+							records.add(lastRecord);
+						}
+					}
+
+					if (lastRecord != null) {
+						lastRecord.setOffsetEndTime(event.getOffsetStartTime());
+						lastRecord.setDuration(Duration.between(lastRecord.getStartTime(), lastRecord.getEndTime()));
+					}
+				}
+				lastEvents.put(key, event);
+			}
+
+			eventIndexes.add(records.size());
+			records.add(event);
+			purgeEvents.put(equipment.getName(), event);
 		}
 
-		for (KafkaOeeClient pubsub : appContext.getKafkaClients()) {
-			pubsub.sendNotificationMessage(message);
+		if (records.isEmpty()) {
+			return;
 		}
 
-		for (MqttOeeClient pubsub : appContext.getMqttClients()) {
-			pubsub.sendNotificationMessage(message);
+		logger.debug("Saving {} OEE events to database", eventIndexes.size());
+
+		// save records
+		long start = System.nanoTime();
+		List<KeyedObject> savedRecords = PersistenceService.instance().save(records);
+
+		// purge old data
+		for (OeeEvent event : purgeEvents.values()) {
+			purgeRecords(event);
 		}
+		saveTimer.recordSince(start);
 
-		for (EmailClient emailClient : appContext.getEmailClients()) {
-			emailClient.sendEvent(emailClient.getSource().getUserName(),
-					DomainLocalizer.instance().getLangString("email.notification.subject"), message);
+		// send event messages
+		for (Integer index : eventIndexes) {
+			sendResolutionMessage((OeeEvent) savedRecords.get(index));
 		}
+	}
 
-		if (logger.isInfoEnabled()) {
-			logger.info("Sent message for host " + getId() + " of type " + message.getMessageType()
-					+ " for resolver type " + message.getResolverType());
+	private void sendResolutionMessage(OeeEvent resolvedEvent) throws Exception {
+		// queue the resolution message for each subscriber
+		long start = System.nanoTime();
+
+		CollectorResolvedEventMessage message = new CollectorResolvedEventMessage(hostname, ip);
+		message.fromResolvedEvent(resolvedEvent);
+		message.setSenderId(collectorName);
+
+		outbox.post(message);
+		messageTimer.recordSince(start);
+
+		if (logger.isTraceEnabled()) {
+			logger.trace("Queued message for host {} of type {} for resolver type {}", getId(),
+					message.getMessageType(), message.getResolverType());
 		}
 	}
 
-	private Equipment fetchEquipment(String equipmentName) throws Exception {
+	public NotificationOutbox getNotificationOutbox() {
+		return outbox;
+	}
+
+	/**
+	 * Get equipment by name from the cache, else from the database
+	 * 
+	 * @param equipmentName Equipment name
+	 * @return {@link Equipment} or null if the name is null
+	 * @throws Exception if the equipment does not exist
+	 */
+	public Equipment fetchEquipment(String equipmentName) throws Exception {
 		Equipment equipment = null;
 
 		if (equipmentName == null) {
@@ -2299,6 +2757,35 @@ public class CollectorService
 		return equipment;
 	}
 
+	/**
+	 * Get the names of the cached equipment
+	 * 
+	 * @return Set of names
+	 */
+	public Set<String> getCachedEquipmentNames() {
+		return new TreeSet<>(equipmentCache.keySet());
+	}
+
+	/**
+	 * Get the resolver of reasons, materials and event scripts
+	 * 
+	 * @return {@link EquipmentEventResolver}
+	 */
+	public EquipmentEventResolver getEquipmentResolver() {
+		return equipmentResolver;
+	}
+
+	private void evictEquipment(Long key, String name) {
+		if (name != null) {
+			equipmentCache.remove(name);
+		}
+
+		// a renamed equipment is cached under its old name
+		if (key != null) {
+			equipmentCache.values().removeIf(cached -> key.equals(cached.getKey()));
+		}
+	}
+
 	private void checkDuration(OeeEquipmentEvent event) throws Exception {
 		if (event.getEndTimestamp() != null) {
 			if (event.getDuration() == null || event.getDuration().isZero()) {
@@ -2314,6 +2801,58 @@ public class CollectorService
 	}
 
 	private void resolveEvent(OeeEquipmentEvent event) throws Exception {
+		long start = System.nanoTime();
+		boolean failed = false;
+		OeeEvent resolvedEvent = null;
+		long resolvedNanos = 0;
+
+		try {
+			resolvedEvent = resolveToEvent(event);
+			resolvedNanos = System.nanoTime() - start;
+
+			if (resolvedEvent != null) {
+				recordResolution(resolvedEvent);
+			}
+		} catch (Exception e) {
+			failed = true;
+			resolveFailures.increment();
+			throw e;
+		} finally {
+			long elapsed = resolveTimer.recordSince(start);
+			traceEvent(event, resolvedEvent, resolvedNanos, elapsed, failed);
+		}
+	}
+
+	// per-source summary and a sampled trace of the event
+	private void traceEvent(OeeEquipmentEvent event, OeeEvent resolvedEvent, long resolvedNanos, long elapsedNanos,
+			boolean failed) {
+		EventTrace trace = EventTrace.instance();
+		String sourceId = event.getSourceId() != null ? event.getSourceId() : API_SOURCE;
+
+		trace.onEvent(sourceId, elapsedNanos, failed);
+
+		if (!trace.isSampled()) {
+			return;
+		}
+
+		if (resolvedEvent != null) {
+			Equipment equipment = resolvedEvent.getEquipment();
+			Reason reason = resolvedEvent.getReason();
+
+			trace.trace("Event source={} value={} time={} type={} equipment={} reason={} amount={} resolve_us={} "
+					+ "total_us={} failed={}", sourceId, event.getDataValue(), event.getStartTimestamp(),
+					resolvedEvent.getEventType(), equipment != null ? equipment.getName() : null,
+					reason != null ? reason.getName() : null, resolvedEvent.getAmount(), resolvedNanos / 1000,
+					elapsedNanos / 1000, failed);
+		} else {
+			trace.trace("Event source={} value={} time={} resolved=false resolve_us={} total_us={} failed={}",
+					sourceId, event.getDataValue(), event.getStartTimestamp(), resolvedNanos / 1000,
+					elapsedNanos / 1000, failed);
+		}
+	}
+
+	// invoke the resolver, returning null if there is nothing to record
+	private OeeEvent resolveToEvent(OeeEquipmentEvent event) throws Exception {
 		OeeEvent resolvedEvent = null;
 		boolean isWatchMode = false;
 
@@ -2323,17 +2862,15 @@ public class CollectorService
 
 			if (eventResolver == null) {
 				logger.error("No event resolver found for source id: " + event.getSourceId());
-				return;
+				return null;
 			}
 			isWatchMode = eventResolver.isWatchMode();
 
 			// check to see if we are collecting this data
 			String eventCollector = eventResolver.getCollector().getName();
 			if (collectorName != null && !eventCollector.equals(collectorName)) {
-				if (logger.isTraceEnabled()) {
-					logger.trace("Ignoring event.  It is assigned to collector " + eventCollector);
-				}
-				return;
+				logger.trace("Ignoring event.  It is assigned to collector {}", eventCollector);
+				return null;
 			}
 
 			// event
@@ -2341,10 +2878,8 @@ public class CollectorService
 					event.getStartTimestamp());
 
 			if (resolvedEvent == null) {
-				if (logger.isTraceEnabled()) {
-					logger.trace("Resolver script returned a null result.");
-				}
-				return;
+				logger.trace("Resolver script returned a null result.");
+				return null;
 			}
 
 			// reason could have been set in the resolver script code
@@ -2358,7 +2893,7 @@ public class CollectorService
 
 		} else {
 			// anonymous event via HTTP API
-			resolvedEvent = createEvent("API", event.getEventType(), event.getEquipment(), event.getStartTimestamp(),
+			resolvedEvent = createEvent(API_SOURCE, event.getEventType(), event.getEquipment(), event.getStartTimestamp(),
 					event.getEndTimestamp());
 
 			OeeEventType eventType = event.getEventType();
@@ -2410,15 +2945,33 @@ public class CollectorService
 			}
 		}
 
-		if (!isWatchMode) {
-			recordResolution(resolvedEvent);
+		// watched events are not recorded
+		return isWatchMode ? null : resolvedEvent;
+	}
+
+	// resolve the events in order and save them together
+	private void resolveEventBatch(List<OeeEquipmentEvent> events) throws Exception {
+		List<OeeEvent> resolvedEvents = new ArrayList<>(events.size());
+
+		for (OeeEquipmentEvent event : events) {
+			try {
+				OeeEvent resolvedEvent = resolveToEvent(event);
+
+				if (resolvedEvent != null) {
+					resolvedEvents.add(resolvedEvent);
+				}
+			} catch (Exception e) {
+				onException("Unable to resolve event for source " + event.getSourceId(), e);
+			}
 		}
+
+		recordResolutions(resolvedEvents);
 	}
 
 	private Reason fetchReason(String reasonName) throws Exception {
 		Reason eventReason = null;
 		if (reasonName != null && reasonName.trim().length() > 0) {
-			eventReason = PersistenceService.instance().fetchReasonByName(reasonName);
+			eventReason = equipmentResolver.findReason(reasonName);
 
 			if (eventReason == null) {
 				throw new Exception(DomainLocalizer.instance().getErrorString("undefined.reason", reasonName));
@@ -2430,7 +2983,7 @@ public class CollectorService
 	private Material fetchMaterial(String materialName) throws Exception {
 		Material material = null;
 		if (materialName != null && materialName.trim().length() > 0) {
-			material = PersistenceService.instance().fetchMaterialByName(materialName);
+			material = equipmentResolver.findMaterial(materialName);
 
 			if (material == null) {
 				throw new Exception(DomainLocalizer.instance().getErrorString("no.material", materialName));
@@ -2466,9 +3019,9 @@ public class CollectorService
 				String sourceId = item.getPathName();
 				OffsetDateTime startTimestamp = item.getLocalTimestamp();
 
-				if (logger.isInfoEnabled()) {
-					logger.info("OPC DA data change, group: " + item.getGroup().getName() + ", item: " + sourceId
-							+ ", value: " + item.getValueString() + ", timestamp: " + startTimestamp);
+				if (logger.isDebugEnabled()) {
+					logger.debug("OPC DA data change, group: {}, item: {}, value: {}, timestamp: {}",
+							item.getGroup().getName(), sourceId, item.getValueString(), startTimestamp);
 				}
 
 				// resolve event
@@ -2493,9 +3046,9 @@ public class CollectorService
 			String startTimestamp = eventMessage.getTimestamp();
 			String reason = eventMessage.getReason();
 
-			if (logger.isInfoEnabled()) {
-				logger.info("Equipment event for collector " + collectorName + ", source: " + sourceId + ", value: "
-						+ dataValue + ", timestamp: " + startTimestamp + ", reason: " + reason);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Equipment event for collector {}, source: {}, value: {}, timestamp: {}, reason: {}",
+						collectorName, sourceId, dataValue, startTimestamp, reason);
 			}
 
 			// resolve event
@@ -2507,6 +3060,26 @@ public class CollectorService
 
 			resolveEvent(event);
 
+		} else if (type.equals(MessageType.EQUIPMENT_EVENT_BATCH)) {
+			EquipmentEventBatchMessage batchMessage = (EquipmentEventBatchMessage) message;
+
+			logger.debug("Equipment event batch for collector {} of {} events", collectorName,
+					batchMessage.getEvents().size());
+
+			List<OeeEquipmentEvent> events = new ArrayList<>(batchMessage.getEvents().size());
+
+			for (EventValue eventValue : batchMessage.getEvents()) {
+				OffsetDateTime start = DomainUtils.offsetDateTimeFromString(eventValue.getTimestamp(),
+						DomainUtils.OFFSET_DATE_TIME_8601);
+
+				OeeEquipmentEvent event = new OeeEquipmentEvent(eventValue.getSourceId(), eventValue.getValue(),
+						start);
+				event.setReason(fetchReason(eventValue.getReason()));
+				events.add(event);
+			}
+
+			resolveEventBatch(events);
+
 		} else if (type.equals(MessageType.COMMAND)) {
 			CollectorCommandMessage commandMessage = (CollectorCommandMessage) message;
 
@@ -2514,6 +3087,55 @@ public class CollectorService
 				logger.info("Received restart command");
 				restart();
 			}
+		} else if (type.equals(MessageType.ENTITY_CHANGED)) {
+			evictChangedEntity((EntityChangedMessage) message);
+		}
+	}
+
+	/**
+	 * Evict an entity that was saved or deleted by another process from the
+	 * caches, so that it is fetched again when next needed
+	 * 
+	 * @param message {@link EntityChangedMessage}
+	 * @throws Exception Exception
+	 */
+	public void evictChangedEntity(EntityChangedMessage message) throws Exception {
+		Class<?> entityClass = Class.forName(message.getEntityClass(), false, getClass().getClassLoader());
+
+		if (!KeyedObject.class.isAssignableFrom(entityClass)) {
+			logger.warn("Ignoring change to {}", message.getEntityClass());
+			return;
+		}
+
+		logger.debug("Evicting changed entity {}", message);
+
+		Long key = message.getEntityKey();
+		String name = message.getEntityName();
+
+		if (key != null) {
+			PersistenceService.instance().evictSecondLevelCache(entityClass, key);
+		}
+
+		if (Reason.class.isAssignableFrom(entityClass)) {
+			equipmentResolver.evictReason(key, name);
+		} else if (Material.class.isAssignableFrom(entityClass)) {
+			equipmentResolver.evictMaterial(key, name);
+		} else if (PlantEntity.class.isAssignableFrom(entityClass)) {
+			if (Equipment.class.isAssignableFrom(entityClass)) {
+				evictEquipment(key, name);
+			} else {
+				// cached equipment inherit schedules and retention from their parents
+				equipmentCache.clear();
+			}
+
+			// resolvers are saved with their equipment
+			equipmentResolver.reloadResolvers();
+		} else if (EventResolver.class.isAssignableFrom(entityClass)) {
+			equipmentResolver.reloadResolvers();
+		} else if (WorkSchedule.class.isAssignableFrom(entityClass)
+				|| UnitOfMeasure.class.isAssignableFrom(entityClass)) {
+			// may be referenced by any equipment's schedules or materials
+			equipmentCache.clear();
 		}
 	}
 
@@ -2648,6 +3270,8 @@ public class CollectorService
 
 				// send status message to each message server
 				CollectorServerStatusMessage message = new CollectorServerStatusMessage(hostname, ip);
+				message.setMetrics(MetricsRegistry.instance().snapshot(HEARTBEAT_METRICS));
+				message.setSourceReadiness(getSourceReadiness());
 
 				String timeStamp = DomainUtils.offsetDateTimeToString(OffsetDateTime.now(),
 						DomainUtils.OFFSET_DATE_TIME_8601);
@@ -2695,6 +3319,11 @@ public class CollectorService
 						}
 					}
 				}
+
+				// push to web socket clients
+				for (WebSocketOeeServer wsServer : appContext.getWebSocketServers()) {
+					wsServer.broadcast(message);
+				}
 			} catch (Exception e) {
 				onException("Sending server status message failed.", e);
 			}
@@ -2719,10 +3348,7 @@ public class CollectorService
 				OffsetDateTime timestamp = databaseEvent.getEventTime();
 				String reason = databaseEvent.getReason();
 
-				if (logger.isInfoEnabled()) {
-					logger.info("Database event, source: " + sourceId + ", value: " + dataValue + ", timestamp: "
-							+ timestamp);
-				}
+				logger.debug("Database event, source: {}, value: {}, timestamp: {}", sourceId, dataValue, timestamp);
 
 				// set status to processing
 				databaseEvent.setStatus(DatabaseEventStatus.PROCESSING);
@@ -2756,6 +3382,55 @@ public class CollectorService
 		}
 	}
 
+	/********************* Database Event Batch Task *****************************/
+	private class DatabaseEventBatchTask implements Runnable {
+		private final DatabaseEventClient databaseClient;
+		private final List<DatabaseEvent> databaseEvents;
+
+		DatabaseEventBatchTask(DatabaseEventClient databaseClient, List<DatabaseEvent> databaseEvents) {
+			this.databaseClient = databaseClient;
+			this.databaseEvents = databaseEvents;
+		}
+
+		@Override
+		public void run() {
+			// events are already PROCESSING
+			for (DatabaseEvent databaseEvent : databaseEvents) {
+				try {
+					String sourceId = databaseEvent.getSourceId();
+					String dataValue = databaseEvent.getInputValue();
+					OffsetDateTime timestamp = databaseEvent.getEventTime();
+
+					logger.debug("Database event, source: {}, value: {}, timestamp: {}", sourceId, dataValue,
+							timestamp);
+
+					// resolve event
+					OeeEquipmentEvent event = new OeeEquipmentEvent(sourceId, dataValue, timestamp);
+					event.setReason(fetchReason(databaseEvent.getReason()));
+
+					resolveEvent(event);
+
+					// pass
+					databaseEvent.setStatus(DatabaseEventStatus.PASS);
+					databaseEvent.setError(null);
+				} catch (Exception e) {
+					// fail
+					databaseEvent.setStatus(DatabaseEventStatus.FAIL);
+					databaseEvent.setError(e.getMessage());
+
+					onException("Unable to invoke script resolver.", e);
+				}
+			}
+
+			// all final statuses together
+			try {
+				databaseClient.saveStatus(databaseEvents);
+			} catch (Exception e) {
+				onException("Unable to save database events.", e);
+			}
+		}
+	}
+
 	// handle the cron event callback
 	private class CronTask implements Runnable {
 		private final JobExecutionContext context;
@@ -2771,9 +3446,9 @@ public class CollectorService
 				JobDataMap jobData = context.getJobDetail().getJobDataMap();
 				String sourceId = (String) jobData.get(CronEventClient.SOURCE_ID_KEY);
 
-				if (logger.isInfoEnabled()) {
-					logger.info("Cron event, job: " + context.getJobDetail().getKey().getName() + ", source: "
-							+ sourceId + ", timestamp: " + timestamp);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Cron event, job: {}, source: {}, timestamp: {}",
+							context.getJobDetail().getKey().getName(), sourceId, timestamp);
 				}
 
 				// resolve event
@@ -2799,25 +3474,41 @@ public class CollectorService
 
 		@Override
 		public void run() {
+			FileReadMode readMode = fileClient.getFileEventSource().getReadMode();
+
 			for (File file : files) {
 				try {
 					// event time (unless set by script)
 					OffsetDateTime timestamp = fileClient.getFileService().extractTimestamp(file);
 
-					if (logger.isInfoEnabled()) {
-						logger.info("File event, file: " + file.getName() + ", source: " + sourceId + ", timestamp: "
-								+ timestamp);
-					}
+					logger.debug("File event, file: {}, source: {}, timestamp: {}", file.getName(), sourceId,
+							timestamp);
 
-					// read contents in ready folder
-					String fileContent = fileClient.readFile(file);
+					if (readMode.equals(FileReadMode.FILE)) {
+						// read contents in ready folder
+						String fileContent = fileClient.readFile(file);
 
-					// move to in-process
-					fileClient.moveFile(file, FileEventClient.READY_FOLDER, FileEventClient.PROCESSING_FOLDER);
+						// move to in-process
+						fileClient.moveFile(file, FileEventClient.READY_FOLDER, FileEventClient.PROCESSING_FOLDER);
 
-					// resolve event
-					OeeEquipmentEvent event = new OeeEquipmentEvent(sourceId, fileContent, timestamp);
-					resolveEvent(event);
+						// resolve event
+						OeeEquipmentEvent event = new OeeEquipmentEvent(sourceId, fileContent, timestamp);
+						resolveEvent(event);
+					} else {
+						// move to in-process and stream the records from there
+						fileClient.moveFile(file, FileEventClient.READY_FOLDER, FileEventClient.PROCESSING_FOLDER);
+						File processingFile = fileClient.getFolderFile(file, FileEventClient.PROCESSING_FOLDER);
+
+						// resolve an event per record
+						fileClient.getFileService().readLines(processingFile, readMode.equals(FileReadMode.CSV),
+								(line, lineNumber) -> {
+									try {
+										resolveEvent(new OeeEquipmentEvent(sourceId, line, timestamp));
+									} catch (Exception e) {
+										throw new Exception("Line " + lineNumber + ": " + e.getMessage(), e);
+									}
+								});
+					}
 
 					// move to pass folder
 					fileClient.moveFile(file, FileEventClient.PROCESSING_FOLDER, FileEventClient.PASS_FOLDER);
@@ -2831,6 +3522,8 @@ public class CollectorService
 					} catch (Exception ex) {
 						onException("Unable to move file.", ex);
 					}
+				} finally {
+					fileClient.stopProcessing(file);
 				}
 			}
 		}
@@ -2847,9 +3540,7 @@ public class CollectorService
 		@Override
 		public void run() {
 			try {
-				if (logger.isInfoEnabled()) {
-					logger.info("Modbus event, source: " + modbusEvent.getSource());
-				}
+				logger.debug("Modbus event, source: {}", modbusEvent.getSource());
 
 				// resolve event
 				OeeEquipmentEvent event = new OeeEquipmentEvent(modbusEvent.getSourceId(), modbusEvent.getValues(),
@@ -2865,34 +3556,34 @@ public class CollectorService
 
 	// handle the Proficy event callback
 	private class ProficyTask implements Runnable {
-		private final TagData tagData;
+		private final List<TagData> tagDataList;
 
-		ProficyTask(TagData tagData) {
-			this.tagData = tagData;
+		ProficyTask(List<TagData> tagDataList) {
+			this.tagDataList = tagDataList;
 		}
 
 		@Override
 		public void run() {
-			try {
-				if (logger.isInfoEnabled()) {
-					logger.info("Proficy event, tag: " + tagData.getTagName());
-				}
-
-				// resolve event, tag name is source id
-				// samples in chronological order
-				TagDataType dataType = tagData.getEnumeratedType();
-
-				for (TagSample sample : tagData.getSamples()) {
-					// skip bad data
-					if (sample.getEnumeratedQuality().equals(TagQuality.Good)) {
-						// resolve event
-						OeeEquipmentEvent event = new OeeEquipmentEvent(tagData.getTagName(),
-								sample.getTypedValue(dataType), sample.getTimeStampTime());
-						resolveEvent(event);
+			for (TagData tagData : tagDataList) {
+				try {
+					logger.debug("Proficy event, tag: {}", tagData.getTagName());
+
+					// resolve event, tag name is source id
+					// samples in chronological order
+					TagDataType dataType = tagData.getEnumeratedType();
+
+					for (TagSample sample : tagData.getSamples()) {
+						// skip bad data
+						if (sample.getEnumeratedQuality().equals(TagQuality.Good)) {
+							// resolve event
+							OeeEquipmentEvent event = new OeeEquipmentEvent(tagData.getTagName(),
+									sample.getTypedValue(dataType), sample.getTimeStampTime());
+							resolveEvent(event);
+						}
 					}
+				} catch (Exception e) {
+					onException("Unable to invoke script resolver.", e);
 				}
-			} catch (Exception e) {
-				onException("Unable to invoke script resolver.", e);
 			}
 		}
 	}
@@ -0,0 +1,166 @@
+package org.point85.domain.collector;
+
+import java.net.InetAddress;
+import java.time.OffsetDateTime;
+
+import org.hibernate.Hibernate;
+import org.point85.domain.DomainUtils;
+import org.point85.domain.i18n.DomainLocalizer;
+import org.point85.domain.messaging.EntityChangedMessage;
+import org.point85.domain.persistence.EntityChangeListener;
+import org.point85.domain.persistence.PersistenceService;
+import org.point85.domain.plant.KeyedObject;
+import org.point85.domain.plant.Material;
+import org.point85.domain.plant.NamedObject;
+import org.point85.domain.plant.PlantEntity;
+import org.point85.domain.plant.Reason;
+import org.point85.domain.rmq.RmqClient;
+import org.point85.domain.rmq.RmqSource;
+import org.point85.domain.schedule.WorkSchedule;
+import org.point85.domain.script.EventResolver;
+import org.point85.domain.uom.UnitOfMeasure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes an {@link EntityChangedMessage} to a collector notification broker
+ * when the {@link PersistenceService} saves or deletes a reference entity that
+ * collectors cache, e.g. when a reason or material is edited in the designer.
+ * Collectors then evict only that entity instead of restarting.
+ * <p>
+ * A {@link CollectorService} publishes over each RMQ notification server it
+ * connects to. Other applications that save entities start a publisher with
+ * their notification server.
+ *
+ */
+public class EntityChangePublisher implements EntityChangeListener {
+	// logger
+	private static final Logger logger = LoggerFactory.getLogger(EntityChangePublisher.class);
+
+	// publisher
+	private volatile RmqClient rmqClient;
+
+	// true if the client was connected by this publisher
+	private boolean ownsClient = false;
+
+	// sender
+	private String hostname;
+	private String ip;
+
+	/**
+	 * Connect to the notification broker and publish changes until stopped
+	 *
+	 * @param server Notification server {@link CollectorDataSource}
+	 * @throws Exception Exception
+	 */
+	public synchronized void start(CollectorDataSource server) throws Exception {
+		if (!server.getDataSourceType().equals(DataSourceType.RMQ)) {
+			throw new Exception(
+					DomainLocalizer.instance().getErrorString("entity.change.broker", server.getDataSourceType()));
+		}
+
+		RmqSource source = (RmqSource) server;
+		RmqClient client = new RmqClient();
+		client.connect(source.getHost(), source.getPort(), source.getUserName(), source.getUserPassword());
+
+		start(client, true);
+	}
+
+	/**
+	 * Publish changes with a client that is already connected to the
+	 * notification broker. The client is not disconnected when stopped.
+	 *
+	 * @param client Connected {@link RmqClient}
+	 * @throws Exception Exception
+	 */
+	public synchronized void start(RmqClient client) throws Exception {
+		start(client, false);
+	}
+
+	private void start(RmqClient client, boolean owned) throws Exception {
+		if (rmqClient != null) {
+			stop();
+		}
+
+		InetAddress address = InetAddress.getLocalHost();
+		hostname = address.getHostName();
+		ip = address.getHostAddress();
+
+		rmqClient = client;
+		ownsClient = owned;
+
+		PersistenceService.instance().addEntityChangeListener(this);
+
+		if (logger.isInfoEnabled()) {
+			logger.info("Publishing entity changes to RMQ broker " + rmqClient);
+		}
+	}
+
+	/**
+	 * Stop publishing changes and disconnect
+	 *
+	 * @throws Exception Exception
+	 */
+	public synchronized void stop() throws Exception {
+		PersistenceService.instance().removeEntityChangeListener(this);
+
+		if (rmqClient != null) {
+			if (ownsClient) {
+				rmqClient.disconnect();
+			}
+			rmqClient = null;
+		}
+	}
+
+	/**
+	 * Check if collectors cache this kind of entity
+	 *
+	 * @param entity {@link KeyedObject}
+	 * @return True if cached
+	 */
+	public static boolean isCachedByCollectors(KeyedObject entity) {
+		return entity instanceof Reason || entity instanceof Material || entity instanceof PlantEntity
+				|| entity instanceof EventResolver || entity instanceof WorkSchedule
+				|| entity instanceof UnitOfMeasure;
+	}
+
+	/**
+	 * Create the message for a saved or deleted entity
+	 *
+	 * @param entity  {@link KeyedObject}
+	 * @param deleted True if deleted
+	 * @return {@link EntityChangedMessage}
+	 */
+	public EntityChangedMessage createMessage(KeyedObject entity, boolean deleted) {
+		EntityChangedMessage message = new EntityChangedMessage(hostname, ip);
+		message.setEntityClass(Hibernate.getClass(entity).getName());
+		message.setEntityKey(entity.getKey());
+		message.setDeleted(deleted);
+		message.setTimestamp(
+				DomainUtils.offsetDateTimeToString(OffsetDateTime.now(), DomainUtils.OFFSET_DATE_TIME_8601));
+
+		if (entity instanceof NamedObject) {
+			message.setEntityName(((NamedObject) entity).getName());
+		}
+		return message;
+	}
+
+	@Override
+	public void onEntityChange(KeyedObject entity, boolean deleted) {
+		RmqClient client = rmqClient;
+
+		if (client == null || !isCachedByCollectors(entity)) {
+			return;
+		}
+
+		EntityChangedMessage message = createMessage(entity, deleted);
+
+		try {
+			client.sendEntityChangedMessage(message);
+
+			logger.debug("Published entity change {}", message);
+		} catch (Exception e) {
+			logger.error("Unable to publish entity change for " + message.getEntityName(), e);
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package org.point85.domain.collector;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sampled per-event trace and a periodic per-source summary of event
+ * resolution. A sampled event is logged as one line at DEBUG level. The
+ * summary replaces per-event INFO lines and is logged every
+ * {@link #SUMMARY_PROPERTY} seconds by a background thread for each source
+ * that had events in the interval.
+ *
+ */
+public final class EventTrace {
+	// system property for tracing one in this many events
+	public static final String SAMPLE_PROPERTY = "point85.trace.sample";
+
+	// system property for the summary interval (sec)
+	public static final String SUMMARY_PROPERTY = "point85.trace.summary.sec";
+
+	// defaults
+	private static final int DEFAULT_SAMPLE = 100;
+	private static final int DEFAULT_SUMMARY_SEC = 60;
+
+	private static final double NANOS_PER_MSEC = 1.0E+06;
+
+	// logger
+	private static final Logger logger = LoggerFactory.getLogger(EventTrace.class);
+
+	private static final EventTrace eventTrace = new EventTrace();
+
+	// one in this many events is traced
+	private final int sampleRate;
+
+	// summary interval (sec)
+	private final int summarySec;
+
+	// events seen, for sampling
+	private final AtomicLong sampleCount = new AtomicLong();
+
+	// statistics by source since the last summary
+	private final Map<String, SourceStats> sourceStats = new ConcurrentHashMap<>();
+
+	// summary writer
+	private ScheduledExecutorService summaryExecutor;
+
+	private EventTrace() {
+		sampleRate = Math.max(1, Integer.getInteger(SAMPLE_PROPERTY, DEFAULT_SAMPLE));
+		summarySec = Math.max(1, Integer.getInteger(SUMMARY_PROPERTY, DEFAULT_SUMMARY_SEC));
+	}
+
+	public static EventTrace instance() {
+		return eventTrace;
+	}
+
+	/**
+	 * Decide if this event is to be traced. Nothing is sampled unless DEBUG is
+	 * enabled for this class.
+	 *
+	 * @return True if the event should be traced
+	 */
+	public boolean isSampled() {
+		return logger.isDebugEnabled() && sampleCount.getAndIncrement() % sampleRate == 0;
+	}
+
+	/**
+	 * Log a sampled event
+	 *
+	 * @param format Parameterized message
+	 * @param args   Message arguments
+	 */
+	public void trace(String format, Object... args) {
+		logger.debug(format, args);
+	}
+
+	/**
+	 * Count an event for the source's summary
+	 *
+	 * @param sourceId     Source identifier
+	 * @param elapsedNanos Time to resolve and record the event
+	 * @param failed       True if the event could not be resolved
+	 */
+	public void onEvent(String sourceId, long elapsedNanos, boolean failed) {
+		if (!logger.isInfoEnabled()) {
+			return;
+		}
+
+		SourceStats stats = sourceStats.get(sourceId);
+
+		if (stats == null) {
+			stats = sourceStats.computeIfAbsent(sourceId, id -> new SourceStats());
+			startSummary();
+		}
+
+		stats.count.increment();
+		stats.nanos.add(elapsedNanos);
+		stats.maxNanos.accumulate(elapsedNanos);
+
+		if (failed) {
+			stats.failures.increment();
+		}
+	}
+
+	private synchronized void startSummary() {
+		if (summaryExecutor != null) {
+			return;
+		}
+
+		summaryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "oee-event-summary");
+			thread.setDaemon(true);
+			return thread;
+		});
+		summaryExecutor.scheduleAtFixedRate(this::logSummary, summarySec, summarySec, TimeUnit.SECONDS);
+	}
+
+	private void logSummary() {
+		try {
+			for (Map.Entry<String, SourceStats> entry : sourceStats.entrySet()) {
+				SourceStats stats = entry.getValue();
+
+				long count = stats.count.sumThenReset();
+				long failures = stats.failures.sumThenReset();
+				long nanos = stats.nanos.sumThenReset();
+				long maxNanos = stats.maxNanos.getThenReset();
+
+				if (count == 0) {
+					continue;
+				}
+
+				logger.info("Source {}: {} events, {} failed, mean {} msec, max {} msec in {} sec", entry.getKey(),
+						count, failures, String.format("%.1f", nanos / NANOS_PER_MSEC / count),
+						String.format("%.1f", maxNanos / NANOS_PER_MSEC), summarySec);
+			}
+		} catch (Exception e) {
+			logger.error("Unable to log event summary", e);
+		}
+	}
+
+	// counts since the last summary
+	private static final class SourceStats {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder failures = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+	}
+}
@@ -0,0 +1,283 @@
+package org.point85.domain.collector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.point85.domain.messaging.ApplicationMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The NotificationOutbox decouples the publishing of application messages from
+ * the threads that produce them. Each transport has its own dispatcher with a
+ * bounded queue so that a slow broker or mail server only delays its own
+ * messages.
+ *
+ */
+public class NotificationOutbox {
+	// logger
+	private static final Logger logger = LoggerFactory.getLogger(NotificationOutbox.class);
+
+	// default queue capacity per transport
+	public static final int DEFAULT_CAPACITY = 10000;
+
+	// default maximum messages per batch
+	public static final int DEFAULT_BATCH_SIZE = 100;
+
+	// system property for the queue capacity per transport
+	public static final String CAPACITY_PROPERTY = "point85.outbox.capacity";
+
+	// system property for the {@link OverflowPolicy}, DROP or BLOCK
+	public static final String OVERFLOW_PROPERTY = "point85.outbox.overflow";
+
+	/**
+	 * What to do with a message when a dispatcher's queue is full
+	 */
+	public enum OverflowPolicy {
+		// discard the message
+		DROP,
+
+		// wait for space in the queue
+		BLOCK
+	}
+
+	/**
+	 * Publishes a batch of messages over one transport
+	 */
+	@FunctionalInterface
+	public interface BatchSender {
+		void send(List<ApplicationMessage> messages) throws Exception;
+	}
+
+	private final List<Dispatcher> dispatchers = new CopyOnWriteArrayList<>();
+
+	private final int capacity;
+
+	private final int batchSize;
+
+	private final OverflowPolicy policy;
+
+	public NotificationOutbox() {
+		this(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, OverflowPolicy.DROP);
+	}
+
+	public NotificationOutbox(int capacity, int batchSize, OverflowPolicy policy) {
+		this.capacity = capacity;
+		this.batchSize = batchSize;
+		this.policy = policy;
+	}
+
+	/**
+	 * Create an outbox with the capacity and overflow policy set by the
+	 * {@link #CAPACITY_PROPERTY} and {@link #OVERFLOW_PROPERTY} system
+	 * properties, else the defaults
+	 *
+	 * @return {@link NotificationOutbox}
+	 */
+	public static NotificationOutbox fromSystemProperties() {
+		int capacity = Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY);
+		String overflow = System.getProperty(OVERFLOW_PROPERTY, OverflowPolicy.DROP.name());
+		OverflowPolicy policy = OverflowPolicy.DROP;
+
+		try {
+			policy = OverflowPolicy.valueOf(overflow.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			logger.warn("Invalid " + OVERFLOW_PROPERTY + " " + overflow + ", using " + policy);
+		}
+
+		if (capacity <= 0) {
+			logger.warn("Invalid " + CAPACITY_PROPERTY + " " + capacity + ", using " + DEFAULT_CAPACITY);
+			capacity = DEFAULT_CAPACITY;
+		}
+		return new NotificationOutbox(capacity, DEFAULT_BATCH_SIZE, policy);
+	}
+
+	/**
+	 * Add a dispatcher for a transport
+	 *
+	 * @param name   Transport name
+	 * @param sender {@link BatchSender}
+	 */
+	public void addDispatcher(String name, BatchSender sender) {
+		addDispatcher(name, () -> true, sender);
+	}
+
+	/**
+	 * Add a dispatcher for a transport that is only sent messages while it has
+	 * clients
+	 *
+	 * @param name       Transport name
+	 * @param hasClients True if the transport has clients to send to
+	 * @param sender     {@link BatchSender}
+	 */
+	public synchronized void addDispatcher(String name, BooleanSupplier hasClients, BatchSender sender) {
+		Dispatcher dispatcher = new Dispatcher(name, hasClients, sender);
+		dispatchers.add(dispatcher);
+		dispatcher.start();
+	}
+
+	/**
+	 * Check for running dispatchers
+	 *
+	 * @return True if dispatchers have been added and not shut down
+	 */
+	public boolean isStarted() {
+		return !dispatchers.isEmpty();
+	}
+
+	/**
+	 * Queue a message for every transport
+	 *
+	 * @param message {@link ApplicationMessage}
+	 */
+	public void post(ApplicationMessage message) {
+		for (Dispatcher dispatcher : dispatchers) {
+			// nothing to queue for a transport without clients
+			if (dispatcher.hasClients.getAsBoolean()) {
+				dispatcher.offer(message);
+			}
+		}
+	}
+
+	/**
+	 * Wait for the queued messages to be sent
+	 *
+	 * @param timeoutMsec Maximum time to wait
+	 * @return True if all queues were emptied
+	 */
+	public boolean flush(long timeoutMsec) {
+		long deadline = System.currentTimeMillis() + timeoutMsec;
+
+		for (Dispatcher dispatcher : dispatchers) {
+			while (dispatcher.pending.get() > 0) {
+				if (System.currentTimeMillis() >= deadline) {
+					return false;
+				}
+
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Flush the queues and stop the dispatchers
+	 *
+	 * @param timeoutMsec Maximum time to wait for queued messages
+	 */
+	public synchronized void shutdown(long timeoutMsec) {
+		if (!flush(timeoutMsec)) {
+			logger.warn("Notification outbox shut down with unsent messages");
+		}
+
+		for (Dispatcher dispatcher : dispatchers) {
+			dispatcher.interrupt();
+		}
+		dispatchers.clear();
+	}
+
+	/**
+	 * Get the number of messages queued or being sent by all transports
+	 *
+	 * @return Pending count
+	 */
+	public long getPendingCount() {
+		long count = 0;
+		for (Dispatcher dispatcher : dispatchers) {
+			count += dispatcher.pending.get();
+		}
+		return count;
+	}
+
+	/**
+	 * Get the number of messages discarded because a queue was full
+	 *
+	 * @return Dropped count
+	 */
+	public long getDroppedCount() {
+		long count = 0;
+		for (Dispatcher dispatcher : dispatchers) {
+			count += dispatcher.dropped.get();
+		}
+		return count;
+	}
+
+	private class Dispatcher extends Thread {
+		private final BlockingQueue<ApplicationMessage> queue = new ArrayBlockingQueue<>(capacity);
+
+		private final BooleanSupplier hasClients;
+
+		private final BatchSender sender;
+
+		// queued or being sent
+		private final AtomicLong pending = new AtomicLong();
+
+		private final AtomicLong dropped = new AtomicLong();
+
+		private Dispatcher(String name, BooleanSupplier hasClients, BatchSender sender) {
+			super("Outbox-" + name);
+			this.hasClients = hasClients;
+			this.sender = sender;
+			setDaemon(true);
+		}
+
+		private void offer(ApplicationMessage message) {
+			pending.incrementAndGet();
+
+			boolean queued = queue.offer(message);
+
+			if (!queued && policy == OverflowPolicy.BLOCK) {
+				try {
+					queue.put(message);
+					queued = true;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			if (!queued) {
+				pending.decrementAndGet();
+
+				if (dropped.incrementAndGet() % 1000 == 1) {
+					logger.warn(getName() + " queue is full, dropped " + dropped.get() + " message(s)");
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			List<ApplicationMessage> batch = new ArrayList<>(batchSize);
+
+			while (!isInterrupted()) {
+				try {
+					// wait for the first message then take whatever else is queued
+					batch.add(queue.take());
+					queue.drainTo(batch, batchSize - 1);
+
+					// the last client may have gone since the messages were queued
+					if (hasClients.getAsBoolean()) {
+						sender.send(batch);
+						logger.trace("{} sent {} message(s)", getName(), batch.size());
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (Exception e) {
+					logger.error(getName() + " unable to send " + batch.size() + " message(s)", e);
+				} finally {
+					pending.addAndGet(-batch.size());
+					batch.clear();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,405 @@
+package org.point85.domain.collector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.point85.domain.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Connects a collector's data sources concurrently. Startup waits up to
+ * {@link #TIMEOUT_PROPERTY} seconds for the sources, then reports the readiness
+ * of each one. A source that failed to connect, or did not connect within
+ * {@link #ATTEMPT_TIMEOUT_PROPERTY} seconds, is retried in the background with
+ * exponential backoff, so one unreachable source neither delays nor stops the
+ * others.
+ * <p>
+ * A connector registers how to release each client it creates and commits the
+ * client to the collector's context as its last step. If the attempt fails or
+ * is abandoned at its deadline, the registered clients are released so that
+ * the retry starts clean.
+ *
+ */
+final class SourceStartup {
+	// system property for the time to wait for the sources to connect (sec)
+	static final String TIMEOUT_PROPERTY = "point85.startup.timeout.sec";
+
+	// system property for the time allowed for one connection attempt (sec)
+	static final String ATTEMPT_TIMEOUT_PROPERTY = "point85.startup.attempt.timeout.sec";
+
+	private static final int DEFAULT_TIMEOUT_SEC = 15;
+	private static final int DEFAULT_ATTEMPT_TIMEOUT_SEC = 30;
+
+	// retry backoff
+	private static final long INITIAL_BACKOFF_MSEC = 1000;
+	private static final long MAX_BACKOFF_MSEC = 300000;
+
+	// maximum concurrent connections
+	private static final int MAX_THREADS = 8;
+
+	// logger
+	private static final Logger logger = LoggerFactory.getLogger(SourceStartup.class);
+
+	enum Readiness {
+		CONNECTING, READY, RETRYING
+	}
+
+	/**
+	 * Connects one data source
+	 */
+	@FunctionalInterface
+	interface Connector {
+		void connect(Attempt attempt) throws Exception;
+	}
+
+	/**
+	 * Releases or commits a client
+	 */
+	@FunctionalInterface
+	interface Action {
+		void run() throws Exception;
+	}
+
+	// sources to connect
+	private final List<Source> sources = new ArrayList<>();
+
+	// readiness by source name
+	private final Map<String, Readiness> readiness = new ConcurrentSkipListMap<>();
+
+	// runs the connection attempts
+	private ThreadPoolExecutor connectExecutor;
+
+	// schedules the retries and attempt deadlines
+	private ScheduledThreadPoolExecutor scheduler;
+
+	// counted down after the first attempt for each source
+	private CountDownLatch firstAttempts;
+
+	private long attemptTimeoutMsec;
+
+	private volatile boolean stopped = false;
+
+	/**
+	 * Add a data source to connect
+	 *
+	 * @param type      {@link DataSourceType}
+	 * @param id        Source identifier
+	 * @param connector {@link Connector}
+	 */
+	void add(DataSourceType type, String id, Connector connector) {
+		String name = type + " " + id;
+		sources.add(new Source(name, connector));
+		readiness.put(name, Readiness.CONNECTING);
+	}
+
+	/**
+	 * Connect the sources and wait for them to connect or to time out
+	 *
+	 * @throws InterruptedException InterruptedException
+	 */
+	void start() throws InterruptedException {
+		if (sources.isEmpty()) {
+			return;
+		}
+
+		attemptTimeoutMsec = TimeUnit.SECONDS
+				.toMillis(Integer.getInteger(ATTEMPT_TIMEOUT_PROPERTY, DEFAULT_ATTEMPT_TIMEOUT_SEC));
+
+		int threads = Math.min(sources.size(), MAX_THREADS);
+		connectExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				createThreadFactory("oee-source-startup-"));
+		connectExecutor.allowCoreThreadTimeOut(true);
+
+		scheduler = new ScheduledThreadPoolExecutor(1, createThreadFactory("oee-source-retry-"));
+		scheduler.setRemoveOnCancelPolicy(true);
+
+		MetricsRegistry.instance().gauge("oee_sources_ready", "Data sources connected", () -> count(Readiness.READY));
+		MetricsRegistry.instance().gauge("oee_sources_retrying", "Data sources waiting to reconnect",
+				() -> count(Readiness.RETRYING));
+
+		firstAttempts = new CountDownLatch(sources.size());
+
+		for (Source source : sources) {
+			connectExecutor.execute(() -> attempt(source));
+		}
+
+		int timeout = Integer.getInteger(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT_SEC);
+		if (!firstAttempts.await(timeout, TimeUnit.SECONDS) && logger.isWarnEnabled()) {
+			logger.warn("Not all data sources connected within " + timeout + " sec");
+		}
+
+		if (logger.isInfoEnabled()) {
+			for (Map.Entry<String, Readiness> entry : readiness.entrySet()) {
+				logger.info("Data source " + entry.getKey() + ": " + entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Connect a data source once on the calling thread, without a deadline or
+	 * retry
+	 *
+	 * @param connector {@link Connector}
+	 * @throws Exception Exception
+	 */
+	static void connectOnce(Connector connector) throws Exception {
+		Attempt attempt = new SourceStartup().new Attempt(Thread.currentThread());
+
+		try {
+			connector.connect(attempt);
+		} catch (Exception e) {
+			attempt.release();
+			throw e;
+		}
+	}
+
+	private static ThreadFactory createThreadFactory(String prefix) {
+		AtomicInteger threadCount = new AtomicInteger();
+
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	// runs on a connect thread
+	private void attempt(Source source) {
+		if (stopped) {
+			return;
+		}
+
+		Attempt attempt = new Attempt(Thread.currentThread());
+		ScheduledFuture<?> deadline = scheduler.schedule(() -> expire(source, attempt), attemptTimeoutMsec,
+				TimeUnit.MILLISECONDS);
+
+		try {
+			source.connector.connect(attempt);
+
+			// a connector with nothing to commit has connected when it returns
+			attempt.settle(State.COMMITTED);
+
+			if (attempt.getState() == State.COMMITTED) {
+				succeeded(source);
+			} else {
+				// abandoned at the deadline, which already scheduled the retry
+				attempt.release();
+			}
+		} catch (Exception e) {
+			attempt.release();
+
+			if (attempt.settle(State.FAILED)) {
+				failed(source, e);
+			}
+		} finally {
+			deadline.cancel(false);
+			source.running = false;
+
+			// an interrupt from the deadline must not reach the next attempt on this thread
+			Thread.interrupted();
+		}
+	}
+
+	// runs when an attempt's deadline passes
+	private void expire(Source source, Attempt attempt) {
+		if (!attempt.settle(State.ABANDONED)) {
+			return;
+		}
+
+		// the attempt releases its clients when the connector returns
+		attempt.thread.interrupt();
+		failed(source, new TimeoutException("No connection after " + attemptTimeoutMsec + " msec"));
+	}
+
+	private void succeeded(Source source) {
+		readiness.put(source.name, Readiness.READY);
+
+		if (source.retries > 0 && logger.isInfoEnabled()) {
+			logger.info("Connected to data source " + source.name + " after " + source.retries + " retries");
+		}
+		source.countFirstAttempt();
+	}
+
+	private void failed(Source source, Exception e) {
+		source.countFirstAttempt();
+
+		if (stopped) {
+			return;
+		}
+
+		long backoff = Math.min(MAX_BACKOFF_MSEC, INITIAL_BACKOFF_MSEC << Math.min(source.retries, 20));
+		source.retries++;
+		readiness.put(source.name, Readiness.RETRYING);
+
+		logger.warn("Unable to connect to data source " + source.name + ".  Retrying in " + backoff + " msec. "
+				+ e.getMessage());
+
+		scheduler.schedule(() -> retry(source), backoff, TimeUnit.MILLISECONDS);
+	}
+
+	// runs on the scheduler
+	private void retry(Source source) {
+		if (stopped) {
+			return;
+		}
+
+		// an abandoned attempt that is still blocked holds its thread, so wait for it
+		if (source.running) {
+			logger.warn("Previous connection attempt for data source " + source.name + " has not returned");
+			failed(source, new TimeoutException("Previous attempt still running"));
+			return;
+		}
+
+		source.running = true;
+		connectExecutor.execute(() -> attempt(source));
+	}
+
+	/**
+	 * Stop retrying
+	 */
+	void stop() {
+		stopped = true;
+
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+
+		if (connectExecutor != null) {
+			connectExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Get the readiness of each source
+	 *
+	 * @return Map of source name and {@link Readiness}
+	 */
+	Map<String, Readiness> getReadiness() {
+		return Collections.unmodifiableMap(readiness);
+	}
+
+	private int count(Readiness state) {
+		int count = 0;
+		for (Readiness value : readiness.values()) {
+			if (value == state) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private enum State {
+		PENDING, COMMITTED, FAILED, ABANDONED
+	}
+
+	/**
+	 * One attempt to connect a data source
+	 */
+	final class Attempt {
+		// thread running the connector
+		private final Thread thread;
+
+		// releases the clients created so far, in reverse order
+		private final List<Action> releases = new ArrayList<>();
+
+		private State state = State.PENDING;
+
+		private Attempt(Thread thread) {
+			this.thread = thread;
+		}
+
+		/**
+		 * Register how to release a client if this attempt does not commit
+		 *
+		 * @param release {@link Action} to disconnect or shut down the client
+		 */
+		synchronized void onRelease(Action release) {
+			releases.add(release);
+		}
+
+		/**
+		 * Add the connected clients to the collector's context. This is the
+		 * connector's last step.
+		 *
+		 * @param commit {@link Action} to add the clients to the context
+		 * @throws Exception if the attempt was abandoned or startup stopped
+		 */
+		void commit(Action commit) throws Exception {
+			if (stopped || !settle(State.COMMITTED)) {
+				throw new CancellationException("Connection attempt abandoned");
+			}
+			commit.run();
+		}
+
+		private synchronized boolean settle(State outcome) {
+			if (state != State.PENDING) {
+				return false;
+			}
+			state = outcome;
+			return true;
+		}
+
+		private synchronized State getState() {
+			return state;
+		}
+
+		private void release() {
+			List<Action> actions;
+
+			synchronized (this) {
+				actions = new ArrayList<>(releases);
+				releases.clear();
+			}
+			Collections.reverse(actions);
+
+			for (Action action : actions) {
+				try {
+					action.run();
+				} catch (Exception e) {
+					logger.warn("Unable to release a client after a failed connection attempt.  " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	// a data source and its connection attempts
+	private final class Source {
+		private final String name;
+		private final Connector connector;
+		private volatile int retries = 0;
+
+		// true while an attempt's connector has not returned
+		private volatile boolean running = true;
+
+		private boolean counted = false;
+
+		private Source(String name, Connector connector) {
+			this.name = name;
+			this.connector = connector;
+		}
+
+		private void countFirstAttempt() {
+			synchronized (this) {
+				if (counted) {
+					return;
+				}
+				counted = true;
+			}
+			firstAttempts.countDown();
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package org.point85.domain.collector;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.point85.domain.DomainUtils;
+import org.point85.domain.script.EventResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * The names of the equipment, reasons and materials a collector had cached when
+ * it stopped. On the next start they are fetched in bulk so that the first
+ * events do not each miss the caches. The snapshot is only used if its stamp
+ * matches the software version and the configured resolvers.
+ *
+ */
+final class WarmStartSnapshot {
+	// system property for the snapshot directory
+	static final String DIRECTORY_PROPERTY = "point85.snapshot.dir";
+
+	private static final String DEFAULT_DIRECTORY = "config/cache";
+
+	private static final String FILE_PREFIX = "warm-start-";
+	private static final String FILE_SUFFIX = ".json";
+
+	// logger
+	private static final Logger logger = LoggerFactory.getLogger(WarmStartSnapshot.class);
+
+	// software and resolver configuration the names were collected for
+	private String stamp;
+
+	// when the snapshot was written
+	private String created;
+
+	// cached names
+	private List<String> equipment = new ArrayList<>();
+	private List<String> reasons = new ArrayList<>();
+	private List<String> materials = new ArrayList<>();
+
+	WarmStartSnapshot() {
+		// for Gson
+	}
+
+	WarmStartSnapshot(String stamp, Collection<String> equipment, Collection<String> reasons,
+			Collection<String> materials) {
+		this.stamp = stamp;
+		this.created = DomainUtils.offsetDateTimeToString(OffsetDateTime.now(), DomainUtils.OFFSET_DATE_TIME_8601);
+		this.equipment = new ArrayList<>(equipment);
+		this.reasons = new ArrayList<>(reasons);
+		this.materials = new ArrayList<>(materials);
+	}
+
+	/**
+	 * Compute the stamp for the software version and the resolvers. Any change
+	 * to a resolver's source id, script or reason changes the stamp.
+	 *
+	 * @param resolvers Configured {@link EventResolver}s
+	 * @return Stamp
+	 * @throws Exception Exception
+	 */
+	static String computeStamp(Collection<EventResolver> resolvers) throws Exception {
+		Set<String> parts = new TreeSet<>();
+
+		for (EventResolver resolver : resolvers) {
+			parts.add(resolver.getKey() + "|" + resolver.getSourceId() + "|" + resolver.getType() + "|"
+					+ resolver.getReason() + "|" + resolver.getScript());
+		}
+
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		digest.update(DomainUtils.getVersionInfo().getBytes(StandardCharsets.UTF_8));
+
+		for (String part : parts) {
+			digest.update(part.getBytes(StandardCharsets.UTF_8));
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for (byte b : digest.digest()) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Get the snapshot file for a collector
+	 *
+	 * @param name Collector name or host
+	 * @return Path
+	 */
+	static Path getPath(String name) {
+		String directory = System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY);
+		return Paths.get(directory, FILE_PREFIX + name.replaceAll("[^A-Za-z0-9._-]", "_") + FILE_SUFFIX);
+	}
+
+	/**
+	 * Read a snapshot
+	 *
+	 * @param path Snapshot file
+	 * @return {@link WarmStartSnapshot} or null if there is no readable snapshot
+	 */
+	static WarmStartSnapshot read(Path path) {
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+
+		try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			return new Gson().fromJson(reader, WarmStartSnapshot.class);
+		} catch (Exception e) {
+			logger.warn("Unable to read warm start snapshot " + path + ".  " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Write the snapshot, replacing any previous one
+	 *
+	 * @param path Snapshot file
+	 * @throws IOException IOException
+	 */
+	void write(Path path) throws IOException {
+		Path directory = path.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+
+		// write then move so that a reader never sees a partial file
+		Path temp = Files.createTempFile(directory, FILE_PREFIX, ".tmp");
+
+		try {
+			try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+				new GsonBuilder().setPrettyPrinting().create().toJson(this, writer);
+			}
+
+			try {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				// not atomic on this file system
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	String getStamp() {
+		return stamp;
+	}
+
+	String getCreated() {
+		return created;
+	}
+
+	List<String> getEquipment() {
+		return equipment != null ? equipment : new ArrayList<>();
+	}
+
+	List<String> getReasons() {
+		return reasons != null ? reasons : new ArrayList<>();
+	}
+
+	List<String> getMaterials() {
+		return materials != null ? materials : new ArrayList<>();
+	}
+}
@@ -26,6 +26,9 @@ public class DatabaseEventClient extends PollingClient {
 	// JDBC connection URL
 	private String jdbcUrl;
 
+	// maximum number of events in one claim (an Oracle IN list limit)
+	private static final int MAX_CLAIM_SIZE = 1000;
+
 	public DatabaseEventClient() {
 		super();
 	}
@@ -68,9 +71,38 @@ public class DatabaseEventClient extends PollingClient {
 			logger.info("Querying for READY events for source " + sourceId);
 		}
 
-		// query database interface table for new records
-		List<DatabaseEvent> events = persistenceService.fetchDatabaseEvents(DatabaseEventStatus.READY, sourceId);
-		eventListener.resolveDatabaseEvents(this, events);
+		Integer claimSize = getClaimSize();
+
+		if (claimSize == null) {
+			// query database interface table for new records
+			List<DatabaseEvent> events = persistenceService.fetchDatabaseEvents(DatabaseEventStatus.READY, sourceId);
+			eventListener.resolveDatabaseEvents(this, events);
+			return;
+		}
+
+		// claim and process batches until the READY rows are drained
+		List<DatabaseEvent> events = null;
+		do {
+			events = persistenceService.claimDatabaseEvents(sourceId, claimSize);
+
+			if (events.isEmpty()) {
+				break;
+			}
+
+			if (logger.isInfoEnabled()) {
+				logger.info("Claimed " + events.size() + " events for source " + sourceId);
+			}
+			eventListener.resolveClaimedDatabaseEvents(this, events);
+		} while (events.size() == claimSize && isPolling());
+	}
+
+	private Integer getClaimSize() {
+		Integer claimSize = dataSource != null ? ((DatabaseEventSource) dataSource).getClaimSize() : null;
+
+		if (claimSize == null || claimSize <= 0) {
+			return null;
+		}
+		return Math.min(claimSize, MAX_CLAIM_SIZE);
 	}
 
 	@Override
@@ -92,4 +124,14 @@ public class DatabaseEventClient extends PollingClient {
 	public synchronized DatabaseEvent save(DatabaseEvent event) throws Exception {
 		return (DatabaseEvent) persistenceService.save(event);
 	}
+
+	/**
+	 * Save the final status of claimed events in one transaction
+	 * 
+	 * @param events List of {@link DatabaseEvent}
+	 * @throws Exception Exception
+	 */
+	public void saveStatus(List<DatabaseEvent> events) throws Exception {
+		persistenceService.saveDatabaseEventStatus(events);
+	}
 }
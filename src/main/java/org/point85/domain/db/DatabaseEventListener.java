@@ -4,4 +4,16 @@ import java.util.List;
 
 public interface DatabaseEventListener {
 	void resolveDatabaseEvents(DatabaseEventClient client, List<DatabaseEvent> events);
+
+	/**
+	 * Resolve events already claimed with a PROCESSING status. This is called on
+	 * the polling thread, so the next batch is not claimed until this one has
+	 * been processed.
+	 * 
+	 * @param client {@link DatabaseEventClient}
+	 * @param events List of claimed {@link DatabaseEvent} in event time order
+	 */
+	default void resolveClaimedDatabaseEvents(DatabaseEventClient client, List<DatabaseEvent> events) {
+		resolveDatabaseEvents(client, events);
+	}
 }
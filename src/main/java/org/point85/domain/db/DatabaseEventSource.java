@@ -1,5 +1,6 @@
 package org.point85.domain.db;
 
+import javax.persistence.Column;
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
 
@@ -11,6 +12,9 @@ import org.point85.domain.dto.DatabaseSourceDto;
 @DiscriminatorValue(DataSourceType.DATABASE_VALUE)
 
 public class DatabaseEventSource extends CollectorDataSource {
+	// overloaded for the maximum number of events claimed in one poll
+	@Column(name = "MSG_MODE")
+	private String claimSize;
 
 	public DatabaseEventSource() {
 		super();
@@ -24,6 +28,9 @@ public class DatabaseEventSource extends CollectorDataSource {
 
 	public DatabaseEventSource(DatabaseSourceDto dto) {
 		super(dto);
+		setDataSourceType(DataSourceType.DATABASE);
+
+		this.claimSize = dto.getClaimSize() != null ? String.valueOf(dto.getClaimSize()) : null;
 	}
 
 	@Override
@@ -35,4 +42,18 @@ public class DatabaseEventSource extends CollectorDataSource {
 	public void setId(String id) {
 		setHost(id);
 	}
+
+	/**
+	 * Get the maximum number of interface table events to claim and process
+	 * together. If not set, events are processed one at a time.
+	 * 
+	 * @return Claim size or null
+	 */
+	public Integer getClaimSize() {
+		return (claimSize != null && !claimSize.isEmpty()) ? Integer.valueOf(claimSize) : null;
+	}
+
+	public void setClaimSize(Integer size) {
+		this.claimSize = size != null ? String.valueOf(size) : null;
+	}
 }
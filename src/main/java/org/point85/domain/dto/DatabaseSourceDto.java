@@ -3,7 +3,19 @@ package org.point85.domain.dto;
 import org.point85.domain.db.DatabaseEventSource;
 
 public class DatabaseSourceDto extends CollectorDataSourceDto {
+	private Integer claimSize;
+
 	public DatabaseSourceDto(DatabaseEventSource source) {
 		super(source);
+
+		this.claimSize = source.getClaimSize();
+	}
+
+	public Integer getClaimSize() {
+		return claimSize;
+	}
+
+	public void setClaimSize(Integer claimSize) {
+		this.claimSize = claimSize;
 	}
 }
@@ -11,6 +11,9 @@ public class EquipmentEventResponseDto {
 	private String errorText;
 	private EquipmentEventRequestDto requestDto;
 
+	// identifies the request in the collector's log
+	private String correlationId;
+
 	public EquipmentEventResponseDto() {
 		this.errorText = OK_STATUS;
 	}
@@ -56,4 +59,11 @@ public class EquipmentEventResponseDto {
 		this.requestDto = requestDto;
 	}
 
+	public String getCorrelationId() {
+		return correlationId;
+	}
+
+	public void setCorrelationId(String correlationId) {
+		this.correlationId = correlationId;
+	}
 }
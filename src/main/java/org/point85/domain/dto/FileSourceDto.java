@@ -3,7 +3,29 @@ package org.point85.domain.dto;
 import org.point85.domain.file.FileEventSource;
 
 public class FileSourceDto extends CollectorDataSourceDto {
+	private String readMode;
+	private Boolean watchFolders;
+
 	public FileSourceDto(FileEventSource source) {
 		super(source);
+
+		this.readMode = source.getReadMode().name();
+		this.watchFolders = source.getWatchFolders();
+	}
+
+	public String getReadMode() {
+		return readMode;
+	}
+
+	public void setReadMode(String readMode) {
+		this.readMode = readMode;
+	}
+
+	public Boolean getWatchFolders() {
+		return watchFolders;
+	}
+
+	public void setWatchFolders(Boolean watchFolders) {
+		this.watchFolders = watchFolders;
 	}
 }
@@ -8,6 +8,9 @@ import java.util.List;
 public class OeeEventsResponseDto {
 	private List<OeeEventDto> eventList;
 
+	// cursor for the next page, null if there are no more events
+	private String next;
+
 	public OeeEventsResponseDto(List<OeeEventDto> eventList) {
 		this.eventList = eventList;
 	}
@@ -19,4 +22,12 @@ public class OeeEventsResponseDto {
 	public void setOeeEventList(List<OeeEventDto> eventList) {
 		this.eventList = eventList;
 	}
+
+	public String getNext() {
+		return next;
+	}
+
+	public void setNext(String next) {
+		this.next = next;
+	}
 }
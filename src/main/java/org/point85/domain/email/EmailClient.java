@@ -202,7 +202,10 @@ public class EmailClient extends BaseMessagingClient {
 			// serialize to ApplicationMessage
 			ApplicationMessage appMessage = null;
 
-			if (json.contains(MessageType.EQUIPMENT_EVENT.name())) {
+			if (json.contains(MessageType.EQUIPMENT_EVENT_BATCH.name())) {
+				// batch of equipment events, checked first since its name contains EQUIPMENT_EVENT
+				appMessage = deserialize(MessageType.EQUIPMENT_EVENT_BATCH, json);
+			} else if (json.contains(MessageType.EQUIPMENT_EVENT.name())) {
 				// equipment event
 				appMessage = deserialize(MessageType.EQUIPMENT_EVENT, json);
 			} else if (json.contains(MessageType.COMMAND.name())) {
@@ -333,35 +336,76 @@ public class EmailClient extends BaseMessagingClient {
 	}
 
 	/**
-	 * Send a MimeMessage email with the specified content
+	 * Send a MimeMessage email for each content over one SMTP connection
 	 * 
-	 * @param to      Recipient
-	 * @param subject Subject
-	 * @param content Content
+	 * @param to       Recipient
+	 * @param subject  Subject
+	 * @param contents List of content
 	 * @throws Exception Exception
 	 */
-	public void sendMail(String to, String subject, String content) throws Exception {
+	public void sendMails(String to, String subject, List<String> contents) throws Exception {
 		if (smtpProperties.isEmpty()) {
 			logger.warn("SMTP properties are not defined.");
 			return;
 		}
 
-		// create the session
-		Session session = Session.getInstance(smtpProperties, new javax.mail.Authenticator() {
+		Session session = createSmtpSession();
+
+		try (Transport transport = session.getTransport()) {
+			transport.connect();
+
+			for (String content : contents) {
+				MimeMessage message = createMimeMessage(session, to, subject, content);
+				transport.sendMessage(message, message.getAllRecipients());
+			}
+		}
+
+		if (logger.isInfoEnabled()) {
+			logger.info("Sent " + contents.size() + " message(s) to " + to);
+		}
+	}
+
+	private Session createSmtpSession() {
+		return Session.getInstance(smtpProperties, new javax.mail.Authenticator() {
 			@Override
 			protected PasswordAuthentication getPasswordAuthentication() {
 				return new PasswordAuthentication(smtpProperties.getProperty(MAIL_SMTP_USER),
 						smtpProperties.getProperty(MAIL_SMTP_PASSWORD));
 			}
 		});
+	}
 
-		// create the message
+	private MimeMessage createMimeMessage(Session session, String to, String subject, String content)
+			throws Exception {
 		MimeMessage message = new MimeMessage(session);
 		message.addRecipient(Message.RecipientType.TO, new InternetAddress(to));
 		message.setSubject(subject);
 		message.setText(content);
 		message.setFrom(new InternetAddress(smtpProperties.getProperty(MAIL_SMTP_USER)));
 		message.setContent(content, TEXT_PLAIN);
+		message.saveChanges();
+		return message;
+	}
+
+	/**
+	 * Send a MimeMessage email with the specified content
+	 * 
+	 * @param to      Recipient
+	 * @param subject Subject
+	 * @param content Content
+	 * @throws Exception Exception
+	 */
+	public void sendMail(String to, String subject, String content) throws Exception {
+		if (smtpProperties.isEmpty()) {
+			logger.warn("SMTP properties are not defined.");
+			return;
+		}
+
+		// create the session
+		Session session = createSmtpSession();
+
+		// create the message
+		MimeMessage message = createMimeMessage(session, to, subject, content);
 
 		// send message
 		Transport.send(message);
@@ -451,6 +495,23 @@ public class EmailClient extends BaseMessagingClient {
 		sendMail(to, subject, serialize(message));
 	}
 
+	/**
+	 * Send event application messages as a digest over one SMTP connection
+	 * 
+	 * @param to       Recipient
+	 * @param subject  Subject
+	 * @param messages List of {@link ApplicationMessage}
+	 * @throws Exception Exception
+	 */
+	public void sendEvents(String to, String subject, List<ApplicationMessage> messages) throws Exception {
+		List<String> contents = new ArrayList<>(messages.size());
+
+		for (ApplicationMessage message : messages) {
+			contents.add(serialize(message));
+		}
+		sendMails(to, subject, contents);
+	}
+
 	private class PollingTask extends TimerTask {
 		private PollingTask() {
 		}
@@ -1,10 +1,21 @@
 package org.point85.domain.file;
 
 import java.io.File;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.point85.domain.polling.PollingClient;
 import org.slf4j.Logger;
@@ -27,6 +38,9 @@ public class FileEventClient extends PollingClient {
 
 	private static final String ERROR_EXT = ".error";
 
+	// time for a watched file to settle before it is processed
+	private static final long SETTLE_MSEC = 500;
+
 	// service handling the queried data
 	private FileEventListener eventListener;
 
@@ -36,6 +50,15 @@ public class FileEventClient extends PollingClient {
 	// files being worked on
 	private List<String> inProcessFiles = new ArrayList<>();
 
+	// ready folder watcher
+	private WatchService watchService;
+
+	// thread waiting for folder changes
+	private Thread watchThread;
+
+	// source id for each watched ready folder
+	private final Map<WatchKey, String> watchedSourceIds = new ConcurrentHashMap<>();
+
 	public FileEventClient() {
 		super();
 		this.fileService = new FileService();
@@ -63,10 +86,161 @@ public class FileEventClient extends PollingClient {
 		}
 
 		// query file server for new files
-		String filePath = getFileEventSource().getNetworkPath(sourceId) + File.separator + READY_FOLDER;
-		List<File> files = fileService.getFiles(filePath);
+		List<File> files = fileService.getFiles(getReadyFolder(sourceId));
+
+		// skip files already dispatched and, if watched, ones still being written
+		List<File> newFiles = new ArrayList<>(files.size());
+		long now = System.currentTimeMillis();
+
+		for (File file : files) {
+			if (!file.isFile() || (isWatching() && (now - file.lastModified()) < SETTLE_MSEC)) {
+				continue;
+			}
+
+			if (!fileIsProcessing(file)) {
+				newFiles.add(file);
+			}
+		}
+
+		if (!newFiles.isEmpty()) {
+			eventListener.resolveFileEvents(this, sourceId, newFiles);
+		}
+	}
+
+	private String getReadyFolder(String sourceId) {
+		return getFileEventSource().getNetworkPath(sourceId) + File.separator + READY_FOLDER;
+	}
+
+	@Override
+	public void startPolling() {
+		super.startPolling();
+
+		if (getFileEventSource() != null && getFileEventSource().getWatchFolders()) {
+			startWatching();
+		}
+	}
+
+	@Override
+	public void stopPolling() {
+		stopWatching();
+		super.stopPolling();
+	}
+
+	/**
+	 * True if the ready folders are being watched for new files
+	 * 
+	 * @return True if watching
+	 */
+	public boolean isWatching() {
+		return watchThread != null;
+	}
 
-		eventListener.resolveFileEvents(this, sourceId, files);
+	private synchronized void startWatching() {
+		if (watchThread != null || sourceIds == null) {
+			return;
+		}
+
+		try {
+			watchService = FileSystems.getDefault().newWatchService();
+
+			for (String sourceId : sourceIds) {
+				String folder = getReadyFolder(sourceId);
+
+				// make sure that directory is there
+				if (!fileService.createDirectory(folder)) {
+					throw new Exception("Cannot create directory " + folder);
+				}
+
+				Path path = Paths.get(folder);
+				WatchKey key = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY);
+				watchedSourceIds.put(key, sourceId);
+
+				if (logger.isInfoEnabled()) {
+					logger.info("Watching folder " + path + " for source " + sourceId);
+				}
+			}
+		} catch (Exception e) {
+			// fall back to polling only
+			logger.warn("Unable to watch folders, polling only. " + e.getMessage());
+			closeWatchService();
+			return;
+		}
+
+		watchThread = new Thread(this::watchFolders, "FileWatch-" + getFileEventSource().getId());
+		watchThread.setDaemon(true);
+		watchThread.start();
+	}
+
+	private synchronized void stopWatching() {
+		if (watchThread != null) {
+			watchThread.interrupt();
+			watchThread = null;
+		}
+		closeWatchService();
+	}
+
+	private void closeWatchService() {
+		watchedSourceIds.clear();
+
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (Exception e) {
+				// ignore
+			}
+			watchService = null;
+		}
+	}
+
+	// wait for folder changes then scan the changed ready folders
+	private void watchFolders() {
+		WatchService service = watchService;
+
+		while (!Thread.currentThread().isInterrupted()) {
+			Set<String> changedSourceIds = new HashSet<>();
+
+			try {
+				collectChanges(service.take(), changedSourceIds);
+
+				// let the writer finish and gather other changes
+				Thread.sleep(SETTLE_MSEC);
+
+				WatchKey key = null;
+				while ((key = service.poll()) != null) {
+					collectChanges(key, changedSourceIds);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (ClosedWatchServiceException e) {
+				break;
+			}
+
+			for (String sourceId : changedSourceIds) {
+				try {
+					onPoll(sourceId);
+				} catch (Exception e) {
+					logger.error(e.getMessage());
+				}
+			}
+		}
+	}
+
+	private void collectChanges(WatchKey key, Set<String> changedSourceIds) {
+		String sourceId = watchedSourceIds.get(key);
+
+		// the folder is scanned, so the individual events (including overflow) are
+		// not needed
+		key.pollEvents();
+
+		if (sourceId != null) {
+			changedSourceIds.add(sourceId);
+		}
+
+		if (!key.reset()) {
+			watchedSourceIds.remove(key);
+		}
 	}
 
 	public FileEventSource getFileEventSource() {
@@ -105,6 +279,18 @@ public class FileEventClient extends PollingClient {
 		this.moveFile(file, fromFolder, toFolder, null);
 	}
 
+	/**
+	 * Get the file in the ready folder as it would be in another folder
+	 * 
+	 * @param file   File in ready folder
+	 * @param folder Name of the other folder
+	 * @return File
+	 * @throws Exception Exception
+	 */
+	public File getFolderFile(File file, String folder) throws Exception {
+		return new File(file.getCanonicalPath().replace(READY_FOLDER, folder));
+	}
+
 	public void moveFile(File file, String fromFolder, String toFolder, Exception e) throws Exception {
 		// path in ready folder
 		String path = file.getCanonicalPath();
@@ -131,16 +317,16 @@ public class FileEventClient extends PollingClient {
 	}
 
 	public synchronized boolean fileIsProcessing(File file) {
-		if (inProcessFiles.contains(file.getName())) {
+		if (inProcessFiles.contains(file.getAbsolutePath())) {
 			// already being worked on
 			return true;
 		}
 
-		inProcessFiles.add(file.getName());
+		inProcessFiles.add(file.getAbsolutePath());
 		return false;
 	}
 
 	public synchronized void stopProcessing(File file) {
-		inProcessFiles.remove(file.getName());
+		inProcessFiles.remove(file.getAbsolutePath());
 	}
 }
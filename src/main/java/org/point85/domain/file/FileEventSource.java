@@ -2,6 +2,7 @@ package org.point85.domain.file;
 
 import java.io.File;
 
+import javax.persistence.Column;
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
 
@@ -13,6 +14,13 @@ import org.point85.domain.dto.FileSourceDto;
 @DiscriminatorValue(DataSourceType.FILE_VALUE)
 
 public class FileEventSource extends CollectorDataSource {
+	// overloaded for the read mode name
+	@Column(name = "MSG_MODE")
+	private String readMode;
+
+	// overloaded for the folder watch flag
+	@Column(name = "SEC_POLICY")
+	private String watchFolders;
 	public FileEventSource() {
 		super();
 		setDataSourceType(DataSourceType.FILE);
@@ -25,6 +33,9 @@ public class FileEventSource extends CollectorDataSource {
 
 	public FileEventSource(FileSourceDto dto) {
 		super(dto);
+
+		this.readMode = dto.getReadMode();
+		this.watchFolders = dto.getWatchFolders() != null ? String.valueOf(dto.getWatchFolders()) : null;
 	}
 
 	@Override
@@ -40,4 +51,26 @@ public class FileEventSource extends CollectorDataSource {
 	public String getNetworkPath(String sourceId) {
 		return getHost() + File.separatorChar + sourceId;
 	}
+
+	public FileReadMode getReadMode() {
+		return (readMode != null && !readMode.isEmpty()) ? FileReadMode.valueOf(readMode) : FileReadMode.FILE;
+	}
+
+	public void setReadMode(FileReadMode mode) {
+		this.readMode = mode != null ? mode.name() : null;
+	}
+
+	/**
+	 * If true, the ready folders are watched for new files in addition to being
+	 * polled
+	 * 
+	 * @return True if watched
+	 */
+	public Boolean getWatchFolders() {
+		return Boolean.valueOf(watchFolders);
+	}
+
+	public void setWatchFolders(Boolean flag) {
+		this.watchFolders = flag != null ? flag.toString() : null;
+	}
 }
@@ -0,0 +1,16 @@
+package org.point85.domain.file;
+
+/**
+ * How the content of a file is turned into events.
+ *
+ */
+public enum FileReadMode {
+	// the whole file is one event
+	FILE,
+
+	// each non-blank line is an event
+	LINE,
+
+	// each non-blank line after the header line is an event
+	CSV;
+}
@@ -1,8 +1,11 @@
 package org.point85.domain.file;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -64,6 +67,44 @@ public class FileService {
 		return new String(bytes);
 	}
 
+	/**
+	 * Read the file one line at a time without loading the whole file
+	 * 
+	 * @param file       File to read
+	 * @param skipHeader If true, skip the first line
+	 * @param handler    {@link LineHandler} called for each non-blank line
+	 * @return Number of lines handled
+	 * @throws Exception Exception
+	 */
+	public long readLines(File file, boolean skipHeader, LineHandler handler) throws Exception {
+		if (file == null) {
+			return 0;
+		}
+
+		if (logger.isInfoEnabled()) {
+			logger.info("Streaming lines from file " + file.getCanonicalPath());
+		}
+
+		long lineNumber = 0;
+		long count = 0;
+
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath())) {
+			String line = null;
+
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+
+				if ((skipHeader && lineNumber == 1) || line.trim().isEmpty()) {
+					continue;
+				}
+
+				handler.onLine(line, lineNumber);
+				count++;
+			}
+		}
+		return count;
+	}
+
 	public void writeFile(String filePath, String fileName, String content) throws Exception {
 		if (filePath == null || fileName == null || content == null) {
 			return;
@@ -138,7 +179,7 @@ public class FileService {
 			throw new Exception("Cannot create directory " + toPath);
 		}
 
-		Files.move(Paths.get(fromPath), Paths.get(toPath), StandardCopyOption.REPLACE_EXISTING);
+		move(Paths.get(fromPath), Paths.get(toPath));
 	}
 
 	public void moveFile(File file, String toPath) throws Exception {
@@ -155,6 +196,29 @@ public class FileService {
 			throw new Exception("Cannot create directory " + toPath);
 		}
 
-		Files.move(Paths.get(fromPath), Paths.get(toPath), StandardCopyOption.REPLACE_EXISTING);
+		move(Paths.get(fromPath), Paths.get(toPath));
+	}
+
+	// move atomically if the file system supports it
+	private void move(Path from, Path to) throws Exception {
+		try {
+			Files.move(from, to, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException | FileAlreadyExistsException e) {
+			Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Callback for a line of a file
+	 */
+	public interface LineHandler {
+		/**
+		 * Handle the line
+		 * 
+		 * @param line       Content of the line
+		 * @param lineNumber Line number, starting at 1
+		 * @throws Exception Exception
+		 */
+		void onLine(String line, long lineNumber) throws Exception;
 	}
 }
@@ -0,0 +1,145 @@
+package org.point85.domain.http;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.point85.domain.dto.EquipmentEventRequestDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands HTTP equipment events to the {@link HttpEventListener} on a fixed set of
+ * single-threaded lanes. Events for the same equipment (or source id) always
+ * use the same lane so they are processed in the order received, while events
+ * for different equipment are processed concurrently.
+ *
+ */
+class HttpEventDispatcher {
+	// logger
+	private static final Logger logger = LoggerFactory.getLogger(HttpEventDispatcher.class);
+
+	// events waiting per lane
+	static final int LANE_CAPACITY = 10000;
+
+	// idle time before a lane's thread exits (sec)
+	private static final long KEEP_ALIVE_SEC = 60;
+
+	private final ThreadPoolExecutor[] lanes;
+
+	// events that failed in a lane after the request returned
+	private final AtomicLong failedCount = new AtomicLong();
+
+	HttpEventDispatcher(int laneCount) {
+		lanes = new ThreadPoolExecutor[laneCount];
+
+		for (int i = 0; i < laneCount; i++) {
+			final String name = "HTTP-Event-Lane-" + i;
+
+			lanes[i] = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SEC, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<>(LANE_CAPACITY), runnable -> {
+						Thread thread = new Thread(runnable, name);
+						thread.setDaemon(true);
+						return thread;
+					});
+			lanes[i].allowCoreThreadTimeOut(true);
+		}
+	}
+
+	/**
+	 * Queue an event on its equipment's lane. The event is processed
+	 * immediately once it reaches the head of the lane.
+	 *
+	 * @param correlationId Identifier for logging
+	 * @param dto           {@link EquipmentEventRequestDto}
+	 * @param listener      {@link HttpEventListener}
+	 * @return Future that completes when the listener returns
+	 * @throws java.util.concurrent.RejectedExecutionException if the lane is full
+	 */
+	synchronized Future<?> submit(String correlationId, EquipmentEventRequestDto dto, HttpEventListener listener) {
+		return queue(correlationId, dto, listener);
+	}
+
+	/**
+	 * Queue a batch of events on their equipment's lanes, in order. Either all
+	 * of the events are queued or, if a lane does not have room for its share of
+	 * the batch, none of them are.
+	 *
+	 * @param correlationIds Identifiers for logging, one per event
+	 * @param dtos           Array of {@link EquipmentEventRequestDto}
+	 * @param listener       {@link HttpEventListener}
+	 * @return Futures that complete when the listener returns, one per event
+	 * @throws java.util.concurrent.RejectedExecutionException if a lane is full
+	 */
+	synchronized List<Future<?>> submitAll(List<String> correlationIds, EquipmentEventRequestDto[] dtos,
+			HttpEventListener listener) {
+		Map<ThreadPoolExecutor, Integer> needed = new HashMap<>();
+
+		for (EquipmentEventRequestDto dto : dtos) {
+			needed.merge(getLane(dto), 1, Integer::sum);
+		}
+
+		// only submitters, which hold the lock, fill a lane, so the room checked here remains
+		for (Map.Entry<ThreadPoolExecutor, Integer> entry : needed.entrySet()) {
+			if (entry.getKey().getQueue().remainingCapacity() < entry.getValue()) {
+				throw new RejectedExecutionException("No room for a batch of " + dtos.length + " events");
+			}
+		}
+
+		List<Future<?>> futures = new ArrayList<>(dtos.length);
+
+		for (int i = 0; i < dtos.length; i++) {
+			futures.add(queue(correlationIds.get(i), dtos[i], listener));
+		}
+		return futures;
+	}
+
+	private Future<?> queue(String correlationId, EquipmentEventRequestDto dto, HttpEventListener listener) {
+		// the lane is the asynchronous part
+		dto.setImmediate(true);
+
+		return getLane(dto).submit(() -> {
+			try {
+				listener.onHttpEquipmentEvent(dto);
+			} catch (Exception e) {
+				failedCount.incrementAndGet();
+				logger.error("Unable to process equipment event " + correlationId + ": " + e.getMessage());
+				throw e;
+			}
+			return null;
+		});
+	}
+
+	private ThreadPoolExecutor getLane(EquipmentEventRequestDto dto) {
+		String key = dto.getEquipmentName();
+
+		if (key == null || key.isEmpty()) {
+			key = dto.getSourceId();
+		}
+		return lanes[key != null ? Math.floorMod(key.hashCode(), lanes.length) : 0];
+	}
+
+	/**
+	 * Get the number of events waiting in all lanes
+	 *
+	 * @return Queued count
+	 */
+	int getQueuedCount() {
+		int count = 0;
+		for (ThreadPoolExecutor lane : lanes) {
+			count += lane.getQueue().size();
+		}
+		return count;
+	}
+
+	long getFailedCount() {
+		return failedCount.get();
+	}
+}
@@ -40,6 +40,8 @@ public class OeeHttpServer {
 	public static final String EVENT_TYPE_ATTRIB = "type";
 	public static final String FROM_ATTRIB = "from";
 	public static final String TO_ATTRIB = "to";
+	public static final String LIMIT_ATTRIB = "limit";
+	public static final String AFTER_ATTRIB = "after";
 	
 	public static final String EVENT_KEY = "eventData";
 
@@ -52,10 +54,12 @@ public class OeeHttpServer {
 	public static final String MATERIAL_EP = "material";
 	public static final String EVENT_EP = "event";
 	public static final String EVENTS_EP = "events";
+	public static final String EVENT_BATCH_EP = "event_batch";
 	public static final String SOURCE_ID_EP = "source_id";
 	public static final String DATA_SOURCE_EP = "data_source";
 	public static final String STATUS_EP = "status";
 	public static final String OEE_EP = "oee";
+	public static final String METRICS_EP = "metrics";
 
 	// thread pool
 	private static final int MAX_THREADS = 200;
@@ -142,6 +146,21 @@ public class OeeHttpServer {
 		OeeHttpServlet.setAcceptingEventRequests(acceptingEventRequests);
 	}
 
+	public boolean isAsyncEvents() {
+		return servlet.isAsyncEvents();
+	}
+
+	/**
+	 * Respond to equipment event requests with 202 (Accepted) and a correlation id
+	 * once they are queued, instead of waiting for immediate events to be
+	 * processed
+	 * 
+	 * @param asyncEvents True for asynchronous responses
+	 */
+	public void setAsyncEvents(boolean asyncEvents) {
+		OeeHttpServlet.setAsyncEvents(asyncEvents);
+	}
+
 	private void configureHTTPS(HttpConfiguration httpConfig) throws Exception {
 		// HTTPS configuration
 		final SslContextFactory.Server sslContextFactory = new SslContextFactory.Server();
@@ -1,16 +1,27 @@
 package org.point85.domain.http;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -31,7 +42,6 @@ import org.point85.domain.dto.EquipmentStatusResponseDto;
 import org.point85.domain.dto.MaterialDto;
 import org.point85.domain.dto.MaterialResponseDto;
 import org.point85.domain.dto.OeeEventDto;
-import org.point85.domain.dto.OeeEventsResponseDto;
 import org.point85.domain.dto.OeeResponseDto;
 import org.point85.domain.dto.PlantEntityDto;
 import org.point85.domain.dto.PlantEntityResponseDto;
@@ -44,7 +54,10 @@ import org.point85.domain.dto.WorkCellDto;
 import org.point85.domain.exim.ExportImportContent;
 import org.point85.domain.exim.Exporter;
 import org.point85.domain.exim.Importer;
+import org.point85.domain.http.ReferenceDataCache.Entry;
+import org.point85.domain.http.ReferenceDataCache.Resource;
 import org.point85.domain.i18n.DomainLocalizer;
+import org.point85.domain.metrics.MetricsRegistry;
 import org.point85.domain.oee.EquipmentLoss;
 import org.point85.domain.oee.EquipmentLossManager;
 import org.point85.domain.oee.TimeLoss;
@@ -66,6 +79,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Jetty servlet class to handle GET, PUT and POST requests
@@ -79,6 +93,32 @@ class OeeHttpServlet extends HttpServlet {
 	private static final int IDX_RESOURCE = IDX_REST + 1;
 	private static final int IDX_ID = IDX_RESOURCE + 1;
 
+	// caching headers
+	private static final String ETAG = "ETag";
+	private static final String IF_NONE_MATCH = "If-None-Match";
+	private static final String CACHE_CONTROL = "Cache-Control";
+	private static final String VARY = "Vary";
+	private static final String ACCEPT_ENCODING = "Accept-Encoding";
+	private static final String CONTENT_ENCODING = "Content-Encoding";
+	private static final String GZIP = "gzip";
+	private static final String JSON_CONTENT_TYPE = "application/json;charset=UTF-8";
+	private static final String CORRELATION_ID_HEADER = "X-Correlation-ID";
+
+	// streamed events
+	private static final int EVENT_PAGE_SIZE = 1000;
+	private static final int STREAM_BUFFER_SIZE = 8192;
+	private static final String EVENT_LIST_NAME = "eventList";
+	private static final String NEXT_NAME = "next";
+	private static final String CURSOR_SEPARATOR = ",";
+
+	// request metric labels
+	private static final String REST_ENDPOINT = "rest";
+	private static final String OTHER_ENDPOINT = "other";
+	private static final String[] ENDPOINTS = { OeeHttpServer.ENTITY_EP, OeeHttpServer.REASON_EP,
+			OeeHttpServer.MATERIAL_EP, OeeHttpServer.EVENT_EP, OeeHttpServer.EVENTS_EP, OeeHttpServer.EVENT_BATCH_EP,
+			OeeHttpServer.SOURCE_ID_EP, OeeHttpServer.DATA_SOURCE_EP, OeeHttpServer.STATUS_EP, OeeHttpServer.OEE_EP,
+			OeeHttpServer.METRICS_EP };
+
 	// verbs
 	private static final String GET = "GET";
 	private static final String POST = "POST";
@@ -97,6 +137,15 @@ class OeeHttpServlet extends HttpServlet {
 	// event listener
 	private static HttpEventListener eventListener;
 
+	// serialized reference data responses
+	private static ReferenceDataCache referenceCache;
+
+	// flag for responding to event requests before they are processed
+	private static boolean asyncEvents = false;
+
+	// per-equipment processing of event requests
+	private static HttpEventDispatcher eventDispatcher;
+
 	OeeHttpServlet() {
 	}
 
@@ -116,24 +165,74 @@ class OeeHttpServlet extends HttpServlet {
 		acceptingEventRequests = flag;
 	}
 
+	boolean isAsyncEvents() {
+		return asyncEvents;
+	}
+
+	static void setAsyncEvents(boolean flag) {
+		asyncEvents = flag;
+	}
+
 	@Override
 	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-		serveRequest(request, response);
+		serveTimedRequest(request, response);
 	}
 
 	@Override
 	protected void doPut(HttpServletRequest request, HttpServletResponse response) throws IOException {
-		serveRequest(request, response);
+		serveTimedRequest(request, response);
 	}
 
 	@Override
 	protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-		serveRequest(request, response);
+		serveTimedRequest(request, response);
 	}
 
 	@Override
 	protected void doDelete(HttpServletRequest request, HttpServletResponse response) throws IOException {
-		serveRequest(request, response);
+		serveTimedRequest(request, response);
+	}
+
+	// record the request time and errors by endpoint
+	private void serveTimedRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		long start = System.nanoTime();
+		String endpoint = getEndpointLabel(request.getServletPath());
+
+		try {
+			serveRequest(request, response);
+		} finally {
+			MetricsRegistry.instance()
+					.histogram("oee_http_request_seconds", "HTTP request time by endpoint", "endpoint", endpoint)
+					.recordSince(start);
+
+			if (response.getStatus() >= HttpServletResponse.SC_BAD_REQUEST) {
+				MetricsRegistry.instance()
+						.counter("oee_http_errors_total", "HTTP error responses by endpoint", "endpoint", endpoint)
+						.increment();
+			}
+		}
+	}
+
+	// a known endpoint name so that the label values are bounded
+	private static String getEndpointLabel(String path) {
+		if (path == null) {
+			return OTHER_ENDPOINT;
+		}
+
+		if (path.contains(OeeHttpServer.REST_URL)) {
+			return REST_ENDPOINT;
+		}
+
+		String[] tokens = path.split("/");
+
+		if (tokens.length >= 2) {
+			for (String endpoint : ENDPOINTS) {
+				if (tokens[1].equalsIgnoreCase(endpoint)) {
+					return endpoint;
+				}
+			}
+		}
+		return OTHER_ENDPOINT;
 	}
 
 	protected Map<String, String[]> getQueryParameters(HttpServletRequest request) {
@@ -686,6 +785,7 @@ class OeeHttpServlet extends HttpServlet {
 
 			// response content
 			String content = null;
+			int status = HttpServletResponse.SC_OK;
 			String requestBody = null;
 
 			if (verb.equals(POST) || verb.equals(PUT)) {
@@ -695,9 +795,7 @@ class OeeHttpServlet extends HttpServlet {
 					throw new Exception(DomainLocalizer.instance().getErrorString("invalid.event.data"));
 				}
 
-				if (logger.isInfoEnabled()) {
-					logger.info("    Body: " + requestBody);
-				}
+				logger.trace("    Body: {}", requestBody);
 			}
 
 			// entities
@@ -719,7 +817,8 @@ class OeeHttpServlet extends HttpServlet {
 					throw new Exception(DomainLocalizer.instance().getErrorString("no.equipment.name"));
 				}
 
-				content = serveEquipmentEvent(requestBody, getID(tokens));
+				content = serveEquipmentEvent(requestBody, getID(tokens), request);
+				status = getEventStatus();
 
 			} else if (tokens[IDX_RESOURCE].equalsIgnoreCase(OeeHttpServer.STATUS_RESOURCE)) {
 				// equipment status request
@@ -779,8 +878,26 @@ class OeeHttpServlet extends HttpServlet {
 					toTime = toTimes[0];
 				}
 
-				// serve the request
-				content = serveEventsRequest(equipmentNames[0], materialId, eventType, fromTime, toTime);
+				// limit can be null for all events
+				Integer limit = null;
+				String[] limits = queryParameters.get(OeeHttpServer.LIMIT_ATTRIB);
+
+				if (limits != null && limits.length > 0) {
+					limit = parseLimit(limits[0]);
+				}
+
+				// cursor from a previous page can be null
+				String after = null;
+				String[] afters = queryParameters.get(OeeHttpServer.AFTER_ATTRIB);
+
+				if (afters != null && afters.length > 0) {
+					after = afters[0];
+				}
+
+				// stream the response
+				serveEventsRequest(request, response, equipmentNames[0], materialId, eventType, fromTime, toTime,
+						limit, after);
+				return;
 
 			} else if (tokens[IDX_RESOURCE].equalsIgnoreCase("favicon.ico")) {
 				// ignore icon
@@ -791,18 +908,16 @@ class OeeHttpServlet extends HttpServlet {
 				throw new Exception(DomainLocalizer.instance().getErrorString("unrecognized.endpoint", path));
 			}
 
-			if (logger.isInfoEnabled()) {
-				logger.info("Response: " + content);
-			}
+			logger.trace("Response: {}", content);
 
-			// return data with OK response
-			setResponseContent(response, content);
+			// return data with OK (or accepted) response
+			setResponseContent(response, content, status);
 
 		} catch (Exception e) {
 			logger.error(e.getMessage());
 
 			try {
-				createErrorResponse(response, e.getMessage());
+				createErrorResponse(response, e.getMessage(), getErrorStatus(e));
 			} catch (Exception ex) {
 				logger.error(ex.getMessage());
 			}
@@ -827,19 +942,23 @@ class OeeHttpServlet extends HttpServlet {
 
 			// response content
 			String content = null;
+			int status = HttpServletResponse.SC_OK;
 
 			// entity
 			if (tokens[1].equalsIgnoreCase(OeeHttpServer.ENTITY_EP)) {
 				// plant entities request
-				content = servePlantEntityRequest();
+				serveCachedRequest(request, response, Resource.ENTITY, this::servePlantEntityRequest);
+				return;
 
 			} else if (tokens[1].equalsIgnoreCase(OeeHttpServer.REASON_EP)) {
 				// reasons request
-				content = serveReasonRequest();
+				serveCachedRequest(request, response, Resource.REASON, this::serveReasonRequest);
+				return;
 
 			} else if (tokens[1].equalsIgnoreCase(OeeHttpServer.MATERIAL_EP)) {
 				// material request
-				content = serveMaterialRequest();
+				serveCachedRequest(request, response, Resource.MATERIAL, this::serveMaterialRequest);
+				return;
 
 			} else if (tokens[1].equalsIgnoreCase(OeeHttpServer.EVENT_EP)) {
 				// equipment event
@@ -862,11 +981,21 @@ class OeeHttpServlet extends HttpServlet {
 					throw new Exception(DomainLocalizer.instance().getErrorString("invalid.event.data"));
 				}
 
-				if (logger.isInfoEnabled()) {
-					logger.info("    Body: " + body);
+				logger.trace("    Body: {}", body);
+
+				content = serveEquipmentEvent(body, null, request);
+				status = getEventStatus();
+
+			} else if (tokens[1].equalsIgnoreCase(OeeHttpServer.EVENT_BATCH_EP)) {
+				// array of equipment events in the request body
+				String body = getRequestBody(request);
+
+				if (body == null || body.isEmpty()) {
+					throw new Exception(DomainLocalizer.instance().getErrorString("invalid.event.data"));
 				}
 
-				content = serveEquipmentEvent(body, null);
+				content = serveEquipmentEventBatch(body, request);
+				status = getEventStatus();
 
 			} else if (tokens[1].equalsIgnoreCase(OeeHttpServer.SOURCE_ID_EP)) {
 				// source id request
@@ -954,8 +1083,26 @@ class OeeHttpServlet extends HttpServlet {
 					toTime = toTimes[0];
 				}
 
-				// server the request
-				content = serveEventsRequest(equipmentNames[0], materialId, eventType, fromTime, toTime);
+				// limit can be null for all events
+				Integer limit = null;
+				String[] limits = queryParameters.get(OeeHttpServer.LIMIT_ATTRIB);
+
+				if (limits != null && limits.length > 0) {
+					limit = parseLimit(limits[0]);
+				}
+
+				// cursor from a previous page can be null
+				String after = null;
+				String[] afters = queryParameters.get(OeeHttpServer.AFTER_ATTRIB);
+
+				if (afters != null && afters.length > 0) {
+					after = afters[0];
+				}
+
+				// stream the response
+				serveEventsRequest(request, response, equipmentNames[0], materialId, eventType, fromTime, toTime,
+						limit, after);
+				return;
 
 			} else if (tokens[1].equalsIgnoreCase(OeeHttpServer.OEE_EP)) {
 				// OEE calculation request
@@ -997,6 +1144,14 @@ class OeeHttpServlet extends HttpServlet {
 				// server the request
 				content = serveOeeRequest(equipmentNames[0], materialId, fromTime, toTime);
 
+			} else if (tokens[1].equalsIgnoreCase(OeeHttpServer.METRICS_EP)) {
+				// metrics in Prometheus text format
+				response.setStatus(HttpServletResponse.SC_OK);
+				response.setContentType(MetricsRegistry.PROMETHEUS_CONTENT_TYPE);
+				MetricsRegistry.instance().writePrometheus(response.getWriter());
+				response.getWriter().flush();
+				return;
+
 			} else if (tokens[1].equalsIgnoreCase("favicon.ico")) {
 				// ignore icon
 				response.setStatus(HttpServletResponse.SC_OK);
@@ -1006,35 +1161,105 @@ class OeeHttpServlet extends HttpServlet {
 				throw new Exception(DomainLocalizer.instance().getErrorString("unrecognized.endpoint", path));
 			}
 
-			if (logger.isInfoEnabled()) {
-				logger.info("Response: " + content);
-			}
+			logger.trace("Response: {}", content);
 
-			// return data with OK response
-			setResponseContent(response, content);
+			// return data with OK (or accepted) response
+			setResponseContent(response, content, status);
 
 		} catch (Exception e) {
 			logger.error(e.getMessage());
 
 			try {
-				createErrorResponse(response, e.getMessage());
+				createErrorResponse(response, e.getMessage(), getErrorStatus(e));
 			} catch (Exception ex) {
 				logger.error(ex.getMessage());
 			}
 		}
 	}
 
-	private void createErrorResponse(HttpServletResponse response, String message) throws Exception {
+	private void createErrorResponse(HttpServletResponse response, String message, int status) throws Exception {
 		EquipmentEventResponseDto responseDto = new EquipmentEventResponseDto(message);
 		String payload = gson.toJson(responseDto);
-		response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+		response.setStatus(status);
 		response.getWriter().write(payload);
 		response.getWriter().flush();
 		response.getWriter().close();
 	}
 
-	private void setResponseContent(HttpServletResponse response, String responseJson) throws Exception {
+	private static synchronized ReferenceDataCache getReferenceCache() {
+		if (referenceCache == null) {
+			referenceCache = new ReferenceDataCache();
+		}
+		return referenceCache;
+	}
+
+	// respond with cached JSON, or not modified if the client's copy is current
+	private void serveCachedRequest(HttpServletRequest request, HttpServletResponse response, Resource resource,
+			Callable<String> loader) throws Exception {
+		Entry entry = getReferenceCache().get(resource, loader);
+
+		response.setHeader(ETAG, entry.getEtag());
+		response.setHeader(CACHE_CONTROL, "no-cache");
+		response.setHeader(VARY, ACCEPT_ENCODING);
+
+		if (matchesEtag(request.getHeader(IF_NONE_MATCH), entry.getEtag())) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		byte[] body = entry.getJson();
+		String encodings = request.getHeader(ACCEPT_ENCODING);
+
+		if (encodings != null && encodings.contains(GZIP)) {
+			body = entry.getGzipped();
+			response.setHeader(CONTENT_ENCODING, GZIP);
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Response: " + resource + " of " + body.length + " bytes");
+		}
+
 		response.setStatus(HttpServletResponse.SC_OK);
+		response.setContentType(JSON_CONTENT_TYPE);
+		response.setContentLength(body.length);
+
+		try (OutputStream out = response.getOutputStream()) {
+			out.write(body);
+		}
+	}
+
+	private boolean matchesEtag(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+
+		for (String candidate : ifNoneMatch.split(",")) {
+			String tag = candidate.trim();
+
+			// weak comparison
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+
+			if (tag.equals("*") || tag.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int getErrorStatus(Exception e) {
+		// event lane is full
+		return e instanceof RejectedExecutionException ? HttpServletResponse.SC_SERVICE_UNAVAILABLE
+				: HttpServletResponse.SC_BAD_REQUEST;
+	}
+
+	private int getEventStatus() {
+		return asyncEvents ? HttpServletResponse.SC_ACCEPTED : HttpServletResponse.SC_OK;
+	}
+
+	private void setResponseContent(HttpServletResponse response, String responseJson, int status) throws Exception {
+		response.setStatus(status);
 		response.getWriter().write(responseJson);
 		response.getWriter().flush();
 		response.getWriter().close();
@@ -1128,12 +1353,15 @@ class OeeHttpServlet extends HttpServlet {
 	}
 
 	// handle request for OEE events
-	private String serveEventsRequest(String equipmentName, String materialId, String eventType, String fromTimestamp,
-			String toTimestamp) throws Exception {
+	// events are written as they are read a page at a time, up to the limit
+	private void serveEventsRequest(HttpServletRequest request, HttpServletResponse response, String equipmentName,
+			String materialId, String eventType, String fromTimestamp, String toTimestamp, Integer limit,
+			String after) throws Exception {
 
 		if (logger.isInfoEnabled()) {
 			logger.info("Request - equipment: " + equipmentName + ", material: " + materialId + ", type: " + eventType
-					+ ", from: " + fromTimestamp + ", to: " + toTimestamp);
+					+ ", from: " + fromTimestamp + ", to: " + toTimestamp + ", limit: " + limit + ", after: "
+					+ after);
 		}
 
 		// equipment
@@ -1174,16 +1402,91 @@ class OeeHttpServlet extends HttpServlet {
 			throw new Exception(DomainLocalizer.instance().getErrorString("start.before.end", fromODT, toODT));
 		}
 
-		List<OeeEvent> events = PersistenceService.instance().fetchEvents(equipment, material, type, fromODT, toODT);
+		// position after the previous page
+		LocalDateTime afterTime = null;
+		Long afterKey = null;
+
+		if (after != null) {
+			try {
+				String[] position = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8)
+						.split(CURSOR_SEPARATOR);
+				afterTime = LocalDateTime.parse(position[0]);
+				afterKey = Long.valueOf(position[1]);
+			} catch (Exception e) {
+				throw new Exception(DomainLocalizer.instance().getErrorString("invalid.cursor", after));
+			}
+		}
+
+		response.setStatus(HttpServletResponse.SC_OK);
+		response.setContentType(JSON_CONTENT_TYPE);
+
+		OutputStream out = response.getOutputStream();
+		String encodings = request.getHeader(ACCEPT_ENCODING);
+
+		if (encodings != null && encodings.contains(GZIP)) {
+			response.setHeader(CONTENT_ENCODING, GZIP);
+			out = new GZIPOutputStream(out, STREAM_BUFFER_SIZE);
+		}
+
+		int count = 0;
+
+		try (JsonWriter writer = new JsonWriter(
+				new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), STREAM_BUFFER_SIZE))) {
+			writer.beginObject();
+			writer.name(EVENT_LIST_NAME);
+			writer.beginArray();
+
+			OeeEvent lastEvent = null;
+			boolean more = true;
 
-		List<OeeEventDto> eventDtos = new ArrayList<>();
+			while (more) {
+				int pageSize = (limit != null) ? Math.min(EVENT_PAGE_SIZE, limit - count) : EVENT_PAGE_SIZE;
 
-		for (OeeEvent event : events) {
-			OeeEventDto dto = new OeeEventDto(event);
-			eventDtos.add(dto);
+				// one extra to know if there are more events
+				List<OeeEvent> events = PersistenceService.instance().fetchEventPage(equipment, material, type,
+						fromODT, toODT, afterTime, afterKey, pageSize + 1);
+
+				more = events.size() > pageSize;
+
+				for (OeeEvent event : events.subList(0, Math.min(pageSize, events.size()))) {
+					gson.toJson(new OeeEventDto(event), OeeEventDto.class, writer);
+					lastEvent = event;
+					count++;
+				}
+
+				if (lastEvent != null) {
+					afterTime = lastEvent.getStartTime().toLocalDateTime();
+					afterKey = lastEvent.getKey();
+				}
+
+				if (limit != null && count == limit) {
+					break;
+				}
+			}
+			writer.endArray();
+
+			// cursor for the client's next request
+			if (more && lastEvent != null) {
+				byte[] position = (afterTime + CURSOR_SEPARATOR + afterKey).getBytes(StandardCharsets.UTF_8);
+				writer.name(NEXT_NAME).value(Base64.getUrlEncoder().withoutPadding().encodeToString(position));
+			}
+			writer.endObject();
 		}
 
-		return gson.toJson(new OeeEventsResponseDto(eventDtos));
+		logger.debug("Response: {} events", count);
+	}
+
+	private Integer parseLimit(String value) throws Exception {
+		try {
+			int limit = Integer.parseInt(value);
+
+			if (limit > 0) {
+				return limit;
+			}
+		} catch (NumberFormatException e) {
+			// invalid below
+		}
+		throw new Exception(DomainLocalizer.instance().getErrorString("invalid.limit", value));
 	}
 
 	// handle request for OEE calculations
@@ -1298,8 +1601,98 @@ class OeeHttpServlet extends HttpServlet {
 	}
 
 	// handle equipment event
-	private synchronized String serveEquipmentEvent(String body, String equipmentName) throws Exception {
+	private String serveEquipmentEvent(String body, String equipmentName, HttpServletRequest request)
+			throws Exception {
 		EquipmentEventRequestDto requestDto = gson.fromJson(body, EquipmentEventRequestDto.class);
+		validateEquipmentEvent(requestDto, equipmentName);
+
+		// response echoes the request as received
+		EquipmentEventResponseDto responseDto = new EquipmentEventResponseDto(requestDto);
+		responseDto.setCorrelationId(getCorrelationId(request));
+		String content = gson.toJson(responseDto);
+
+		boolean immediate = requestDto.getImmediate() != null && requestDto.getImmediate();
+
+		// queue on the equipment's lane
+		Future<?> processed = getEventDispatcher().submit(responseDto.getCorrelationId(), requestDto, eventListener);
+
+		if (immediate && !asyncEvents) {
+			waitForEvent(processed);
+		}
+		return content;
+	}
+
+	// handle an array of equipment events, queued in order
+	private String serveEquipmentEventBatch(String body, HttpServletRequest request) throws Exception {
+		EquipmentEventRequestDto[] requestDtos = gson.fromJson(body, EquipmentEventRequestDto[].class);
+
+		if (requestDtos == null || requestDtos.length == 0) {
+			throw new Exception(DomainLocalizer.instance().getErrorString("invalid.event.data"));
+		}
+
+		// all or nothing
+		for (EquipmentEventRequestDto requestDto : requestDtos) {
+			validateEquipmentEvent(requestDto, null);
+		}
+
+		String correlationId = getCorrelationId(request);
+		List<EquipmentEventResponseDto> responseDtos = new ArrayList<>(requestDtos.length);
+		List<String> correlationIds = new ArrayList<>(requestDtos.length);
+		boolean[] immediate = new boolean[requestDtos.length];
+
+		for (int i = 0; i < requestDtos.length; i++) {
+			EquipmentEventResponseDto responseDto = new EquipmentEventResponseDto(requestDtos[i]);
+			responseDto.setCorrelationId(correlationId + "-" + i);
+			responseDtos.add(responseDto);
+			correlationIds.add(responseDto.getCorrelationId());
+			immediate[i] = requestDtos[i].getImmediate() != null && requestDtos[i].getImmediate();
+		}
+
+		// response echoes the requests as received
+		String content = gson.toJson(responseDtos);
+
+		// the whole batch is queued, or none of it if a lane is full
+		List<Future<?>> processed = getEventDispatcher().submitAll(correlationIds, requestDtos, eventListener);
+
+		if (!asyncEvents) {
+			for (int i = 0; i < requestDtos.length; i++) {
+				if (immediate[i]) {
+					waitForEvent(processed.get(i));
+				}
+			}
+		}
+
+		logger.debug("Queued batch {} of {} equipment events", correlationId, requestDtos.length);
+
+		return content;
+	}
+
+	private void waitForEvent(Future<?> processed) throws Exception {
+		try {
+			processed.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof Exception ? (Exception) cause : e;
+		}
+	}
+
+	// client's correlation id if supplied
+	private String getCorrelationId(HttpServletRequest request) {
+		String correlationId = request.getHeader(CORRELATION_ID_HEADER);
+		return correlationId != null && !correlationId.isEmpty() ? correlationId : UUID.randomUUID().toString();
+	}
+
+	private static synchronized HttpEventDispatcher getEventDispatcher() {
+		if (eventDispatcher == null) {
+			eventDispatcher = new HttpEventDispatcher(Math.max(2, Runtime.getRuntime().availableProcessors()));
+			MetricsRegistry.instance().gauge("oee_http_event_queue_depth", "HTTP event requests waiting to be processed",
+					eventDispatcher::getQueuedCount);
+		}
+		return eventDispatcher;
+	}
+
+	private void validateEquipmentEvent(EquipmentEventRequestDto requestDto, String equipmentName)
+			throws Exception {
 		String errorText = null;
 
 		// entity data change event
@@ -1352,12 +1745,5 @@ class OeeHttpServlet extends HttpServlet {
 		if (errorText != null) {
 			throw new Exception(errorText);
 		}
-
-		// call listener for processing
-		eventListener.onHttpEquipmentEvent(requestDto);
-
-		EquipmentEventResponseDto responseDto = new EquipmentEventResponseDto(requestDto);
-
-		return gson.toJson(responseDto);
 	}
 }
@@ -0,0 +1,160 @@
+package org.point85.domain.http;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPOutputStream;
+
+import org.point85.domain.collector.OeeEvent;
+import org.point85.domain.persistence.EntityChangeListener;
+import org.point85.domain.persistence.PersistenceService;
+import org.point85.domain.plant.KeyedObject;
+import org.point85.domain.plant.Material;
+import org.point85.domain.plant.Reason;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serialized and gzipped JSON responses for the reference data endpoints. An
+ * entry is dropped when the {@link PersistenceService} saves or deletes an
+ * entity that it depends on, or when it reaches its maximum age so that changes
+ * made by other processes are eventually seen.
+ *
+ */
+class ReferenceDataCache implements EntityChangeListener {
+	// logger
+	private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+	// maximum age of an entry (msec)
+	private static final long MAX_AGE_MSEC = 5L * 60L * 1000L;
+
+	/**
+	 * Cached endpoint responses
+	 */
+	enum Resource {
+		// plant entities with their schedules, materials, reasons and data
+		// sources
+		ENTITY,
+
+		// reason hierarchy
+		REASON,
+
+		// materials
+		MATERIAL
+	}
+
+	// a serialized response
+	static class Entry {
+		private final byte[] json;
+		private final byte[] gzipped;
+		private final String etag;
+		private final long created = System.currentTimeMillis();
+
+		private Entry(String content) throws Exception {
+			json = content.getBytes(StandardCharsets.UTF_8);
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4 + 64);
+			try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+				gzip.write(json);
+			}
+			gzipped = bytes.toByteArray();
+
+			// strong validator from the content
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+			etag = '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + '"';
+		}
+
+		byte[] getJson() {
+			return json;
+		}
+
+		byte[] getGzipped() {
+			return gzipped;
+		}
+
+		String getEtag() {
+			return etag;
+		}
+
+		private boolean isExpired() {
+			return System.currentTimeMillis() - created > MAX_AGE_MSEC;
+		}
+	}
+
+	private final Map<Resource, Entry> entries = new EnumMap<>(Resource.class);
+
+	// incremented on invalidation so that an in-progress load is not cached
+	private final Map<Resource, Long> generations = new EnumMap<>(Resource.class);
+
+	ReferenceDataCache() {
+		for (Resource resource : Resource.values()) {
+			generations.put(resource, 0L);
+		}
+		PersistenceService.instance().addEntityChangeListener(this);
+	}
+
+	/**
+	 * Get the cached response, loading it if necessary
+	 *
+	 * @param resource {@link Resource}
+	 * @param loader   Builds the JSON content
+	 * @return {@link Entry}
+	 * @throws Exception Exception
+	 */
+	Entry get(Resource resource, Callable<String> loader) throws Exception {
+		long generation;
+
+		synchronized (this) {
+			Entry entry = entries.get(resource);
+
+			if (entry != null && !entry.isExpired()) {
+				return entry;
+			}
+			generation = generations.get(resource);
+		}
+
+		Entry entry = new Entry(loader.call());
+
+		synchronized (this) {
+			if (generations.get(resource) == generation) {
+				entries.put(resource, entry);
+			}
+		}
+
+		if (logger.isInfoEnabled()) {
+			logger.info("Loaded " + resource + " response of " + entry.json.length + " bytes, ETag " + entry.etag);
+		}
+		return entry;
+	}
+
+	/**
+	 * Drop the cached response
+	 *
+	 * @param resource {@link Resource}
+	 */
+	synchronized void invalidate(Resource resource) {
+		generations.put(resource, generations.get(resource) + 1);
+		entries.remove(resource);
+	}
+
+	@Override
+	public void onEntityChange(KeyedObject entity, boolean deleted) {
+		if (entity instanceof OeeEvent) {
+			// not reference data
+			return;
+		}
+
+		if (entity instanceof Reason) {
+			invalidate(Resource.REASON);
+		} else if (entity instanceof Material) {
+			invalidate(Resource.MATERIAL);
+		}
+
+		// the plant entity export includes all other reference data
+		invalidate(Resource.ENTITY);
+	}
+}
@@ -1,11 +1,20 @@
 package org.point85.domain.jms;
 
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import javax.jms.BytesMessage;
 import javax.jms.Connection;
 import javax.jms.DeliveryMode;
+import javax.jms.Destination;
 import javax.jms.Message;
 import javax.jms.MessageConsumer;
 import javax.jms.MessageListener;
@@ -16,11 +25,13 @@ import javax.jms.TextMessage;
 import javax.jms.Topic;
 
 import org.apache.activemq.ActiveMQConnectionFactory;
+import org.point85.domain.i18n.DomainLocalizer;
 import org.point85.domain.messaging.ApplicationMessage;
 import org.point85.domain.messaging.BaseMessagingClient;
 import org.point85.domain.messaging.CollectorNotificationMessage;
 import org.point85.domain.messaging.MessageType;
 import org.point85.domain.messaging.NotificationSeverity;
+import org.point85.domain.messaging.WireFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,6 +52,23 @@ public class JmsClient extends BaseMessagingClient {
 	private ActiveMQConnectionFactory connectionFactory;
 	private Connection connection;
 	private Session session;
+
+	// session for sending, guarded by sendLock since sessions are single-threaded
+	private Session producerSession;
+	private final Object sendLock = new Object();
+
+	// one producer per destination name
+	private final Map<String, MessageProducer> producers = new HashMap<>();
+
+	// delivery mode for sent messages
+	private int deliveryMode = DeliveryMode.NON_PERSISTENT;
+
+	// transacted batch sends
+	private int batchSize = 0;
+	private long batchMsec = 0;
+	private int uncommittedCount = 0;
+	private long firstUncommittedTime = 0;
+	private ScheduledExecutorService batchTimer;
 	private Queue consumerQueue;
 	private Topic consumerTopic;
 
@@ -52,6 +80,9 @@ public class JmsClient extends BaseMessagingClient {
 
 	private static final int TTL_SEC = 3600;
 
+	// message property with the content type of a binary message
+	public static final String CONTENT_TYPE_PROPERTY = "contentType";
+
 	// listener to call back when a message is received
 	private JmsMessageListener eventListener;
 	
@@ -96,6 +127,10 @@ public class JmsClient extends BaseMessagingClient {
 		// non-transacted, auto-ack session
 		session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
 
+		// separate session for sending since the consumer session belongs to its
+		// dispatch thread
+		producerSession = createProducerSession();
+
 		setHostName(brokerHostName);
 		setHostPort(port);
 
@@ -112,6 +147,29 @@ public class JmsClient extends BaseMessagingClient {
 	public void disconnect() throws Exception {
 		unregisterListener();
 
+		if (batchTimer != null) {
+			batchTimer.shutdownNow();
+			batchTimer = null;
+		}
+
+		synchronized (sendLock) {
+			if (producerSession != null) {
+				try {
+					commitBatch();
+				} catch (Exception e) {
+					logger.error("Unable to commit the last batch.", e);
+				}
+
+				for (MessageProducer producer : producers.values()) {
+					producer.close();
+				}
+				producers.clear();
+
+				producerSession.close();
+				producerSession = null;
+			}
+		}
+
 		if (connection != null) {
 			connection.close();
 		}
@@ -152,6 +210,11 @@ public class JmsClient extends BaseMessagingClient {
 		// listener for received messages
 		MessageListener listener = new MessageListener() {
 			public void onMessage(Message message) {
+				if (message instanceof BytesMessage) {
+					onBytesMessage((BytesMessage) message);
+					return;
+				}
+
 				if (!(message instanceof TextMessage)) {
 					logger.error("Received unknown message " + message.getClass().getSimpleName());
 					return;
@@ -161,13 +224,14 @@ public class JmsClient extends BaseMessagingClient {
 				try {
 					json = ((TextMessage) message).getText();
 
-					if (logger.isInfoEnabled()) {
-						logger.info("Received message: \n" + json);
-					}
+					logger.trace("Received message: \n{}", json);
 
 					ApplicationMessage appMessage = null;
 
-					if (json.contains(MessageType.EQUIPMENT_EVENT.name())) {
+					if (json.contains(MessageType.EQUIPMENT_EVENT_BATCH.name())) {
+						// batch of equipment events, checked first since its name contains EQUIPMENT_EVENT
+						appMessage = deserialize(MessageType.EQUIPMENT_EVENT_BATCH, json);
+					} else if (json.contains(MessageType.EQUIPMENT_EVENT.name())) {
 						// equipment event
 						appMessage = deserialize(MessageType.EQUIPMENT_EVENT, json);
 					} else if (json.contains(MessageType.COMMAND.name())) {
@@ -218,6 +282,11 @@ public class JmsClient extends BaseMessagingClient {
 		// listener for received messages
 		MessageListener listener = new MessageListener() {
 			public void onMessage(Message message) {
+				if (message instanceof BytesMessage) {
+					onBytesMessage((BytesMessage) message);
+					return;
+				}
+
 				if (!(message instanceof TextMessage)) {
 					logger.error("Received unknown message " + message.getClass().getSimpleName());
 					return;
@@ -227,9 +296,7 @@ public class JmsClient extends BaseMessagingClient {
 				try {
 					json = ((TextMessage) message).getText();
 
-					if (logger.isInfoEnabled()) {
-						logger.info("Received message: \n" + json);
-					}
+					logger.trace("Received message: \n{}", json);
 
 					ApplicationMessage appMessage = null;
 
@@ -264,36 +331,274 @@ public class JmsClient extends BaseMessagingClient {
 		// validate
 		message.validate();
 
-		Topic topic = session.createTopic(topicName);
-
-		MessageProducer producer = session.createProducer(topic);
-		send(producer, message, ttlSec);
+		synchronized (sendLock) {
+			send(getProducer(topicName, true), message, ttlSec);
+			onSent(1);
+		}
 	}
 
 	public void sendToQueue(ApplicationMessage message, String queueName, int ttlSec) throws Exception {
 		// validate
 		message.validate();
 
-		Queue queue = session.createQueue(queueName);
+		synchronized (sendLock) {
+			send(getProducer(queueName, false), message, ttlSec);
+			onSent(1);
+		}
+	}
 
-		MessageProducer producer = session.createProducer(queue);
-		send(producer, message, ttlSec);
+	/**
+	 * Send messages to a topic. In batch mode they are committed together.
+	 * 
+	 * @param messages  List of {@link ApplicationMessage}
+	 * @param topicName Topic name
+	 * @param ttlSec    Time to live in seconds
+	 * @throws Exception Exception
+	 */
+	public void sendToTopic(List<ApplicationMessage> messages, String topicName, int ttlSec) throws Exception {
+		for (ApplicationMessage message : messages) {
+			message.validate();
+		}
+
+		synchronized (sendLock) {
+			MessageProducer producer = getProducer(topicName, true);
+
+			for (ApplicationMessage message : messages) {
+				send(producer, message, ttlSec);
+			}
+			onSent(messages.size());
+		}
 	}
 
-	private void send(MessageProducer producer, ApplicationMessage message, int ttlSec) throws Exception {
-		producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+	// called with the send lock held
+	private MessageProducer getProducer(String name, boolean isTopic) throws Exception {
+		if (producerSession == null) {
+			throw new Exception(DomainLocalizer.instance().getErrorString("jms.not.connected"));
+		}
+
+		String key = (isTopic ? "topic://" : "queue://") + name;
+		MessageProducer producer = producers.get(key);
 
-		TextMessage textMessage = session.createTextMessage();
-		textMessage.setText(serialize(message));
-		textMessage.setJMSCorrelationID(createCorrelationId());
+		if (producer == null) {
+			Destination destination = isTopic ? producerSession.createTopic(name) : producerSession.createQueue(name);
+			producer = producerSession.createProducer(destination);
+			producer.setDeliveryMode(deliveryMode);
+			producer.setPriority(HIGH_PRIORITY);
+			producers.put(key, producer);
+		}
+		return producer;
+	}
+
+	// called with the send lock held
+	private void send(MessageProducer producer, ApplicationMessage message, int ttlSec) throws Exception {
+		WireFormat format = getWireFormat();
+		Message jmsMessage = null;
+
+		if (format.isBinary()) {
+			BytesMessage bytesMessage = producerSession.createBytesMessage();
+			bytesMessage.writeBytes(encode(message, format));
+			bytesMessage.setStringProperty(CONTENT_TYPE_PROPERTY, format.getContentType());
+			jmsMessage = bytesMessage;
+		} else {
+			TextMessage textMessage = producerSession.createTextMessage();
+			textMessage.setText(serialize(message));
+			jmsMessage = textMessage;
+		}
+		jmsMessage.setJMSType(message.getMessageType().toString());
+		jmsMessage.setJMSCorrelationID(createCorrelationId());
 
-		producer.send(textMessage, DeliveryMode.NON_PERSISTENT, HIGH_PRIORITY, ttlSec * 1000l);
+		producer.send(jmsMessage, deliveryMode, HIGH_PRIORITY, ttlSec * 1000l);
 
 		if (logger.isInfoEnabled()) {
 			logger.info("Sent text message of type " + message.getMessageType());
 		}
 	}
 
+	// called with the send lock held
+	private void onSent(int count) throws Exception {
+		if (batchSize <= 0) {
+			return;
+		}
+
+		if (uncommittedCount == 0) {
+			firstUncommittedTime = System.currentTimeMillis();
+		}
+		uncommittedCount += count;
+
+		if (uncommittedCount >= batchSize || System.currentTimeMillis() - firstUncommittedTime >= batchMsec) {
+			commitBatch();
+		}
+	}
+
+	// called with the send lock held
+	private void commitBatch() throws Exception {
+		if (batchSize > 0 && uncommittedCount > 0) {
+			producerSession.commit();
+
+			if (logger.isInfoEnabled()) {
+				logger.info("Committed " + uncommittedCount + " message(s)");
+			}
+			uncommittedCount = 0;
+		}
+	}
+
+	private Session createProducerSession() throws Exception {
+		boolean transacted = batchSize > 0;
+		return connection.createSession(transacted, transacted ? Session.SESSION_TRANSACTED : Session.AUTO_ACKNOWLEDGE);
+	}
+
+	/**
+	 * Send on a transacted session that is committed every batch size messages
+	 * or when the oldest uncommitted message is older than the batch time. A
+	 * batch size of 0 sends each message on its own.
+	 * 
+	 * @param size Maximum number of uncommitted messages
+	 * @param msec Maximum time in milliseconds a message stays uncommitted
+	 * @throws Exception Exception
+	 */
+	public void setBatching(int size, long msec) throws Exception {
+		synchronized (sendLock) {
+			commitBatch();
+
+			this.batchSize = size;
+			this.batchMsec = msec;
+
+			if (connection != null) {
+				// producers belong to the old session
+				for (MessageProducer producer : producers.values()) {
+					producer.close();
+				}
+				producers.clear();
+
+				if (producerSession != null) {
+					producerSession.close();
+				}
+				producerSession = createProducerSession();
+			}
+		}
+
+		if (batchTimer != null) {
+			batchTimer.shutdownNow();
+			batchTimer = null;
+		}
+
+		if (size > 0) {
+			// commit a partial batch that has waited long enough
+			batchTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "JMS-batch");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+			batchTimer.scheduleWithFixedDelay(() -> {
+				synchronized (sendLock) {
+					try {
+						if (uncommittedCount > 0 && System.currentTimeMillis() - firstUncommittedTime >= batchMsec) {
+							commitBatch();
+						}
+					} catch (Exception e) {
+						logger.error("Unable to commit batch.", e);
+					}
+				}
+			}, msec, msec, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Commit any messages waiting in the current batch
+	 * 
+	 * @throws Exception Exception
+	 */
+	public void flush() throws Exception {
+		synchronized (sendLock) {
+			commitBatch();
+		}
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public long getBatchMsec() {
+		return batchMsec;
+	}
+
+	public boolean isPersistent() {
+		return deliveryMode == DeliveryMode.PERSISTENT;
+	}
+
+	public void setPersistent(boolean persistent) {
+		synchronized (sendLock) {
+			this.deliveryMode = persistent ? DeliveryMode.PERSISTENT : DeliveryMode.NON_PERSISTENT;
+
+			for (MessageProducer producer : producers.values()) {
+				try {
+					producer.setDeliveryMode(deliveryMode);
+				} catch (Exception e) {
+					logger.error("Unable to set delivery mode.", e);
+				}
+			}
+		}
+	}
+
+	private void onBytesMessage(BytesMessage message) {
+		String messageId = null;
+		String contentType = null;
+
+		try {
+			messageId = message.getJMSMessageID();
+			contentType = message.getStringProperty(CONTENT_TYPE_PROPERTY);
+
+			WireFormat format = WireFormat.fromContentType(contentType);
+			MessageType type = MessageType.fromString(message.getJMSType());
+
+			byte[] payload = new byte[(int) message.getBodyLength()];
+			message.readBytes(payload);
+
+			if (type == null && format == WireFormat.JSON) {
+				// no JMS type from the sender, so find it in the content as for a text message
+				type = findMessageType(new String(payload, StandardCharsets.UTF_8));
+			}
+
+			// a binary payload carries its own type
+			ApplicationMessage appMessage = type != null || format.isBinary() ? decode(type, payload, format) : null;
+
+			if (appMessage == null) {
+				logger.error("Unable to determine the type of message {} with JMS type {} and content type {}",
+						messageId, message.getJMSType(), contentType);
+				return;
+			}
+
+			logger.debug("Received {} message of type {}", format, appMessage.getMessageType());
+
+			if (eventListener != null) {
+				eventListener.onJmsMessage(appMessage);
+			}
+		} catch (Exception e) {
+			logger.error("Unable to handle message " + messageId + " with content type " + contentType, e);
+		}
+	}
+
+	private static MessageType findMessageType(String json) {
+		MessageType type = null;
+
+		if (json.contains(MessageType.EQUIPMENT_EVENT_BATCH.name())) {
+			// checked first since its name contains EQUIPMENT_EVENT
+			type = MessageType.EQUIPMENT_EVENT_BATCH;
+		} else if (json.contains(MessageType.EQUIPMENT_EVENT.name())) {
+			type = MessageType.EQUIPMENT_EVENT;
+		} else if (json.contains(MessageType.COMMAND.name())) {
+			type = MessageType.COMMAND;
+		} else if (json.contains(MessageType.STATUS.name())) {
+			type = MessageType.STATUS;
+		} else if (json.contains(MessageType.NOTIFICATION.name())) {
+			type = MessageType.NOTIFICATION;
+		} else if (json.contains(MessageType.RESOLVED_EVENT.name())) {
+			type = MessageType.RESOLVED_EVENT;
+		}
+		return type;
+	}
+
 	private String createCorrelationId() {
 		return Long.toHexString(random.nextLong());
 	}
@@ -333,6 +638,19 @@ public class JmsClient extends BaseMessagingClient {
 		}
 	}
 
+	/**
+	 * Send notification messages to the status topic together
+	 * 
+	 * @param messages List of {@link ApplicationMessage}
+	 */
+	public void sendNotificationMessages(List<ApplicationMessage> messages) {
+		try {
+			sendToTopic(messages, STATUS_TOPIC, TTL_SEC);
+		} catch (Exception e) {
+			logger.error("Unable to publish notifications.", e);
+		}
+	}
+
 	public void sendEventMessage(ApplicationMessage message) {
 		try {
 			sendToTopic(message, EVENT_TOPIC, TTL_SEC);
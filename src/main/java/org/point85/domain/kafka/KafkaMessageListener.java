@@ -8,4 +8,15 @@ import org.point85.domain.messaging.ApplicationMessage;
  */
 public interface KafkaMessageListener {
 	void onKafkaMessage(ApplicationMessage message);
+
+	/**
+	 * Process a message on the calling thread. In pipeline mode the record's
+	 * offset is committed after this method returns.
+	 * 
+	 * @param message {@link ApplicationMessage}
+	 * @throws Exception Exception
+	 */
+	default void processKafkaMessage(ApplicationMessage message) throws Exception {
+		onKafkaMessage(message);
+	}
 }
@@ -2,28 +2,46 @@ package org.point85.domain.kafka;
 
 import java.io.File;
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.kafka.clients.CommonClientConfigs;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.config.SaslConfigs;
 import org.apache.kafka.common.config.SslConfigs;
 import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.point85.domain.DomainUtils;
@@ -33,6 +51,7 @@ import org.point85.domain.messaging.BaseMessagingClient;
 import org.point85.domain.messaging.CollectorNotificationMessage;
 import org.point85.domain.messaging.MessageType;
 import org.point85.domain.messaging.NotificationSeverity;
+import org.point85.domain.messaging.WireFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,6 +69,25 @@ public class KafkaOeeClient extends BaseMessagingClient {
 	// timeout for server ack on a send
 	private static final int SEND_TIMEOUT_SEC = 10;
 
+	// producer batching delay
+	public static final int DEFAULT_LINGER_MSEC = 5;
+
+	// consumer fetch tuning for the pipeline
+	public static final int DEFAULT_MAX_POLL_RECORDS = 1000;
+	public static final int DEFAULT_FETCH_MIN_BYTES = 64 * 1024;
+	public static final int DEFAULT_FETCH_MAX_WAIT_MSEC = 500;
+
+	// time to wait for a partition lane to finish on revocation or shutdown
+	private static final int LANE_SHUTDOWN_SEC = 30;
+
+	// minimum window for the records per second rate
+	private static final long RATE_WINDOW_MSEC = 1000;
+
+	// delay before a record that failed is processed again, doubled for each
+	// further failure
+	private static final long RETRY_BACKOFF_MSEC = 1000;
+	private static final long MAX_RETRY_BACKOFF_MSEC = 60000;
+
 	public static final String EVENT_TOPIC = "Point85_Event";
 	public static final String NOTIFICATION_TOPIC = "Point85_Notification";
 
@@ -62,13 +100,13 @@ public class KafkaOeeClient extends BaseMessagingClient {
 	private Collection<String> consumerTopics = new HashSet<>();
 
 	// producer
-	private Producer<String, String> producer;
+	private Producer<String, byte[]> producer;
 
 	// producer source
 	private KafkaSource producerServer;
 
 	// consumer
-	private Consumer<String, String> consumer;
+	private Consumer<String, byte[]> consumer;
 
 	// consumer source
 	private KafkaSource consumerServer;
@@ -79,6 +117,36 @@ public class KafkaOeeClient extends BaseMessagingClient {
 	// polling interval in milliseconds
 	private int pollingInterval = DEFAULT_POLLING_INTERVAL;
 
+	// if true, process partitions in parallel and commit after processing
+	private boolean pipelined = false;
+
+	// single-threaded processing lane for each assigned partition
+	private final Map<TopicPartition, ExecutorService> lanes = new ConcurrentHashMap<>();
+
+	// next offsets to commit for records that have been processed
+	private final Map<TopicPartition, OffsetAndMetadata> processedOffsets = new ConcurrentHashMap<>();
+
+	// partitions whose lane has drained its last batch
+	private final Set<TopicPartition> finishedPartitions = ConcurrentHashMap.newKeySet();
+
+	// offset of the record a lane stopped at because the listener failed
+	private final Map<TopicPartition, Long> failedOffsets = new ConcurrentHashMap<>();
+
+	// consecutive failures and retry times of paused partitions, on the polling
+	// thread only
+	private final Map<TopicPartition, Integer> failureCounts = new HashMap<>();
+	private final Map<TopicPartition, Long> retryTimes = new HashMap<>();
+
+	// records skipped because they could not be decoded or were invalid
+	private final AtomicLong deadLetterCount = new AtomicLong();
+
+	// pipeline metrics
+	private final AtomicLong processedCount = new AtomicLong();
+	private volatile long consumerLag = 0;
+	private volatile double recordsPerSecond = 0.0d;
+	private long rateStartCount = 0;
+	private long rateStartTime = System.currentTimeMillis();
+
 	/**
 	 * Create a Kafka consumer for this server and topic
 	 * 
@@ -140,6 +208,18 @@ public class KafkaOeeClient extends BaseMessagingClient {
 		}
 	}
 
+	/**
+	 * Use an existing consumer for this topic, for example a stand-in for a
+	 * broker
+	 * 
+	 * @param consumer {@link Consumer}
+	 * @param topic    Kafka topic
+	 */
+	public void createConsumer(Consumer<String, byte[]> consumer, String topic) {
+		this.consumer = consumer;
+		setConsumerTopic(topic);
+	}
+
 	/**
 	 * Create a Kafka producer for this server and topic
 	 * 
@@ -230,16 +310,24 @@ public class KafkaOeeClient extends BaseMessagingClient {
 	private void setDefaultConsumerProperties() {
 		consumerProperties.put(ConsumerConfig.GROUP_ID_CONFIG, "Point85_OEE");
 		consumerProperties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-		consumerProperties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+		consumerProperties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
 		consumerProperties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
 		consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
 		consumerProperties.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, 30000);
+
+		// larger fetches for throughput unless already configured
+		consumerProperties.putIfAbsent(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, DEFAULT_MAX_POLL_RECORDS);
+		consumerProperties.putIfAbsent(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, DEFAULT_FETCH_MIN_BYTES);
+		consumerProperties.putIfAbsent(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, DEFAULT_FETCH_MAX_WAIT_MSEC);
 	}
 
 	private void setDefaultProducerProperties() {
 		producerProperties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-		producerProperties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+		producerProperties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
 		producerProperties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+
+		// allow batched sends to fill up a little
+		producerProperties.putIfAbsent(ProducerConfig.LINGER_MS_CONFIG, DEFAULT_LINGER_MSEC);
 	}
 
 	/**
@@ -302,6 +390,18 @@ public class KafkaOeeClient extends BaseMessagingClient {
 		this.producerTopic = topic;
 	}
 
+	private ProducerRecord<String, byte[]> createRecord(String key, ApplicationMessage message) throws Exception {
+		WireFormat format = getWireFormat();
+		ProducerRecord<String, byte[]> producerRecord = new ProducerRecord<>(producerTopic, key,
+				encode(message, format));
+
+		if (format.isBinary()) {
+			producerRecord.headers().add(WireFormat.CONTENT_TYPE,
+					format.getContentType().getBytes(StandardCharsets.UTF_8));
+		}
+		return producerRecord;
+	}
+
 	private void sendMessage(ApplicationMessage message) throws Exception {
 		if (producer == null) {
 			return;
@@ -310,7 +410,7 @@ public class KafkaOeeClient extends BaseMessagingClient {
 		String key = message.getMessageType().toString();
 
 		// send the message synchronously
-		Future<RecordMetadata> future = producer.send(new ProducerRecord<>(producerTopic, key, serialize(message)));
+		Future<RecordMetadata> future = producer.send(createRecord(key, message));
 
 		// wait for response
 		RecordMetadata data = future.get(SEND_TIMEOUT_SEC, TimeUnit.SECONDS);
@@ -340,6 +440,11 @@ public class KafkaOeeClient extends BaseMessagingClient {
 	 * Start polling to consume messages
 	 */
 	public void startPolling() {
+		if (pipelined) {
+			startPipeline();
+			return;
+		}
+
 		Thread poller = new Thread() {
 			@Override
 			public void run() {
@@ -358,39 +463,15 @@ public class KafkaOeeClient extends BaseMessagingClient {
 					// polling loop
 					while (true) {
 						// collection of records
-						ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(pollingInterval));
+						ConsumerRecords<String, byte[]> records = consumer.poll(Duration.ofMillis(pollingInterval));
 
 						records.forEach(consumerRecord -> {
 							if (listener != null) {
-								// serialize to ApplicationMessage
-								String json = consumerRecord.value();
-
-								if (logger.isInfoEnabled()) {
-									logger.info("Received message: \n" + json);
-								}
+								ApplicationMessage appMessage = deserializeRecord(consumerRecord);
 
-								ApplicationMessage appMessage = null;
-
-								if (json.contains(MessageType.EQUIPMENT_EVENT.name())) {
-									// equipment event
-									appMessage = deserialize(MessageType.EQUIPMENT_EVENT, json);
-								} else if (json.contains(MessageType.COMMAND.name())) {
-									// command
-									appMessage = deserialize(MessageType.COMMAND, json);
-								} else if (json.contains(MessageType.STATUS.name())) {
-									// command
-									appMessage = deserialize(MessageType.STATUS, json);
-								} else if (json.contains(MessageType.NOTIFICATION.name())) {
-									// command
-									appMessage = deserialize(MessageType.NOTIFICATION, json);
-								} else if (json.contains(MessageType.RESOLVED_EVENT.name())) {
-									// command
-									appMessage = deserialize(MessageType.RESOLVED_EVENT, json);
-								} else {
-									logger.error("Unable to handle message!");
-									return;
+								if (appMessage != null) {
+									listener.onKafkaMessage(appMessage);
 								}
-								listener.onKafkaMessage(appMessage);
 							}
 						});
 
@@ -418,6 +499,351 @@ public class KafkaOeeClient extends BaseMessagingClient {
 		poller.start();
 	}
 
+	private ApplicationMessage deserializeRecord(ConsumerRecord<String, byte[]> consumerRecord) {
+		if (consumerRecord.value() == null) {
+			return null;
+		}
+
+		Header contentType = consumerRecord.headers().lastHeader(WireFormat.CONTENT_TYPE);
+
+		if (contentType != null) {
+			WireFormat format = WireFormat.fromContentType(new String(contentType.value(), StandardCharsets.UTF_8));
+
+			if (format.isBinary()) {
+				try {
+					// the key is the message type
+					return decode(MessageType.fromString(consumerRecord.key()), consumerRecord.value(), format);
+				} catch (Exception e) {
+					logger.error("Unable to decode " + format + " message", e);
+					return null;
+				}
+			}
+		}
+
+		String json = new String(consumerRecord.value(), StandardCharsets.UTF_8);
+
+		logger.trace("Received message: \n{}", json);
+
+		ApplicationMessage appMessage = null;
+
+		if (json.contains(MessageType.EQUIPMENT_EVENT_BATCH.name())) {
+			// batch of equipment events, checked first since its name contains EQUIPMENT_EVENT
+			appMessage = deserialize(MessageType.EQUIPMENT_EVENT_BATCH, json);
+		} else if (json.contains(MessageType.EQUIPMENT_EVENT.name())) {
+			// equipment event
+			appMessage = deserialize(MessageType.EQUIPMENT_EVENT, json);
+		} else if (json.contains(MessageType.COMMAND.name())) {
+			// command
+			appMessage = deserialize(MessageType.COMMAND, json);
+		} else if (json.contains(MessageType.STATUS.name())) {
+			// status
+			appMessage = deserialize(MessageType.STATUS, json);
+		} else if (json.contains(MessageType.NOTIFICATION.name())) {
+			// notification
+			appMessage = deserialize(MessageType.NOTIFICATION, json);
+		} else if (json.contains(MessageType.RESOLVED_EVENT.name())) {
+			// resolved event
+			appMessage = deserialize(MessageType.RESOLVED_EVENT, json);
+		} else {
+			logger.error("Unable to handle message!");
+		}
+		return appMessage;
+	}
+
+	/**
+	 * Start polling in pipeline mode. The records of each partition are
+	 * processed in order on a lane of their own while the partition is paused.
+	 * Offsets are committed only after the listener has processed the records.
+	 * If the listener fails, the partition stops at that record and processes it
+	 * again after a backoff. A record that cannot be decoded or is invalid is
+	 * logged and skipped.
+	 */
+	public void startPipeline() {
+		Thread poller = new Thread() {
+			@Override
+			public void run() {
+				try {
+					if (consumerTopics.isEmpty()) {
+						throw new Exception(DomainLocalizer.instance().getErrorString("kafka.no.consumer.topics"));
+					}
+
+					// subscribe to topics
+					consumer.subscribe(consumerTopics, new LaneRebalanceListener());
+
+					consumerTopics.forEach(topic -> logger.info("Subscribed to topic " + topic
+							+ " in pipeline mode, polling at " + pollingInterval + " msec"));
+
+					rateStartCount = processedCount.get();
+					rateStartTime = System.currentTimeMillis();
+
+					// polling loop
+					while (true) {
+						ConsumerRecords<String, byte[]> records = consumer.poll(Duration.ofMillis(pollingInterval));
+
+						for (TopicPartition partition : records.partitions()) {
+							List<ConsumerRecord<String, byte[]>> partitionRecords = records.records(partition);
+
+							// no more records for this partition until the lane is done
+							consumer.pause(Collections.singleton(partition));
+							getLane(partition).execute(() -> processPartition(partition, partitionRecords));
+						}
+
+						commitProcessedOffsets(false);
+						resumeFinishedPartitions();
+						updateMetrics();
+					}
+				} catch (WakeupException e) {
+					// expected
+				} catch (Exception e) {
+					logger.error("Unexpected error", e);
+				} finally {
+					try {
+						if (consumer != null) {
+							stopLanes(new HashSet<>(lanes.keySet()));
+							commitProcessedOffsets(true);
+						}
+					} catch (Exception e) {
+						logger.error("Unable to commit offsets", e);
+					} finally {
+						if (logger.isInfoEnabled()) {
+							logger.info("Stopped pipeline");
+						}
+					}
+				}
+			}
+		};
+		poller.start();
+	}
+
+	private ExecutorService getLane(TopicPartition partition) {
+		return lanes.computeIfAbsent(partition, tp -> Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Kafka-" + tp);
+			thread.setDaemon(true);
+			return thread;
+		}));
+	}
+
+	private void processPartition(TopicPartition partition, List<ConsumerRecord<String, byte[]>> records) {
+		try {
+			for (ConsumerRecord<String, byte[]> consumerRecord : records) {
+				if (listener != null) {
+					ApplicationMessage appMessage = decodeRecord(partition, consumerRecord);
+
+					if (appMessage != null) {
+						try {
+							listener.processKafkaMessage(appMessage);
+						} catch (Exception e) {
+							// not committed, so stop here and process it again
+							logger.error("Unable to process record at offset " + consumerRecord.offset() + " of "
+									+ partition, e);
+							failedOffsets.put(partition, consumerRecord.offset());
+							return;
+						}
+					}
+				}
+
+				// the next offset to read once this record is done
+				processedOffsets.put(partition, new OffsetAndMetadata(consumerRecord.offset() + 1));
+				processedCount.incrementAndGet();
+			}
+		} finally {
+			finishedPartitions.add(partition);
+		}
+	}
+
+	// a record that cannot be decoded or is invalid would fail on every retry,
+	// so it is dead-lettered: logged, counted and skipped
+	private ApplicationMessage decodeRecord(TopicPartition partition, ConsumerRecord<String, byte[]> consumerRecord) {
+		if (consumerRecord.value() == null) {
+			return null;
+		}
+
+		ApplicationMessage appMessage = null;
+		String error = "not a known message";
+
+		try {
+			appMessage = deserializeRecord(consumerRecord);
+
+			if (appMessage != null) {
+				appMessage.validate();
+			}
+		} catch (Exception e) {
+			appMessage = null;
+			error = e.getMessage();
+		}
+
+		if (appMessage == null) {
+			deadLetterCount.incrementAndGet();
+			logger.error("Skipped record at offset " + consumerRecord.offset() + " of " + partition + ": " + error);
+		}
+		return appMessage;
+	}
+
+	private void commitProcessedOffsets(boolean sync) {
+		Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+
+		for (TopicPartition partition : processedOffsets.keySet()) {
+			OffsetAndMetadata offset = processedOffsets.remove(partition);
+
+			if (offset != null) {
+				offsets.put(partition, offset);
+			}
+		}
+
+		if (offsets.isEmpty()) {
+			return;
+		}
+
+		if (sync) {
+			consumer.commitSync(offsets);
+		} else {
+			consumer.commitAsync(offsets, (committed, e) -> {
+				if (e != null) {
+					logger.error("Unable to commit offsets " + committed, e);
+				}
+			});
+		}
+	}
+
+	private void resumeFinishedPartitions() {
+		if (finishedPartitions.isEmpty() && retryTimes.isEmpty()) {
+			return;
+		}
+
+		Set<TopicPartition> assigned = consumer.assignment();
+		Set<TopicPartition> resumable = new HashSet<>();
+		long now = System.currentTimeMillis();
+
+		for (TopicPartition partition : finishedPartitions) {
+			finishedPartitions.remove(partition);
+			Long failedOffset = failedOffsets.remove(partition);
+
+			if (!assigned.contains(partition)) {
+				continue;
+			}
+
+			if (failedOffset == null) {
+				failureCounts.remove(partition);
+				resumable.add(partition);
+				continue;
+			}
+
+			// read again from the failed record once the backoff has passed
+			int failures = failureCounts.merge(partition, 1, Integer::sum);
+			long backoff = Math.min(MAX_RETRY_BACKOFF_MSEC, RETRY_BACKOFF_MSEC << Math.min(failures - 1, 16));
+
+			consumer.seek(partition, failedOffset);
+			retryTimes.put(partition, now + backoff);
+
+			logger.warn("Retrying offset " + failedOffset + " of " + partition + " in " + backoff + " msec");
+		}
+
+		Iterator<Map.Entry<TopicPartition, Long>> iter = retryTimes.entrySet().iterator();
+
+		while (iter.hasNext()) {
+			Map.Entry<TopicPartition, Long> entry = iter.next();
+
+			if (now >= entry.getValue()) {
+				iter.remove();
+
+				if (assigned.contains(entry.getKey())) {
+					resumable.add(entry.getKey());
+				}
+			}
+		}
+		consumer.resume(resumable);
+	}
+
+	private void stopLanes(Collection<TopicPartition> partitions) {
+		for (TopicPartition partition : partitions) {
+			ExecutorService lane = lanes.remove(partition);
+
+			if (lane == null) {
+				continue;
+			}
+			lane.shutdown();
+
+			try {
+				if (!lane.awaitTermination(LANE_SHUTDOWN_SEC, TimeUnit.SECONDS)) {
+					logger.warn("Lane for " + partition + " did not finish in " + LANE_SHUTDOWN_SEC + " sec");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			finishedPartitions.remove(partition);
+			failedOffsets.remove(partition);
+		}
+	}
+
+	private void updateMetrics() {
+		// lag is only available on the polling thread
+		long lag = 0;
+		for (TopicPartition partition : consumer.assignment()) {
+			OptionalLong partitionLag = consumer.currentLag(partition);
+
+			if (partitionLag.isPresent()) {
+				lag += partitionLag.getAsLong();
+			}
+		}
+		consumerLag = lag;
+
+		long now = System.currentTimeMillis();
+		long elapsed = now - rateStartTime;
+
+		if (elapsed >= RATE_WINDOW_MSEC) {
+			long count = processedCount.get();
+			recordsPerSecond = (count - rateStartCount) * 1000.0d / elapsed;
+			rateStartCount = count;
+			rateStartTime = now;
+		}
+	}
+
+	/**
+	 * Get the number of records not yet consumed as of the last poll in
+	 * pipeline mode
+	 * 
+	 * @return Total lag over the assigned partitions
+	 */
+	public long getConsumerLag() {
+		return consumerLag;
+	}
+
+	/**
+	 * Get the rate of processed records in pipeline mode
+	 * 
+	 * @return Records per second
+	 */
+	public double getRecordsPerSecond() {
+		return recordsPerSecond;
+	}
+
+	/**
+	 * Get the number of records processed in pipeline mode
+	 * 
+	 * @return Record count
+	 */
+	public long getProcessedCount() {
+		return processedCount.get();
+	}
+
+	/**
+	 * Get the number of records skipped in pipeline mode because they could not
+	 * be decoded or were invalid
+	 * 
+	 * @return Record count
+	 */
+	public long getDeadLetterCount() {
+		return deadLetterCount.get();
+	}
+
+	public boolean isPipelined() {
+		return pipelined;
+	}
+
+	public void setPipelined(boolean pipelined) {
+		this.pipelined = pipelined;
+	}
+
 	/**
 	 * Stop polling for messages
 	 */
@@ -496,6 +922,35 @@ public class KafkaOeeClient extends BaseMessagingClient {
 		}
 	}
 
+	/**
+	 * Send notification application messages to the notification topic. The
+	 * messages are handed to the producer together so that they can share
+	 * batches, then the acknowledgements are awaited.
+	 * 
+	 * @param messages List of {@link ApplicationMessage}
+	 * @throws Exception Exception
+	 */
+	public void sendNotificationMessages(List<ApplicationMessage> messages) throws Exception {
+		if (producer == null || !producerTopic.equals(NOTIFICATION_TOPIC)) {
+			return;
+		}
+
+		List<Future<RecordMetadata>> futures = new ArrayList<>(messages.size());
+
+		for (ApplicationMessage message : messages) {
+			String key = message.getMessageType().toString();
+			futures.add(producer.send(createRecord(key, message)));
+		}
+
+		for (Future<RecordMetadata> future : futures) {
+			future.get(SEND_TIMEOUT_SEC, TimeUnit.SECONDS);
+		}
+
+		if (logger.isInfoEnabled()) {
+			logger.info("Sent " + messages.size() + " message(s) to topic " + producerTopic);
+		}
+	}
+
 	/**
 	 * Send a notification application message to the notification topic
 	 * 
@@ -524,6 +979,38 @@ public class KafkaOeeClient extends BaseMessagingClient {
 		return consumerServer;
 	}
 
+	// finish and commit the work of revoked partitions
+	private class LaneRebalanceListener implements ConsumerRebalanceListener {
+		@Override
+		public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+			stopLanes(partitions);
+
+			for (TopicPartition partition : partitions) {
+				failureCounts.remove(partition);
+				retryTimes.remove(partition);
+			}
+
+			Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+
+			for (TopicPartition partition : partitions) {
+				OffsetAndMetadata offset = processedOffsets.remove(partition);
+
+				if (offset != null) {
+					offsets.put(partition, offset);
+				}
+			}
+
+			if (!offsets.isEmpty()) {
+				consumer.commitSync(offsets);
+			}
+		}
+
+		@Override
+		public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+			// lanes are created on demand
+		}
+	}
+
 	private class ConnectionValidator {
 		private ExecutorService executor = Executors.newSingleThreadExecutor();
 
@@ -22,6 +22,13 @@ public abstract class ApplicationMessage {
 	// id of sender
 	private String senderId;
 
+	// UTF-8 JSON payload cached after the first serialization, not serialized
+	private transient volatile byte[] encodedPayload;
+
+	// last binary payload and its format
+	private transient volatile byte[] binaryPayload;
+	private transient volatile WireFormat binaryFormat;
+
 	protected ApplicationMessage(MessageType messageType) {
 		this.messageType = messageType;
 	}
@@ -85,4 +92,48 @@ public abstract class ApplicationMessage {
 	public void setSenderId(String senderId) {
 		this.senderId = senderId;
 	}
+
+	/**
+	 * Get the UTF-8 JSON payload if this message has already been serialized
+	 * 
+	 * @return Encoded payload or null
+	 */
+	public byte[] getEncodedPayload() {
+		return encodedPayload;
+	}
+
+	public void setEncodedPayload(byte[] encodedPayload) {
+		this.encodedPayload = encodedPayload;
+	}
+
+	/**
+	 * Get the payload if this message has already been encoded in this format
+	 * 
+	 * @param format {@link WireFormat}
+	 * @return Encoded payload or null
+	 */
+	public byte[] getEncodedPayload(WireFormat format) {
+		if (format == WireFormat.JSON) {
+			return encodedPayload;
+		}
+		return format == binaryFormat ? binaryPayload : null;
+	}
+
+	public void setEncodedPayload(WireFormat format, byte[] payload) {
+		if (format == WireFormat.JSON) {
+			this.encodedPayload = payload;
+		} else {
+			this.binaryPayload = payload;
+			this.binaryFormat = format;
+		}
+	}
+
+	/**
+	 * Discard the cached payloads after the message content has been changed
+	 */
+	public void clearEncodedPayload() {
+		this.encodedPayload = null;
+		this.binaryPayload = null;
+		this.binaryFormat = null;
+	}
 }
@@ -1,11 +1,21 @@
 package org.point85.domain.messaging;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
 import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
 
 public abstract class BaseMessagingClient {
 	// json serializer
 	private final Gson gson = new Gson();
 
+	// initial size of the encoding buffer
+	private static final int ENCODING_BUFFER_SIZE = 512;
+
 	// flag for sending a notification message to the server
 	private boolean notify = false;
 
@@ -14,9 +24,76 @@ public abstract class BaseMessagingClient {
 
 	private int hostPort = 0;
 
+	// encoding of sent messages
+	private WireFormat wireFormat = WireFormat.JSON;
+
 	protected String serialize(ApplicationMessage message) {
 		// payload is JSON string
-		return gson.toJson(message);
+		return new String(encode(message), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Serialize the message to UTF-8 JSON once. The payload is cached on the
+	 * message so that each additional transport sends the same bytes.
+	 * 
+	 * @param message {@link ApplicationMessage}
+	 * @return Encoded payload
+	 */
+	protected byte[] encode(ApplicationMessage message) {
+		byte[] payload = message.getEncodedPayload();
+
+		if (payload == null) {
+			// stream directly into the byte buffer
+			ByteArrayOutputStream out = new ByteArrayOutputStream(ENCODING_BUFFER_SIZE);
+
+			try (JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+				gson.toJson(message, message.getClass(), writer);
+			} catch (IOException e) {
+				throw new JsonIOException(e);
+			}
+
+			payload = out.toByteArray();
+			message.setEncodedPayload(payload);
+		}
+		return payload;
+	}
+
+	/**
+	 * Encode the message once in this format
+	 * 
+	 * @param message {@link ApplicationMessage}
+	 * @param format  {@link WireFormat}
+	 * @return Encoded payload
+	 * @throws Exception Exception
+	 */
+	protected byte[] encode(ApplicationMessage message, WireFormat format) throws Exception {
+		if (format == WireFormat.JSON) {
+			return encode(message);
+		}
+
+		byte[] payload = message.getEncodedPayload(format);
+
+		if (payload == null) {
+			payload = MessageCodec.encode(message, format);
+			message.setEncodedPayload(format, payload);
+		}
+		return payload;
+	}
+
+	/**
+	 * Decode a payload received in this format
+	 * 
+	 * @param type    {@link MessageType}
+	 * @param payload Encoded payload
+	 * @param format  {@link WireFormat}
+	 * @return {@link ApplicationMessage}
+	 * @throws Exception Exception
+	 */
+	protected ApplicationMessage decode(MessageType type, byte[] payload, WireFormat format) throws Exception {
+		if (format == WireFormat.JSON) {
+			return deserialize(type, new String(payload, StandardCharsets.UTF_8));
+		}
+		return type != null ? MessageCodec.decode(payload, format, type) : MessageCodec.decode(payload, format);
 	}
 
 	protected ApplicationMessage deserialize(MessageType type, String payload) {
@@ -43,6 +120,14 @@ public abstract class BaseMessagingClient {
 			message = gson.fromJson(payload, CollectorCommandMessage.class);
 			break;
 
+		case EQUIPMENT_EVENT_BATCH:
+			message = gson.fromJson(payload, EquipmentEventBatchMessage.class);
+			break;
+
+		case ENTITY_CHANGED:
+			message = gson.fromJson(payload, EntityChangedMessage.class);
+			break;
+
 		default:
 			break;
 		}
@@ -74,4 +159,12 @@ public abstract class BaseMessagingClient {
 		this.hostPort = hostPort;
 	}
 
+	public WireFormat getWireFormat() {
+		return wireFormat;
+	}
+
+	public void setWireFormat(WireFormat wireFormat) {
+		this.wireFormat = wireFormat;
+	}
+
 }
@@ -7,6 +7,11 @@ public class CollectorCommandMessage extends ApplicationMessage {
 
 	private String command;
 
+	// for binary decoding
+	private CollectorCommandMessage() {
+		super(MessageType.COMMAND);
+	}
+
 	public CollectorCommandMessage(String senderHostName, String senderHostAddress) {
 		super(senderHostName, senderHostAddress, MessageType.COMMAND);
 	}
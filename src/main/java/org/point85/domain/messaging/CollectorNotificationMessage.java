@@ -11,6 +11,11 @@ public class CollectorNotificationMessage extends ApplicationMessage {
 	private NotificationSeverity severity;
 	private String text;
 
+	// for binary decoding
+	private CollectorNotificationMessage() {
+		super(MessageType.NOTIFICATION);
+	}
+
 	public CollectorNotificationMessage(String senderHostName,  String senderHostAddress) {
 		super(senderHostName, senderHostAddress, MessageType.NOTIFICATION);
 	}
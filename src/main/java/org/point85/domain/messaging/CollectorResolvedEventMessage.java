@@ -22,6 +22,11 @@ public class CollectorResolvedEventMessage extends ApplicationMessage {
 	private String uomSymbol;
 	private Long oeeEventKey;
 
+	// for binary decoding
+	private CollectorResolvedEventMessage() {
+		super(MessageType.RESOLVED_EVENT);
+	}
+
 	public CollectorResolvedEventMessage(String senderHostName, String senderHostAddress) {
 		super(senderHostName, senderHostAddress, MessageType.RESOLVED_EVENT);
 	}
@@ -1,6 +1,7 @@
 package org.point85.domain.messaging;
 
 import java.lang.management.ManagementFactory;
+import java.util.Map;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
@@ -12,6 +13,17 @@ public class CollectorServerStatusMessage extends ApplicationMessage {
 	private double freeMemory = 0.0;
 	private double processCpuLoad = 0.0;
 
+	// collector metrics by sample name
+	private Map<String, Double> metrics;
+
+	// data source readiness by source name
+	private Map<String, String> sourceReadiness;
+
+	// for binary decoding
+	private CollectorServerStatusMessage() {
+		super(MessageType.STATUS);
+	}
+
 	public CollectorServerStatusMessage(String senderHostName, String senderHostAddress) throws Exception {
 		super(senderHostName, senderHostAddress, MessageType.STATUS);
 
@@ -45,4 +57,20 @@ public class CollectorServerStatusMessage extends ApplicationMessage {
 	public double getSystemLoadAvg() {
 		return processCpuLoad;
 	}
+
+	public Map<String, Double> getMetrics() {
+		return metrics;
+	}
+
+	public void setMetrics(Map<String, Double> metrics) {
+		this.metrics = metrics;
+	}
+
+	public Map<String, String> getSourceReadiness() {
+		return sourceReadiness;
+	}
+
+	public void setSourceReadiness(Map<String, String> sourceReadiness) {
+		this.sourceReadiness = sourceReadiness;
+	}
 }
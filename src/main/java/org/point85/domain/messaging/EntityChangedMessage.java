@@ -0,0 +1,82 @@
+package org.point85.domain.messaging;
+
+import org.point85.domain.i18n.DomainLocalizer;
+
+/**
+ * Message sent when a reference entity is saved or deleted so that collectors
+ * can evict it from their caches. Only the identity of the entity is sent.
+ *
+ */
+public class EntityChangedMessage extends ApplicationMessage {
+	// fully qualified class name of the entity
+	private String entityClass;
+
+	// primary key
+	private Long entityKey;
+
+	// name, if a named object
+	private String entityName;
+
+	// true if deleted, else saved
+	private boolean deleted = false;
+
+	// for binary decoding
+	private EntityChangedMessage() {
+		super(MessageType.ENTITY_CHANGED);
+	}
+
+	public EntityChangedMessage(String senderHostName, String senderHostAddress) {
+		super(senderHostName, senderHostAddress, MessageType.ENTITY_CHANGED);
+	}
+
+	public String getEntityClass() {
+		return entityClass;
+	}
+
+	public void setEntityClass(String entityClass) {
+		this.entityClass = entityClass;
+	}
+
+	public Long getEntityKey() {
+		return entityKey;
+	}
+
+	public void setEntityKey(Long entityKey) {
+		this.entityKey = entityKey;
+	}
+
+	public String getEntityName() {
+		return entityName;
+	}
+
+	public void setEntityName(String entityName) {
+		this.entityName = entityName;
+	}
+
+	public boolean isDeleted() {
+		return deleted;
+	}
+
+	public void setDeleted(boolean deleted) {
+		this.deleted = deleted;
+	}
+
+	@Override
+	public void validate() throws Exception {
+		super.validate();
+
+		if (entityClass == null) {
+			throw new Exception(DomainLocalizer.instance().getErrorString("null.entity"));
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(super.toString()).append('\n');
+		sb.append("Entity: ").append(entityClass).append(", Key: ").append(entityKey).append(", Name: ")
+				.append(entityName).append(", Deleted: ").append(deleted);
+
+		return sb.toString();
+	}
+}
@@ -0,0 +1,100 @@
+package org.point85.domain.messaging;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.point85.domain.i18n.DomainLocalizer;
+
+/**
+ * A batch of equipment events in one envelope. The events are resolved in
+ * list order and saved together.
+ *
+ */
+public class EquipmentEventBatchMessage extends ApplicationMessage {
+	private List<EventValue> events = new ArrayList<>();
+
+	public EquipmentEventBatchMessage() {
+		super(MessageType.EQUIPMENT_EVENT_BATCH);
+	}
+
+	public EquipmentEventBatchMessage(String senderHostName, String senderHostAddress) {
+		super(senderHostName, senderHostAddress, MessageType.EQUIPMENT_EVENT_BATCH);
+	}
+
+	public List<EventValue> getEvents() {
+		return events;
+	}
+
+	public void setEvents(List<EventValue> events) {
+		this.events = events;
+	}
+
+	public void addEvent(String sourceId, String value, String timestamp) {
+		events.add(new EventValue(sourceId, value, timestamp, null));
+	}
+
+	public void addEvent(String sourceId, String value, String timestamp, String reason) {
+		events.add(new EventValue(sourceId, value, timestamp, reason));
+	}
+
+	@Override
+	public void validate() throws Exception {
+		super.validate();
+
+		for (EventValue event : events) {
+			if (event.getSourceId() == null) {
+				throw new Exception(DomainLocalizer.instance().getErrorString("null.source"));
+			}
+
+			if (event.getValue() == null) {
+				throw new Exception(DomainLocalizer.instance().getErrorString("null.value"));
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(super.toString()).append('\n');
+		sb.append("Events: ").append(events.size());
+
+		return sb.toString();
+	}
+
+	/**
+	 * The source id, value, timestamp and optional reason of one event
+	 */
+	public static class EventValue {
+		private String sourceId;
+		private String value;
+		private String timestamp;
+		private String reason;
+
+		public EventValue() {
+			// for deserialization
+		}
+
+		public EventValue(String sourceId, String value, String timestamp, String reason) {
+			this.sourceId = sourceId;
+			this.value = value;
+			this.timestamp = timestamp;
+			this.reason = reason;
+		}
+
+		public String getSourceId() {
+			return sourceId;
+		}
+
+		public String getValue() {
+			return value;
+		}
+
+		public String getTimestamp() {
+			return timestamp;
+		}
+
+		public String getReason() {
+			return reason;
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package org.point85.domain.messaging;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.introspect.AnnotatedField;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Binary encoder and decoder for application messages. Field names are
+ * replaced by the numeric ids in {@link #FIELD_IDS}. An id is never reused or
+ * renumbered, so a field that is added later gets the next id, and a decoder
+ * ignores ids that it does not know.
+ *
+ */
+public final class MessageCodec {
+	// field name to wire id, append only
+	private static final Map<String, String> FIELD_IDS = new HashMap<>();
+
+	static {
+		// ApplicationMessage
+		FIELD_IDS.put("messageType", "1");
+		FIELD_IDS.put("senderHostName", "2");
+		FIELD_IDS.put("senderHostAddress", "3");
+		FIELD_IDS.put("timestamp", "4");
+		FIELD_IDS.put("senderId", "5");
+
+		// EquipmentEventMessage
+		FIELD_IDS.put("sourceId", "10");
+		FIELD_IDS.put("value", "11");
+		FIELD_IDS.put("reason", "12");
+
+		// CollectorResolvedEventMessage
+		FIELD_IDS.put("equipmentName", "20");
+		FIELD_IDS.put("resolverType", "21");
+		FIELD_IDS.put("reasonName", "22");
+		FIELD_IDS.put("reasonDescription", "23");
+		FIELD_IDS.put("loss", "24");
+		FIELD_IDS.put("job", "25");
+		FIELD_IDS.put("materialName", "26");
+		FIELD_IDS.put("materialDescription", "27");
+		FIELD_IDS.put("amount", "28");
+		FIELD_IDS.put("uomSymbol", "29");
+		FIELD_IDS.put("oeeEventKey", "30");
+
+		// CollectorServerStatusMessage
+		FIELD_IDS.put("usedMemory", "40");
+		FIELD_IDS.put("freeMemory", "41");
+		FIELD_IDS.put("processCpuLoad", "42");
+		FIELD_IDS.put("metrics", "43");
+		FIELD_IDS.put("sourceReadiness", "44");
+
+		// CollectorNotificationMessage
+		FIELD_IDS.put("severity", "50");
+		FIELD_IDS.put("text", "51");
+
+		// CollectorCommandMessage
+		FIELD_IDS.put("command", "60");
+
+		// EquipmentEventBatchMessage, with events that reuse the equipment event ids
+		FIELD_IDS.put("events", "70");
+
+		// EntityChangedMessage
+		FIELD_IDS.put("entityClass", "80");
+		FIELD_IDS.put("entityKey", "81");
+		FIELD_IDS.put("entityName", "82");
+		FIELD_IDS.put("deleted", "83");
+	}
+
+	private static final String MESSAGE_TYPE_ID = FIELD_IDS.get("messageType");
+
+	private static final ObjectMapper smileMapper = createMapper(new SmileFactory());
+	private static final ObjectMapper cborMapper = createMapper(new CBORFactory());
+
+	private MessageCodec() {
+		// hide public constructor
+	}
+
+	private static ObjectMapper createMapper(JsonFactory factory) {
+		ObjectMapper mapper = new ObjectMapper(factory);
+
+		// like Gson, use the fields and skip nulls
+		mapper.setVisibility(PropertyAccessor.ALL, Visibility.NONE);
+		mapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+		mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+		mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+		mapper.setPropertyNamingStrategy(new FieldIdStrategy());
+		return mapper;
+	}
+
+	private static ObjectMapper getMapper(WireFormat format) {
+		return format == WireFormat.SMILE ? smileMapper : cborMapper;
+	}
+
+	/**
+	 * Encode the message in a binary format
+	 * 
+	 * @param message {@link ApplicationMessage}
+	 * @param format  Binary {@link WireFormat}
+	 * @return Encoded payload
+	 * @throws Exception Exception
+	 */
+	public static byte[] encode(ApplicationMessage message, WireFormat format) throws Exception {
+		return getMapper(format).writeValueAsBytes(message);
+	}
+
+	/**
+	 * Decode a message of a known type
+	 * 
+	 * @param payload Encoded payload
+	 * @param format  Binary {@link WireFormat}
+	 * @param type    {@link MessageType}
+	 * @return {@link ApplicationMessage}
+	 * @throws Exception Exception
+	 */
+	public static ApplicationMessage decode(byte[] payload, WireFormat format, MessageType type) throws Exception {
+		Class<? extends ApplicationMessage> messageClass = getMessageClass(type);
+
+		return messageClass != null ? getMapper(format).readValue(payload, messageClass) : null;
+	}
+
+	/**
+	 * Decode a message whose type is only known from the payload
+	 * 
+	 * @param payload Encoded payload
+	 * @param format  Binary {@link WireFormat}
+	 * @return {@link ApplicationMessage}
+	 * @throws Exception Exception
+	 */
+	public static ApplicationMessage decode(byte[] payload, WireFormat format) throws Exception {
+		ObjectMapper mapper = getMapper(format);
+		JsonNode tree = mapper.readTree(payload);
+		JsonNode typeNode = tree.get(MESSAGE_TYPE_ID);
+
+		if (typeNode == null) {
+			return null;
+		}
+
+		Class<? extends ApplicationMessage> messageClass = getMessageClass(MessageType.valueOf(typeNode.asText()));
+
+		return messageClass != null ? mapper.treeToValue(tree, messageClass) : null;
+	}
+
+	private static Class<? extends ApplicationMessage> getMessageClass(MessageType type) {
+		if (type == null) {
+			return null;
+		}
+
+		Class<? extends ApplicationMessage> messageClass = null;
+
+		switch (type) {
+		case EQUIPMENT_EVENT:
+			messageClass = EquipmentEventMessage.class;
+			break;
+
+		case NOTIFICATION:
+			messageClass = CollectorNotificationMessage.class;
+			break;
+
+		case STATUS:
+			messageClass = CollectorServerStatusMessage.class;
+			break;
+
+		case RESOLVED_EVENT:
+			messageClass = CollectorResolvedEventMessage.class;
+			break;
+
+		case COMMAND:
+			messageClass = CollectorCommandMessage.class;
+			break;
+
+		case EQUIPMENT_EVENT_BATCH:
+			messageClass = EquipmentEventBatchMessage.class;
+			break;
+
+		case ENTITY_CHANGED:
+			messageClass = EntityChangedMessage.class;
+			break;
+
+		default:
+			break;
+		}
+		return messageClass;
+	}
+
+	// maps field names to their wire ids
+	private static class FieldIdStrategy extends PropertyNamingStrategy {
+		private static final long serialVersionUID = 8183543386417414473L;
+
+		@Override
+		public String nameForField(MapperConfig<?> config, AnnotatedField field, String defaultName) {
+			return FIELD_IDS.getOrDefault(defaultName, defaultName);
+		}
+	}
+}
@@ -3,7 +3,9 @@ package org.point85.domain.messaging;
 public enum MessageType {
 	EQUIPMENT_EVENT(MessagingConstants.EQUIP_EVENT_ATTRIB), NOTIFICATION(
 			MessagingConstants.NOTIFICATION_ATTRIB), STATUS(MessagingConstants.STATUS_ATTRIB), RESOLVED_EVENT(
-					MessagingConstants.RESOLVED_EVENT_ATTRIB), COMMAND(MessagingConstants.COMMAND_ATTRIB);
+					MessagingConstants.RESOLVED_EVENT_ATTRIB), COMMAND(MessagingConstants.COMMAND_ATTRIB),
+	EQUIPMENT_EVENT_BATCH(MessagingConstants.EQUIP_EVENT_BATCH_ATTRIB),
+	ENTITY_CHANGED(MessagingConstants.ENTITY_CHANGED_ATTRIB);
 
 	private String type;
 
@@ -34,6 +36,10 @@ public enum MessageType {
 			messageType = MessageType.RESOLVED_EVENT;
 		} else if (type.equals(MessagingConstants.COMMAND_ATTRIB)) {
 			messageType = MessageType.COMMAND;
+		} else if (type.equals(MessagingConstants.EQUIP_EVENT_BATCH_ATTRIB)) {
+			messageType = MessageType.EQUIPMENT_EVENT_BATCH;
+		} else if (type.equals(MessagingConstants.ENTITY_CHANGED_ATTRIB)) {
+			messageType = MessageType.ENTITY_CHANGED;
 		}
 
 		return messageType;
@@ -7,7 +7,9 @@ class MessagingConstants {
 
 	static final String RESOLVED_EVENT_ATTRIB = "RESOLVED_EVENT";
 	static final String EQUIP_EVENT_ATTRIB = "EQUIP_EVENT";
+	static final String EQUIP_EVENT_BATCH_ATTRIB = "EQUIP_EVENT_BATCH";
 	static final String NOTIFICATION_ATTRIB = "NOTIFICATION";
 	static final String STATUS_ATTRIB = "STATUS";
 	static final String COMMAND_ATTRIB = "COMMAND";
+	static final String ENTITY_CHANGED_ATTRIB = "ENTITY_CHANGED";
 }
@@ -0,0 +1,44 @@
+package org.point85.domain.messaging;
+
+/**
+ * Encodings of an {@link ApplicationMessage} on a transport. JSON is the
+ * default. SMILE and CBOR are compact binary encodings with numeric field ids.
+ *
+ */
+public enum WireFormat {
+	JSON("application/json"), SMILE("application/x-jackson-smile"), CBOR("application/cbor");
+
+	// name of the content type header or property on a transport
+	public static final String CONTENT_TYPE = "content-type";
+
+	private final String contentType;
+
+	private WireFormat(String contentType) {
+		this.contentType = contentType;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public boolean isBinary() {
+		return this != JSON;
+	}
+
+	/**
+	 * Find the format for a content type. Anything unrecognized is JSON.
+	 * 
+	 * @param contentType Content type
+	 * @return {@link WireFormat}
+	 */
+	public static WireFormat fromContentType(String contentType) {
+		if (contentType != null) {
+			for (WireFormat format : values()) {
+				if (format.contentType.equalsIgnoreCase(contentType)) {
+					return format;
+				}
+			}
+		}
+		return JSON;
+	}
+}
@@ -0,0 +1,44 @@
+package org.point85.domain.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count
+ *
+ */
+public final class Counter extends Metric {
+	private final LongAdder count = new LongAdder();
+
+	Counter(String name, String labels) {
+		super(name, labels);
+	}
+
+	public void increment() {
+		count.increment();
+	}
+
+	public void add(long amount) {
+		count.add(amount);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	@Override
+	String getType() {
+		return "counter";
+	}
+
+	@Override
+	void write(Appendable out) throws IOException {
+		writeSample(out, getName(), getLabels(), count.sum());
+	}
+
+	@Override
+	void snapshot(Map<String, Double> values) {
+		values.put(getName() + getLabels(), (double) count.sum());
+	}
+}
@@ -0,0 +1,136 @@
+package org.point85.domain.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of elapsed times in fixed buckets from 100 microseconds to 10
+ * seconds. Recording is lock-free and does not allocate. Durations are
+ * exported in seconds.
+ *
+ */
+public final class DurationHistogram extends Metric {
+	// bucket upper bounds (sec)
+	static final double[] BOUNDS = { 0.0001d, 0.0005d, 0.001d, 0.0025d, 0.005d, 0.01d, 0.025d, 0.05d, 0.1d, 0.25d,
+			0.5d, 1.0d, 2.5d, 5.0d, 10.0d };
+
+	private static final long[] BOUND_NANOS = new long[BOUNDS.length];
+
+	static {
+		for (int i = 0; i < BOUNDS.length; i++) {
+			BOUND_NANOS[i] = (long) (BOUNDS[i] * 1.0e9d);
+		}
+	}
+
+	private static final double NANOS_PER_SEC = TimeUnit.SECONDS.toNanos(1);
+
+	// per bucket counts, the last is for durations over the largest bound
+	private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sumNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+	DurationHistogram(String name, String labels) {
+		super(name, labels);
+
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Record the time since a start time
+	 *
+	 * @param startNanos Start from {@link System#nanoTime()}
+	 * @return Elapsed time (nsec)
+	 */
+	public long recordSince(long startNanos) {
+		long nanos = System.nanoTime() - startNanos;
+		record(nanos);
+		return nanos;
+	}
+
+	/**
+	 * Record an elapsed time
+	 *
+	 * @param nanos Elapsed time (nsec)
+	 */
+	public void record(long nanos) {
+		int i = 0;
+		while (i < BOUND_NANOS.length && nanos > BOUND_NANOS[i]) {
+			i++;
+		}
+		buckets[i].increment();
+		count.increment();
+		sumNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public double getSumSeconds() {
+		return sumNanos.sum() / NANOS_PER_SEC;
+	}
+
+	public double getMaxSeconds() {
+		return maxNanos.get() / NANOS_PER_SEC;
+	}
+
+	/**
+	 * Estimate a quantile as the upper bound of the bucket that contains it
+	 *
+	 * @param quantile Quantile between 0 and 1
+	 * @return Duration (sec)
+	 */
+	public double getQuantileSeconds(double quantile) {
+		long total = count.sum();
+
+		if (total == 0) {
+			return 0.0d;
+		}
+
+		long rank = (long) Math.ceil(quantile * total);
+		long cumulative = 0;
+
+		for (int i = 0; i < BOUNDS.length; i++) {
+			cumulative += buckets[i].sum();
+			if (cumulative >= rank) {
+				return BOUNDS[i];
+			}
+		}
+		return getMaxSeconds();
+	}
+
+	@Override
+	String getType() {
+		return "histogram";
+	}
+
+	@Override
+	void write(Appendable out) throws IOException {
+		// bucket label is added to any existing labels
+		String prefix = getLabels().isEmpty() ? "{" : getLabels().substring(0, getLabels().length() - 1) + ",";
+
+		long cumulative = 0;
+		for (int i = 0; i < BOUNDS.length; i++) {
+			cumulative += buckets[i].sum();
+			writeSample(out, getName() + "_bucket", prefix + "le=\"" + BOUNDS[i] + "\"}", cumulative);
+		}
+		writeSample(out, getName() + "_bucket", prefix + "le=\"+Inf\"}", count.sum());
+		writeSample(out, getName() + "_sum", getLabels(), getSumSeconds());
+		writeSample(out, getName() + "_count", getLabels(), count.sum());
+	}
+
+	@Override
+	void snapshot(Map<String, Double> values) {
+		values.put(getName() + "_count" + getLabels(), (double) count.sum());
+		values.put(getName() + "_sum" + getLabels(), getSumSeconds());
+		values.put(getName() + "_p99" + getLabels(), getQuantileSeconds(0.99d));
+		values.put(getName() + "_max" + getLabels(), getMaxSeconds());
+	}
+}
@@ -0,0 +1,37 @@
+package org.point85.domain.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A value sampled when the metrics are read, e.g. a queue depth
+ *
+ */
+public final class Gauge extends Metric {
+	private final DoubleSupplier supplier;
+
+	Gauge(String name, String labels, DoubleSupplier supplier) {
+		super(name, labels);
+		this.supplier = supplier;
+	}
+
+	public double getValue() {
+		return supplier.getAsDouble();
+	}
+
+	@Override
+	String getType() {
+		return "gauge";
+	}
+
+	@Override
+	void write(Appendable out) throws IOException {
+		writeSample(out, getName(), getLabels(), getValue());
+	}
+
+	@Override
+	void snapshot(Map<String, Double> values) {
+		values.put(getName() + getLabels(), getValue());
+	}
+}
@@ -0,0 +1,63 @@
+package org.point85.domain.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Base class for a named metric with optional labels
+ *
+ */
+abstract class Metric {
+	// family name
+	private final String name;
+
+	// Prometheus label set, e.g. {source="HTTP"}, or empty
+	private final String labels;
+
+	protected Metric(String name, String labels) {
+		this.name = name;
+		this.labels = labels;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	String getLabels() {
+		return labels;
+	}
+
+	/**
+	 * Prometheus metric type
+	 *
+	 * @return Type name
+	 */
+	abstract String getType();
+
+	/**
+	 * Write the samples in Prometheus text format
+	 *
+	 * @param out Appendable
+	 * @throws IOException IOException
+	 */
+	abstract void write(Appendable out) throws IOException;
+
+	/**
+	 * Add the current values by sample name
+	 *
+	 * @param values Map of sample name and value
+	 */
+	abstract void snapshot(Map<String, Double> values);
+
+	protected void writeSample(Appendable out, String sampleName, String sampleLabels, double value)
+			throws IOException {
+		out.append(sampleName).append(sampleLabels).append(' ').append(formatValue(value)).append('\n');
+	}
+
+	static String formatValue(double value) {
+		if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1.0e15d) {
+			return Long.toString((long) value);
+		}
+		return Double.toString(value);
+	}
+}
@@ -0,0 +1,211 @@
+package org.point85.domain.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+
+/**
+ * Counters, gauges and duration histograms for the collector, resolver and
+ * persistence stages. A metric is identified by its name and label values and
+ * is created on first use. Callers on a hot path should keep the returned
+ * metric rather than look it up for each event.
+ *
+ */
+public final class MetricsRegistry {
+	// Prometheus text exposition format
+	public static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private static final MetricsRegistry registry = new MetricsRegistry();
+
+	// metrics by name and labels
+	private final ConcurrentMap<String, Metric> metrics = new ConcurrentHashMap<>();
+
+	// help text by metric name
+	private final ConcurrentMap<String, String> helpTexts = new ConcurrentHashMap<>();
+
+	private MetricsRegistry() {
+	}
+
+	public static MetricsRegistry instance() {
+		return registry;
+	}
+
+	/**
+	 * Get or create a counter
+	 *
+	 * @param name        Metric name
+	 * @param help        Description
+	 * @param labelPairs  Label names and values, alternating
+	 * @return {@link Counter}
+	 */
+	public Counter counter(String name, String help, String... labelPairs) {
+		return getOrCreate(name, help, labelPairs, Counter.class, labels -> new Counter(name, labels));
+	}
+
+	/**
+	 * Get or create a duration histogram
+	 *
+	 * @param name       Metric name, by convention ending in _seconds
+	 * @param help       Description
+	 * @param labelPairs Label names and values, alternating
+	 * @return {@link DurationHistogram}
+	 */
+	public DurationHistogram histogram(String name, String help, String... labelPairs) {
+		return getOrCreate(name, help, labelPairs, DurationHistogram.class,
+				labels -> new DurationHistogram(name, labels));
+	}
+
+	/**
+	 * Register a gauge, replacing any previous gauge with the same name and
+	 * labels
+	 *
+	 * @param name       Metric name
+	 * @param help       Description
+	 * @param supplier   Supplies the current value
+	 * @param labelPairs Label names and values, alternating
+	 * @return {@link Gauge}
+	 */
+	public Gauge gauge(String name, String help, DoubleSupplier supplier, String... labelPairs) {
+		String labels = formatLabels(labelPairs);
+		Gauge gauge = new Gauge(name, labels, supplier);
+
+		Metric existing = metrics.put(name + labels, gauge);
+		if (existing != null && !(existing instanceof Gauge)) {
+			metrics.put(name + labels, existing);
+			throw new IllegalArgumentException(name + " is a " + existing.getType());
+		}
+		helpTexts.putIfAbsent(name, help);
+		return gauge;
+	}
+
+	private <T extends Metric> T getOrCreate(String name, String help, String[] labelPairs, Class<T> clazz,
+			Function<String, T> factory) {
+		String labels = formatLabels(labelPairs);
+		Metric metric = metrics.get(name + labels);
+
+		if (metric == null) {
+			metric = metrics.computeIfAbsent(name + labels, key -> factory.apply(labels));
+			helpTexts.putIfAbsent(name, help);
+		}
+
+		if (!clazz.isInstance(metric)) {
+			throw new IllegalArgumentException(name + " is a " + metric.getType());
+		}
+		return clazz.cast(metric);
+	}
+
+	/**
+	 * Write all metrics in Prometheus text format
+	 *
+	 * @param out Appendable
+	 * @throws IOException IOException
+	 */
+	public void writePrometheus(Appendable out) throws IOException {
+		for (Map.Entry<String, List<Metric>> family : getFamilies().entrySet()) {
+			String name = family.getKey();
+			List<Metric> members = family.getValue();
+
+			out.append("# HELP ").append(name).append(' ').append(escapeHelp(helpTexts.get(name))).append('\n');
+			out.append("# TYPE ").append(name).append(' ').append(members.get(0).getType()).append('\n');
+
+			for (Metric metric : members) {
+				metric.write(out);
+			}
+		}
+	}
+
+	/**
+	 * Get all metrics in Prometheus text format
+	 *
+	 * @return Exposition text
+	 */
+	public String toPrometheusText() {
+		StringBuilder sb = new StringBuilder();
+		try {
+			writePrometheus(sb);
+		} catch (IOException e) {
+			// not thrown by a StringBuilder
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Get the current values by sample name, e.g. for a status message.
+	 * Histograms contribute their count, sum, 99th percentile and maximum.
+	 *
+	 * @return Sorted map of sample name and value
+	 */
+	public Map<String, Double> snapshot() {
+		Map<String, Double> values = new TreeMap<>();
+		for (Metric metric : metrics.values()) {
+			metric.snapshot(values);
+		}
+		return values;
+	}
+
+	/**
+	 * Get the current values of the named metrics only, e.g. for a status message
+	 * of bounded size
+	 *
+	 * @param names Metric names
+	 * @return Sorted map of sample name and value
+	 */
+	public Map<String, Double> snapshot(Collection<String> names) {
+		Map<String, Double> values = new TreeMap<>();
+		for (Metric metric : metrics.values()) {
+			if (names.contains(metric.getName())) {
+				metric.snapshot(values);
+			}
+		}
+		return values;
+	}
+
+	private Map<String, List<Metric>> getFamilies() {
+		Map<String, List<Metric>> families = new TreeMap<>();
+
+		for (Metric metric : new TreeMap<>(metrics).values()) {
+			families.computeIfAbsent(metric.getName(), name -> new ArrayList<>()).add(metric);
+		}
+		return families;
+	}
+
+	static String formatLabels(String... labelPairs) {
+		if (labelPairs == null || labelPairs.length == 0) {
+			return "";
+		}
+
+		if (labelPairs.length % 2 != 0) {
+			throw new IllegalArgumentException("Labels must be name and value pairs");
+		}
+
+		StringBuilder sb = new StringBuilder("{");
+		for (int i = 0; i < labelPairs.length; i += 2) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append(labelPairs[i]).append("=\"").append(escapeLabel(labelPairs[i + 1])).append('"');
+		}
+		return sb.append('}').toString();
+	}
+
+	private static String escapeLabel(String value) {
+		if (value == null) {
+			return "";
+		}
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	private static String escapeHelp(String help) {
+		if (help == null) {
+			return "";
+		}
+		return help.replace("\\", "\\\\").replace("\n", "\\n");
+	}
+}
@@ -1,5 +1,6 @@
 package org.point85.domain.modbus;
 
+import java.nio.ByteBuffer;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -37,6 +38,9 @@ public class ModbusMaster extends PollingClient {
 	// connection flag
 	private boolean isConnected = false;
 
+	// register buffer reused by each polling thread
+	private final ThreadLocal<ByteBuffer> registerBuffer = new ThreadLocal<>();
+
 	public ModbusMaster(ModbusSource eventSource) {
 		setDataSource(eventSource);
 	}
@@ -606,251 +610,158 @@ public class ModbusMaster extends PollingClient {
 		nativeModbusMaster.writeMultipleRegisters(unitId, address, registers);
 	}
 
+	/**
+	 * Read holding or input registers into the polling thread's register buffer
+	 * 
+	 * @param type    {@link ModbusRegisterType}
+	 * @param unitId  Unit identifier
+	 * @param address Starting register address
+	 * @param count   Number of registers to read
+	 * @return Buffer of 2-byte words in wire order, or null if the register type
+	 *         does not hold words
+	 * @throws Exception Exception
+	 */
+	public ByteBuffer readRegisters(ModbusRegisterType type, int unitId, int address, int count) throws Exception {
+		InputRegister[] registers = null;
+
+		if (type.equals(ModbusRegisterType.HOLDING_REGISTER)) {
+			registers = nativeModbusMaster.readMultipleRegisters(unitId, address, count);
+		} else if (type.equals(ModbusRegisterType.INPUT_REGISTER)) {
+			registers = nativeModbusMaster.readInputRegisters(unitId, address, count);
+		} else {
+			return null;
+		}
+
+		ByteBuffer buffer = ModbusUtils.toByteBuffer(registers, registerBuffer.get());
+		registerBuffer.set(buffer);
+
+		if (logger.isTraceEnabled()) {
+			for (int i = 0; i < registers.length; i++) {
+				logger.trace(String.format("Read word[" + i + "]: %02X%02X", buffer.get(2 * i), buffer.get(2 * i + 1)));
+			}
+		}
+		return buffer;
+	}
+
 	private List<ModbusVariant> readValueRegisters(ModbusEndpoint slaveSource) throws Exception {
 		Integer unitId = slaveSource.getUnitId();
 		Integer valueCount = slaveSource.getValueCount();
 		Integer address = slaveSource.getRegisterAddress();
-		Boolean reverse = slaveSource.isReverseEndianess();
+		boolean reverse = slaveSource.isReverseEndianess();
 		ModbusRegisterType type = slaveSource.getRegisterType();
 		ModbusDataType dataType = slaveSource.getDataType();
 
 		List<ModbusVariant> values = new ArrayList<>(valueCount);
 
-		switch (dataType) {
-		case DOUBLE: {
-			// Double (8 bytes)
-			byte[][] data = null;
-
-			if (type.equals(ModbusRegisterType.HOLDING_REGISTER)) {
-				data = readHoldingRegisters(unitId, address, valueCount * 4);
-			} else if (type.equals(ModbusRegisterType.INPUT_REGISTER)) {
-				data = readInputRegisters(unitId, address, valueCount * 4);
-			}
-
-			int offset = 0;
-			for (int i = 0; i < valueCount; i++) {
-				Double value = ModbusUtils.toDouble(data[offset], data[offset + 1], data[offset + 2], data[offset + 3],
-						reverse);
-				offset = offset + 4;
+		if (dataType.equals(ModbusDataType.STRING)) {
+			// 1 byte per character, valueCount = number of characters
+			// one string only, no arrays
+			values = new ArrayList<>(1);
 
-				if (logger.isTraceEnabled()) {
-					logger.trace("Double value is: " + value);
-				}
+			int wordCount = valueCount / 2;
 
-				values.add(new ModbusVariant(dataType, value));
+			if (Math.floorMod(valueCount, 2) != 0) {
+				wordCount++;
 			}
-			break;
-		}
 
-		case BYTE_LOW:
-		case BYTE_HIGH: {
-			int index = reverse ? 0 : 1;
+			ByteBuffer data = readRegisters(type, unitId, address, wordCount);
 
-			if (dataType.equals(ModbusDataType.BYTE_HIGH)) {
-				index = reverse ? 1 : 0;
+			if (data == null) {
+				return values;
 			}
 
-			// Byte
-			byte[][] data = null;
+			String value = ModbusUtils.getUTF8String(data, valueCount, reverse);
 
-			if (type.equals(ModbusRegisterType.HOLDING_REGISTER)) {
-				data = readHoldingRegisters(unitId, address, valueCount);
-			} else if (type.equals(ModbusRegisterType.INPUT_REGISTER)) {
-				data = readInputRegisters(unitId, address, valueCount);
+			if (logger.isTraceEnabled()) {
+				logger.trace("String value is: " + value);
 			}
 
-			int offset = 0;
-			for (int i = 0; i < valueCount; i++) {
-				Byte value = Byte.valueOf(data[offset][index]);
-				offset++;
-
-				if (logger.isTraceEnabled()) {
-					logger.trace(String.format("Byte value is: %02X (%d)", value, value));
-				}
-
-				values.add(new ModbusVariant(dataType, value));
-			}
-			break;
+			values.add(new ModbusVariant(value));
+			return values;
 		}
 
-		case INT16: {
-			// Short
-			byte[][] data = null;
-
-			if (type.equals(ModbusRegisterType.HOLDING_REGISTER)) {
-				data = readHoldingRegisters(unitId, address, valueCount);
-			} else if (type.equals(ModbusRegisterType.INPUT_REGISTER)) {
-				data = readInputRegisters(unitId, address, valueCount);
-			}
-
-			int offset = 0;
-			for (int i = 0; i < valueCount; i++) {
-				Short value = ModbusUtils.toShort(data[offset], reverse);
-				offset++;
-
-				if (logger.isTraceEnabled()) {
-					logger.trace("Short value is: " + value);
-				}
+		// number of words per value
+		int wordCount = 0;
 
-				values.add(new ModbusVariant(dataType, value));
-			}
+		switch (dataType) {
+		case BYTE_HIGH:
+		case BYTE_LOW:
+		case INT16:
+		case UINT16:
+			wordCount = 1;
 			break;
-		}
-
-		case INT32: {
-			// Integer
-			byte[][] data = null;
-
-			if (type.equals(ModbusRegisterType.HOLDING_REGISTER)) {
-				data = readHoldingRegisters(unitId, address, valueCount * 2);
-			} else if (type.equals(ModbusRegisterType.INPUT_REGISTER)) {
-				data = readInputRegisters(unitId, address, valueCount * 2);
-			}
 
-			int offset = 0;
-			for (int i = 0; i < valueCount; i++) {
-				Integer value = ModbusUtils.toInteger(data[offset], data[offset + 1], reverse);
-				offset = offset + 2;
-
-				if (logger.isTraceEnabled()) {
-					logger.trace("Integer value is: " + value);
-				}
-
-				values.add(new ModbusVariant(dataType, value));
-			}
+		case INT32:
+		case UINT32:
+		case SINGLE:
+			wordCount = 2;
 			break;
-		}
-
-		case INT64: {
-			// Long
-			byte[][] data = null;
 
-			if (type.equals(ModbusRegisterType.HOLDING_REGISTER)) {
-				data = readHoldingRegisters(unitId, address, valueCount * 4);
-			} else if (type.equals(ModbusRegisterType.INPUT_REGISTER)) {
-				data = readInputRegisters(unitId, address, valueCount * 4);
-			}
-
-			int offset = 0;
-			for (int i = 0; i < valueCount; i++) {
-				Long value = ModbusUtils.toLong(data[offset], data[offset + 1], data[offset + 2], data[offset + 3],
-						reverse);
-				offset = offset + 4;
-
-				if (logger.isTraceEnabled()) {
-					logger.trace("Long value is: " + value);
-				}
-
-				values.add(new ModbusVariant(dataType, value));
-			}
+		case DOUBLE:
+		case INT64:
+			wordCount = 4;
 			break;
-		}
 
-		case SINGLE: {
-			// Float
-			byte[][] data = null;
-
-			if (type.equals(ModbusRegisterType.HOLDING_REGISTER)) {
-				data = readHoldingRegisters(unitId, address, valueCount * 2);
-			} else if (type.equals(ModbusRegisterType.INPUT_REGISTER)) {
-				data = readInputRegisters(unitId, address, valueCount * 2);
-			}
-
-			int offset = 0;
-			for (int i = 0; i < valueCount; i++) {
-				Float value = ModbusUtils.toFloat(data[offset], data[offset + 1], reverse);
-				offset = offset + 2;
+		default:
+			return values;
+		}
 
-				if (logger.isTraceEnabled()) {
-					logger.trace("Float value is: " + value);
-				}
+		// one read of all words into the register buffer
+		ByteBuffer data = readRegisters(type, unitId, address, valueCount * wordCount);
 
-				values.add(new ModbusVariant(dataType, value));
-			}
-			break;
+		if (data == null) {
+			return values;
 		}
 
-		case UINT16: {
-			// Integer
-			byte[][] data = null;
+		for (int i = 0; i < valueCount; i++) {
+			int offset = i * wordCount;
 
-			if (type.equals(ModbusRegisterType.HOLDING_REGISTER)) {
-				data = readHoldingRegisters(unitId, address, valueCount);
-			} else if (type.equals(ModbusRegisterType.INPUT_REGISTER)) {
-				data = readInputRegisters(unitId, address, valueCount);
-			}
+			ModbusVariant variant = null;
 
-			int offset = 0;
-			for (int i = 0; i < valueCount; i++) {
-				Integer value = ModbusUtils.toUnsignedShort(data[offset], reverse);
-				offset++;
+			switch (dataType) {
+			case BYTE_HIGH:
+			case BYTE_LOW:
+				variant = new ModbusVariant(dataType,
+						ModbusUtils.getByte(data, offset, dataType.equals(ModbusDataType.BYTE_HIGH), reverse));
+				break;
 
-				if (logger.isTraceEnabled()) {
-					logger.trace("Integer value is: " + value);
-				}
+			case INT16:
+				variant = new ModbusVariant(dataType, ModbusUtils.getShort(data, offset, reverse));
+				break;
 
-				values.add(new ModbusVariant(dataType, value));
-			}
-			break;
-		}
-
-		case UINT32: {
-			// Long
-			byte[][] data = null;
+			case UINT16:
+				variant = new ModbusVariant(dataType, ModbusUtils.getUnsignedShort(data, offset, reverse));
+				break;
 
-			if (type.equals(ModbusRegisterType.HOLDING_REGISTER)) {
-				data = readHoldingRegisters(unitId, address, valueCount * 2);
-			} else if (type.equals(ModbusRegisterType.INPUT_REGISTER)) {
-				data = readInputRegisters(unitId, address, valueCount * 2);
-			}
-			int offset = 0;
-			for (int i = 0; i < valueCount; i++) {
-				Long value = ModbusUtils.toUnsignedInteger(data[offset], data[offset + 1], reverse);
-				offset = offset + 2;
-
-				if (logger.isTraceEnabled()) {
-					logger.trace("Long value is: " + value);
-				}
+			case INT32:
+				variant = new ModbusVariant(dataType, ModbusUtils.getInteger(data, offset, reverse));
+				break;
 
-				values.add(new ModbusVariant(dataType, value));
-			}
-			break;
-		}
-
-		case STRING: {
-			// 1 byte per character, valueCount = number of characters
-			// one string only, no arrays
-			values = new ArrayList<>(1);
+			case UINT32:
+				variant = new ModbusVariant(dataType, ModbusUtils.getUnsignedInteger(data, offset, reverse));
+				break;
 
-			int wordCount = valueCount / 2;
+			case SINGLE:
+				variant = new ModbusVariant(dataType, ModbusUtils.getFloat(data, offset, reverse));
+				break;
 
-			if (Math.floorMod(valueCount, 2) != 0) {
-				wordCount++;
-			}
+			case DOUBLE:
+				variant = new ModbusVariant(dataType, ModbusUtils.getDouble(data, offset, reverse));
+				break;
 
-			byte[][] data = null;
+			case INT64:
+				variant = new ModbusVariant(dataType, ModbusUtils.getLong(data, offset, reverse));
+				break;
 
-			if (type.equals(ModbusRegisterType.HOLDING_REGISTER)) {
-				data = readHoldingRegisters(unitId, address, wordCount);
-			} else if (type.equals(ModbusRegisterType.INPUT_REGISTER)) {
-				data = readInputRegisters(unitId, address, wordCount);
-			} else {
-				return values;
+			default:
+				break;
 			}
 
-			String value = ModbusUtils.toUTF8String(data, valueCount, reverse);
-
 			if (logger.isTraceEnabled()) {
-				logger.trace("String value is: " + value);
+				logger.trace(dataType.name() + " value is: " + variant);
 			}
 
-			values.add(new ModbusVariant(value));
-
-			break;
-		}
-
-		default:
-			break;
+			values.add(variant);
 		}
 		return values;
 	}
@@ -1,7 +1,9 @@
 package org.point85.domain.modbus;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
+import com.ghgande.j2mod.modbus.procimg.InputRegister;
 import com.ghgande.j2mod.modbus.util.BitVector;
 
 /**
@@ -9,6 +11,10 @@ import com.ghgande.j2mod.modbus.util.BitVector;
  *
  */
 public class ModbusUtils {
+	// initial size of a register buffer in bytes (the Modbus maximum of 125
+	// registers per read)
+	private static final int INITIAL_BUFFER_SIZE = 250;
+
 	private ModbusUtils() {
 		throw new IllegalStateException("Utility class");
 	}
@@ -275,6 +281,181 @@ public class ModbusUtils {
 		return new String(stringBytes);
 	}
 
+	/**
+	 * Get the byte order for decoding multi-register values from a register
+	 * buffer
+	 * 
+	 * @param reverseEndianess If true, the words and their high and low order
+	 *                         bytes are reversed
+	 * @return {@link ByteOrder}
+	 */
+	public static ByteOrder toByteOrder(boolean reverseEndianess) {
+		return reverseEndianess ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+	}
+
+	/**
+	 * Copy the register values into the buffer as 2-byte words in wire order.
+	 * The buffer is re-allocated if it is too small to hold the registers.
+	 * 
+	 * @param registers Array of registers
+	 * @param buffer    Buffer to fill, can be null
+	 * @return Buffer with position 0 and limit set to the word count times 2
+	 */
+	public static ByteBuffer toByteBuffer(InputRegister[] registers, ByteBuffer buffer) {
+		int size = registers.length * 2;
+
+		ByteBuffer target = buffer;
+		if (target == null || target.capacity() < size) {
+			target = ByteBuffer.allocate(Math.max(size, INITIAL_BUFFER_SIZE));
+		}
+		target.clear();
+
+		for (InputRegister register : registers) {
+			int value = register.getValue();
+			target.put((byte) (value >> 8));
+			target.put((byte) value);
+		}
+		target.flip();
+		return target;
+	}
+
+	/**
+	 * Get the signed Short starting at the word offset in the register buffer
+	 * 
+	 * @param buffer           Register buffer
+	 * @param word             Word offset
+	 * @param reverseEndianess If true, swap the high and low order bytes in the
+	 *                         word
+	 * @return Short integer
+	 */
+	public static Short getShort(ByteBuffer buffer, int word, boolean reverseEndianess) {
+		return Short.valueOf(buffer.order(toByteOrder(reverseEndianess)).getShort(word * 2));
+	}
+
+	/**
+	 * Get the unsigned short starting at the word offset in the register buffer
+	 * 
+	 * @param buffer           Register buffer
+	 * @param word             Word offset
+	 * @param reverseEndianess If true, swap the high and low order bytes in the
+	 *                         word
+	 * @return Integer integer
+	 */
+	public static Integer getUnsignedShort(ByteBuffer buffer, int word, boolean reverseEndianess) {
+		return Integer.valueOf(Short.toUnsignedInt(buffer.order(toByteOrder(reverseEndianess)).getShort(word * 2)));
+	}
+
+	/**
+	 * Get the signed Integer from the 2 words starting at the word offset in the
+	 * register buffer
+	 * 
+	 * @param buffer           Register buffer
+	 * @param word             Word offset
+	 * @param reverseEndianess If true, reverse the words and their high and low
+	 *                         order bytes
+	 * @return Integer integer
+	 */
+	public static Integer getInteger(ByteBuffer buffer, int word, boolean reverseEndianess) {
+		return Integer.valueOf(buffer.order(toByteOrder(reverseEndianess)).getInt(word * 2));
+	}
+
+	/**
+	 * Get the unsigned integer from the 2 words starting at the word offset in
+	 * the register buffer
+	 * 
+	 * @param buffer           Register buffer
+	 * @param word             Word offset
+	 * @param reverseEndianess If true, reverse the words and their high and low
+	 *                         order bytes
+	 * @return Long integer
+	 */
+	public static Long getUnsignedInteger(ByteBuffer buffer, int word, boolean reverseEndianess) {
+		return Long.valueOf(Integer.toUnsignedLong(buffer.order(toByteOrder(reverseEndianess)).getInt(word * 2)));
+	}
+
+	/**
+	 * Get the signed Long from the 4 words starting at the word offset in the
+	 * register buffer
+	 * 
+	 * @param buffer           Register buffer
+	 * @param word             Word offset
+	 * @param reverseEndianess If true, reverse the words and their high and low
+	 *                         order bytes
+	 * @return Long integer
+	 */
+	public static Long getLong(ByteBuffer buffer, int word, boolean reverseEndianess) {
+		return Long.valueOf(buffer.order(toByteOrder(reverseEndianess)).getLong(word * 2));
+	}
+
+	/**
+	 * Get the single precision floating point number from the 2 words starting
+	 * at the word offset in the register buffer
+	 * 
+	 * @param buffer           Register buffer
+	 * @param word             Word offset
+	 * @param reverseEndianess If true, reverse the words and their high and low
+	 *                         order bytes
+	 * @return Float
+	 */
+	public static Float getFloat(ByteBuffer buffer, int word, boolean reverseEndianess) {
+		return Float.valueOf(buffer.order(toByteOrder(reverseEndianess)).getFloat(word * 2));
+	}
+
+	/**
+	 * Get the double precision floating point number from the 4 words starting
+	 * at the word offset in the register buffer
+	 * 
+	 * @param buffer           Register buffer
+	 * @param word             Word offset
+	 * @param reverseEndianess If true, reverse the words and their high and low
+	 *                         order bytes
+	 * @return Double
+	 */
+	public static Double getDouble(ByteBuffer buffer, int word, boolean reverseEndianess) {
+		return Double.valueOf(buffer.order(toByteOrder(reverseEndianess)).getDouble(word * 2));
+	}
+
+	/**
+	 * Get the high or low order byte of the word at the word offset in the
+	 * register buffer
+	 * 
+	 * @param buffer           Register buffer
+	 * @param word             Word offset
+	 * @param high             If true, get the high order byte
+	 * @param reverseEndianess If true, swap the high and low order bytes in the
+	 *                         word
+	 * @return Byte
+	 */
+	public static Byte getByte(ByteBuffer buffer, int word, boolean high, boolean reverseEndianess) {
+		int index = (high ^ reverseEndianess) ? 0 : 1;
+		return Byte.valueOf(buffer.get(word * 2 + index));
+	}
+
+	/**
+	 * Convert the two-byte words in the register buffer into a UTF8 string
+	 * 
+	 * @param buffer           Register buffer
+	 * @param charCount        Number of characters in the string
+	 * @param reverseEndianess If true, swap the high and low order bytes in the
+	 *                         word
+	 * @return String
+	 */
+	public static String getUTF8String(ByteBuffer buffer, int charCount, boolean reverseEndianess) {
+		int wordCount = (charCount + 1) / 2;
+
+		byte[] stringBytes = new byte[charCount + 1];
+
+		int j = 0;
+		for (int i = 0; i < wordCount; i++) {
+			byte high = buffer.get(2 * i);
+			byte low = buffer.get(2 * i + 1);
+
+			stringBytes[j++] = reverseEndianess ? low : high;
+			stringBytes[j++] = reverseEndianess ? high : low;
+		}
+		return new String(stringBytes);
+	}
+
 	/**
 	 * Convert a short to a byte array
 	 * 
@@ -3,8 +3,17 @@ package org.point85.domain.mqtt;
 import java.io.File;
 import java.io.FileInputStream;
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyStore;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.KeyManagerFactory;
@@ -12,9 +21,11 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
 
-import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
-import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 import org.point85.domain.DomainUtils;
 import org.point85.domain.i18n.DomainLocalizer;
@@ -23,6 +34,9 @@ import org.point85.domain.messaging.BaseMessagingClient;
 import org.point85.domain.messaging.CollectorNotificationMessage;
 import org.point85.domain.messaging.MessageType;
 import org.point85.domain.messaging.NotificationSeverity;
+import org.point85.domain.metrics.Counter;
+import org.point85.domain.metrics.DurationHistogram;
+import org.point85.domain.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,12 +57,45 @@ public class MqttOeeClient extends BaseMessagingClient {
 	private static final String TCP_PROTOCOL = "tcp://";
 	private static final String SSL_PROTOCOL = "ssl://";
 
-	// polling loop for replies
-	private static final int NUM_TRIES = 20;
-	private static final int RETRY_WAIT = 500;
+	// default maximum number of unacknowledged publishes
+	public static final int DEFAULT_MAX_INFLIGHT = 100;
+
+	// wait for connect, subscribe and disconnect (msec)
+	private static final long ACTION_TIMEOUT = 10000;
+
+	// separates a topic from the correlation id of a request or reply
+	private static final String CORRELATION_SEPARATOR = "/";
+
+	// delivery metrics of all clients
+	private static final Counter publishedCounter = MetricsRegistry.instance().counter("oee_mqtt_published_total",
+			"MQTT messages delivered to the broker");
+
+	private static final Counter failedCounter = MetricsRegistry.instance().counter("oee_mqtt_publish_failures_total",
+			"MQTT messages that could not be published");
+
+	private static final DurationHistogram deliveryTimer = MetricsRegistry.instance()
+			.histogram("oee_mqtt_delivery_seconds", "Time from publishing an MQTT message to its delivery");
 
 	// native client
-	private MqttClient mqttClient;
+	private MqttAsyncClient mqttClient;
+
+	// maximum number of unacknowledged publishes
+	private int maxInflight = DEFAULT_MAX_INFLIGHT;
+
+	// permits for publishes awaiting delivery
+	private Semaphore inflight = new Semaphore(DEFAULT_MAX_INFLIGHT);
+
+	// delivery metrics
+	private final AtomicLong publishedCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+	private final AtomicLong deliveryNanos = new AtomicLong();
+
+	// replies pending for publishForReply, by correlation id
+	private final Map<Long, CompletableFuture<String>> pendingReplies = new ConcurrentHashMap<>();
+	private final AtomicLong correlationIds = new AtomicLong();
+
+	// replies pending for publishAndWait in the order the requests were published
+	private final Deque<OrderedReply> orderedReplies = new ArrayDeque<>();
 
 	// listener to call back when a message is received
 	private MqttMessageListener eventListener;
@@ -56,16 +103,27 @@ public class MqttOeeClient extends BaseMessagingClient {
 	// connection options
 	private MqttConnectOptions connectionOptions = new MqttConnectOptions();
 
-	// flag for response from publishing a message is available
-	private AtomicBoolean dataAvailable = new AtomicBoolean(false);
-
-	// the text of the message response
-	private String messageResponse;
-
 	public MqttOeeClient() {
 		connectionOptions.setAutomaticReconnect(true);
 		connectionOptions.setCleanSession(CLEAN_SESSION);
 		connectionOptions.setConnectionTimeout(10);
+		connectionOptions.setMaxInflight(maxInflight);
+	}
+
+	/**
+	 * Set the maximum number of publishes awaiting delivery. Publishing blocks
+	 * when the window is full. Must be called before connecting.
+	 * 
+	 * @param maxInflight Window size
+	 */
+	public void setMaxInflight(int maxInflight) {
+		this.maxInflight = maxInflight;
+		this.inflight = new Semaphore(maxInflight);
+		connectionOptions.setMaxInflight(maxInflight);
+	}
+
+	public int getMaxInflight() {
+		return maxInflight;
 	}
 
 	/**
@@ -124,10 +182,10 @@ public class MqttOeeClient extends BaseMessagingClient {
 		}
 
 		// create client
-		mqttClient = new MqttClient(url, MqttClient.generateClientId(), new MemoryPersistence());
+		mqttClient = new MqttAsyncClient(url, MqttAsyncClient.generateClientId(), new MemoryPersistence());
 
 		// connect to server
-		mqttClient.connect(connectionOptions);
+		mqttClient.connect(connectionOptions).waitForCompletion(ACTION_TIMEOUT);
 
 		setHostName(hostName);
 		setHostPort(port);
@@ -144,16 +202,17 @@ public class MqttOeeClient extends BaseMessagingClient {
 	 * @throws Exception Exception
 	 */
 	public void subscribeToEvents(QualityOfService qos) throws Exception {
-		mqttClient.subscribe(EVENT_TOPIC, (topic, msg) -> {
+		mqttClient.subscribe(EVENT_TOPIC, qos.getQos(), (topic, msg) -> {
 			String json = new String(msg.getPayload());
 
-			if (logger.isInfoEnabled()) {
-				logger.info("MQTT event message received, topic: " + topic + ", JSON:\n\t" + json);
-			}
+			logger.trace("MQTT event message received, topic: {}, JSON:\n\t{}", topic, json);
 
 			ApplicationMessage appMessage = null;
 
-			if (json.contains(MessageType.EQUIPMENT_EVENT.name())) {
+			if (json.contains(MessageType.EQUIPMENT_EVENT_BATCH.name())) {
+				// batch of equipment events, checked first since its name contains EQUIPMENT_EVENT
+				appMessage = deserialize(MessageType.EQUIPMENT_EVENT_BATCH, json);
+			} else if (json.contains(MessageType.EQUIPMENT_EVENT.name())) {
 				// equipment event
 				appMessage = deserialize(MessageType.EQUIPMENT_EVENT, json);
 			} else if (json.contains(MessageType.COMMAND.name())) {
@@ -166,7 +225,7 @@ public class MqttOeeClient extends BaseMessagingClient {
 			if (eventListener != null) {
 				eventListener.onMqttMessage(appMessage);
 			}
-		});
+		}).waitForCompletion(ACTION_TIMEOUT);
 
 		if (logger.isInfoEnabled()) {
 			logger.info("Subscribed to topic " + EVENT_TOPIC + " at QoS " + qos);
@@ -180,12 +239,10 @@ public class MqttOeeClient extends BaseMessagingClient {
 	 * @throws Exception Exception
 	 */
 	public void subscribeToNotifications(QualityOfService qos) throws Exception {
-		mqttClient.subscribe(STATUS_TOPIC, (topic, msg) -> {
+		mqttClient.subscribe(STATUS_TOPIC, qos.getQos(), (topic, msg) -> {
 			String json = new String(msg.getPayload());
 
-			if (logger.isInfoEnabled()) {
-				logger.info("MQTT notification message received, topic: " + topic + ", JSON:\n\t" + json);
-			}
+			logger.trace("MQTT notification message received, topic: {}, JSON:\n\t{}", topic, json);
 
 			ApplicationMessage appMessage = null;
 
@@ -205,7 +262,7 @@ public class MqttOeeClient extends BaseMessagingClient {
 			if (eventListener != null) {
 				eventListener.onMqttMessage(appMessage);
 			}
-		});
+		}).waitForCompletion(ACTION_TIMEOUT);
 
 		if (logger.isInfoEnabled()) {
 			logger.info("Subscribed to topic " + STATUS_TOPIC + " at QoS " + qos);
@@ -222,26 +279,110 @@ public class MqttOeeClient extends BaseMessagingClient {
 	 * @throws Exception Exception
 	 */
 	public void publish(String topic, ApplicationMessage message, QualityOfService qos) throws Exception {
-		String text = serialize(message);
-		publishMessage(topic, text, qos);
+		publishMessage(topic, encode(message), qos);
 	}
 
 	private void publishMessage(String topic, String text, QualityOfService qos) throws Exception {
-		MqttMessage mqttMessage = new MqttMessage();
-		mqttMessage.setQos(qos.getQos());
-		mqttMessage.setRetained(false);
+		publishMessage(topic, text.getBytes(StandardCharsets.UTF_8), qos);
+	}
 
-		mqttMessage.setPayload(text.getBytes());
-		mqttClient.publish(topic, mqttMessage);
+	private void publishMessage(String topic, byte[] payload, QualityOfService qos) throws Exception {
+		// wait for room in the in-flight window
+		inflight.acquire();
+
+		long start = System.nanoTime();
+
+		try {
+			mqttClient.publish(topic, payload, qos.getQos(), false, null, new IMqttActionListener() {
+				@Override
+				public void onSuccess(IMqttToken token) {
+					deliveryNanos.addAndGet(deliveryTimer.recordSince(start));
+					publishedCount.incrementAndGet();
+					publishedCounter.increment();
+
+					// last, so that a flush sees the counts
+					inflight.release();
+				}
+
+				@Override
+				public void onFailure(IMqttToken token, Throwable exception) {
+					failedCount.incrementAndGet();
+					failedCounter.increment();
+					inflight.release();
+					logger.error("Unable to publish message to topic " + topic, exception);
+				}
+			});
+		} catch (Exception e) {
+			inflight.release();
+			failedCount.incrementAndGet();
+			failedCounter.increment();
+			throw e;
+		}
 
-		if (logger.isInfoEnabled()) {
-			logger.info("Message published to topic " + topic + ".  QoS: " + qos + "\n\t" + text);
+		logger.trace("Message of {} bytes published to topic {}.  QoS: {}", payload.length, topic, qos);
+	}
+
+	/**
+	 * Wait for the publishes in flight to be delivered
+	 * 
+	 * @param timeoutMsec Maximum time to wait
+	 * @return True if nothing is left in flight
+	 * @throws InterruptedException InterruptedException
+	 */
+	public boolean flush(long timeoutMsec) throws InterruptedException {
+		Semaphore window = inflight;
+
+		if (!window.tryAcquire(maxInflight, timeoutMsec, TimeUnit.MILLISECONDS)) {
+			return false;
 		}
+		window.release(maxInflight);
+		return true;
+	}
+
+	/**
+	 * Get the number of publishes awaiting delivery
+	 * 
+	 * @return In-flight count
+	 */
+	public int getInflightCount() {
+		return maxInflight - inflight.availablePermits();
+	}
+
+	/**
+	 * Get the number of publishes delivered
+	 * 
+	 * @return Published count
+	 */
+	public long getPublishedCount() {
+		return publishedCount.get();
+	}
+
+	/**
+	 * Get the number of publishes that failed
+	 * 
+	 * @return Failed count
+	 */
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+
+	/**
+	 * Get the average time from publishing to delivery
+	 * 
+	 * @return Average delivery time in milliseconds
+	 */
+	public double getAverageDeliveryMsec() {
+		long count = publishedCount.get();
+		return count > 0 ? deliveryNanos.get() / (count * 1000000d) : 0d;
 	}
 
 	/**
-	 * Publish a text message, then wait for a response message. A prior call to
-	 * subscribeToTopic() is required.
+	 * Publish a text message, then wait for a response message on the topic of
+	 * a prior call to subscribeToTopic(). The responder is not told which
+	 * request it answers, so responses are matched to the requests in the order
+	 * they were published. A request that times out keeps its place for another
+	 * maxWait seconds so that a late response to it is discarded rather than
+	 * taken as the response to the next request.
 	 * 
 	 * @param topic   Topic to publish to
 	 * @param text    Payload of message
@@ -251,57 +392,160 @@ public class MqttOeeClient extends BaseMessagingClient {
 	 * @throws Exception Exception
 	 */
 	public String publishAndWait(String topic, String text, QualityOfService qos, int maxWait) throws Exception {
-		dataAvailable.set(false);
-		messageResponse = null;
-
-		// send the message
-		publishMessage(topic, text, qos);
+		OrderedReply reply = new OrderedReply();
 
-		// wait for response
-		long start = System.currentTimeMillis();
-
-		for (int i = 0; i < NUM_TRIES; i++) {
-			Thread.sleep(RETRY_WAIT);
-			long delta = (System.currentTimeMillis() - start) / 1000;
+		synchronized (orderedReplies) {
+			orderedReplies.add(reply);
+		}
 
-			if (dataAvailable.get() || delta >= maxWait) {
-				// response has been received or timed out
-				break;
+		try {
+			publishMessage(topic, text, qos);
+		} catch (Exception e) {
+			synchronized (orderedReplies) {
+				orderedReplies.remove(reply);
 			}
+			throw e;
 		}
 
-		if (messageResponse == null || messageResponse.isEmpty()) {
+		try {
+			return reply.future.get(maxWait, TimeUnit.SECONDS);
+		} catch (TimeoutException e) {
+			synchronized (orderedReplies) {
+				reply.expireAfter(TimeUnit.SECONDS.toNanos(maxWait));
+			}
 			logger.warn("No response to publishing the message was received within " + maxWait + " seconds.");
+			return null;
+		}
+	}
+
+	/**
+	 * Publish a text message and return a future for its response that times out
+	 * after {@link #ACTION_TIMEOUT} msec. See
+	 * {@link #publishForReply(String, String, QualityOfService, int)}.
+	 * 
+	 * @param topic Topic to publish to
+	 * @param text  Payload of message
+	 * @param qos   {@link QualityOfService}
+	 * @return Future for the payload of the response
+	 * @throws Exception Exception
+	 */
+	public CompletableFuture<String> publishForReply(String topic, String text, QualityOfService qos)
+			throws Exception {
+		return publishForReply(topic, text, qos, (int) TimeUnit.MILLISECONDS.toSeconds(ACTION_TIMEOUT));
+	}
+
+	/**
+	 * Publish a text message and return a future for its response. The request
+	 * is published to the topic followed by "/" and a correlation id. The
+	 * responder replies to the topic of a prior call to subscribeToTopic()
+	 * followed by "/" and the same id, e.g. request Point85_Request/42 and reply
+	 * Point85_Reply/42. If no response arrives within maxWait seconds, the
+	 * future completes with a TimeoutException and the request is forgotten.
+	 * Replies to unknown or abandoned requests are discarded.
+	 * 
+	 * @param topic   Topic to publish to
+	 * @param text    Payload of message
+	 * @param qos     {@link QualityOfService}
+	 * @param maxWait Maximum time to wait in seconds
+	 * @return Future for the payload of the response
+	 * @throws Exception Exception
+	 */
+	public CompletableFuture<String> publishForReply(String topic, String text, QualityOfService qos, int maxWait)
+			throws Exception {
+		Long correlationId = correlationIds.incrementAndGet();
+		CompletableFuture<String> reply = new CompletableFuture<>();
+		pendingReplies.put(correlationId, reply);
+
+		// forget the request once answered, cancelled or timed out
+		reply.orTimeout(maxWait, TimeUnit.SECONDS).whenComplete((response, e) -> pendingReplies.remove(correlationId));
+
+		try {
+			publishMessage(topic + CORRELATION_SEPARATOR + correlationId, text, qos);
+		} catch (Exception e) {
+			pendingReplies.remove(correlationId);
+			throw e;
 		}
-		return messageResponse;
+		return reply;
+	}
+
+	/**
+	 * Get the number of publishForReply() requests waiting for a response
+	 * 
+	 * @return Request count
+	 */
+	public int getPendingReplyCount() {
+		return pendingReplies.size();
 	}
 
 	/**
-	 * Subscribe to this topic
+	 * Subscribe to this topic for the responses to publishAndWait() and to its
+	 * subtopics for the correlated responses to publishForReply()
 	 * 
 	 * @param topic Topic to subscribe to
 	 * @throws Exception Exception
 	 */
 	public void subscribeToTopic(String topic) throws Exception {
-		mqttClient.subscribe(topic, (theTopic, msg) -> {
-			messageResponse = new String(msg.getPayload());
+		String[] topics = { topic, topic + CORRELATION_SEPARATOR + "+" };
+		int qos = QualityOfService.AT_LEAST_ONCE.getQos();
 
-			if (messageResponse != null && !messageResponse.isEmpty()) {
-				dataAvailable.set(true);
-			} else {
-				dataAvailable.set(false);
+		IMqttMessageListener listener = (theTopic, msg) -> {
+			String response = new String(msg.getPayload(), StandardCharsets.UTF_8);
+
+			logger.trace("MQTT message received, topic: {}, payload:\n\t{}", theTopic, response);
+
+			if (response.isEmpty()) {
+				return;
 			}
 
-			if (logger.isInfoEnabled()) {
-				logger.info("MQTT message received, topic: " + theTopic + ", payload:\n\t" + messageResponse);
+			if (theTopic.length() > topic.length()) {
+				completeCorrelatedReply(theTopic.substring(topic.length() + 1), response);
+			} else {
+				completeOrderedReply(response);
 			}
-		});
+		};
+
+		mqttClient.subscribe(topics, new int[] { qos, qos }, null, null,
+				new IMqttMessageListener[] { listener, listener }).waitForCompletion(ACTION_TIMEOUT);
 
 		if (logger.isInfoEnabled()) {
 			logger.info("Subscribed to topic " + topic);
 		}
 	}
 
+	private void completeCorrelatedReply(String correlationId, String response) {
+		CompletableFuture<String> reply = null;
+
+		try {
+			reply = pendingReplies.remove(Long.valueOf(correlationId));
+		} catch (NumberFormatException e) {
+			// not a reply to this client
+		}
+
+		if (reply == null || !reply.complete(response)) {
+			logger.debug("Discarding reply for unknown request {}", correlationId);
+		}
+	}
+
+	private void completeOrderedReply(String response) {
+		OrderedReply reply;
+
+		synchronized (orderedReplies) {
+			long now = System.nanoTime();
+
+			// forget requests that timed out long enough ago
+			while (!orderedReplies.isEmpty() && orderedReplies.peek().isExpired(now)) {
+				orderedReplies.poll();
+			}
+			reply = orderedReplies.poll();
+		}
+
+		if (reply == null) {
+			logger.debug("Discarding reply with no request waiting");
+		} else if (!reply.future.complete(response)) {
+			logger.debug("Discarding late reply to a request that timed out");
+		}
+	}
+
 	/**
 	 * Disconnect from the MQTT server
 	 * 
@@ -309,11 +553,29 @@ public class MqttOeeClient extends BaseMessagingClient {
 	 */
 	public void disconnect() throws Exception {
 		if (eventListener != null) {
-			mqttClient.unsubscribe(EVENT_TOPIC);
+			mqttClient.unsubscribe(EVENT_TOPIC).waitForCompletion(ACTION_TIMEOUT);
+		}
+
+		// let in-flight publishes complete
+		if (!flush(ACTION_TIMEOUT)) {
+			logger.warn("MQTT client disconnecting with " + getInflightCount() + " message(s) in flight");
 		}
-		mqttClient.disconnect();
+
+		mqttClient.disconnect().waitForCompletion(ACTION_TIMEOUT);
 		mqttClient.close(true);
 
+		for (CompletableFuture<String> reply : pendingReplies.values()) {
+			reply.cancel(false);
+		}
+		pendingReplies.clear();
+
+		synchronized (orderedReplies) {
+			for (OrderedReply reply : orderedReplies) {
+				reply.future.cancel(false);
+			}
+			orderedReplies.clear();
+		}
+
 		if (logger.isInfoEnabled()) {
 			logger.info("Shut down MQTT client");
 		}
@@ -420,4 +682,21 @@ public class MqttOeeClient extends BaseMessagingClient {
 			connectionOptions.setPassword(password.toCharArray());
 		}
 	}
+
+	// a publishAndWait request in publishing order
+	private static final class OrderedReply {
+		private final CompletableFuture<String> future = new CompletableFuture<>();
+
+		// when a timed out request stops taking late replies, 0 while waiting
+		private long expiresAt = 0;
+
+		private void expireAfter(long nanos) {
+			future.cancel(false);
+			expiresAt = System.nanoTime() + nanos;
+		}
+
+		private boolean isExpired(long now) {
+			return expiresAt != 0 && now - expiresAt > 0;
+		}
+	}
 }
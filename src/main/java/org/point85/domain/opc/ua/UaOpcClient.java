@@ -183,7 +183,8 @@ public class UaOpcClient implements SessionActivityListener {
 		}
 
 		// get the server's endpoints
-		List<EndpointDescription> endpointDescriptions = DiscoveryClient.getEndpoints(endpointUrl).get();
+		List<EndpointDescription> endpointDescriptions = DiscoveryClient.getEndpoints(endpointUrl).get(REQUEST_TIMEOUT,
+				REQUEST_TIMEOUT_UNIT);
 
 		// security settings
 		String policyUri = source.getSecurityPolicy().getUri();
@@ -0,0 +1,19 @@
+package org.point85.domain.persistence;
+
+import org.point85.domain.plant.KeyedObject;
+
+/**
+ * Listener for entities saved to or deleted from the database by the
+ * {@link PersistenceService}
+ *
+ */
+@FunctionalInterface
+public interface EntityChangeListener {
+	/**
+	 * Called after the transaction that changed the entity commits
+	 *
+	 * @param entity  {@link KeyedObject} that was saved or deleted
+	 * @param deleted True if deleted, else saved
+	 */
+	void onEntityChange(KeyedObject entity, boolean deleted);
+}
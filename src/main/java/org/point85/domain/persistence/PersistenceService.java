@@ -1,27 +1,40 @@
 package org.point85.domain.persistence;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
+import javax.persistence.LockModeType;
 import javax.persistence.NoResultException;
 import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import javax.persistence.spi.PersistenceUnitInfo;
 
+import org.hibernate.Hibernate;
+import org.hibernate.LockOptions;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.jpa.HibernatePersistenceProvider;
+import org.hibernate.jpa.QueryHints;
 import org.point85.domain.collector.CollectorDataSource;
 import org.point85.domain.collector.CollectorState;
 import org.point85.domain.collector.DataCollector;
@@ -93,6 +106,23 @@ public final class PersistenceService {
 	// time in sec to wait for EntityManagerFactory creation to complete
 	private static final int EMF_CREATION_TO_SEC = 30;
 
+	// names bound to one IN list, below Oracle's 1000 items and SQL Server's 2100
+	// parameters
+	private static final int IN_LIST_SIZE = 500;
+
+	// system property for the time after which an unfinished claim of an
+	// interface table event lapses and the event is READY again (sec)
+	public static final String CLAIM_LEASE_PROPERTY = "point85.db.claim.lease.sec";
+
+	private static final int DEFAULT_CLAIM_LEASE_SEC = 600;
+
+	// a claimed event's error column holds the claim time until it is resolved
+	private static final String CLAIM_MARKER = "Claimed at ";
+
+	// fixed width so that claim times compare as strings
+	private static final DateTimeFormatter CLAIM_TIME_FORMAT = DateTimeFormatter
+			.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'").withZone(ZoneOffset.UTC);
+
 	// entity manager factory
 	private EntityManagerFactory emf;
 
@@ -114,6 +144,12 @@ public final class PersistenceService {
 	private static final Duration PURGE_WAIT = Duration.ofHours(1);
 	private OffsetDateTime lastPurgeEvent = null;
 
+	// listeners for saved and deleted entities
+	private final List<EntityChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+	// second-level cache for reference entities
+	private boolean referenceCacheEnabled = ReferenceCache.isEnabledByDefault();
+
 	private PersistenceService() {
 		namedQueryMap = new ConcurrentHashMap<>();
 	}
@@ -129,6 +165,82 @@ public final class PersistenceService {
 		return new PersistenceService();
 	}
 
+	/**
+	 * Add a listener for entities saved or deleted through this service
+	 * 
+	 * @param listener {@link EntityChangeListener}
+	 */
+	public void addEntityChangeListener(EntityChangeListener listener) {
+		changeListeners.add(listener);
+	}
+
+	/**
+	 * Remove a listener for saved or deleted entities
+	 * 
+	 * @param listener {@link EntityChangeListener}
+	 */
+	public void removeEntityChangeListener(EntityChangeListener listener) {
+		changeListeners.remove(listener);
+	}
+
+	private void fireEntityChange(KeyedObject entity, boolean deleted) {
+		for (EntityChangeListener listener : changeListeners) {
+			try {
+				listener.onEntityChange(entity, deleted);
+			} catch (Exception e) {
+				getLogger().error("Entity change listener failed", e);
+			}
+		}
+	}
+
+	/**
+	 * Check if the second-level cache for reference entities is enabled
+	 * 
+	 * @return True if enabled
+	 */
+	public boolean isReferenceCacheEnabled() {
+		return referenceCacheEnabled;
+	}
+
+	/**
+	 * Enable or disable the second-level cache for reference entities. Must be
+	 * set before {@link #initialize(String, String, String)}.
+	 * 
+	 * @param enabled True to enable
+	 */
+	public void setReferenceCacheEnabled(boolean enabled) {
+		this.referenceCacheEnabled = enabled;
+	}
+
+	/**
+	 * Evict all reference entities and queries from the second-level cache, e.g.
+	 * after they were changed by another process
+	 */
+	public void evictSecondLevelCache() {
+		if (emf != null && emf.isOpen()) {
+			emf.getCache().evictAll();
+			emf.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+		}
+	}
+
+	/**
+	 * Evict one entity from the second-level cache along with the cached
+	 * queries
+	 * 
+	 * @param entityClass Class of the entity
+	 * @param key         Primary key
+	 */
+	public void evictSecondLevelCache(Class<?> entityClass, Long key) {
+		if (emf != null && emf.isOpen()) {
+			emf.getCache().evict(entityClass, key);
+			emf.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+		}
+	}
+
+	private <T> TypedQuery<T> cacheable(TypedQuery<T> query) {
+		return referenceCacheEnabled ? ReferenceCache.cacheable(query) : query;
+	}
+
 	private static Logger getLogger() {
 		if (logger == null) {
 			logger = LoggerFactory.getLogger(PersistenceService.class);
@@ -219,7 +331,22 @@ public final class PersistenceService {
 	}
 
 	public PlantEntity fetchPlantEntityByName(String name) throws Exception {
-		final String ENTITY_BY_NAME = "ENTITY.Names";
+		return fetchPlantEntityByName(name, 0);
+	}
+
+	/**
+	 * Fetch a plant entity with its descendants loaded to the specified depth.
+	 * The children of a level are loaded in batches of
+	 * {@link PlantEntity#BATCH_SIZE} entities.
+	 * 
+	 * @param name   Entity name
+	 * @param levels Number of levels of children to load, e.g. 1 for the
+	 *               entity's children
+	 * @return {@link PlantEntity} or null if not found
+	 * @throws Exception Exception
+	 */
+	public PlantEntity fetchPlantEntityByName(String name, int levels) throws Exception {
+		final String ENTITY_BY_NAME = "ENTITY.ByName";
 
 		if (namedQueryMap.get(ENTITY_BY_NAME) == null) {
 			createNamedQuery(ENTITY_BY_NAME, "SELECT ent FROM PlantEntity ent WHERE ent.name = :name");
@@ -227,18 +354,76 @@ public final class PersistenceService {
 
 		PlantEntity entity = null;
 		EntityManager em = getEntityManager();
-		TypedQuery<PlantEntity> query = em.createNamedQuery(ENTITY_BY_NAME, PlantEntity.class);
+		TypedQuery<PlantEntity> query = cacheable(em.createNamedQuery(ENTITY_BY_NAME, PlantEntity.class));
 		query.setParameter("name", name);
 
 		List<PlantEntity> entities = query.getResultList();
-		em.close();
 
 		if (entities.size() == 1) {
 			entity = entities.get(0);
+			initializeChildren(entities, levels);
 		}
+		em.close();
+
 		return entity;
 	}
 
+	// load the children of these entities and their descendants while the
+	// session is open
+	private void initializeChildren(List<PlantEntity> parents, int levels) {
+		List<PlantEntity> level = parents;
+
+		for (int i = 0; i < levels && !level.isEmpty(); i++) {
+			List<PlantEntity> nextLevel = new ArrayList<>();
+
+			for (PlantEntity parent : level) {
+				// also loads the children of the next entities in the batch
+				Hibernate.initialize(parent.getChildren());
+				nextLevel.addAll(parent.getChildren());
+			}
+			level = nextLevel;
+		}
+	}
+
+	/**
+	 * Fetch a plant entity and all of its descendants with one recursive query.
+	 * The list is ordered by depth, so a parent precedes its children. The
+	 * children are not loaded, use {@link PlantEntity#getParent()} to build
+	 * the tree.
+	 * 
+	 * @param rootName Name of the top entity, or null for all entities
+	 * @return List of {@link PlantEntity}
+	 * @throws Exception Exception
+	 */
+	public List<PlantEntity> fetchPlantEntityHierarchy(String rootName) throws Exception {
+		EntityManager em = getEntityManager();
+
+		DatabaseType databaseType = getDatabaseType(jdbcConnection);
+
+		// SQL Server and Oracle do not accept the RECURSIVE keyword
+		String with = databaseType.equals(DatabaseType.MSSQL) || databaseType.equals(DatabaseType.ORACLE) ? "WITH "
+				: "WITH RECURSIVE ";
+		String anchor = rootName != null ? "NAME = :name" : "PARENT_KEY IS NULL";
+
+		String sql = with + "HIER (ENT_KEY, HIER_DEPTH) AS (SELECT ENT_KEY, 0 FROM PLANT_ENTITY WHERE " + anchor
+				+ " UNION ALL SELECT child.ENT_KEY, HIER.HIER_DEPTH + 1 FROM PLANT_ENTITY child"
+				+ " JOIN HIER ON child.PARENT_KEY = HIER.ENT_KEY)"
+				+ " SELECT ent.* FROM PLANT_ENTITY ent JOIN HIER ON ent.ENT_KEY = HIER.ENT_KEY"
+				+ " ORDER BY HIER.HIER_DEPTH, ent.NAME";
+
+		Query query = em.createNativeQuery(sql, PlantEntity.class);
+
+		if (rootName != null) {
+			query.setParameter("name", rootName);
+		}
+
+		@SuppressWarnings("unchecked")
+		List<PlantEntity> entities = query.getResultList();
+		em.close();
+
+		return entities;
+	}
+
 	public List<EventResolver> fetchEventResolvers() throws Exception {
 		final String RESOLVER_ALL = "RESOLVER.All";
 
@@ -330,6 +515,8 @@ public final class PersistenceService {
 			// commit transaction
 			txn.commit();
 
+			fireEntityChange(merged, false);
+
 			return merged;
 		} catch (Exception e) {
 			// roll back transaction
@@ -361,6 +548,10 @@ public final class PersistenceService {
 			// commit transaction
 			txn.commit();
 
+			for (KeyedObject merged : mergedObjects) {
+				fireEntityChange(merged, false);
+			}
+
 			return mergedObjects;
 		} catch (Exception e) {
 			// roll back transaction
@@ -620,6 +811,8 @@ public final class PersistenceService {
 
 			// commit transaction
 			txn.commit();
+
+			fireEntityChange(keyed, true);
 		} catch (Exception e) {
 			// roll back transaction
 			if (txn != null && txn.isActive()) {
@@ -636,11 +829,13 @@ public final class PersistenceService {
 		final String ENTITY_ALL = "ENTITY.All";
 
 		if (namedQueryMap.get(ENTITY_ALL) == null) {
-			createNamedQuery(ENTITY_ALL, "SELECT ent FROM PlantEntity ent");
+			// all of the children are in the result, so load them in the same query
+			createNamedQuery(ENTITY_ALL, "SELECT DISTINCT ent FROM PlantEntity ent LEFT JOIN FETCH ent.children");
 		}
 
 		EntityManager em = getEntityManager();
 		TypedQuery<PlantEntity> query = em.createNamedQuery(ENTITY_ALL, PlantEntity.class);
+		query.setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false);
 		List<PlantEntity> entities = query.getResultList();
 		em.close();
 
@@ -817,7 +1012,7 @@ public final class PersistenceService {
 		}
 
 		EntityManager em = getEntityManager();
-		TypedQuery<Material> query = em.createNamedQuery(MATL_ALL, Material.class);
+		TypedQuery<Material> query = cacheable(em.createNamedQuery(MATL_ALL, Material.class));
 		List<Material> materials = query.getResultList();
 		em.close();
 
@@ -855,6 +1050,38 @@ public final class PersistenceService {
 		return categories;
 	}
 
+	public List<Material> fetchMaterialsByNames(Collection<String> names) throws Exception {
+		final String MATL_BY_NAMES = "MATL.ByNames";
+
+		if (names.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		if (namedQueryMap.get(MATL_BY_NAMES) == null) {
+			createNamedQuery(MATL_BY_NAMES, "SELECT matl FROM Material matl WHERE matl.name IN :names");
+		}
+
+		return fetchByNames(MATL_BY_NAMES, Material.class, names);
+	}
+
+	// run a named query with a "names" IN list in chunks that the databases accept
+	private <T> List<T> fetchByNames(String queryName, Class<T> resultClass, Collection<String> names)
+			throws Exception {
+		List<String> nameList = new ArrayList<>(names);
+		List<T> results = new ArrayList<>(nameList.size());
+
+		EntityManager em = getEntityManager();
+
+		for (int i = 0; i < nameList.size(); i += IN_LIST_SIZE) {
+			TypedQuery<T> query = cacheable(em.createNamedQuery(queryName, resultClass));
+			query.setParameter("names", nameList.subList(i, Math.min(i + IN_LIST_SIZE, nameList.size())));
+			results.addAll(query.getResultList());
+		}
+		em.close();
+
+		return results;
+	}
+
 	public Material fetchMaterialByName(String name) throws Exception {
 		final String MATL_BY_NAME = "MATL.ByName";
 
@@ -864,7 +1091,7 @@ public final class PersistenceService {
 
 		Material material = null;
 		EntityManager em = getEntityManager();
-		TypedQuery<Material> query = em.createNamedQuery(MATL_BY_NAME, Material.class);
+		TypedQuery<Material> query = cacheable(em.createNamedQuery(MATL_BY_NAME, Material.class));
 		query.setParameter("name", name);
 		List<Material> materials = query.getResultList();
 		em.close();
@@ -895,6 +1122,20 @@ public final class PersistenceService {
 		return source;
 	}
 
+	public List<Equipment> fetchEquipmentByNames(Collection<String> names) throws Exception {
+		final String EQUIP_BY_NAMES = "EQUIP.ByNames";
+
+		if (names.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		if (namedQueryMap.get(EQUIP_BY_NAMES) == null) {
+			createNamedQuery(EQUIP_BY_NAMES, "SELECT equip FROM Equipment equip WHERE equip.name IN :names");
+		}
+
+		return fetchByNames(EQUIP_BY_NAMES, Equipment.class, names);
+	}
+
 	public Equipment fetchEquipmentByName(String name) throws Exception {
 		final String EQUIP_BY_NAME = "EQUIP.ByName";
 
@@ -904,7 +1145,7 @@ public final class PersistenceService {
 
 		Equipment equipment = null;
 		EntityManager em = getEntityManager();
-		TypedQuery<Equipment> query = em.createNamedQuery(EQUIP_BY_NAME, Equipment.class);
+		TypedQuery<Equipment> query = cacheable(em.createNamedQuery(EQUIP_BY_NAME, Equipment.class));
 		query.setParameter("name", name);
 		List<Equipment> equipments = query.getResultList();
 		em.close();
@@ -931,6 +1172,20 @@ public final class PersistenceService {
 		return event;
 	}
 
+	public List<Reason> fetchReasonsByNames(Collection<String> names) throws Exception {
+		final String REASON_BY_NAMES = "REASON.ByNames";
+
+		if (names.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		if (namedQueryMap.get(REASON_BY_NAMES) == null) {
+			createNamedQuery(REASON_BY_NAMES, "SELECT reason FROM Reason reason WHERE reason.name IN :names");
+		}
+
+		return fetchByNames(REASON_BY_NAMES, Reason.class, names);
+	}
+
 	public Reason fetchReasonByName(String name) throws Exception {
 		final String REASON_BY_NAME = "REASON.ByName";
 
@@ -940,7 +1195,7 @@ public final class PersistenceService {
 
 		Reason reason = null;
 		EntityManager em = getEntityManager();
-		TypedQuery<Reason> query = em.createNamedQuery(REASON_BY_NAME, Reason.class);
+		TypedQuery<Reason> query = cacheable(em.createNamedQuery(REASON_BY_NAME, Reason.class));
 		query.setParameter("name", name);
 
 		List<Reason> reasons = query.getResultList();
@@ -968,7 +1223,7 @@ public final class PersistenceService {
 		}
 
 		EntityManager em = getEntityManager();
-		TypedQuery<Reason> query = em.createNamedQuery(REASON_ALL, Reason.class);
+		TypedQuery<Reason> query = cacheable(em.createNamedQuery(REASON_ALL, Reason.class));
 		List<Reason> reasons = query.getResultList();
 		em.close();
 
@@ -1095,7 +1350,7 @@ public final class PersistenceService {
 
 		WorkSchedule schedule = null;
 		EntityManager em = getEntityManager();
-		TypedQuery<WorkSchedule> query = em.createNamedQuery(WS_BY_NAME, WorkSchedule.class);
+		TypedQuery<WorkSchedule> query = cacheable(em.createNamedQuery(WS_BY_NAME, WorkSchedule.class));
 		query.setParameter("name", name);
 		List<WorkSchedule> schedules = query.getResultList();
 		em.close();
@@ -1226,7 +1481,7 @@ public final class PersistenceService {
 		}
 
 		EntityManager em = getEntityManager();
-		TypedQuery<UnitOfMeasure> query = em.createNamedQuery(UOM_BY_SYMBOL, UnitOfMeasure.class);
+		TypedQuery<UnitOfMeasure> query = cacheable(em.createNamedQuery(UOM_BY_SYMBOL, UnitOfMeasure.class));
 		query.setParameter("symbol", symbol);
 
 		List<UnitOfMeasure> uoms = query.getResultList();
@@ -1604,8 +1859,14 @@ public final class PersistenceService {
 			throws Exception {
 
 		// create the PU info
+		Properties properties = createProperties(jdbcUrl, userName, password);
+
+		if (referenceCacheEnabled) {
+			ReferenceCache.configure(properties);
+		}
+
 		PersistenceUnitInfo persistenceUnitInfo = new PersistenceUnitInfoImpl(PU_NAME, getEntityClassNames(),
-				createProperties(jdbcUrl, userName, password));
+				properties);
 
 		// add any mapping files
 		String[] fileNames = getMappingFileNames();
@@ -1619,6 +1880,10 @@ public final class PersistenceService {
 		// create the EntityManagerFactory
 		emf = new HibernatePersistenceProvider().createContainerEntityManagerFactory(persistenceUnitInfo,
 				configuration);
+
+		if (referenceCacheEnabled) {
+			ReferenceCache.registerMetrics(emf);
+		}
 	}
 
 	public void connectToDatabaseEventServer(String jdbcUrl, String userName, String password) throws Exception {
@@ -1672,7 +1937,7 @@ public final class PersistenceService {
 		return Arrays.asList(getEntityClasses()).stream().map(Class::getName).collect(Collectors.toList());
 	}
 
-	private Properties createProperties(String jdbcUrl, String userName, String password) throws Exception {
+	private DatabaseType getDatabaseType(String jdbcUrl) throws Exception {
 		DatabaseType databaseType = null;
 
 		if (jdbcUrl.contains("sqlserver")) {
@@ -1688,6 +1953,11 @@ public final class PersistenceService {
 		} else {
 			throw new Exception(DomainLocalizer.instance().getErrorString("bad.jdbc", jdbcUrl));
 		}
+		return databaseType;
+	}
+
+	private Properties createProperties(String jdbcUrl, String userName, String password) throws Exception {
+		DatabaseType databaseType = getDatabaseType(jdbcUrl);
 
 		Properties properties = new Properties();
 
@@ -1727,6 +1997,9 @@ public final class PersistenceService {
 		properties.put("hibernate.connection.provider_class",
 				"org.hibernate.hikaricp.internal.HikariCPConnectionProvider");
 
+		// no second-level cache unless enabled, see ReferenceCache
+		properties.put("hibernate.cache.use_second_level_cache", "false");
+
 		return properties;
 	}
 
@@ -2081,6 +2354,182 @@ public final class PersistenceService {
 		return events;
 	}
 
+	/**
+	 * Claim up to the maximum number of READY database interface table events
+	 * for the source id by setting their status to PROCESSING in one
+	 * transaction. Rows locked by another collector are skipped if the database
+	 * supports it. A claimed event is stamped with its claim time, and an event
+	 * still PROCESSING after {@link #CLAIM_LEASE_PROPERTY} seconds, e.g. because
+	 * its collector stopped, is claimed again.
+	 * 
+	 * @param sourceId event source identifier
+	 * @param maxCount Maximum number of events to claim
+	 * @return List of claimed {@link DatabaseEvent} in event time order
+	 * @throws Exception Exception
+	 */
+	public List<DatabaseEvent> claimDatabaseEvents(String sourceId, int maxCount) throws Exception {
+		final String CLAIM_EVENTS = "DATABASE_EVENT.CLAIM";
+		final String CLAIM_STATUS = "DATABASE_EVENT.CLAIM.STATUS";
+		final String RELEASE_EXPIRED = "DATABASE_EVENT.CLAIM.RELEASE";
+
+		if (namedQueryMap.get(CLAIM_EVENTS) == null) {
+			createNamedQuery(CLAIM_EVENTS,
+					"SELECT event FROM DatabaseEvent event WHERE status = :status AND sourceId = :sourceId ORDER BY event.eventTime.localDateTime ASC");
+		}
+
+		if (namedQueryMap.get(CLAIM_STATUS) == null) {
+			createNamedQuery(CLAIM_STATUS,
+					"UPDATE DatabaseEvent event SET event.status = :processing, event.error = :claimed WHERE event.primaryKey IN :keys AND event.status = :ready");
+		}
+
+		if (namedQueryMap.get(RELEASE_EXPIRED) == null) {
+			createNamedQuery(RELEASE_EXPIRED,
+					"UPDATE DatabaseEvent event SET event.status = :ready, event.error = NULL WHERE event.sourceId = :sourceId "
+							+ "AND event.status = :processing AND event.error LIKE :marker AND event.error < :expired");
+		}
+
+		Instant now = Instant.now();
+		Instant expired = now.minusSeconds(Integer.getInteger(CLAIM_LEASE_PROPERTY, DEFAULT_CLAIM_LEASE_SEC));
+
+		EntityManager em = getEntityManager();
+		EntityTransaction txn = null;
+
+		try {
+			txn = em.getTransaction();
+			txn.begin();
+
+			// release lapsed claims
+			Query release = em.createNamedQuery(RELEASE_EXPIRED);
+			release.setParameter("ready", DatabaseEventStatus.READY);
+			release.setParameter("processing", DatabaseEventStatus.PROCESSING);
+			release.setParameter("sourceId", sourceId);
+			release.setParameter("marker", CLAIM_MARKER + "%");
+			release.setParameter("expired", CLAIM_MARKER + CLAIM_TIME_FORMAT.format(expired));
+			int released = release.executeUpdate();
+
+			if (released > 0) {
+				getLogger().warn(
+						"Released " + released + " events for source " + sourceId + " claimed before " + expired);
+			}
+
+			// lock the oldest READY rows
+			TypedQuery<DatabaseEvent> query = em.createNamedQuery(CLAIM_EVENTS, DatabaseEvent.class);
+			query.setParameter("status", DatabaseEventStatus.READY);
+			query.setParameter("sourceId", sourceId);
+			query.setMaxResults(maxCount);
+			query.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+			query.setHint(AvailableSettings.JPA_LOCK_TIMEOUT, LockOptions.SKIP_LOCKED);
+
+			List<DatabaseEvent> events = query.getResultList();
+
+			if (!events.isEmpty()) {
+				List<Long> keys = new ArrayList<>(events.size());
+				for (DatabaseEvent event : events) {
+					keys.add(event.getKey());
+				}
+
+				// claim them with one update
+				Query update = em.createNamedQuery(CLAIM_STATUS);
+				update.setParameter("processing", DatabaseEventStatus.PROCESSING);
+				update.setParameter("ready", DatabaseEventStatus.READY);
+				update.setParameter("claimed", CLAIM_MARKER + CLAIM_TIME_FORMAT.format(now));
+				update.setParameter("keys", keys);
+				int claimed = update.executeUpdate();
+
+				if (claimed != events.size()) {
+					// another collector claimed some of the rows, so leave them all for the next poll
+					txn.rollback();
+					getLogger().warn("Claimed " + claimed + " of " + events.size() + " events for source " + sourceId
+							+ ".  Retrying on the next poll.");
+					return new ArrayList<>();
+				}
+			}
+
+			txn.commit();
+
+			for (DatabaseEvent event : events) {
+				em.detach(event);
+				event.setStatus(DatabaseEventStatus.PROCESSING);
+				event.setError(null);
+			}
+			return events;
+		} catch (Exception e) {
+			// roll back transaction
+			if (txn != null && txn.isActive()) {
+				txn.rollback();
+			}
+			throw e;
+		} finally {
+			em.close();
+		}
+	}
+
+	/**
+	 * Save the status and error of the database interface table events in one
+	 * transaction. Events that passed are updated together.
+	 * 
+	 * @param events List of {@link DatabaseEvent}
+	 * @throws Exception Exception
+	 */
+	public void saveDatabaseEventStatus(List<DatabaseEvent> events) throws Exception {
+		final String STATUS_BY_KEYS = "DATABASE_EVENT.STATUS.KEYS";
+		final String STATUS_BY_KEY = "DATABASE_EVENT.STATUS.KEY";
+
+		if (events.isEmpty()) {
+			return;
+		}
+
+		if (namedQueryMap.get(STATUS_BY_KEYS) == null) {
+			createNamedQuery(STATUS_BY_KEYS,
+					"UPDATE DatabaseEvent event SET event.status = :status, event.error = NULL WHERE event.primaryKey IN :keys");
+		}
+
+		if (namedQueryMap.get(STATUS_BY_KEY) == null) {
+			createNamedQuery(STATUS_BY_KEY,
+					"UPDATE DatabaseEvent event SET event.status = :status, event.error = :error WHERE event.primaryKey = :key");
+		}
+
+		EntityManager em = getEntityManager();
+		EntityTransaction txn = null;
+
+		try {
+			txn = em.getTransaction();
+			txn.begin();
+
+			// group events without an error by status
+			Map<DatabaseEventStatus, List<Long>> statusKeys = new HashMap<>();
+
+			for (DatabaseEvent event : events) {
+				if (event.getError() == null) {
+					statusKeys.computeIfAbsent(event.getStatus(), k -> new ArrayList<>()).add(event.getKey());
+				} else {
+					Query update = em.createNamedQuery(STATUS_BY_KEY);
+					update.setParameter("status", event.getStatus());
+					update.setParameter("error", event.getError());
+					update.setParameter("key", event.getKey());
+					update.executeUpdate();
+				}
+			}
+
+			for (Entry<DatabaseEventStatus, List<Long>> entry : statusKeys.entrySet()) {
+				Query update = em.createNamedQuery(STATUS_BY_KEYS);
+				update.setParameter("status", entry.getKey());
+				update.setParameter("keys", entry.getValue());
+				update.executeUpdate();
+			}
+
+			txn.commit();
+		} catch (Exception e) {
+			// roll back transaction
+			if (txn != null && txn.isActive()) {
+				txn.rollback();
+			}
+			throw e;
+		} finally {
+			em.close();
+		}
+	}
+
 	/**
 	 * Fetch OEE events for the equipment and source id over the specified period
 	 * 
@@ -2183,6 +2632,84 @@ public final class PersistenceService {
 		return events;
 	}
 
+	/**
+	 * Fetch a page of events in start time order. The next page starts after the
+	 * start time and key of the last event in this page.
+	 * 
+	 * @param equipment {@link Equipment}
+	 * @param material  {@link Material} or null for all
+	 * @param type      {@link OeeEventType} or null for all
+	 * @param from      Starting time or null
+	 * @param to        Ending time or null
+	 * @param afterTime Start time of the previous page's last event, or null for
+	 *                  the first page
+	 * @param afterKey  Key of the previous page's last event
+	 * @param pageSize  Maximum number of events
+	 * @return List of {@link OeeEvent}
+	 * @throws Exception Exception
+	 */
+	public List<OeeEvent> fetchEventPage(Equipment equipment, Material material, OeeEventType type,
+			OffsetDateTime from, OffsetDateTime to, LocalDateTime afterTime, Long afterKey, int pageSize)
+			throws Exception {
+
+		String qry = "SELECT e FROM OeeEvent e WHERE e.equipment = :equipment ";
+
+		if (material != null) {
+			qry += "AND e.material = :material ";
+		}
+
+		if (type != null) {
+			qry += "AND e.eventType = :type ";
+		}
+
+		if (from != null) {
+			qry += "AND e.startTime.localDateTime >= :from ";
+		}
+
+		if (to != null) {
+			qry += "AND e.startTime.localDateTime < :to ";
+		}
+
+		if (afterTime != null) {
+			qry += "AND (e.startTime.localDateTime > :afterTime "
+					+ "OR (e.startTime.localDateTime = :afterTime AND e.primaryKey > :afterKey)) ";
+		}
+		qry += " ORDER BY e.startTime.localDateTime ASC, e.primaryKey ASC";
+
+		EntityManager em = getEntityManager();
+
+		try {
+			TypedQuery<OeeEvent> query = em.createQuery(qry, OeeEvent.class);
+			query.setParameter("equipment", equipment);
+
+			if (material != null) {
+				query.setParameter("material", material);
+			}
+
+			if (type != null) {
+				query.setParameter("type", type);
+			}
+
+			if (from != null) {
+				query.setParameter("from", from.toLocalDateTime());
+			}
+
+			if (to != null) {
+				query.setParameter("to", to.toLocalDateTime());
+			}
+
+			if (afterTime != null) {
+				query.setParameter("afterTime", afterTime);
+				query.setParameter("afterKey", afterKey);
+			}
+			query.setMaxResults(pageSize);
+
+			return query.getResultList();
+		} finally {
+			em.close();
+		}
+	}
+
 	public OeeEvent fetchLastEvent(List<String> sourceIds) throws Exception {
 		final String LAST_SOURCE_EVENT = "DATABASE_EVENT.LAST.SOURCE";
 
@@ -0,0 +1,157 @@
+package org.point85.domain.persistence;
+
+import java.time.Duration;
+import java.util.Properties;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.Configuration;
+import javax.cache.spi.CachingProvider;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.stat.Statistics;
+import org.point85.domain.metrics.MetricsRegistry;
+
+/**
+ * Opt-in Hibernate second-level cache for the reference entities (reasons,
+ * materials, plant entities, units of measure and work schedules) and the
+ * queries that look them up by name. The cache is a local, in-process Ehcache
+ * and is enabled by setting the system property {@link #ENABLED_PROPERTY} to
+ * true.
+ * <p>
+ * The regions use read-write concurrency, so an entity saved or deleted
+ * through the {@link PersistenceService} replaces or removes its cached copy,
+ * and any change to a table invalidates the cached queries on it. Changes made
+ * by another process are not seen until the entries expire after
+ * {@link #TTL_PROPERTY} minutes or the cache is evicted.
+ *
+ */
+public final class ReferenceCache {
+	// system property to enable the cache
+	public static final String ENABLED_PROPERTY = "point85.cache.l2";
+
+	// system property for the maximum entries in each region
+	public static final String SIZE_PROPERTY = "point85.cache.l2.size";
+
+	// system property for the time to live of a cached entry (min)
+	public static final String TTL_PROPERTY = "point85.cache.l2.ttl.min";
+
+	// region for the reference entities
+	public static final String REGION = "point85.reference";
+
+	// region for the reference entity queries
+	public static final String QUERY_REGION = "point85.reference-queries";
+
+	// Hibernate's regions for other query results and for table update times
+	private static final String DEFAULT_QUERY_REGION = "default-query-results-region";
+	private static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+	// defaults
+	private static final long DEFAULT_SIZE = 10000;
+	private static final long DEFAULT_TTL_MIN = 10;
+
+	private ReferenceCache() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Check if the cache is enabled by the system property
+	 *
+	 * @return True if enabled
+	 */
+	public static boolean isEnabledByDefault() {
+		return Boolean.getBoolean(ENABLED_PROPERTY);
+	}
+
+	/**
+	 * Add the second-level and query cache settings to the persistence unit
+	 * properties
+	 *
+	 * @param properties Persistence unit properties
+	 */
+	static void configure(Properties properties) {
+		properties.put("hibernate.cache.use_second_level_cache", "true");
+		properties.put("hibernate.cache.use_query_cache", "true");
+		properties.put("hibernate.cache.region.factory_class", "jcache");
+		properties.put("hibernate.javax.cache.cache_manager", createCacheManager());
+		properties.put("hibernate.javax.cache.missing_cache_strategy", "create-warn");
+		properties.put("javax.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+		properties.put("hibernate.generate_statistics", "true");
+
+		// statistics are for the hit-rate gauges, not for a log line per session
+		properties.put("hibernate.session.events.log", "false");
+	}
+
+	private static CacheManager createCacheManager() {
+		CachingProvider provider = Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+		CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(),
+				ReferenceCache.class.getClassLoader());
+
+		long size = Long.getLong(SIZE_PROPERTY, DEFAULT_SIZE);
+		Duration ttl = Duration.ofMinutes(Long.getLong(TTL_PROPERTY, DEFAULT_TTL_MIN));
+
+		for (String region : new String[] { REGION, QUERY_REGION, DEFAULT_QUERY_REGION }) {
+			if (cacheManager.getCache(region) == null) {
+				cacheManager.createCache(region,
+						regionConfiguration(size, ExpiryPolicyBuilder.timeToLiveExpiration(ttl)));
+			}
+		}
+
+		// update times must outlive the cached queries
+		if (cacheManager.getCache(TIMESTAMPS_REGION) == null) {
+			cacheManager.createCache(TIMESTAMPS_REGION, regionConfiguration(size, ExpiryPolicyBuilder.noExpiration()));
+		}
+		return cacheManager;
+	}
+
+	private static Configuration<Object, Object> regionConfiguration(long size,
+			ExpiryPolicy<? super Object, ? super Object> expiry) {
+		return Eh107Configuration.fromEhcacheCacheConfiguration(CacheConfigurationBuilder
+				.newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(size))
+				.withExpiry(expiry));
+	}
+
+	/**
+	 * Cache the results of a reference entity query
+	 *
+	 * @param query {@link TypedQuery}
+	 * @return The query
+	 */
+	static <T> TypedQuery<T> cacheable(TypedQuery<T> query) {
+		query.setHint(QueryHints.CACHEABLE, true);
+		query.setHint(QueryHints.CACHE_REGION, QUERY_REGION);
+		return query;
+	}
+
+	/**
+	 * Register hit-rate gauges for the second-level and query caches
+	 *
+	 * @param emf {@link EntityManagerFactory}
+	 */
+	static void registerMetrics(EntityManagerFactory emf) {
+		Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+		MetricsRegistry registry = MetricsRegistry.instance();
+
+		registry.gauge("oee_db_cache_hits", "Second-level cache hits", statistics::getSecondLevelCacheHitCount,
+				"cache", "entity");
+		registry.gauge("oee_db_cache_misses", "Second-level cache misses", statistics::getSecondLevelCacheMissCount,
+				"cache", "entity");
+		registry.gauge("oee_db_cache_puts", "Second-level cache puts", statistics::getSecondLevelCachePutCount,
+				"cache", "entity");
+		registry.gauge("oee_db_cache_hits", "Second-level cache hits", statistics::getQueryCacheHitCount, "cache",
+				"query");
+		registry.gauge("oee_db_cache_misses", "Second-level cache misses", statistics::getQueryCacheMissCount,
+				"cache", "query");
+		registry.gauge("oee_db_cache_puts", "Second-level cache puts", statistics::getQueryCachePutCount, "cache",
+				"query");
+	}
+}
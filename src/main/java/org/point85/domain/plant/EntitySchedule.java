@@ -93,6 +93,7 @@ public class EntitySchedule extends KeyedObject implements Comparable<EntitySche
 		}
 
 		this.startDateTime = startDateTime;
+		PlantEntity.invalidateResolvedAttributes();
 	}
 
 	/**
@@ -116,6 +117,7 @@ public class EntitySchedule extends KeyedObject implements Comparable<EntitySche
 		}
 
 		this.endDateTime = endDateTime;
+		PlantEntity.invalidateResolvedAttributes();
 	}
 
 	public PlantEntity getPlantEntity() {
@@ -124,6 +126,7 @@ public class EntitySchedule extends KeyedObject implements Comparable<EntitySche
 
 	public void setPlantEntity(PlantEntity plantEntity) {
 		this.plantEntity = plantEntity;
+		PlantEntity.invalidateResolvedAttributes();
 	}
 
 	public WorkSchedule getWorkSchedule() {
@@ -132,6 +135,7 @@ public class EntitySchedule extends KeyedObject implements Comparable<EntitySche
 
 	public void setWorkSchedule(WorkSchedule workSchedule) {
 		this.workSchedule = workSchedule;
+		PlantEntity.invalidateResolvedAttributes();
 	}
 
 	@Override
@@ -3,7 +3,11 @@ package org.point85.domain.plant;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -13,6 +17,8 @@ import org.openjdk.nashorn.api.scripting.NashornScriptEngineFactory;
 import org.point85.domain.collector.DataCollector;
 import org.point85.domain.collector.OeeEvent;
 import org.point85.domain.i18n.DomainLocalizer;
+import org.point85.domain.metrics.DurationHistogram;
+import org.point85.domain.metrics.MetricsRegistry;
 import org.point85.domain.persistence.PersistenceService;
 import org.point85.domain.schedule.Shift;
 import org.point85.domain.schedule.ShiftInstance;
@@ -30,6 +36,12 @@ public class EquipmentEventResolver {
 	// logger
 	private static final Logger logger = LoggerFactory.getLogger(EquipmentEventResolver.class);
 
+	// resolver metrics
+	private static final String RESOLVER_FAILURES = "oee_resolver_failures_total";
+
+	private static final DurationHistogram scriptTimer = MetricsRegistry.instance()
+			.histogram("oee_resolver_script_seconds", "Resolver script execution time");
+
 	// reason cache
 	private final ConcurrentMap<String, Reason> reasonCache = new ConcurrentHashMap<>();
 
@@ -52,6 +64,139 @@ public class EquipmentEventResolver {
 		resolverCache.clear();
 	}
 
+	/**
+	 * Remove a reason from the cache, by its current or previous name
+	 * 
+	 * @param key  Primary key
+	 * @param name Reason name
+	 */
+	public void evictReason(Long key, String name) {
+		evict(reasonCache, key, name);
+	}
+
+	/**
+	 * Remove a material from the cache, by its current or previous name
+	 * 
+	 * @param key  Primary key
+	 * @param name Material name
+	 */
+	public void evictMaterial(Long key, String name) {
+		evict(materialCache, key, name);
+	}
+
+	private static <T extends NamedObject> void evict(ConcurrentMap<String, T> cache, Long key, String name) {
+		if (name != null) {
+			cache.remove(name);
+		}
+
+		// a renamed object is cached under its old name
+		if (key != null) {
+			cache.values().removeIf(cached -> key.equals(cached.getKey()));
+		}
+	}
+
+	/**
+	 * Reload the resolvers. The previous resolvers remain in use until the new
+	 * ones are loaded.
+	 * 
+	 * @throws Exception Exception
+	 */
+	public void reloadResolvers() throws Exception {
+		Map<PlantEntity, List<EventResolver>> loaded = new HashMap<>();
+
+		for (EventResolver resolver : PersistenceService.instance().fetchEventResolvers()) {
+			loaded.computeIfAbsent(resolver.getPlantEntity(), entity -> new ArrayList<>()).add(resolver);
+		}
+
+		resolverCache.putAll(loaded);
+		resolverCache.keySet().retainAll(loaded.keySet());
+	}
+
+	/**
+	 * Load the named reasons and materials into the caches with one query each
+	 * 
+	 * @param reasonNames   Reason names
+	 * @param materialNames Material names
+	 * @throws Exception Exception
+	 */
+	public void prefetch(Collection<String> reasonNames, Collection<String> materialNames) throws Exception {
+		for (Reason reason : PersistenceService.instance().fetchReasonsByNames(reasonNames)) {
+			reasonCache.put(reason.getName(), reason);
+		}
+
+		for (Material material : PersistenceService.instance().fetchMaterialsByNames(materialNames)) {
+			materialCache.put(material.getName(), material);
+		}
+	}
+
+	/**
+	 * Get all of the resolvers, loading them into the cache if necessary
+	 * 
+	 * @return List of {@link EventResolver}
+	 * @throws Exception Exception
+	 */
+	public List<EventResolver> getAllResolvers() throws Exception {
+		cacheResolvers();
+
+		List<EventResolver> resolvers = new ArrayList<>();
+		for (List<EventResolver> equipmentResolvers : resolverCache.values()) {
+			resolvers.addAll(equipmentResolvers);
+		}
+		return resolvers;
+	}
+
+	public Set<String> getCachedReasonNames() {
+		return new TreeSet<>(reasonCache.keySet());
+	}
+
+	public Set<String> getCachedMaterialNames() {
+		return new TreeSet<>(materialCache.keySet());
+	}
+
+	/**
+	 * Find a reason by name, from the cache if it has been fetched before
+	 * 
+	 * @param reasonName Reason name
+	 * @return {@link Reason} or null if not defined
+	 * @throws Exception Exception
+	 */
+	public Reason findReason(String reasonName) throws Exception {
+		Reason reason = reasonCache.get(reasonName);
+
+		if (reason == null) {
+			// fetch from database
+			reason = PersistenceService.instance().fetchReasonByName(reasonName);
+
+			// cache it
+			if (reason != null) {
+				reasonCache.put(reason.getName(), reason);
+			}
+		}
+		return reason;
+	}
+
+	/**
+	 * Find a material by name, from the cache if it has been fetched before
+	 * 
+	 * @param materialName Material name
+	 * @return {@link Material} or null if not defined
+	 * @throws Exception Exception
+	 */
+	public Material findMaterial(String materialName) throws Exception {
+		Material material = materialCache.get(materialName);
+
+		if (material == null) {
+			// fetch from database
+			material = PersistenceService.instance().fetchMaterialByName(materialName);
+
+			// cache it
+			if (material != null) {
+				materialCache.put(material.getName(), material);
+			}
+		}
+		return material;
+	}
+
 	public ScriptEngine getScriptEngine() {
 		return scriptEngine;
 	}
@@ -109,6 +254,18 @@ public class EquipmentEventResolver {
 
 	public OeeEvent invokeResolver(EventResolver eventResolver, OeeContext context, Object sourceValue,
 			OffsetDateTime dateTime) throws Exception {
+		try {
+			return resolve(eventResolver, context, sourceValue, dateTime);
+		} catch (Exception e) {
+			// labelled by resolver type so that the number of series stays fixed
+			MetricsRegistry.instance().counter(RESOLVER_FAILURES, "Failed resolutions by resolver type",
+					"resolver_type", String.valueOf(eventResolver.getType())).increment();
+			throw e;
+		}
+	}
+
+	private OeeEvent resolve(EventResolver eventResolver, OeeContext context, Object sourceValue,
+			OffsetDateTime dateTime) throws Exception {
 
 		String sourceId = eventResolver.getSourceId();
 		OeeEventType resolverType = eventResolver.getType();
@@ -125,22 +282,17 @@ public class EquipmentEventResolver {
 					eventResolver.getPlantEntity().getName()));
 		}
 
-		if (logger.isInfoEnabled()) {
-			logger.info("Invoking script resolver for source id " + sourceId + " and type " + resolverType
-					+ " with source value " + sourceValue);
-		}
-
-		if (logger.isTraceEnabled()) {
-			logger.trace("for script \n" + script);
-		}
+		logger.debug("Invoking script resolver for source id {} and type {} with source value {}", sourceId,
+				resolverType, sourceValue);
+		logger.trace("for script \n{}", script);
 
 		// result of script execution
+		long start = System.nanoTime();
 		ResolverFunction resolverFunction = new ResolverFunction(script);
 		Object result = resolverFunction.invoke(getScriptEngine(), context, sourceValue, eventResolver);
+		scriptTimer.recordSince(start);
 
-		if (logger.isInfoEnabled()) {
-			logger.info("Result: " + result);
-		}
+		logger.trace("Result: {}", result);
 
 		// set last value. Could have been set in script.
 		if (eventResolver.getLastValue() == null) {
@@ -216,16 +368,14 @@ public class EquipmentEventResolver {
 			}
 		}
 
-		if (logger.isInfoEnabled()) {
-			logger.info("Resolved event. " + event.toString());
-		}
+		logger.debug("Resolved event. {}", event);
 
 		return event;
 	}
 
 	private void setShift(OeeEvent event, EventResolver eventResolver, OffsetDateTime eventTime) throws Exception {
 		// set shift
-		WorkSchedule schedule = eventResolver.getPlantEntity().findWorkSchedule();
+		WorkSchedule schedule = eventResolver.getPlantEntity().findWorkSchedule(eventTime.toLocalDateTime());
 		Shift shift = null;
 		Team team = null;
 
@@ -342,9 +492,7 @@ public class EquipmentEventResolver {
 				// set material into context too
 				context.setMaterial(eqm.getEquipment(), producedMaterial);
 
-				if (logger.isInfoEnabled()) {
-					logger.info("Produced material is not defined.  Using default of " + producedMaterial.getName());
-				}
+				logger.debug("Produced material is not defined.  Using default of {}", producedMaterial.getName());
 			}
 		}
 
@@ -352,9 +500,7 @@ public class EquipmentEventResolver {
 		resolvedEvent.setAmount(amount);
 		resolvedEvent.setUOM(uom);
 
-		if (logger.isInfoEnabled()) {
-			logger.info(resolverType.toString() + " amount is " + amount + " " + uom);
-		}
+		logger.debug("{} amount is {} {}", resolverType, amount, uom);
 
 		// set the quality reason
 		if (reasonName != null) {
@@ -364,18 +510,10 @@ public class EquipmentEventResolver {
 	}
 
 	private Reason fetchReason(String reasonName) throws Exception {
-		Reason reason = this.reasonCache.get(reasonName);
+		Reason reason = findReason(reasonName);
 
 		if (reason == null) {
-			// fetch from database
-			reason = PersistenceService.instance().fetchReasonByName(reasonName);
-
-			// cache it
-			if (reason != null) {
-				reasonCache.put(reason.getName(), reason);
-			} else {
-				throw new Exception(DomainLocalizer.instance().getErrorString("invalid.reason", reasonName));
-			}
+			throw new Exception(DomainLocalizer.instance().getErrorString("invalid.reason", reasonName));
 		}
 		return reason;
 	}
@@ -413,18 +551,10 @@ public class EquipmentEventResolver {
 			return material;
 		}
 
-		material = materialCache.get(materialName);
+		material = findMaterial(materialName);
 
 		if (material == null) {
-			// fetch from database
-			material = PersistenceService.instance().fetchMaterialByName(materialName);
-
-			// cache it
-			if (material != null) {
-				materialCache.put(material.getName(), material);
-			} else {
-				throw new Exception(DomainLocalizer.instance().getErrorString("no.material", materialName));
-			}
+			throw new Exception(DomainLocalizer.instance().getErrorString("no.material", materialName));
 		}
 		return material;
 	}
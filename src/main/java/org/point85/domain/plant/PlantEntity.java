@@ -5,8 +5,10 @@ import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.persistence.AttributeOverride;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Convert;
@@ -20,11 +22,16 @@ import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.point85.domain.dto.EntityScheduleDto;
 import org.point85.domain.dto.EventResolverDto;
 import org.point85.domain.dto.PlantEntityDto;
 import org.point85.domain.persistence.EntityLevelConverter;
+import org.point85.domain.persistence.ReferenceCache;
 import org.point85.domain.schedule.WorkSchedule;
 import org.point85.domain.script.EventResolver;
 
@@ -42,17 +49,26 @@ import org.point85.domain.script.EventResolver;
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "HIER_LEVEL", discriminatorType = DiscriminatorType.STRING)
 @AttributeOverride(name = "primaryKey", column = @Column(name = "ENT_KEY"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ReferenceCache.REGION)
 
 public class PlantEntity extends NamedObject {
 	public static final String ROOT_ENTITY_NAME = "All Entities";
 
+	// number of entities whose uninitialized collections are loaded together
+	public static final int BATCH_SIZE = 100;
+
+	// incremented when any hierarchy or entity schedule changes
+	private static final AtomicLong hierarchyVersion = new AtomicLong();
+
 	// parent object in the S95 hierarchy
 	@ManyToOne
 	@JoinColumn(name = "PARENT_KEY")
 	private PlantEntity parent;
 
-	// children
-	@OneToMany(mappedBy = "parent", cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+	// children, loaded on first access together with those of other entities
+	@OneToMany(mappedBy = "parent", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
+	@BatchSize(size = BATCH_SIZE)
 	private final Set<PlantEntity> children = new HashSet<>();
 
 	// level in the hierarchy
@@ -62,6 +78,7 @@ public class PlantEntity extends NamedObject {
 
 	// work schedules
 	@OneToMany(mappedBy = "plantEntity", cascade = CascadeType.ALL, orphanRemoval = true)
+	@BatchSize(size = BATCH_SIZE)
 	private Set<EntitySchedule> entitySchedules = new HashSet<>();
 
 	// retention period for database records
@@ -70,8 +87,13 @@ public class PlantEntity extends NamedObject {
 
 	// reason resolvers
 	@OneToMany(mappedBy = "entity", cascade = CascadeType.ALL, orphanRemoval = true)
+	@BatchSize(size = BATCH_SIZE)
 	private Set<EventResolver> eventResolvers = new HashSet<>();
 
+	// work schedule timeline and retention period resolved through the parents
+	@Transient
+	private volatile ResolvedAttributes resolvedAttributes;
+
 	public PlantEntity() {
 		super();
 	}
@@ -87,6 +109,7 @@ public class PlantEntity extends NamedObject {
 	
 	public void setAttributes(PlantEntityDto dto) throws Exception {
 		super.setAttributes(dto);
+		invalidateResolvedAttributes();
 		
 		this.level = EntityLevel.valueOf(dto.getLevel());
 		
@@ -116,6 +139,7 @@ public class PlantEntity extends NamedObject {
 
 	public void setParent(PlantEntity parent) {
 		this.parent = parent;
+		invalidateResolvedAttributes();
 	}
 
 	public Set<PlantEntity> getChildren() {
@@ -150,35 +174,63 @@ public class PlantEntity extends NamedObject {
 
 	public void setSchedules(Set<EntitySchedule> schedules) {
 		this.entitySchedules = schedules;
+		invalidateResolvedAttributes();
 	}
 
 	public void addEntitySchedule(EntitySchedule entitySchedule) {
 		if (!entitySchedules.contains(entitySchedule)) {
 			this.entitySchedules.add(entitySchedule);
+			invalidateResolvedAttributes();
 		}
 	}
 
 	public void removeEntitySchedule(EntitySchedule entitySchedule) {
 		if (entitySchedules.contains(entitySchedule)) {
 			this.entitySchedules.remove(entitySchedule);
+			invalidateResolvedAttributes();
 		}
 	}
 
+	/**
+	 * Find the work schedule in effect now for this entity or its closest
+	 * parent
+	 * 
+	 * @return {@link WorkSchedule} or null if none
+	 */
 	public WorkSchedule findWorkSchedule() {
-		WorkSchedule schedule = null;
-		LocalDateTime now = LocalDateTime.now();
+		return findWorkSchedule(LocalDateTime.now());
+	}
 
-		for (EntitySchedule entitySchedule : entitySchedules) {
-			if (now.isAfter(entitySchedule.getStartDateTime()) && now.isBefore(entitySchedule.getEndDateTime())) {
-				schedule = entitySchedule.getWorkSchedule();
-				break;
-			}
-		}
+	/**
+	 * Find the work schedule in effect at a date and time for this entity or its
+	 * closest parent
+	 * 
+	 * @param dateTime Date and time, e.g. of an event
+	 * @return {@link WorkSchedule} or null if none
+	 */
+	public WorkSchedule findWorkSchedule(LocalDateTime dateTime) {
+		return getResolvedAttributes().findWorkSchedule(dateTime);
+	}
+
+	/**
+	 * Discard the resolved work schedules and retention periods of all entities.
+	 * Called when a hierarchy or an entity schedule changes, and should be
+	 * called after changing the set returned by {@link #getSchedules()}
+	 * directly.
+	 */
+	public static void invalidateResolvedAttributes() {
+		hierarchyVersion.incrementAndGet();
+	}
 
-		if (schedule == null && parent != null) {
-			schedule = parent.findWorkSchedule();
+	private ResolvedAttributes getResolvedAttributes() {
+		long version = hierarchyVersion.get();
+		ResolvedAttributes attributes = resolvedAttributes;
+
+		if (attributes == null || attributes.getVersion() != version) {
+			attributes = new ResolvedAttributes(this, version);
+			resolvedAttributes = attributes;
 		}
-		return schedule;
+		return attributes;
 	}
 
 	public Duration getRetentionDuration() {
@@ -187,15 +239,16 @@ public class PlantEntity extends NamedObject {
 
 	public void setRetentionDuration(Duration retentionDuration) {
 		this.retentionDuration = retentionDuration;
+		invalidateResolvedAttributes();
 	}
 
+	/**
+	 * Find the retention period of this entity or its closest parent
+	 * 
+	 * @return Retention period or null if none
+	 */
 	public Duration findRetentionPeriod() {
-		Duration duration = retentionDuration;
-
-		if (duration == null && parent != null) {
-			duration = parent.findRetentionPeriod();
-		}
-		return duration;
+		return getResolvedAttributes().getRetentionPeriod();
 	}
 
 	@Override
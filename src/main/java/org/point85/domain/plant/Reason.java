@@ -5,6 +5,7 @@ import java.util.Objects;
 import java.util.Set;
 
 import javax.persistence.AttributeOverride;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Convert;
@@ -15,9 +16,12 @@ import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.point85.domain.dto.ReasonDto;
 import org.point85.domain.oee.TimeLoss;
 import org.point85.domain.opc.ua.packml.PackMLState;
+import org.point85.domain.persistence.ReferenceCache;
 import org.point85.domain.persistence.TimeLossConverter;
 
 /**
@@ -30,6 +34,8 @@ import org.point85.domain.persistence.TimeLossConverter;
 @Entity
 @Table(name = "REASON")
 @AttributeOverride(name = "primaryKey", column = @Column(name = "REASON_KEY"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ReferenceCache.REGION)
 
 public class Reason extends NamedObject {
 	// the one and only root reason in the hierarchy
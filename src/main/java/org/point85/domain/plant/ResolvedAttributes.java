@@ -0,0 +1,124 @@
+package org.point85.domain.plant;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.point85.domain.schedule.WorkSchedule;
+
+/**
+ * The work schedule and retention period of a plant entity, resolved through
+ * its parents once and kept until the hierarchy or an entity schedule changes.
+ * The schedules are held as an effective-dated timeline: the start and end
+ * times of the entity schedules at all levels divide time into periods, and
+ * the schedule in effect is resolved for each period and for each boundary.
+ * A lookup is then a binary search.
+ *
+ */
+final class ResolvedAttributes {
+	// hierarchy version these attributes were resolved for
+	private final long version;
+
+	// sorted start and end times of all entity schedules up the hierarchy
+	private final LocalDateTime[] boundaries;
+
+	// schedule in effect at each boundary
+	private final WorkSchedule[] boundarySchedules;
+
+	// schedule in effect between a boundary and the next one
+	private final WorkSchedule[] periodSchedules;
+
+	// retention period
+	private final Duration retentionPeriod;
+
+	ResolvedAttributes(PlantEntity entity, long version) {
+		this.version = version;
+
+		SortedSet<LocalDateTime> times = new TreeSet<>();
+
+		for (PlantEntity level = entity; level != null; level = level.getParent()) {
+			for (EntitySchedule entitySchedule : level.getSchedules()) {
+				if (entitySchedule.getStartDateTime() != null) {
+					times.add(entitySchedule.getStartDateTime());
+				}
+
+				if (entitySchedule.getEndDateTime() != null) {
+					times.add(entitySchedule.getEndDateTime());
+				}
+			}
+		}
+
+		boundaries = times.toArray(new LocalDateTime[0]);
+		boundarySchedules = new WorkSchedule[boundaries.length];
+		periodSchedules = new WorkSchedule[Math.max(0, boundaries.length - 1)];
+
+		for (int i = 0; i < boundaries.length; i++) {
+			boundarySchedules[i] = resolveSchedule(entity, boundaries[i]);
+
+			if (i < periodSchedules.length) {
+				// no boundary lies inside the period, so any time in it will do
+				Duration half = Duration.between(boundaries[i], boundaries[i + 1]).dividedBy(2);
+				periodSchedules[i] = resolveSchedule(entity, boundaries[i].plus(half));
+			}
+		}
+
+		retentionPeriod = resolveRetentionPeriod(entity);
+	}
+
+	long getVersion() {
+		return version;
+	}
+
+	Duration getRetentionPeriod() {
+		return retentionPeriod;
+	}
+
+	/**
+	 * Find the work schedule in effect
+	 *
+	 * @param dateTime Date and time
+	 * @return {@link WorkSchedule} or null if none
+	 */
+	WorkSchedule findWorkSchedule(LocalDateTime dateTime) {
+		int index = Arrays.binarySearch(boundaries, dateTime);
+
+		if (index >= 0) {
+			return boundarySchedules[index];
+		}
+
+		// before the first or after the last boundary no schedule is in effect
+		int insertion = -index - 1;
+
+		if (insertion == 0 || insertion == boundaries.length) {
+			return null;
+		}
+		return periodSchedules[insertion - 1];
+	}
+
+	// an entity's own schedule, else its parent's
+	private static WorkSchedule resolveSchedule(PlantEntity entity, LocalDateTime dateTime) {
+		for (PlantEntity level = entity; level != null; level = level.getParent()) {
+			for (EntitySchedule entitySchedule : level.getSchedules()) {
+				LocalDateTime start = entitySchedule.getStartDateTime();
+				LocalDateTime end = entitySchedule.getEndDateTime();
+
+				if (start != null && end != null && dateTime.isAfter(start) && dateTime.isBefore(end)) {
+					return entitySchedule.getWorkSchedule();
+				}
+			}
+		}
+		return null;
+	}
+
+	// an entity's own retention period, else its parent's
+	private static Duration resolveRetentionPeriod(PlantEntity entity) {
+		for (PlantEntity level = entity; level != null; level = level.getParent()) {
+			if (level.getRetentionDuration() != null) {
+				return level.getRetentionDuration();
+			}
+		}
+		return null;
+	}
+}
@@ -6,6 +6,8 @@ import java.util.Timer;
 import java.util.TimerTask;
 
 import org.point85.domain.collector.CollectorDataSource;
+import org.point85.domain.collector.DataSourceType;
+import org.point85.domain.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -65,6 +67,11 @@ public abstract class PollingClient {
 			return;
 		}
 
+		if (isConsolidatedPolling()) {
+			startConsolidatedPolling();
+			return;
+		}
+
 		for (int i = 0; i < sourceIds.size(); i++) {
 			if (pollingPeriods.get(i) == null) {
 				pollingPeriods.set(i, CollectorDataSource.DEFAULT_UPDATE_PERIOD_MSEC);
@@ -102,6 +109,34 @@ public abstract class PollingClient {
 		}
 	}
 
+	private void startConsolidatedPolling() {
+		// poll all source ids at the shortest period
+		Integer period = null;
+
+		for (int i = 0; i < pollingPeriods.size(); i++) {
+			if (pollingPeriods.get(i) == null) {
+				pollingPeriods.set(i, CollectorDataSource.DEFAULT_UPDATE_PERIOD_MSEC);
+			}
+
+			if (period == null || pollingPeriods.get(i) < period) {
+				period = pollingPeriods.get(i);
+			}
+		}
+
+		if (logger.isInfoEnabled()) {
+			logger.info("Starting to poll " + sourceIds.size() + " sources every " + period + " msec.");
+		}
+
+		pollingTimers.add(0, new Timer());
+		pollingTasks.add(0, new PollingTask(null));
+
+		// delay up to 5 sec
+		long delay = (long) (Math.random() * 5000.0d);
+		pollingTimers.get(0).schedule(pollingTasks.get(0), delay, period);
+
+		isPolling = true;
+	}
+
 	private void initializePollingTimer(int i) {
 		// create timer and task
 		pollingTimers.add(i, new Timer());
@@ -134,6 +169,27 @@ public abstract class PollingClient {
 
 	protected abstract void onPoll(String sourceId) throws Exception;
 
+	/**
+	 * If true, all source ids are polled together by one timer with a call to
+	 * {@link #onPollAll()} instead of one timer per source id
+	 * 
+	 * @return True if consolidated
+	 */
+	protected boolean isConsolidatedPolling() {
+		return false;
+	}
+
+	/**
+	 * Poll all of the source ids together
+	 * 
+	 * @throws Exception Exception
+	 */
+	protected void onPollAll() throws Exception {
+		for (String sourceId : sourceIds) {
+			onPoll(sourceId);
+		}
+	}
+
 	public boolean isPolling() {
 		return isPolling;
 	}
@@ -147,10 +203,23 @@ public abstract class PollingClient {
 
 		@Override
 		public void run() {
+			String type = dataSource != null ? dataSource.getDataSourceType().name() : DataSourceType.GENERIC.name();
+			long start = System.nanoTime();
+
 			try {
-				onPoll(sourceId);
+				if (sourceId != null) {
+					onPoll(sourceId);
+				} else {
+					onPollAll();
+				}
 			} catch (Exception e) {
+				MetricsRegistry.instance()
+						.counter("oee_poll_failures_total", "Failed polls by source type", "source", type)
+						.increment();
 				logger.error(e.getMessage());
+			} finally {
+				MetricsRegistry.instance().histogram("oee_poll_seconds", "Time to poll a source", "source", type)
+						.recordSince(start);
 			}
 		}
 	}
@@ -12,11 +12,16 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
@@ -55,6 +60,12 @@ public class ProficyClient extends PollingClient {
 	public static final String WRITE_VALUE_ENDPOINT = "datapoints/create";
 	public static final String SAMPLED_ENDPOINT = "sampled";
 
+	// default maximum number of raw samples per tag in one request
+	public static final int DEFAULT_PAGE_SIZE = 5000;
+
+	// maximum number of pages in a poll
+	private static final int MAX_PAGES = 100;
+
 	// JSON parser
 	private final Gson gson = new Gson();
 
@@ -70,6 +81,12 @@ public class ProficyClient extends PollingClient {
 	// time when polling started
 	private Instant pollingStartTime = Instant.now();
 
+	// maximum number of raw samples to read per tag in one request
+	private Integer pageSize = DEFAULT_PAGE_SIZE;
+
+	// time of the last sample read for each tag
+	private final Map<String, Instant> tagWatermarks = new ConcurrentHashMap<>();
+
 	/**
 	 * Construct a Proficy client
 	 * 
@@ -477,62 +494,153 @@ public class ProficyClient extends PollingClient {
 		this.eventListener = eventListener;
 	}
 
+	@Override
+	protected boolean isConsolidatedPolling() {
+		return true;
+	}
+
+	@Override
+	protected void onPollAll() throws Exception {
+		pollTags(sourceIds);
+	}
+
 	@Override
 	protected void onPoll(String sourceId) throws Exception {
 		if (sourceId == null) {
 			return;
 		}
+		pollTags(Collections.singletonList(sourceId));
+	}
 
-		if (logger.isInfoEnabled()) {
-			logger.info("Querying for new Proficy events for tag " + sourceId);
-		}
+	/**
+	 * Get the time of the last sample read for this tag
+	 * 
+	 * @param tagName Tag name
+	 * @return Instant in time or null if not read yet
+	 */
+	public Instant getWatermark(String tagName) {
+		return tagWatermarks.get(tagName);
+	}
+
+	private Instant initializeWatermark(String tagName) throws Exception {
+		Instant watermark = pollingStartTime;
 
-		// query historian for new events
-		// get last event for any of these tags
 		if (!watchMode) {
-			// go to database
-			OeeEvent lastEvent = PersistenceService.instance().fetchLastEvent(sourceIds);
+			// go to database once for this tag
+			OeeEvent lastEvent = PersistenceService.instance().fetchLastEvent(Collections.singletonList(tagName));
 
 			if (lastEvent != null) {
-				pollingStartTime = lastEvent.getStartTime().toInstant();
+				watermark = lastEvent.getStartTime().toInstant();
 			}
 		}
+		tagWatermarks.put(tagName, watermark);
+		return watermark;
+	}
+
+	private synchronized void pollTags(List<String> tagNames) throws Exception {
+		if (tagNames == null || tagNames.isEmpty()) {
+			return;
+		}
+
+		if (logger.isInfoEnabled()) {
+			logger.info("Querying for new Proficy events for " + tagNames.size() + " tag(s)");
+		}
 
 		Instant end = Instant.now();
 
-		// fetch all events in this period. Start after the last poll
-		TagValues tagValues = readRawDatapoints(sourceIds, pollingStartTime.plus(1, ChronoUnit.MILLIS), end,
-				TagDirection.Forward, 0);
+		// samples for all tags in this poll
+		List<TimedSample> timedSamples = new ArrayList<>();
 
-		// find max time stamp
-		List<TagData> tagDataList = tagValues.getTagData();
+		// tags to query
+		List<String> pending = new ArrayList<>(tagNames);
+		int pages = 0;
 
-		Instant lastTimestamp = null;
+		while (!pending.isEmpty() && pages < MAX_PAGES) {
+			pages++;
 
-		for (TagData data : tagDataList) {
-			if (logger.isInfoEnabled() && !data.getSamples().isEmpty()) {
-				logger.info("Found " + data.getSamples().size() + " samples for tag " + data.getTagName());
+			// tags with the same watermark are queried together
+			Map<Instant, List<String>> watermarkGroups = new TreeMap<>();
+
+			for (String tagName : pending) {
+				Instant watermark = tagWatermarks.get(tagName);
+
+				if (watermark == null) {
+					watermark = initializeWatermark(tagName);
+				}
+				watermarkGroups.computeIfAbsent(watermark, k -> new ArrayList<>()).add(tagName);
 			}
+			pending.clear();
 
-			for (TagSample sample : data.getSamples()) {
-				Instant timestamp = sample.getTimeStampInstant();
+			for (Entry<Instant, List<String>> group : watermarkGroups.entrySet()) {
+				// fetch the samples after this watermark
+				TagValues tagValues = readRawDatapoints(group.getValue(), group.getKey().plus(1, ChronoUnit.MILLIS),
+						end, TagDirection.Forward, pageSize);
 
-				if (lastTimestamp == null || timestamp.isAfter(lastTimestamp)) {
-					lastTimestamp = timestamp;
+				for (TagData data : tagValues.getTagData()) {
+					List<TagSample> samples = data.getSamples();
+
+					if (samples == null || samples.isEmpty()) {
+						continue;
+					}
+
+					if (logger.isInfoEnabled()) {
+						logger.info("Found " + samples.size() + " samples for tag " + data.getTagName());
+					}
+
+					Instant watermark = tagWatermarks.get(data.getTagName());
+
+					for (TagSample sample : samples) {
+						Instant timestamp = sample.getTimeStampInstant();
+
+						if (timestamp == null) {
+							continue;
+						}
+
+						if (watermark == null || timestamp.isAfter(watermark)) {
+							watermark = timestamp;
+						}
+						timedSamples.add(new TimedSample(data, sample, timestamp));
+					}
+					tagWatermarks.put(data.getTagName(), watermark);
+
+					// a full page means that there could be more samples
+					if (pageSize != null && pageSize > 0 && samples.size() >= pageSize) {
+						pending.add(data.getTagName());
+					}
 				}
 			}
 		}
 
-		if (lastTimestamp != null) {
-			pollingStartTime = lastTimestamp;
+		if (timedSamples.isEmpty()) {
+			return;
 		}
 
-		// call the listener back
-		for (TagData tagData : tagDataList) {
-			if (!tagData.getSamples().isEmpty()) {
-				eventListener.onProficyEvent(tagData);
+		// dispatch in time stamp order with consecutive samples of a tag grouped
+		timedSamples.sort(Comparator.comparing(TimedSample::getTimestamp));
+
+		List<TagData> ordered = new ArrayList<>();
+		TagData current = null;
+
+		for (TimedSample timedSample : timedSamples) {
+			TagData source = timedSample.getTagData();
+
+			if (current == null || !current.getTagName().equals(source.getTagName())) {
+				current = new TagData(source.getTagName(), source.getDataType());
+				ordered.add(current);
 			}
+			current.getSamples().add(timedSample.getSample());
 		}
+
+		// call the listener back
+		eventListener.onProficyEvents(ordered);
+	}
+
+	public Integer getPageSize() {
+		return pageSize;
+	}
+
+	public void setPageSize(Integer pageSize) {
+		this.pageSize = pageSize;
 	}
 
 	public boolean isWatchMode() {
@@ -542,4 +650,29 @@ public class ProficyClient extends PollingClient {
 	public void setWatchMode(boolean watchMode) {
 		this.watchMode = watchMode;
 	}
+
+	// a sample and its tag
+	private static class TimedSample {
+		private final TagData tagData;
+		private final TagSample sample;
+		private final Instant timestamp;
+
+		private TimedSample(TagData tagData, TagSample sample, Instant timestamp) {
+			this.tagData = tagData;
+			this.sample = sample;
+			this.timestamp = timestamp;
+		}
+
+		private TagData getTagData() {
+			return tagData;
+		}
+
+		private TagSample getSample() {
+			return sample;
+		}
+
+		private Instant getTimestamp() {
+			return timestamp;
+		}
+	}
 }
@@ -1,5 +1,7 @@
 package org.point85.domain.proficy;
 
+import java.util.List;
+
 /**
  * Listener for Proficy tag value change
  *
@@ -11,4 +13,15 @@ public interface ProficyEventListener {
 	 * @param tagData {@link TagData}
 	 */
 	void onProficyEvent(TagData tagData);
+
+	/**
+	 * Callback for tag value changes in time stamp order
+	 * 
+	 * @param tagDataList List of {@link TagData}
+	 */
+	default void onProficyEvents(List<TagData> tagDataList) {
+		for (TagData tagData : tagDataList) {
+			onProficyEvent(tagData);
+		}
+	}
 }
@@ -27,6 +27,11 @@ public class TagData {
 		this.samples = new ArrayList<>();
 	}
 
+	public TagData(String tagName, String dataType) {
+		this(tagName);
+		this.dataType = dataType;
+	}
+
 	public String getTagName() {
 		return tagName;
 	}
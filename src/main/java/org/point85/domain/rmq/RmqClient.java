@@ -17,6 +17,7 @@ import org.point85.domain.messaging.BaseMessagingClient;
 import org.point85.domain.messaging.CollectorNotificationMessage;
 import org.point85.domain.messaging.MessageType;
 import org.point85.domain.messaging.NotificationSeverity;
+import org.point85.domain.messaging.WireFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -209,11 +210,18 @@ public class RmqClient extends BaseMessagingClient {
 			return;
 		}
 
-		// payload is JSON string
-		String payload = serialize(message);
+		// payload is UTF-8 JSON unless a binary format is configured
+		WireFormat format = getWireFormat();
+		byte[] payload = encode(message, format);
+
+		BasicProperties sendProperties = properties;
+
+		if (format.isBinary()) {
+			sendProperties = properties.builder().contentType(format.getContentType()).build();
+		}
 
 		// publish with this routing key
-		channel.basicPublish(EXCHANGE_NAME, routingKey, properties, payload.getBytes());
+		channel.basicPublish(EXCHANGE_NAME, routingKey, sendProperties, payload);
 	}
 
 	public void publish(ApplicationMessage message, RoutingKey routingKey, int ttlSec) throws Exception {
@@ -356,6 +364,16 @@ public class RmqClient extends BaseMessagingClient {
 		publish(message, RoutingKey.RESOLVED_EVENT, TTL_SEC);
 	}
 
+	/**
+	 * Send the entity changed message
+	 * 
+	 * @param message {@link ApplicationMessage}
+	 * @throws Exception Exception
+	 */
+	public void sendEntityChangedMessage(ApplicationMessage message) throws Exception {
+		publish(message, RoutingKey.ENTITY_CHANGED, TTL_SEC);
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(factory.getHost(), factory.getPort());
@@ -388,15 +406,24 @@ public class RmqClient extends BaseMessagingClient {
 		public void handleDelivery(String consumerTag, Envelope envelope, BasicProperties properties, byte[] body)
 				throws java.io.IOException {
 
-			// message type
+			// message type and encoding
 			MessageType type = MessageType.fromString(properties.getType());
+			WireFormat format = WireFormat.fromContentType(properties.getContentType());
+
+			ApplicationMessage message = null;
+
+			try {
+				message = decode(type, body, format);
+			} catch (Exception e) {
+				logger.error("Unable to decode " + format + " message of type " + type, e);
+				return;
+			}
 
-			String payload = new String(body);
-			ApplicationMessage message = deserialize(type, payload);
+			logger.debug("Received {} message of type {} from sender {} ({})", format, type,
+					message.getSenderHostName(), message.getSenderHostAddress());
 
-			if (logger.isInfoEnabled()) {
-				logger.info("Received message of type " + type + " from sender " + message.getSenderHostName() + " ("
-						+ message.getSenderHostAddress() + ")" + " payload: \n" + payload);
+			if (logger.isTraceEnabled() && !format.isBinary()) {
+				logger.trace("Payload: \n{}", new String(body, StandardCharsets.UTF_8));
 			}
 
 			if (listener != null) {
@@ -3,7 +3,8 @@ package org.point85.domain.rmq;
 public enum RoutingKey {
 	ALL("#"), EQUIPMENT_SOURCE_EVENT("equipment.event"), NOTIFICATION_ALL("notification.#"),
 	NOTIFICATION_MESSAGE("notification.msg"), NOTIFICATION_STATUS("notification.status"),
-	RESOLVED_EVENT("resolved.event"), COMMAND_MESSAGE("command.#");
+	RESOLVED_EVENT("resolved.event"), COMMAND_MESSAGE("command.#"),
+	ENTITY_CHANGED("entity.changed");
 
 	private String routingId;
 
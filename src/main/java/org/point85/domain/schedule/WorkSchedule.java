@@ -36,12 +36,15 @@ import java.util.List;
 import java.util.Objects;
 
 import javax.persistence.AttributeOverride;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.point85.domain.dto.BreakDto;
 import org.point85.domain.dto.ExceptionPeriodDto;
 import org.point85.domain.dto.RotationDto;
@@ -50,6 +53,7 @@ import org.point85.domain.dto.TeamDto;
 import org.point85.domain.dto.WorkScheduleDto;
 import org.point85.domain.i18n.DomainLocalizer;
 import org.point85.domain.oee.TimeLoss;
+import org.point85.domain.persistence.ReferenceCache;
 import org.point85.domain.plant.NamedObject;
 
 /**
@@ -63,6 +67,8 @@ import org.point85.domain.plant.NamedObject;
 @Entity
 @Table(name = "WORK_SCHEDULE")
 @AttributeOverride(name = "primaryKey", column = @Column(name = "WS_KEY"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ReferenceCache.REGION)
 
 public class WorkSchedule extends NamedObject {
 	// cached UTC time zone for working time calculations
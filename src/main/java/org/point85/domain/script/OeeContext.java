@@ -1,7 +1,6 @@
 package org.point85.domain.script;
 
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -99,20 +98,20 @@ public class OeeContext {
 		contextMap.put(MATL_KEY, new ConcurrentHashMap<Equipment, Material>());
 		contextMap.put(JOB_KEY, new ConcurrentHashMap<Equipment, String>());
 
-		setOpcDaClients(new HashSet<>());
-		setOpcUaClients(new HashSet<>());
-		setMessagingClients(new HashSet<>());
-		setJMSClients(new HashSet<>());
-		setKafkaClients(new HashSet<>());
-		setEmailClients(new HashSet<>());
-		setMQTTClients(new HashSet<>());
-		setHttpServers(new HashSet<>());
-		setDatabaseEventClients(new HashSet<>());
-		setFileEventClients(new HashSet<>());
-		setCronEventClients(new HashSet<>());
-		setModbusMasters(new HashSet<>());
-		setProficyClients(new HashSet<>());
-		setWebSocketClients(new HashSet<>());
+		setOpcDaClients(ConcurrentHashMap.newKeySet());
+		setOpcUaClients(ConcurrentHashMap.newKeySet());
+		setMessagingClients(ConcurrentHashMap.newKeySet());
+		setJMSClients(ConcurrentHashMap.newKeySet());
+		setKafkaClients(ConcurrentHashMap.newKeySet());
+		setEmailClients(ConcurrentHashMap.newKeySet());
+		setMQTTClients(ConcurrentHashMap.newKeySet());
+		setHttpServers(ConcurrentHashMap.newKeySet());
+		setDatabaseEventClients(ConcurrentHashMap.newKeySet());
+		setFileEventClients(ConcurrentHashMap.newKeySet());
+		setCronEventClients(ConcurrentHashMap.newKeySet());
+		setModbusMasters(ConcurrentHashMap.newKeySet());
+		setProficyClients(ConcurrentHashMap.newKeySet());
+		setWebSocketClients(ConcurrentHashMap.newKeySet());
 	}
 
 	/**
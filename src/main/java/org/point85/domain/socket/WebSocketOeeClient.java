@@ -115,9 +115,7 @@ public class WebSocketOeeClient extends WebSocketClient {
 	 */
 	@Override
 	public void onMessage(String message) {
-		if (logger.isInfoEnabled()) {
-			logger.info("received message: " + message);
-		}
+		logger.trace("received message: {}", message);
 
 		// call the listener
 		try {
@@ -4,7 +4,21 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyStore;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
@@ -12,16 +26,26 @@ import javax.net.ssl.SSLParameters;
 import javax.net.ssl.TrustManagerFactory;
 
 import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.enums.ReadyState;
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.framing.Framedata;
 import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.handshake.ServerHandshakeBuilder;
 import org.java_websocket.server.DefaultSSLWebSocketServerFactory;
 import org.java_websocket.server.SSLParametersWebSocketServerFactory;
 import org.java_websocket.server.WebSocketServer;
 import org.point85.domain.messaging.ApplicationMessage;
+import org.point85.domain.messaging.CollectorResolvedEventMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A web socket server for OEE messages
+ * A web socket server for OEE messages. Besides receiving equipment events, the
+ * server pushes resolved event and status messages to its clients. A client
+ * can restrict the equipment it hears about with an "equipment" query parameter
+ * in its URI, e.g. ws://host:port/?equipment=Press1,Press2
  */
 public class WebSocketOeeServer extends WebSocketServer {
 	// logger
@@ -35,6 +59,30 @@ public class WebSocketOeeServer extends WebSocketServer {
 	private static final String KEY_ALG = "SunX509";
 	private static final String SSL_PROTOCOL = "TLS";
 
+	// query parameter for the equipment filter
+	public static final String EQUIPMENT_PARAM = "equipment";
+
+	// default number of messages pending per client
+	public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+	// frames buffered in a socket before it is treated as slow
+	private static final int MAX_BUFFERED_FRAMES = 64;
+
+	// wait before retrying a slow socket (msec)
+	private static final long SLOW_RETRY_MSEC = 50;
+
+	/**
+	 * What to do with a client's pending messages when it cannot keep up
+	 */
+	public enum SlowConsumerPolicy {
+		// discard the oldest pending message
+		DROP,
+
+		// replace a pending message of the same type and equipment, else discard
+		// the oldest
+		CONFLATE
+	}
+
 	// listener to call back when a message is received
 	private WebSocketMessageListener eventListener;
 
@@ -44,6 +92,20 @@ public class WebSocketOeeServer extends WebSocketServer {
 	// source
 	private WebSocketSource source;
 
+	// pending messages per client
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+	private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.CONFLATE;
+
+	// sends queued messages to clients
+	private ScheduledExecutorService sender;
+
+	// messages not delivered to slow clients
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	// clients by socket, added when the handshake is accepted
+	private final Map<WebSocket, Subscriber> subscribers = new ConcurrentHashMap<>();
+
 	/**
 	 * Constructor from web socket source definition
 	 * 
@@ -85,6 +147,28 @@ public class WebSocketOeeServer extends WebSocketServer {
 		return info;
 	}
 
+	/**
+	 * Called when a client's handshake is accepted, before the response is sent.
+	 * The client is subscribed here because the server only opens the socket
+	 * after queuing the response, so a client could otherwise miss the messages
+	 * broadcast right after it connects.
+	 * 
+	 * @param socket  {@link WebSocket}
+	 * @param draft   {@link Draft}
+	 * @param request {@link ClientHandshake}
+	 * @return {@link ServerHandshakeBuilder}
+	 * @throws InvalidDataException InvalidDataException
+	 */
+	@Override
+	public ServerHandshakeBuilder onWebsocketHandshakeReceivedAsServer(WebSocket socket, Draft draft,
+			ClientHandshake request) throws InvalidDataException {
+		ServerHandshakeBuilder response = super.onWebsocketHandshakeReceivedAsServer(socket, draft, request);
+
+		subscribers.put(socket, new Subscriber(parseEquipmentFilter(request.getResourceDescriptor())));
+
+		return response;
+	}
+
 	/**
 	 * Called when socket is opened
 	 * 
@@ -99,6 +183,33 @@ public class WebSocketOeeServer extends WebSocketServer {
 		}
 	}
 
+	// null if all equipment
+	private Set<String> parseEquipmentFilter(String resourceDescriptor) {
+		String query = URI.create(resourceDescriptor).getRawQuery();
+
+		if (query == null) {
+			return null;
+		}
+
+		for (String param : query.split("&")) {
+			String[] pair = param.split("=", 2);
+
+			if (pair.length == 2 && pair[0].equals(EQUIPMENT_PARAM)) {
+				Set<String> names = new HashSet<>();
+
+				for (String name : pair[1].split(",")) {
+					String decoded = URLDecoder.decode(name, StandardCharsets.UTF_8).trim();
+
+					if (!decoded.isEmpty()) {
+						names.add(decoded);
+					}
+				}
+				return names.isEmpty() ? null : names;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Callback when socket is closed
 	 * 
@@ -114,6 +225,12 @@ public class WebSocketOeeServer extends WebSocketServer {
 			logger.info("onClose(): " + getSocketInfo(socket) + " has disconnected.  Code = " + code + ", reason: "
 					+ reason);
 		}
+
+		Subscriber subscriber = subscribers.remove(socket);
+
+		if (subscriber != null) {
+			subscriber.clear();
+		}
 	}
 
 	/**
@@ -163,6 +280,12 @@ public class WebSocketOeeServer extends WebSocketServer {
 	public void onStart() {
 		setConnectionLostTimeout(CONN_LOST_TO_SEC);
 
+		sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "WebSocket-Sender-" + source.getPort());
+			thread.setDaemon(true);
+			return thread;
+		});
+
 		if (logger.isInfoEnabled()) {
 			logger.info("onStart(): Web socket server started on " + source.getHost() + ":" + source.getPort()
 					+ ", connection time out: " + CONN_LOST_TO_SEC + " sec.");
@@ -187,6 +310,214 @@ public class WebSocketOeeServer extends WebSocketServer {
 	public void shutdown() throws Exception {
 		stop();
 		isStarted = false;
+		subscribers.clear();
+
+		if (sender != null) {
+			sender.shutdownNow();
+			sender = null;
+		}
+	}
+
+	/**
+	 * Push a message to the clients subscribed to it. The message is serialized
+	 * and framed once for all clients. Resolved events only go to clients whose
+	 * equipment filter includes the event's equipment.
+	 * 
+	 * @param message {@link ApplicationMessage}
+	 */
+	public void broadcast(ApplicationMessage message) {
+		ScheduledExecutorService executor = sender;
+
+		if (executor == null) {
+			return;
+		}
+
+		String equipmentName = null;
+
+		if (message instanceof CollectorResolvedEventMessage) {
+			equipmentName = ((CollectorResolvedEventMessage) message).getEquipmentName();
+		}
+
+		Outbound outbound = null;
+
+		for (Map.Entry<WebSocket, Subscriber> entry : subscribers.entrySet()) {
+			WebSocket socket = entry.getKey();
+			Subscriber subscriber = entry.getValue();
+
+			if (socket.isClosing() || socket.isClosed()) {
+				// closed before it opened, so there is no close callback
+				subscribers.remove(socket);
+				continue;
+			}
+
+			if (!subscriber.accepts(equipmentName)) {
+				continue;
+			}
+
+			if (outbound == null) {
+				outbound = new Outbound(WebSocketUtils.serialize(message),
+						message.getMessageType() + ":" + equipmentName);
+			}
+
+			if (subscriber.offer(outbound)) {
+				executor.execute(() -> drain(socket, subscriber));
+			}
+		}
+	}
+
+	// send a client's pending messages while its socket keeps up
+	private void drain(WebSocket socket, Subscriber subscriber) {
+		try {
+			while (socket.isOpen() || socket.getReadyState() == ReadyState.NOT_YET_CONNECTED) {
+				if (!socket.isOpen() || isSlow(socket)) {
+					// not open yet or a slow client, let its queue drop or conflate and try later
+					ScheduledExecutorService executor = sender;
+
+					if (executor != null) {
+						executor.schedule(() -> drain(socket, subscriber), SLOW_RETRY_MSEC, TimeUnit.MILLISECONDS);
+					}
+					return;
+				}
+
+				Outbound outbound = subscriber.poll();
+
+				if (outbound == null) {
+					return;
+				}
+				socket.sendFrame(outbound.getFrames(socket.getDraft()));
+			}
+			subscriber.clear();
+		} catch (Exception e) {
+			subscriber.clear();
+			logger.error("Unable to send to " + getSocketInfo(socket) + ": " + e.getMessage());
+		}
+	}
+
+	private boolean isSlow(WebSocket socket) {
+		return socket instanceof WebSocketImpl && ((WebSocketImpl) socket).outQueue.size() >= MAX_BUFFERED_FRAMES;
+	}
+
+	/**
+	 * Get the number of clients that receive broadcast messages
+	 * 
+	 * @return Subscriber count
+	 */
+	public int getSubscriberCount() {
+		return subscribers.size();
+	}
+
+	/**
+	 * Get the number of messages dropped or conflated for slow clients
+	 * 
+	 * @return Dropped count
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 * Set the number of messages that can be pending for each client. Applies to
+	 * clients that connect afterwards.
+	 * 
+	 * @param queueCapacity Capacity
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	public SlowConsumerPolicy getSlowConsumerPolicy() {
+		return slowConsumerPolicy;
+	}
+
+	public void setSlowConsumerPolicy(SlowConsumerPolicy slowConsumerPolicy) {
+		this.slowConsumerPolicy = slowConsumerPolicy;
+	}
+
+	// a serialized message shared by all clients
+	private static class Outbound {
+		private final String json;
+
+		// conflation key
+		private final String key;
+
+		// frames by protocol draft
+		private final Map<Draft, List<Framedata>> frames = new ConcurrentHashMap<>();
+
+		private Outbound(String json, String key) {
+			this.json = json;
+			this.key = key;
+		}
+
+		private List<Framedata> getFrames(Draft draft) {
+			return frames.computeIfAbsent(draft, d -> d.createFrames(json, false));
+		}
+	}
+
+	// a client's equipment filter and pending messages
+	private class Subscriber {
+		private final Set<String> equipmentNames;
+
+		private final int capacity = queueCapacity;
+
+		// pending messages in arrival order
+		private final LinkedHashMap<Object, Outbound> pending = new LinkedHashMap<>();
+
+		// unique keys when not conflating
+		private long sequence = 0;
+
+		// a drain is scheduled or running
+		private boolean draining = false;
+
+		private Subscriber(Set<String> equipmentNames) {
+			this.equipmentNames = equipmentNames;
+		}
+
+		private boolean accepts(String equipmentName) {
+			return equipmentNames == null || equipmentName == null || equipmentNames.contains(equipmentName);
+		}
+
+		// returns true if a drain needs to be scheduled
+		private synchronized boolean offer(Outbound outbound) {
+			Object key = slowConsumerPolicy == SlowConsumerPolicy.CONFLATE ? outbound.key : sequence++;
+
+			if (pending.remove(key) != null) {
+				// superseded by the newer message
+				droppedCount.incrementAndGet();
+			} else if (pending.size() >= capacity) {
+				Iterator<Outbound> iter = pending.values().iterator();
+				iter.next();
+				iter.remove();
+				droppedCount.incrementAndGet();
+			}
+			pending.put(key, outbound);
+
+			if (draining) {
+				return false;
+			}
+			draining = true;
+			return true;
+		}
+
+		private synchronized Outbound poll() {
+			Iterator<Outbound> iter = pending.values().iterator();
+
+			if (!iter.hasNext()) {
+				draining = false;
+				return null;
+			}
+			Outbound outbound = iter.next();
+			iter.remove();
+			return outbound;
+		}
+
+		private synchronized void clear() {
+			pending.clear();
+			draining = false;
+		}
 	}
 
 	/**
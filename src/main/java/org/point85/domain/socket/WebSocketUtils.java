@@ -1,11 +1,14 @@
 package org.point85.domain.socket;
 
+import java.nio.charset.StandardCharsets;
+
 import org.point85.domain.i18n.DomainLocalizer;
 import org.point85.domain.messaging.ApplicationMessage;
 import org.point85.domain.messaging.CollectorCommandMessage;
 import org.point85.domain.messaging.CollectorNotificationMessage;
 import org.point85.domain.messaging.CollectorResolvedEventMessage;
 import org.point85.domain.messaging.CollectorServerStatusMessage;
+import org.point85.domain.messaging.EquipmentEventBatchMessage;
 import org.point85.domain.messaging.EquipmentEventMessage;
 import org.point85.domain.messaging.MessageType;
 
@@ -30,8 +33,10 @@ public class WebSocketUtils {
 	 * @return JSON string
 	 */
 	public static String serialize(ApplicationMessage message) {
-		// payload is JSON string
-		return gson.toJson(message);
+		// reuse the payload if a messaging client has already encoded it
+		byte[] payload = message.getEncodedPayload();
+
+		return payload != null ? new String(payload, StandardCharsets.UTF_8) : gson.toJson(message);
 	}
 
 	private static ApplicationMessage deserialize(MessageType type, String payload) {
@@ -58,6 +63,10 @@ public class WebSocketUtils {
 			message = gson.fromJson(payload, CollectorCommandMessage.class);
 			break;
 
+		case EQUIPMENT_EVENT_BATCH:
+			message = gson.fromJson(payload, EquipmentEventBatchMessage.class);
+			break;
+
 		default:
 			break;
 		}
@@ -75,12 +84,24 @@ public class WebSocketUtils {
 	public static ApplicationMessage deserialize(String json) throws Exception {
 		ApplicationMessage appMessage = null;
 
-		if (json.contains(MessageType.EQUIPMENT_EVENT.name())) {
+		if (json.contains(MessageType.EQUIPMENT_EVENT_BATCH.name())) {
+			// batch of equipment events, checked first since its name contains EQUIPMENT_EVENT
+			appMessage = deserialize(MessageType.EQUIPMENT_EVENT_BATCH, json);
+		} else if (json.contains(MessageType.EQUIPMENT_EVENT.name())) {
 			// equipment event
 			appMessage = deserialize(MessageType.EQUIPMENT_EVENT, json);
 		} else if (json.contains(MessageType.COMMAND.name())) {
 			// command
 			appMessage = deserialize(MessageType.COMMAND, json);
+		} else if (json.contains(MessageType.RESOLVED_EVENT.name())) {
+			// resolved event pushed by a server
+			appMessage = deserialize(MessageType.RESOLVED_EVENT, json);
+		} else if (json.contains(MessageType.STATUS.name())) {
+			// status pushed by a server
+			appMessage = deserialize(MessageType.STATUS, json);
+		} else if (json.contains(MessageType.NOTIFICATION.name())) {
+			// notification pushed by a server
+			appMessage = deserialize(MessageType.NOTIFICATION, json);
 		} else {
 			throw new Exception(DomainLocalizer.instance().getErrorString("invalid.ws.message", json));
 		}
@@ -34,6 +34,7 @@ import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 
 import javax.persistence.AttributeOverride;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -44,9 +45,12 @@ import javax.persistence.OneToOne;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.point85.domain.dto.UnitOfMeasureDto;
 import org.point85.domain.i18n.DomainLocalizer;
 import org.point85.domain.persistence.PersistenceService;
+import org.point85.domain.persistence.ReferenceCache;
 import org.point85.domain.plant.NamedObject;
 
 /**
@@ -100,6 +104,8 @@ import org.point85.domain.plant.NamedObject;
 @Entity
 @Table(name = "UOM")
 @AttributeOverride(name = "primaryKey", column = @Column(name = "UOM_KEY"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ReferenceCache.REGION)
 
 public class UnitOfMeasure extends NamedObject {
 	// root UOM (not persistent)
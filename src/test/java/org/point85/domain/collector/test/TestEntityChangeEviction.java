@@ -0,0 +1,85 @@
+package org.point85.domain.collector.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.point85.domain.collector.CollectorService;
+import org.point85.domain.collector.EntityChangePublisher;
+import org.point85.domain.messaging.EntityChangedMessage;
+import org.point85.domain.messaging.MessageCodec;
+import org.point85.domain.messaging.MessageType;
+import org.point85.domain.messaging.WireFormat;
+import org.point85.domain.persistence.PersistenceService;
+import org.point85.domain.plant.Equipment;
+import org.point85.domain.plant.EquipmentEventResolver;
+import org.point85.domain.plant.KeyedObject;
+import org.point85.domain.plant.Material;
+import org.point85.domain.plant.Reason;
+
+public class TestEntityChangeEviction {
+	private static Reason jam;
+	private static Reason starved;
+	private static Material cola;
+	private static Equipment filler;
+	private static Equipment capper;
+
+	@BeforeClass
+	public static void createEntities() throws Exception {
+		System.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+		PersistenceService.instance().initialize("jdbc:hsqldb:mem:entity-change", "SA", "");
+
+		jam = (Reason) PersistenceService.instance().save(new Reason("Jam", "jammed"));
+		starved = (Reason) PersistenceService.instance().save(new Reason("Starved", "no input"));
+		cola = (Material) PersistenceService.instance().save(new Material("Cola", "cola"));
+		filler = (Equipment) PersistenceService.instance().save(new Equipment("Filler", "filler"));
+		capper = (Equipment) PersistenceService.instance().save(new Equipment("Capper", "capper"));
+	}
+
+	@AfterClass
+	public static void close() {
+		PersistenceService.instance().close();
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		CollectorService collector = new CollectorService(true);
+		EquipmentEventResolver resolver = collector.getEquipmentResolver();
+
+		resolver.findReason("Jam");
+		resolver.findReason("Starved");
+		resolver.findMaterial("Cola");
+		collector.fetchEquipment("Filler");
+		collector.fetchEquipment("Capper");
+
+		// a renamed reason is evicted by key from under its old name
+		jam.setName("Jammed");
+		collector.evictChangedEntity(publish(jam, false));
+		assertFalse(resolver.getCachedReasonNames().contains("Jam"));
+		assertTrue(resolver.getCachedReasonNames().contains("Starved"));
+
+		collector.evictChangedEntity(publish(cola, true));
+		assertTrue(resolver.getCachedMaterialNames().isEmpty());
+
+		collector.evictChangedEntity(publish(filler, false));
+		assertFalse(collector.getCachedEquipmentNames().contains("Filler"));
+		assertTrue(collector.getCachedEquipmentNames().contains("Capper"));
+
+		// fetched again on the next use
+		assertEquals(filler.getKey(), collector.fetchEquipment("Filler").getKey());
+		assertEquals(starved.getKey(), resolver.findReason("Starved").getKey());
+		assertEquals(capper.getKey(), collector.fetchEquipment("Capper").getKey());
+	}
+
+	// the message as a collector receives it
+	private EntityChangedMessage publish(KeyedObject entity, boolean deleted) throws Exception {
+		EntityChangedMessage message = new EntityChangePublisher().createMessage(entity, deleted);
+		message.validate();
+
+		byte[] payload = MessageCodec.encode(message, WireFormat.SMILE);
+		return (EntityChangedMessage) MessageCodec.decode(payload, WireFormat.SMILE, MessageType.ENTITY_CHANGED);
+	}
+}
@@ -0,0 +1,71 @@
+package org.point85.domain.db.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.point85.domain.db.DatabaseEvent;
+import org.point85.domain.db.DatabaseEventStatus;
+import org.point85.domain.persistence.PersistenceService;
+
+public class TestDatabaseEventClaim {
+	private static PersistenceService persistenceService;
+
+	@BeforeClass
+	public static void connect() throws Exception {
+		System.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+		persistenceService = PersistenceService.create();
+		persistenceService.connectToDatabaseEventServer("jdbc:hsqldb:mem:event-claim", "SA", "");
+	}
+
+	@AfterClass
+	public static void close() {
+		System.clearProperty(PersistenceService.CLAIM_LEASE_PROPERTY);
+		persistenceService.close();
+	}
+
+	@Test
+	public void testClaimAndLease() throws Exception {
+		OffsetDateTime now = OffsetDateTime.now();
+
+		for (int i = 0; i < 3; i++) {
+			createEvent("Filler", now.plusSeconds(i));
+		}
+		createEvent("Capper", now);
+
+		// claimed in event time order, once
+		List<DatabaseEvent> first = persistenceService.claimDatabaseEvents("Filler", 2);
+		assertEquals(2, first.size());
+		assertEquals(now.toEpochSecond(), first.get(0).getEventTime().toEpochSecond());
+		assertEquals(1, persistenceService.claimDatabaseEvents("Filler", 10).size());
+		assertTrue(persistenceService.claimDatabaseEvents("Filler", 10).isEmpty());
+		assertEquals(3, persistenceService.fetchDatabaseEvents(DatabaseEventStatus.PROCESSING, "Filler").size());
+
+		// finish one of the claims
+		first.get(0).setStatus(DatabaseEventStatus.PASS);
+		persistenceService.saveDatabaseEventStatus(first.subList(0, 1));
+
+		// the unfinished claims lapse, and only they are claimed again
+		System.setProperty(PersistenceService.CLAIM_LEASE_PROPERTY, "0");
+		Thread.sleep(1100);
+
+		assertEquals(2, persistenceService.claimDatabaseEvents("Filler", 10).size());
+		assertEquals(1, persistenceService.fetchDatabaseEvents(DatabaseEventStatus.PASS, "Filler").size());
+
+		// other sources are not affected
+		assertEquals(1, persistenceService.claimDatabaseEvents("Capper", 10).size());
+	}
+
+	private void createEvent(String sourceId, OffsetDateTime eventTime) throws Exception {
+		DatabaseEvent event = new DatabaseEvent();
+		event.setSourceId(sourceId);
+		event.setInputValue("1");
+		event.setEventTime(eventTime);
+		persistenceService.save(event);
+	}
+}
@@ -0,0 +1,171 @@
+package org.point85.domain.http.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.point85.domain.collector.OeeEvent;
+import org.point85.domain.http.OeeHttpServer;
+import org.point85.domain.persistence.PersistenceService;
+import org.point85.domain.plant.Equipment;
+import org.point85.domain.plant.KeyedObject;
+import org.point85.domain.script.OeeEventType;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class TestEventPaging {
+	// more than two pages of the servlet's page size
+	private static final int PRESS_EVENTS = 2500;
+
+	// exactly one page
+	private static final int CAPPER_EVENTS = 1000;
+
+	private static OeeHttpServer server;
+	private static int port;
+
+	@BeforeClass
+	public static void startServer() throws Exception {
+		System.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+		PersistenceService.instance().initialize("jdbc:hsqldb:mem:event-paging", "SA", "");
+
+		createEvents("Press", PRESS_EVENTS);
+		createEvents("Capper", CAPPER_EVENTS);
+
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+
+		server = new OeeHttpServer(port);
+		server.startup();
+	}
+
+	@AfterClass
+	public static void stopServer() throws Exception {
+		server.shutdown();
+		PersistenceService.instance().close();
+	}
+
+	@Test
+	public void testAllEvents() throws Exception {
+		// streamed across page boundaries in one response
+		JsonObject page = get("Press", null, null);
+
+		assertInOrder(page, 0, PRESS_EVENTS);
+		assertNull(page.get("next"));
+	}
+
+	@Test
+	public void testLimitAndCursor() throws Exception {
+		List<Integer> sizes = new ArrayList<>();
+		String next = null;
+		int count = 0;
+
+		do {
+			JsonObject page = get("Press", 1000, next);
+			assertInOrder(page, count, page.getAsJsonArray("eventList").size());
+
+			count += page.getAsJsonArray("eventList").size();
+			sizes.add(page.getAsJsonArray("eventList").size());
+			next = page.has("next") ? page.get("next").getAsString() : null;
+		} while (next != null);
+
+		assertEquals(PRESS_EVENTS, count);
+		assertEquals(List.of(1000, 1000, 500), sizes);
+	}
+
+	@Test
+	public void testLimitOfAllEvents() throws Exception {
+		// no cursor to an empty page
+		JsonObject page = get("Capper", CAPPER_EVENTS, null);
+
+		assertInOrder(page, 0, CAPPER_EVENTS);
+		assertNull(page.get("next"));
+
+		// one short of all events
+		page = get("Capper", CAPPER_EVENTS - 1, null);
+		assertNotNull(page.get("next"));
+
+		JsonObject last = get("Capper", CAPPER_EVENTS, page.get("next").getAsString());
+		assertInOrder(last, CAPPER_EVENTS - 1, 1);
+		assertNull(last.get("next"));
+	}
+
+	@Test
+	public void testInvalidCursor() throws Exception {
+		HttpURLConnection connection = open("Press", 10, "not-a-cursor");
+		assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, connection.getResponseCode());
+		connection.disconnect();
+	}
+
+	// several events share each start time, so pages also break within a time
+	private static void createEvents(String equipmentName, int count) throws Exception {
+		Equipment equipment = (Equipment) PersistenceService.instance()
+				.save(new Equipment(equipmentName, equipmentName));
+		OffsetDateTime start = OffsetDateTime.now().minusDays(1).withNano(0);
+
+		List<KeyedObject> events = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			OeeEvent event = new OeeEvent(equipment);
+			event.setEventType(OeeEventType.AVAILABILITY);
+			event.setStartTime(start.plusSeconds(i / 3));
+			event.setInputValue(String.valueOf(i));
+			events.add(event);
+		}
+		PersistenceService.instance().save(events);
+	}
+
+	private static void assertInOrder(JsonObject page, int first, int count) {
+		List<JsonElement> events = new ArrayList<>();
+		page.getAsJsonArray("eventList").forEach(events::add);
+
+		assertEquals(count, events.size());
+
+		for (int i = 0; i < count; i++) {
+			assertEquals(String.valueOf(first + i), events.get(i).getAsJsonObject().get("input").getAsString());
+		}
+	}
+
+	private JsonObject get(String equipmentName, Integer limit, String after) throws Exception {
+		HttpURLConnection connection = open(equipmentName, limit, after);
+		assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+
+		try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+			return JsonParser.parseReader(reader).getAsJsonObject();
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	private HttpURLConnection open(String equipmentName, Integer limit, String after) throws Exception {
+		StringBuilder sb = new StringBuilder("http://localhost:").append(port).append('/')
+				.append(OeeHttpServer.EVENTS_EP).append('?').append(OeeHttpServer.EQUIP_ATTRIB).append('=')
+				.append(equipmentName);
+
+		if (limit != null) {
+			sb.append('&').append(OeeHttpServer.LIMIT_ATTRIB).append('=').append(limit);
+		}
+
+		if (after != null) {
+			sb.append('&').append(OeeHttpServer.AFTER_ATTRIB).append('=')
+					.append(URLEncoder.encode(after, StandardCharsets.UTF_8.name()));
+		}
+		return (HttpURLConnection) new URL(sb.toString()).openConnection();
+	}
+}
@@ -0,0 +1,145 @@
+package org.point85.domain.http.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.point85.domain.dto.EquipmentEventRequestDto;
+import org.point85.domain.http.OeeHttpServer;
+
+import com.google.gson.Gson;
+
+public class TestHttpEventIngestion {
+	private static final long WAIT_SEC = 10;
+
+	private final Gson gson = new Gson();
+
+	private OeeHttpServer server;
+	private int port;
+
+	// values received per equipment
+	private final Map<String, List<String>> received = new ConcurrentHashMap<>();
+
+	private volatile CountDownLatch latch;
+
+	@Before
+	public void startServer() throws Exception {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+
+		server = new OeeHttpServer(port);
+		OeeHttpServer.setDataChangeListener(dto -> {
+			received.computeIfAbsent(dto.getEquipmentName(), name -> new CopyOnWriteArrayList<>()).add(dto.getValue());
+			latch.countDown();
+		});
+		server.setAcceptingEventRequests(true);
+		server.startup();
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		server.setAsyncEvents(false);
+		server.shutdown();
+	}
+
+	@Test
+	public void testBatchOrdering() throws Exception {
+		final int count = 200;
+		latch = new CountDownLatch(2 * count);
+
+		List<EquipmentEventRequestDto> dtos = new ArrayList<>();
+
+		for (int i = 0; i < count; i++) {
+			dtos.add(createEvent("Press1", i));
+			dtos.add(createEvent("Press2", i));
+		}
+
+		assertEquals(HttpURLConnection.HTTP_OK, post(OeeHttpServer.EVENT_BATCH_EP, gson.toJson(dtos)));
+		assertTrue(latch.await(WAIT_SEC, TimeUnit.SECONDS));
+
+		// each equipment's events are processed in order
+		for (String name : new String[] { "Press1", "Press2" }) {
+			List<String> values = received.get(name);
+			assertEquals(count, values.size());
+
+			for (int i = 0; i < count; i++) {
+				assertEquals(String.valueOf(i), values.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void testAsyncAccepted() throws Exception {
+		latch = new CountDownLatch(1);
+		server.setAsyncEvents(true);
+
+		EquipmentEventRequestDto dto = createEvent("Press3", 1);
+		dto.setImmediate(true);
+
+		assertEquals(HttpURLConnection.HTTP_ACCEPTED, post(OeeHttpServer.EVENT_EP, gson.toJson(dto)));
+		assertTrue(latch.await(WAIT_SEC, TimeUnit.SECONDS));
+		assertEquals("1", received.get("Press3").get(0));
+	}
+
+	@Test
+	public void testInvalidBatch() throws Exception {
+		List<EquipmentEventRequestDto> dtos = new ArrayList<>();
+		dtos.add(createEvent("Press4", 1));
+
+		// no source or equipment
+		dtos.add(new EquipmentEventRequestDto());
+
+		assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, post(OeeHttpServer.EVENT_BATCH_EP, gson.toJson(dtos)));
+		assertEquals(null, received.get("Press4"));
+	}
+
+	@Test
+	public void testFullLaneRejectsBatch() throws Exception {
+		// more events for one equipment than its lane can hold
+		List<EquipmentEventRequestDto> dtos = new ArrayList<>();
+		for (int i = 0; i < 10001; i++) {
+			dtos.add(createEvent("Press5", i));
+		}
+
+		assertEquals(HttpURLConnection.HTTP_UNAVAILABLE, post(OeeHttpServer.EVENT_BATCH_EP, gson.toJson(dtos)));
+		assertEquals(null, received.get("Press5"));
+	}
+
+	private EquipmentEventRequestDto createEvent(String equipmentName, int value) {
+		EquipmentEventRequestDto dto = new EquipmentEventRequestDto();
+		dto.setEquipmentName(equipmentName);
+		dto.setValue(String.valueOf(value));
+		return dto;
+	}
+
+	private int post(String endpoint, String body) throws Exception {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/" + endpoint)
+				.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setRequestProperty("Content-Type", "application/json");
+
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(body.getBytes(StandardCharsets.UTF_8));
+		}
+		int code = connection.getResponseCode();
+		connection.disconnect();
+		return code;
+	}
+}
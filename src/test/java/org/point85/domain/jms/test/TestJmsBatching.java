@@ -0,0 +1,194 @@
+package org.point85.domain.jms.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.BytesMessage;
+import javax.jms.Connection;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.point85.domain.jms.JmsClient;
+import org.point85.domain.messaging.ApplicationMessage;
+import org.point85.domain.messaging.CollectorNotificationMessage;
+import org.point85.domain.messaging.WireFormat;
+
+import com.google.gson.Gson;
+
+public class TestJmsBatching {
+	private static final String QUEUE = "Point85_Test";
+	private static final String STATUS_TOPIC = "Point85_Status";
+	private static final long RECEIVE_MSEC = 2000;
+
+	private BrokerService broker;
+	private int port;
+
+	private Connection connection;
+	private Session session;
+	private MessageConsumer consumer;
+
+	@Before
+	public void startBroker() throws Exception {
+		broker = new BrokerService();
+		broker.setPersistent(false);
+		broker.setUseJmx(false);
+		port = broker.addConnector("tcp://localhost:0").getUri().getPort();
+		broker.start();
+		broker.waitUntilStarted();
+
+		// independent consumer
+		connection = new ActiveMQConnectionFactory("tcp://localhost:" + port).createConnection();
+		connection.start();
+		session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+		consumer = session.createConsumer(session.createQueue(QUEUE));
+	}
+
+	@After
+	public void stopBroker() throws Exception {
+		connection.close();
+		broker.stop();
+		broker.waitUntilStopped();
+	}
+
+	@Test
+	public void testCachedProducer() throws Exception {
+		JmsClient client = new JmsClient();
+		client.connect("localhost", port, null, null);
+
+		for (int i = 0; i < 10; i++) {
+			client.sendToQueue(createMessage(i), QUEUE, 60);
+		}
+
+		// one producer for all of the sends
+		assertEquals(1, broker.getDestination(new ActiveMQQueue(QUEUE)).getDestinationStatistics().getProducers()
+				.getCount());
+
+		assertEquals(10, receive(10));
+		client.disconnect();
+	}
+
+	@Test
+	public void testBatchCommit() throws Exception {
+		JmsClient client = new JmsClient();
+		client.connect("localhost", port, null, null);
+		client.setBatching(5, 60000);
+
+		for (int i = 0; i < 4; i++) {
+			client.sendToQueue(createMessage(i), QUEUE, 60);
+		}
+
+		// not committed yet
+		assertNull(consumer.receive(500));
+
+		// the fifth message completes the batch
+		client.sendToQueue(createMessage(4), QUEUE, 60);
+		assertEquals(5, receive(5));
+
+		// a partial batch is committed on flush
+		for (int i = 0; i < 3; i++) {
+			client.sendToQueue(createMessage(i), QUEUE, 60);
+		}
+		client.flush();
+		assertEquals(3, receive(3));
+
+		client.disconnect();
+	}
+
+	@Test
+	public void testBatchTimeout() throws Exception {
+		JmsClient client = new JmsClient();
+		client.connect("localhost", port, null, null);
+		client.setBatching(100, 200);
+
+		List<ApplicationMessage> messages = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			messages.add(createMessage(i));
+		}
+
+		for (ApplicationMessage message : messages) {
+			client.sendToQueue(message, QUEUE, 60);
+		}
+
+		// committed by the batch timer
+		assertEquals(3, receive(3));
+		client.disconnect();
+	}
+
+	@Test
+	public void testBinaryFormat() throws Exception {
+		JmsClient receiver = new JmsClient();
+		receiver.connect("localhost", port, null, null);
+
+		BlockingQueue<ApplicationMessage> received = new ArrayBlockingQueue<>(1);
+		receiver.registerListener(message -> received.offer(message));
+		receiver.consumeNotifications(true);
+
+		JmsClient sender = new JmsClient();
+		sender.connect("localhost", port, null, null);
+		sender.setWireFormat(WireFormat.CBOR);
+		sender.sendNotificationMessage(createMessage(1));
+
+		ApplicationMessage message = received.poll(RECEIVE_MSEC, TimeUnit.MILLISECONDS);
+		assertEquals("Message 1", ((CollectorNotificationMessage) message).getText());
+
+		sender.disconnect();
+		receiver.disconnect();
+	}
+
+	@Test
+	public void testUntypedBytes() throws Exception {
+		JmsClient receiver = new JmsClient();
+		receiver.connect("localhost", port, null, null);
+
+		BlockingQueue<ApplicationMessage> received = new ArrayBlockingQueue<>(2);
+		receiver.registerListener(message -> received.offer(message));
+		receiver.consumeNotifications(true);
+
+		MessageProducer producer = session.createProducer(session.createTopic(STATUS_TOPIC));
+
+		// no JMS type and no recognizable content, dropped
+		BytesMessage unknown = session.createBytesMessage();
+		unknown.writeBytes("{}".getBytes(StandardCharsets.UTF_8));
+		producer.send(unknown);
+
+		// no JMS type, so the type comes from the JSON content
+		BytesMessage untyped = session.createBytesMessage();
+		untyped.setStringProperty(JmsClient.CONTENT_TYPE_PROPERTY, WireFormat.JSON.getContentType());
+		untyped.writeBytes(new Gson().toJson(createMessage(2)).getBytes(StandardCharsets.UTF_8));
+		producer.send(untyped);
+
+		ApplicationMessage message = received.poll(RECEIVE_MSEC, TimeUnit.MILLISECONDS);
+		assertEquals("Message 2", ((CollectorNotificationMessage) message).getText());
+		assertNull(received.poll(500, TimeUnit.MILLISECONDS));
+
+		receiver.disconnect();
+	}
+
+	private int receive(int expected) throws Exception {
+		int count = 0;
+		while (count < expected && consumer.receive(RECEIVE_MSEC) != null) {
+			count++;
+		}
+		return count;
+	}
+
+	private ApplicationMessage createMessage(int i) {
+		CollectorNotificationMessage message = new CollectorNotificationMessage("host", "127.0.0.1");
+		message.setText("Message " + i);
+		return message;
+	}
+}
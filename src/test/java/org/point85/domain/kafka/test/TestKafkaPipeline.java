@@ -0,0 +1,203 @@
+package org.point85.domain.kafka.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+import org.point85.domain.kafka.KafkaMessageListener;
+import org.point85.domain.kafka.KafkaOeeClient;
+import org.point85.domain.messaging.ApplicationMessage;
+import org.point85.domain.messaging.EquipmentEventMessage;
+
+import com.google.gson.Gson;
+
+public class TestKafkaPipeline {
+	private static final String TOPIC = KafkaOeeClient.EVENT_TOPIC;
+	private static final int RECORDS_PER_PARTITION = 50;
+	private static final long WAIT_MSEC = 10000;
+
+	@Test
+	public void testPartitionLanes() throws Exception {
+		TopicPartition tp0 = new TopicPartition(TOPIC, 0);
+		TopicPartition tp1 = new TopicPartition(TOPIC, 1);
+
+		MockConsumer<String, byte[]> consumer = new MockConsumer<>("earliest");
+
+		KafkaOeeClient client = new KafkaOeeClient();
+		client.createConsumer(consumer, TOPIC);
+		client.setPollingInterval(50);
+		client.setPipelined(true);
+
+		// values received per source id in order
+		Map<String, List<String>> received = Collections.synchronizedMap(new HashMap<>());
+
+		client.registerListener(new KafkaMessageListener() {
+			@Override
+			public void onKafkaMessage(ApplicationMessage message) {
+				EquipmentEventMessage event = (EquipmentEventMessage) message;
+				received.computeIfAbsent(event.getSourceId(), k -> Collections.synchronizedList(new ArrayList<>()))
+						.add(event.getValue());
+			}
+		});
+
+		// assign the partitions and publish records on the polling thread
+		Gson gson = new Gson();
+
+		consumer.schedulePollTask(() -> {
+			consumer.rebalance(Arrays.asList(tp0, tp1));
+
+			Map<TopicPartition, Long> beginning = new HashMap<>();
+			beginning.put(tp0, 0L);
+			beginning.put(tp1, 0L);
+			consumer.updateBeginningOffsets(beginning);
+
+			for (int i = 0; i < RECORDS_PER_PARTITION; i++) {
+				consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "k", toJson(gson, "source0", i)));
+				consumer.addRecord(new ConsumerRecord<>(TOPIC, 1, i, "k", toJson(gson, "source1", i)));
+			}
+		});
+
+		client.startPolling();
+
+		Set<TopicPartition> partitions = new HashSet<>(Arrays.asList(tp0, tp1));
+		long deadline = System.currentTimeMillis() + WAIT_MSEC;
+		Map<TopicPartition, OffsetAndMetadata> committed = null;
+
+		while (System.currentTimeMillis() < deadline) {
+			committed = consumer.committed(partitions);
+
+			if (isCommitted(committed, tp0) && isCommitted(committed, tp1)) {
+				break;
+			}
+			Thread.sleep(50);
+		}
+		client.stopPolling();
+
+		assertTrue(isCommitted(committed, tp0));
+		assertTrue(isCommitted(committed, tp1));
+		assertEquals(2L * RECORDS_PER_PARTITION, client.getProcessedCount());
+
+		// per-partition order is preserved
+		for (String sourceId : Arrays.asList("source0", "source1")) {
+			List<String> values = received.get(sourceId);
+			assertEquals(RECORDS_PER_PARTITION, values.size());
+
+			for (int i = 0; i < RECORDS_PER_PARTITION; i++) {
+				assertEquals(String.valueOf(i), values.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void testFailedRecordRetried() throws Exception {
+		TopicPartition tp = new TopicPartition(TOPIC, 0);
+		final int count = 10;
+		final int failing = 5;
+
+		MockConsumer<String, byte[]> consumer = new MockConsumer<>("earliest");
+
+		KafkaOeeClient client = new KafkaOeeClient();
+		client.createConsumer(consumer, TOPIC);
+		client.setPollingInterval(50);
+		client.setPipelined(true);
+
+		List<String> received = Collections.synchronizedList(new ArrayList<>());
+		AtomicInteger attempts = new AtomicInteger();
+		AtomicReference<OffsetAndMetadata> committedOnRetry = new AtomicReference<>();
+
+		client.registerListener(new KafkaMessageListener() {
+			@Override
+			public void onKafkaMessage(ApplicationMessage message) {
+				// not used in pipeline mode
+			}
+
+			@Override
+			public void processKafkaMessage(ApplicationMessage message) throws Exception {
+				String value = ((EquipmentEventMessage) message).getValue();
+
+				if (value.equals(String.valueOf(failing))) {
+					// e.g. the database is down
+					if (attempts.incrementAndGet() < 3) {
+						throw new Exception("Unable to save");
+					}
+					committedOnRetry.set(consumer.committed(Collections.singleton(tp)).get(tp));
+				}
+				received.add(value);
+			}
+		});
+
+		// the mock consumer forgets its records after a poll, so add them for every poll
+		Gson gson = new Gson();
+
+		consumer.schedulePollTask(() -> {
+			consumer.rebalance(Collections.singletonList(tp));
+			consumer.updateBeginningOffsets(Collections.singletonMap(tp, 0L));
+		});
+
+		for (int poll = 0; poll < 400; poll++) {
+			consumer.schedulePollTask(() -> {
+				for (int i = 0; i < count; i++) {
+					consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "k", toJson(gson, "source0", i)));
+				}
+
+				// cannot be decoded
+				consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, count, "k", "garbage".getBytes()));
+			});
+		}
+
+		client.startPolling();
+
+		long deadline = System.currentTimeMillis() + WAIT_MSEC;
+		OffsetAndMetadata committed = null;
+
+		while (System.currentTimeMillis() < deadline) {
+			committed = consumer.committed(Collections.singleton(tp)).get(tp);
+
+			if (committed != null && committed.offset() == count + 1) {
+				break;
+			}
+			Thread.sleep(50);
+		}
+		client.stopPolling();
+
+		// the failed record was not committed until it was processed
+		assertEquals(3, attempts.get());
+		assertEquals(failing, committedOnRetry.get().offset());
+
+		assertEquals(count + 1, committed.offset());
+		assertEquals(1, client.getDeadLetterCount());
+
+		// each record processed once, in order
+		assertEquals(count, received.size());
+
+		for (int i = 0; i < count; i++) {
+			assertEquals(String.valueOf(i), received.get(i));
+		}
+	}
+
+	private static boolean isCommitted(Map<TopicPartition, OffsetAndMetadata> committed, TopicPartition partition) {
+		OffsetAndMetadata offset = committed != null ? committed.get(partition) : null;
+		return offset != null && offset.offset() == RECORDS_PER_PARTITION;
+	}
+
+	private static byte[] toJson(Gson gson, String sourceId, int value) {
+		EquipmentEventMessage message = new EquipmentEventMessage(sourceId, String.valueOf(value), null);
+		return gson.toJson(message).getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,81 @@
+package org.point85.domain.metrics.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.point85.domain.metrics.Counter;
+import org.point85.domain.metrics.DurationHistogram;
+import org.point85.domain.metrics.MetricsRegistry;
+
+public class TestMetricsRegistry {
+	private static final double DELTA = 1.0E-09;
+
+	@Test
+	public void testCounter() {
+		MetricsRegistry registry = MetricsRegistry.instance();
+
+		Counter counter = registry.counter("test_events_total", "Test events", "source", "HTTP");
+		assertSame(counter, registry.counter("test_events_total", "Test events", "source", "HTTP"));
+
+		counter.increment();
+		counter.add(2);
+		assertEquals(3, counter.getCount());
+
+		String text = registry.toPrometheusText();
+		assertTrue(text.contains("# HELP test_events_total Test events\n"));
+		assertTrue(text.contains("# TYPE test_events_total counter\n"));
+		assertTrue(text.contains("test_events_total{source=\"HTTP\"} 3\n"));
+	}
+
+	@Test
+	public void testHistogram() {
+		MetricsRegistry registry = MetricsRegistry.instance();
+
+		DurationHistogram histogram = registry.histogram("test_save_seconds", "Test save time");
+		histogram.record(2_000_000L);
+		histogram.record(40_000_000L);
+
+		assertEquals(2, histogram.getCount());
+		assertEquals(0.042d, histogram.getSumSeconds(), DELTA);
+		assertEquals(0.04d, histogram.getMaxSeconds(), DELTA);
+
+		String text = registry.toPrometheusText();
+		assertTrue(text.contains("# TYPE test_save_seconds histogram\n"));
+		assertTrue(text.contains("test_save_seconds_bucket{le=\"+Inf\"} 2\n"));
+		assertTrue(text.contains("test_save_seconds_count 2\n"));
+
+		Map<String, Double> snapshot = registry.snapshot();
+		assertEquals(2.0d, snapshot.get("test_save_seconds_count"), DELTA);
+	}
+
+	@Test
+	public void testNamedSnapshot() {
+		MetricsRegistry registry = MetricsRegistry.instance();
+		registry.counter("test_summary_total", "Summarized").increment();
+		registry.counter("test_detail_total", "Not summarized").increment();
+
+		Map<String, Double> snapshot = registry.snapshot(Set.of("test_summary_total"));
+		assertEquals(1, snapshot.size());
+		assertEquals(1.0d, snapshot.get("test_summary_total"), DELTA);
+	}
+
+	@Test
+	public void testGauge() {
+		MetricsRegistry registry = MetricsRegistry.instance();
+		registry.gauge("test_queue_depth", "Test queue depth", () -> 7, "name", "a\"b");
+
+		assertTrue(registry.toPrometheusText().contains("test_queue_depth{name=\"a\\\"b\"} 7\n"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTypeConflict() {
+		MetricsRegistry registry = MetricsRegistry.instance();
+		registry.counter("test_conflict", "Conflict");
+		registry.histogram("test_conflict", "Conflict");
+	}
+}
@@ -0,0 +1,168 @@
+package org.point85.domain.mqtt.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.activemq.broker.BrokerService;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.point85.domain.messaging.CollectorNotificationMessage;
+import org.point85.domain.mqtt.MqttOeeClient;
+import org.point85.domain.mqtt.QualityOfService;
+
+public class TestMqttPublisher {
+	private static final String REQUEST_TOPIC = "Point85_Request";
+	private static final String REPLY_TOPIC = "Point85_Reply";
+	private static final long WAIT_MSEC = 10000;
+
+	private BrokerService broker;
+	private int port;
+
+	@Before
+	public void startBroker() throws Exception {
+		broker = new BrokerService();
+		broker.setPersistent(false);
+		broker.setUseJmx(false);
+		port = broker.addConnector("mqtt://localhost:0").getUri().getPort();
+		broker.start();
+		broker.waitUntilStarted();
+	}
+
+	@After
+	public void stopBroker() throws Exception {
+		broker.stop();
+		broker.waitUntilStopped();
+	}
+
+	@Test
+	public void testInflightWindow() throws Exception {
+		final int count = 200;
+		CountDownLatch received = new CountDownLatch(count);
+
+		MqttOeeClient subscriber = new MqttOeeClient();
+		subscriber.startUp("localhost", port, message -> received.countDown());
+		subscriber.subscribeToNotifications(QualityOfService.AT_LEAST_ONCE);
+
+		MqttOeeClient publisher = new MqttOeeClient();
+		publisher.setMaxInflight(5);
+		publisher.connect("localhost", port);
+
+		for (int i = 0; i < count; i++) {
+			CollectorNotificationMessage message = new CollectorNotificationMessage("host", "127.0.0.1");
+			message.setText("Notification " + i);
+			publisher.sendNotificationMessage(message);
+
+			assertTrue(publisher.getInflightCount() <= 5);
+		}
+
+		assertTrue(publisher.flush(WAIT_MSEC));
+		assertEquals(0, publisher.getInflightCount());
+		assertEquals(count, publisher.getPublishedCount());
+		assertEquals(0, publisher.getFailedCount());
+
+		assertTrue(received.await(WAIT_MSEC, TimeUnit.MILLISECONDS));
+
+		publisher.disconnect();
+		subscriber.disconnect();
+	}
+
+	@Test
+	public void testPublishAndWait() throws Exception {
+		// echo requests back in upper case, in order and after any delay
+		MqttAsyncClient responder = new MqttAsyncClient("tcp://localhost:" + port,
+				MqttAsyncClient.generateClientId(), new MemoryPersistence());
+		responder.connect().waitForCompletion(WAIT_MSEC);
+		responder.subscribe(REQUEST_TOPIC, 1, (topic, msg) -> {
+			String text = new String(msg.getPayload(), StandardCharsets.UTF_8);
+
+			if (text.equals("late")) {
+				Thread.sleep(1500);
+			}
+			responder.publish(REPLY_TOPIC, text.toUpperCase().getBytes(StandardCharsets.UTF_8), 1, false);
+		}).waitForCompletion(WAIT_MSEC);
+
+		MqttOeeClient client = new MqttOeeClient();
+		client.connect("localhost", port);
+		client.subscribeToTopic(REPLY_TOPIC);
+
+		assertEquals("PING", client.publishAndWait(REQUEST_TOPIC, "ping", QualityOfService.AT_LEAST_ONCE, 5));
+
+		// the late response to a timed out request is not taken as the next response
+		assertNull(client.publishAndWait(REQUEST_TOPIC, "late", QualityOfService.AT_LEAST_ONCE, 1));
+		assertEquals("NEXT", client.publishAndWait(REQUEST_TOPIC, "next", QualityOfService.AT_LEAST_ONCE, 5));
+
+		// no responder
+		assertNull(client.publishAndWait("Point85_Nowhere", "ping", QualityOfService.AT_LEAST_ONCE, 1));
+
+		client.disconnect();
+		responder.disconnect().waitForCompletion(WAIT_MSEC);
+		responder.close();
+	}
+
+	@Test
+	public void testPublishForReply() throws Exception {
+		// echo requests back in upper case to the reply topic with the same correlation id
+		MqttAsyncClient responder = new MqttAsyncClient("tcp://localhost:" + port,
+				MqttAsyncClient.generateClientId(), new MemoryPersistence());
+		responder.connect().waitForCompletion(WAIT_MSEC);
+		responder.subscribe(REQUEST_TOPIC + "/+", 1, (topic, msg) -> {
+			String text = new String(msg.getPayload(), StandardCharsets.UTF_8);
+			String replyTopic = REPLY_TOPIC + topic.substring(REQUEST_TOPIC.length());
+
+			// answer the slow request after the fast one
+			new Thread(() -> {
+				try {
+					if (text.equals("slow")) {
+						Thread.sleep(500);
+					}
+					responder.publish(replyTopic, text.toUpperCase().getBytes(StandardCharsets.UTF_8), 1, false);
+				} catch (Exception e) {
+					// the request times out
+				}
+			}).start();
+		}).waitForCompletion(WAIT_MSEC);
+
+		MqttOeeClient client = new MqttOeeClient();
+		client.connect("localhost", port);
+		client.subscribeToTopic(REPLY_TOPIC);
+
+		CompletableFuture<String> slow = client.publishForReply(REQUEST_TOPIC, "slow", QualityOfService.EXACTLY_ONCE);
+		CompletableFuture<String> fast = client.publishForReply(REQUEST_TOPIC, "fast", QualityOfService.EXACTLY_ONCE);
+		assertEquals("FAST", fast.get(5, TimeUnit.SECONDS));
+		assertEquals("SLOW", slow.get(5, TimeUnit.SECONDS));
+
+		// replies to unknown requests are discarded
+		responder.publish(REPLY_TOPIC + "/999", "STRAY".getBytes(StandardCharsets.UTF_8), 1, false)
+				.waitForCompletion(WAIT_MSEC);
+		assertEquals("AGAIN", client.publishForReply(REQUEST_TOPIC, "again", QualityOfService.AT_LEAST_ONCE)
+				.get(5, TimeUnit.SECONDS));
+
+		// an unanswered request times out and is forgotten
+		CompletableFuture<String> unanswered = client.publishForReply("Point85_Unanswered", "none",
+				QualityOfService.AT_LEAST_ONCE, 1);
+
+		try {
+			unanswered.get(5, TimeUnit.SECONDS);
+			fail("Expected a timeout");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		assertEquals(0, client.getPendingReplyCount());
+
+		client.disconnect();
+		responder.disconnect().waitForCompletion(WAIT_MSEC);
+		responder.close();
+	}
+}
@@ -0,0 +1,137 @@
+package org.point85.domain.plant.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.Hibernate;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.point85.domain.persistence.PersistenceService;
+import org.point85.domain.plant.Area;
+import org.point85.domain.plant.Enterprise;
+import org.point85.domain.plant.Equipment;
+import org.point85.domain.plant.PlantEntity;
+import org.point85.domain.plant.ProductionLine;
+import org.point85.domain.plant.Site;
+
+public class TestPlantEntityFetch {
+	private static final int ENTITY_COUNT = 9;
+
+	@BeforeClass
+	public static void createHierarchy() throws Exception {
+		System.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+		PersistenceService.instance().initialize("jdbc:hsqldb:mem:plant-entity", "SA", "");
+
+		// Acme > (Denver > Packaging > Line1 > (Filler, Capper), Austin)
+		Enterprise acme = new Enterprise("Acme", "enterprise");
+		Site denver = new Site("Denver", "site");
+		Area packaging = new Area("Packaging", "area");
+		ProductionLine line = new ProductionLine("Line1", "line");
+
+		acme.addChild(denver);
+		acme.addChild(new Site("Austin", "site"));
+		denver.addChild(packaging);
+		packaging.addChild(line);
+		line.addChild(new Equipment("Filler", "equipment"));
+		line.addChild(new Equipment("Capper", "equipment"));
+		PersistenceService.instance().save(acme);
+
+		// Globex > Boston
+		Enterprise globex = new Enterprise("Globex", "enterprise");
+		globex.addChild(new Site("Boston", "site"));
+		PersistenceService.instance().save(globex);
+	}
+
+	@AfterClass
+	public static void close() {
+		PersistenceService.instance().close();
+	}
+
+	@Test
+	public void testSubtree() throws Exception {
+		List<PlantEntity> entities = PersistenceService.instance().fetchPlantEntityHierarchy("Denver");
+
+		// by depth, then name
+		assertEquals(List.of("Denver", "Packaging", "Line1", "Capper", "Filler"), getNames(entities));
+		assertParentsFirst(entities, "Denver");
+	}
+
+	@Test
+	public void testWholeTree() throws Exception {
+		List<PlantEntity> entities = PersistenceService.instance().fetchPlantEntityHierarchy(null);
+
+		assertEquals(ENTITY_COUNT, entities.size());
+		assertEquals(List.of("Acme", "Globex", "Austin", "Boston", "Denver"), getNames(entities).subList(0, 5));
+		assertParentsFirst(entities, null);
+	}
+
+	@Test
+	public void testLevels() throws Exception {
+		PlantEntity acme = PersistenceService.instance().fetchPlantEntityByName("Acme", 2);
+
+		// loaded before the session closed
+		assertTrue(Hibernate.isInitialized(acme.getChildren()));
+		assertEquals(2, acme.getChildren().size());
+
+		PlantEntity denver = findChild(acme, "Denver");
+		assertTrue(Hibernate.isInitialized(denver.getChildren()));
+
+		// below the requested levels
+		PlantEntity packaging = findChild(denver, "Packaging");
+		assertFalse(Hibernate.isInitialized(packaging.getChildren()));
+
+		// no levels
+		assertFalse(Hibernate.isInitialized(
+				PersistenceService.instance().fetchPlantEntityByName("Acme").getChildren()));
+	}
+
+	@Test
+	public void testAllEntities() throws Exception {
+		List<PlantEntity> entities = PersistenceService.instance().fetchAllPlantEntities();
+
+		// one per entity, not one per child row of the join
+		Set<Long> keys = new HashSet<>();
+		for (PlantEntity entity : entities) {
+			keys.add(entity.getKey());
+			assertTrue(Hibernate.isInitialized(entity.getChildren()));
+		}
+		assertEquals(ENTITY_COUNT, entities.size());
+		assertEquals(ENTITY_COUNT, keys.size());
+	}
+
+	private static List<String> getNames(List<PlantEntity> entities) {
+		List<String> names = new ArrayList<>();
+		for (PlantEntity entity : entities) {
+			names.add(entity.getName());
+		}
+		return names;
+	}
+
+	// every entity except the root follows its parent
+	private static void assertParentsFirst(List<PlantEntity> entities, String rootName) {
+		Set<String> seen = new HashSet<>();
+
+		for (PlantEntity entity : entities) {
+			if (!entity.getName().equals(rootName) && entity.getParent() != null) {
+				assertTrue(entity.getName(), seen.contains(entity.getParent().getName()));
+			}
+			seen.add(entity.getName());
+		}
+	}
+
+	private static PlantEntity findChild(PlantEntity parent, String name) {
+		for (PlantEntity child : parent.getChildren()) {
+			if (child.getName().equals(name)) {
+				return child;
+			}
+		}
+		throw new AssertionError("No child " + name);
+	}
+}
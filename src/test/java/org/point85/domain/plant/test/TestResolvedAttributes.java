@@ -0,0 +1,64 @@
+package org.point85.domain.plant.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.Test;
+import org.point85.domain.plant.Area;
+import org.point85.domain.plant.EntitySchedule;
+import org.point85.domain.plant.Equipment;
+import org.point85.domain.schedule.WorkSchedule;
+
+public class TestResolvedAttributes {
+	private static final LocalDateTime JAN = LocalDateTime.of(2024, 1, 1, 0, 0);
+	private static final LocalDateTime FEB = LocalDateTime.of(2024, 2, 1, 0, 0);
+	private static final LocalDateTime MAR = LocalDateTime.of(2024, 3, 1, 0, 0);
+	private static final LocalDateTime DEC = LocalDateTime.of(2024, 12, 1, 0, 0);
+
+	@Test
+	public void testScheduleTimeline() throws Exception {
+		WorkSchedule areaSchedule = new WorkSchedule("Area", "Area schedule");
+		WorkSchedule equipmentSchedule = new WorkSchedule("Equipment", "Equipment schedule");
+
+		Area area = new Area("Area", "Area");
+		Equipment equipment = new Equipment("Equipment", "Equipment");
+		area.addChild(equipment);
+
+		area.addEntitySchedule(new EntitySchedule(area, areaSchedule, JAN, DEC));
+		equipment.addEntitySchedule(new EntitySchedule(equipment, equipmentSchedule, FEB, MAR));
+
+		// the equipment's own schedule, else the area's
+		assertEquals(areaSchedule, equipment.findWorkSchedule(JAN.plusDays(1)));
+		assertEquals(equipmentSchedule, equipment.findWorkSchedule(FEB.plusDays(1)));
+		assertEquals(areaSchedule, equipment.findWorkSchedule(MAR.plusDays(1)));
+
+		// periods are open at both ends
+		assertEquals(areaSchedule, equipment.findWorkSchedule(FEB));
+		assertNull(equipment.findWorkSchedule(JAN));
+		assertNull(equipment.findWorkSchedule(JAN.minusDays(1)));
+		assertNull(equipment.findWorkSchedule(DEC.plusDays(1)));
+
+		// a change to the parent is seen by the child
+		area.removeEntitySchedule(area.getSchedules().iterator().next());
+		assertNull(equipment.findWorkSchedule(JAN.plusDays(1)));
+		assertEquals(equipmentSchedule, equipment.findWorkSchedule(FEB.plusDays(1)));
+	}
+
+	@Test
+	public void testRetentionPeriod() throws Exception {
+		Area area = new Area("Area", "Area");
+		Equipment equipment = new Equipment("Equipment", "Equipment");
+		area.addChild(equipment);
+
+		assertNull(equipment.findRetentionPeriod());
+
+		area.setRetentionDuration(Duration.ofDays(30));
+		assertEquals(Duration.ofDays(30), equipment.findRetentionPeriod());
+
+		equipment.setRetentionDuration(Duration.ZERO);
+		assertEquals(Duration.ZERO, equipment.findRetentionPeriod());
+	}
+}
@@ -0,0 +1,127 @@
+package org.point85.domain.socket.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.point85.domain.messaging.ApplicationMessage;
+import org.point85.domain.messaging.CollectorResolvedEventMessage;
+import org.point85.domain.messaging.CollectorServerStatusMessage;
+import org.point85.domain.messaging.MessageType;
+import org.point85.domain.socket.WebSocketOeeServer;
+import org.point85.domain.socket.WebSocketSource;
+import org.point85.domain.socket.WebSocketUtils;
+
+public class TestWebSocketBroadcast {
+	private static final long WAIT_MSEC = 5000;
+
+	private WebSocketOeeServer server;
+
+	@Before
+	public void startServer() throws Exception {
+		WebSocketSource source = new WebSocketSource("test", "test server");
+		source.setHost("localhost");
+		source.setPort(0);
+
+		server = new WebSocketOeeServer(source);
+		server.startup();
+
+		long deadline = System.currentTimeMillis() + WAIT_MSEC;
+		while (!server.isStarted() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(server.isStarted());
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		server.shutdown();
+	}
+
+	@Test
+	public void testEquipmentFilter() throws Exception {
+		Listener press1 = new Listener("/?equipment=Press%201");
+		Listener all = new Listener("/");
+
+		// both clients are subscribed before anything is broadcast
+		long deadline = System.currentTimeMillis() + WAIT_MSEC;
+		while (server.getSubscriberCount() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(2, server.getSubscriberCount());
+
+		server.broadcast(createResolvedEvent("Press 1"));
+		server.broadcast(createResolvedEvent("Press 2"));
+		server.broadcast(new CollectorServerStatusMessage("host", "127.0.0.1"));
+
+		// filtered client gets its equipment and status messages
+		assertEquals("Press 1", receiveEquipmentName(press1));
+		assertEquals(MessageType.STATUS, press1.receive().getMessageType());
+		assertNull(press1.messages.poll(200, TimeUnit.MILLISECONDS));
+
+		// unfiltered client gets everything in order
+		assertEquals("Press 1", receiveEquipmentName(all));
+		assertEquals("Press 2", receiveEquipmentName(all));
+		assertEquals(MessageType.STATUS, all.receive().getMessageType());
+
+		assertEquals(0, server.getDroppedCount());
+
+		press1.closeBlocking();
+		all.closeBlocking();
+	}
+
+	private CollectorResolvedEventMessage createResolvedEvent(String equipmentName) {
+		CollectorResolvedEventMessage message = new CollectorResolvedEventMessage("host", "127.0.0.1");
+		message.setEquipmentName(equipmentName);
+		return message;
+	}
+
+	private String receiveEquipmentName(Listener listener) throws Exception {
+		return ((CollectorResolvedEventMessage) listener.receive()).getEquipmentName();
+	}
+
+	private class Listener extends WebSocketClient {
+		private final BlockingQueue<String> messages = new ArrayBlockingQueue<>(100);
+
+		private Listener(String resource) throws Exception {
+			super(new URI("ws://localhost:" + server.getPort() + resource));
+			assertTrue(connectBlocking(WAIT_MSEC, TimeUnit.MILLISECONDS));
+		}
+
+		private ApplicationMessage receive() throws Exception {
+			String json = messages.poll(WAIT_MSEC, TimeUnit.MILLISECONDS);
+			assertTrue(json != null);
+			return WebSocketUtils.deserialize(json);
+		}
+
+		@Override
+		public void onOpen(ServerHandshake handshake) {
+			// nothing to do
+		}
+
+		@Override
+		public void onMessage(String message) {
+			messages.add(message);
+		}
+
+		@Override
+		public void onClose(int code, String reason, boolean remote) {
+			// nothing to do
+		}
+
+		@Override
+		public void onError(Exception e) {
+			// nothing to do
+		}
+	}
+}